@@ -2,8 +2,12 @@ package io.mats3.matsbrokermonitor.activemq;
 
 import java.io.Closeable;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalDouble;
+import java.util.Set;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.function.Consumer;
 
@@ -27,21 +31,340 @@ public interface ActiveMqBrokerStatsQuerier extends Closeable {
 
     void setMatsDestinationPrefix(String matsDestinationPrefix);
 
+    /**
+     * Whether to only query for the Mats destinations, instead of all destinations on the broker. Default is
+     * <code>false</code>, i.e. all queues and topics are queried using the wildcard
+     * <code>"ActiveMQ.Statistics.Destination.&gt;"</code>, which also results in replies for advisory topics and any
+     * non-Mats queues and topics. If set to <code>true</code>, only the Mats destinations (using the
+     * {@link #setMatsDestinationPrefix(String) MatsDestinationPrefix}), their individual DLQs (prefixed with "DLQ."),
+     * and the global DLQ "ActiveMQ.DLQ" are queried. This cuts broker work, reply traffic and parse time if the broker
+     * also serves other things than Mats. Note that this requires that the MatsDestinationPrefix ends with a dot, as
+     * wildcards in ActiveMQ only work on whole "segments" of the destination name - if not, it falls back to querying
+     * all destinations.
+     * <p>
+     * Must be set before {@link #start()}.
+     *
+     * @param queryMatsDestinationsOnly
+     *            whether to only query for the Mats destinations.
+     */
+    void setQueryMatsDestinationsOnly(boolean queryMatsDestinationsOnly);
+
+    /**
+     * Include and exclude patterns for the fully qualified names of the destinations to hold statistics for, e.g.
+     * <code>"topic://ActiveMQ.Advisory.*"</code> or <code>"queue://mats.*"</code>, where <code>'*'</code> matches any
+     * sequence of characters (also dots). A destination is kept if it matches any of the include patterns (or there
+     * are none), and none of the exclude patterns. The replies for other destinations are dropped in the receive loop
+     * before they are parsed, so that destinations we never want to see do not take heap, parse time, or time in the
+     * aggregation of every snapshot. Default is to keep all.
+     * <p>
+     * Note that this is applied after the statistics are requested: To cut the broker's work, see
+     * {@link #setQueryMatsDestinationsOnly(boolean)}. All nodes should use the same patterns, as the nodes share the
+     * statistics.
+     * <p>
+     * Must be set before {@link #start()}.
+     *
+     * @param includePatterns
+     *            the patterns of which a destination must match one, <code>null</code> or empty to include all.
+     * @param excludePatterns
+     *            the patterns of which a destination must match none, <code>null</code> or empty to exclude none.
+     */
+    void setDestinationFilter(Collection<String> includePatterns, Collection<String> excludePatterns);
+
+    /**
+     * Whether to track the creation and deletion of queues and topics using the ActiveMQ Advisory topics
+     * <code>"ActiveMQ.Advisory.Queue"</code> and <code>"ActiveMQ.Advisory.Topic"</code>. Default is
+     * <code>false</code>. If enabled, destinations are added to and removed from the
+     * {@link #getCurrentDestinationStatsDtos() current destination stats} as soon as the broker reports it, and an
+     * {@link ActiveMqBrokerStatsEvent} is emitted (not
+     * {@link ActiveMqBrokerStatsEvent#isStatsEventOriginatedOnThisNode() originated on this node}, as all nodes get the
+     * advisory). A newly created destination is added as a placeholder whose statistics are unknown (not zero - its
+     * <code>placeholder</code> flag is set), and will get its actual statistics on the next
+     * statistics request. A deleted destination is tombstoned with the broker time of the deletion, so that statistics
+     * produced before it (a late reply to a sweep, or a snapshot from another node) do not bring it back. The time
+     * based scavenging of destinations that haven't gotten statistics updates for a while still runs at the end of
+     * each statistics batch, as a backstop catching deletions missed while the subscription was not up - but it only
+     * visits the destinations whose statistics are old.
+     * <p>
+     * Must be set before {@link #start()}.
+     *
+     * @param trackDestinationsUsingAdvisories
+     *            whether to track creation and deletion of destinations using ActiveMQ's Advisory topics.
+     */
+    void setTrackDestinationsUsingAdvisories(boolean trackDestinationsUsingAdvisories);
+
+    /**
+     * Whether to subscribe to the ActiveMQ Advisory topics <code>"ActiveMQ.Advisory.MessageDLQd.&gt;"</code>, which the
+     * broker emits each time a message is DLQed. Default is <code>false</code>. If enabled, each such advisory results
+     * in an {@link ActiveMqDlqArrivalEvent} to the {@link #registerDlqArrivalListener(Consumer) DLQ arrival listeners},
+     * and a targeted statistics request for only the affected DLQ (both the individual DLQ "DLQ.{destinationName}" and
+     * the global DLQ "ActiveMQ.DLQ", since we do not know the DLQ policy of the broker), which results in an
+     * {@link ActiveMqBrokerStatsEvent} when the replies come in. This gives DLQ notifications with a latency of about a
+     * second, instead of waiting for the next statistics request.
+     * <p>
+     * Must be set before {@link #start()}.
+     *
+     * @param notifyDlqArrivalsUsingAdvisories
+     *            whether to subscribe to ActiveMQ's "MessageDLQd" Advisory topics.
+     */
+    void setNotifyDlqArrivalsUsingAdvisories(boolean notifyDlqArrivalsUsingAdvisories);
+
+    /**
+     * Whether to elect a leader among the nodes querying the same broker, so that only the leader sends the scheduled
+     * statistics requests. Default is <code>false</code>, where the nodes coordinate by randomized intervals and
+     * skipping a request if the last statistics are fresh - which still may lead to concurrent requests. If enabled,
+     * each node consumes the lock queue <code>"matsbrokermonitor.MatsBrokerMonitor.ActiveMQ.LeaderElection"</code>
+     * using an ActiveMQ exclusive consumer, and sends heartbeats to it: The broker only dispatches to one of the
+     * consumers, and the node receiving the heartbeats is the leader. If the leader's connection drops, the broker
+     * moves the exclusivity to another consumer, which then becomes leader. The followers only consume the replies -
+     * unless the statistics are overdue by two intervals, in which case they do the request anyway, to handle that the
+     * leader has a problem other than losing its connection.
+     * <p>
+     * Note: Forced updates are still requested by the node on which they were invoked.
+     * <p>
+     * Must be set before {@link #start()}.
+     *
+     * @param useLeaderElection
+     *            whether to elect a leader which alone does the scheduled statistics requests.
+     */
+    void setUseLeaderElection(boolean useLeaderElection);
+
+    /**
+     * @return whether this node currently is the leader, if {@link #setUseLeaderElection(boolean) leader election} is
+     *         enabled - always <code>false</code> if not.
+     */
+    boolean isLeader();
+
+    /**
+     * Whether the node that requested the statistics shall distribute them to the other nodes as a single compressed
+     * snapshot message, instead of all nodes consuming all the statistics reply messages from the broker. Default is
+     * <code>false</code>. With many destinations and many nodes, the number of reply messages the broker must send is
+     * the number of destinations times the number of nodes: Using snapshot distribution, the replies go to a
+     * node-specific topic, so that the broker only sends them to the requesting node, which then publishes the result
+     * on the topic <code>"matsbrokermonitor.MatsBrokerMonitor.ActiveMQ.Snapshot"</code>. The other nodes install the
+     * snapshot as if they had received the replies themselves.
+     * <p>
+     * Note: All nodes querying the same broker must use the same setting, as a node not using snapshot distribution
+     * will not receive the statistics requested by a node using it, and vice versa.
+     * <p>
+     * Must be set before {@link #start()}.
+     *
+     * @param useSnapshotDistribution
+     *            whether to distribute statistics to the other nodes as a single compressed snapshot message.
+     */
+    void setUseSnapshotDistribution(boolean useSnapshotDistribution);
+
+    /**
+     * Whether the sweeps shall request the timestamp of the first message only for the destinations that have messages,
+     * in a second, targeted, request right after the sweep. Default is <code>false</code>, where every request asks
+     * for it. To find the first message's timestamp, the broker must page in the head message of every destination on
+     * every sweep, which is expensive for persistent queues that have been paged out. Since the vast majority of
+     * destinations typically are empty, this two-tier approach cuts the broker's work per sweep considerably.
+     * <p>
+     * Between the sweep and the second request, a non-empty destination keeps the first message timestamp it had - so
+     * the head message age might for a short while be for a message that has already been consumed.
+     * <p>
+     * Must be set before {@link #start()}.
+     *
+     * @param firstMessageTimestampsOnlyForNonEmpty
+     *            whether to request the first message timestamps only for destinations having messages.
+     */
+    void setFirstMessageTimestampsOnlyForNonEmpty(boolean firstMessageTimestampsOnlyForNonEmpty);
+
+    /**
+     * Spreads the scheduled sweeps over the interval, in the given number of shards, instead of requesting the
+     * statistics of all destinations at once - so that the broker sees a steady trickle of statistics requests and
+     * replies instead of a spike competing with the actual traffic. Default is <code>0</code>, i.e. not sharded. The
+     * Mats destinations are split by their endpoint group (the part after the {@link #setMatsDestinationPrefix(String)
+     * Mats destination prefix} up to the next dot), balanced on the number of destinations in each shard. The shards of
+     * a sweep carry the same correlationId, and only the last requests the terminator - so the listeners still get one
+     * event when the whole sweep is done, with a full picture.
+     * <p>
+     * Only applies when {@link #setQueryMatsDestinationsOnly(boolean) querying only the Mats destinations}, as other
+     * destinations can't be split by wildcard. The endpoint groups are found from the destinations we know of, so the
+     * first sweep, the full updates and forced updates are not sharded, and pick up new endpoint groups.
+     * <p>
+     * Must be set before {@link #start()}.
+     *
+     * @param numberOfShards
+     *            the number of shards to split the scheduled sweeps into, <code>0</code> or <code>1</code> to not
+     *            shard.
+     */
+    void setSweepShards(int numberOfShards);
+
+    /**
+     * Polls the "hot" destinations with targeted statistics requests at the given interval, which should be much
+     * shorter than the update interval - giving fast feedback on the problem destinations at a tiny fraction of the
+     * cost of shortening the interval of the full sweeps. Default is <code>0</code>, i.e. no polling. A destination is
+     * hot if it is a DLQ with messages where the number changed since the previous sweep, or a queue whose head message
+     * age is rising and is at least 30 seconds. It stays hot until it hasn't qualified for 3 sweeps in a row. At most
+     * 100 destinations are polled. The results are merged into the current statistics, and the listeners are notified
+     * with partial updates.
+     * <p>
+     * The node that did the last sweep does the polling.
+     * <p>
+     * Must be set before {@link #start()}.
+     *
+     * @param pollIntervalMillis
+     *            the interval between the polls of the hot destinations, <code>0</code> to not poll.
+     */
+    void setHotDestinationPollInterval(long pollIntervalMillis);
+
+    /**
+     * Enables an adaptive interval between the scheduled statistics requests, instead of the fixed interval given at
+     * construction - which then is the interval used when nothing special is going on. After each full set of
+     * statistics, the interval is set to the floor if the number of messages on DLQs has grown, or if any head message
+     * (not on DLQs) is older than the threshold. It is halved (down to the floor) if the number of queued messages is
+     * rising, and doubled (up to the ceiling) if no messages are queued. Thus, incidents are followed closely, while
+     * quiet periods do not waste requests. The current interval and reason is available from
+     * {@link #getEffectiveUpdateIntervalMillis()} and {@link #getEffectiveUpdateIntervalReason()}.
+     * <p>
+     * Note: The nodes evaluate the same statistics, and should thus agree on the interval - but they should be
+     * configured the same.
+     * <p>
+     * Must be set before {@link #start()}.
+     *
+     * @param floorIntervalMillis
+     *            the shortest interval, used when something is wrong.
+     * @param ceilingIntervalMillis
+     *            the longest interval, backed off to when nothing is queued.
+     * @param headMessageAgeThresholdMillis
+     *            if any head message is older than this, the interval is set to the floor.
+     */
+    void setAdaptiveUpdateInterval(long floorIntervalMillis, long ceilingIntervalMillis,
+            long headMessageAgeThresholdMillis);
+
+    /**
+     * @return the interval currently used between the scheduled statistics requests - the fixed interval unless
+     *         {@link #setAdaptiveUpdateInterval(long, long, long) adaptive interval} is enabled.
+     */
+    long getEffectiveUpdateIntervalMillis();
+
+    /**
+     * @return a human readable reason for the {@link #getEffectiveUpdateIntervalMillis() current interval}, starting
+     *         with a keyword: <code>"FIXED"</code>, <code>"NORMAL"</code>, <code>"DLQ_GROWING"</code>,
+     *         <code>"HEAD_MESSAGE_AGE"</code>, <code>"QUEUE_DEPTH_RISING"</code> or <code>"IDLE"</code>.
+     */
+    String getEffectiveUpdateIntervalReason();
+
+    /**
+     * Registers a listener for statistics updates. Each listener is invoked on its own thread, so that a slow listener
+     * never holds back the reception of statistics: If an event arrives while the previous is still waiting to be
+     * dispatched to the listener, they are merged (the union of correlationIds and partially updated destinations, and
+     * full update if either was) - so a slow listener only sees the latest state.
+     */
     void registerListener(Consumer<ActiveMqBrokerStatsEvent> listener);
 
+    /**
+     * @return the dispatch statistics for each of the {@link #registerListener(Consumer) registered listeners}.
+     */
+    List<ListenerDispatchStats> getListenerDispatchStats();
+
+    /**
+     * Statistics for the dispatch of events to a listener, to see whether it keeps up.
+     */
+    interface ListenerDispatchStats {
+        /**
+         * @return the class name of the listener.
+         */
+        String getListenerClassName();
+
+        /**
+         * @return the number of times the listener has been invoked.
+         */
+        long getDispatchedCount();
+
+        /**
+         * @return the number of events which were merged into a pending event because the listener was still busy
+         *         with or had not yet gotten the previous - i.e. the number of events the listener did not see
+         *         separately.
+         */
+        long getConflatedCount();
+
+        /**
+         * @return how long the currently pending event has waited for the listener, 0 if none is pending.
+         */
+        double getCurrentLagMillis();
+
+        /**
+         * @return how long the last dispatched event waited for the listener.
+         */
+        double getLastLagMillis();
+
+        /**
+         * @return the longest any event has waited for the listener.
+         */
+        double getMaxLagMillis();
+    }
+
+    /**
+     * Registers a listener for DLQ arrivals, only relevant if
+     * {@link #setNotifyDlqArrivalsUsingAdvisories(boolean) notifyDlqArrivalsUsingAdvisories} is enabled.
+     */
+    void registerDlqArrivalListener(Consumer<ActiveMqDlqArrivalEvent> listener);
+
+    interface ActiveMqDlqArrivalEvent {
+        /**
+         * @return the fully qualified name of the destination the message was DLQed from, e.g. "queue://mats.Service".
+         */
+        String getOriginalFqDestinationName();
+
+        /**
+         * @return the message id of the DLQed message, if present on the advisory.
+         */
+        Optional<String> getOriginalMessageId();
+
+        /**
+         * @return the broker timestamp of the advisory message, i.e. when the message was DLQed.
+         */
+        long getAdvisoryBrokerMillis();
+    }
+
     interface ActiveMqBrokerStatsEvent {
         /**
          * @return the correlationId if this is an event in response to an invocation of
-         *         {@link #forceUpdate(String, boolean)}
+         *         {@link #forceUpdate(String, boolean)} - the first, if several were merged, see
+         *         {@link #getCorrelationIds()}.
          */
         Optional<String> getCorrelationId();
 
+        /**
+         * Forced updates which arrive while another is pending or in flight are merged into one request to the broker,
+         * and the resulting event completes all of them. On the node that sent the request, all the merged
+         * correlationIds are present - other nodes only get the first.
+         *
+         * @return the correlationIds if this is an event in response to invocations of
+         *         {@link #forceUpdate(String, boolean)} or {@link #forceUpdate(String, Collection)}, otherwise an empty
+         *         list.
+         */
+        List<String> getCorrelationIds();
+
         /**
          * @return <code>true</code> if this is an event in response to an invocation of
          *         {@link #forceUpdate(String, boolean)}, and the 'fullUpdate' parameter was true.
          */
         boolean isFullUpdate();
 
+        /**
+         * @return <code>true</code> if this is an event in response to a targeted update of specific destinations,
+         *         e.g. by invocation of {@link #forceUpdate(String, Collection)} - the updated destinations are given
+         *         by {@link #getPartialUpdateFqDestinationNames()}.
+         */
+        boolean isPartialUpdate();
+
+        /**
+         * @return the fully qualified destination names which were updated if this is a
+         *         {@link #isPartialUpdate() partial update}, otherwise an empty set.
+         */
+        Set<String> getPartialUpdateFqDestinationNames();
+
+        /**
+         * @return <code>true</code> if this event is the result of a complete statistics sweep, from this or another
+         *         node - i.e. the current destination stats now hold all the destinations the broker has. Not so for a
+         *         {@link #isPartialUpdate() partial update}, nor for the event resulting from destination advisories
+         *         (see {@link ActiveMqBrokerStatsQuerier#setTrackDestinationsUsingAdvisories(boolean)}).
+         */
+        boolean isCompleteSweep();
+
         /**
          * @return <code>true</code> if this event was the result from a request sent from this node.
          */
@@ -61,7 +384,9 @@ public interface ActiveMqBrokerStatsQuerier extends Closeable {
     }
 
     /**
-     * Requests ASAP update.
+     * Requests ASAP update. If a forced update is already pending or in flight, this is merged with the next
+     * forced update, i.e. several invocations result in one request to the broker, with the union of the 'fullUpdate'
+     * flags, and the resulting {@link ActiveMqBrokerStatsEvent} carries all the correlationIds.
      *
      * @param correlationId
      *            this is only used to propagate through to the update event.
@@ -70,10 +395,32 @@ public interface ActiveMqBrokerStatsQuerier extends Closeable {
      */
     void forceUpdate(String correlationId, boolean fullUpdate);
 
+    /**
+     * Requests ASAP update of only the specified destinations, by sending a statistics request for each of them. The
+     * resulting {@link ActiveMqBrokerStatsEvent} will be {@link ActiveMqBrokerStatsEvent#isPartialUpdate() partial}.
+     *
+     * @param correlationId
+     *            this is only used to propagate through to the update event.
+     * @param fqDestinationNames
+     *            the fully qualified destination names, e.g. "queue://DLQ.mats.Service.method".
+     */
+    void forceUpdate(String correlationId, Collection<String> fqDestinationNames);
+
     Optional<BrokerStatsDto> getCurrentBrokerStatsDto();
 
     ConcurrentNavigableMap<String, DestinationStatsDto> getCurrentDestinationStatsDtos();
 
+    /**
+     * Returns, and forgets, the fully qualified names of the destinations whose {@link DestinationStatsDto} has been
+     * added, replaced or removed in the {@link #getCurrentDestinationStatsDtos() current destination stats} since the
+     * previous invocation - destinations whose stats are unchanged keep their DTO, only getting its timestamps updated.
+     * This lets a single consumer, i.e. the ActiveMqMatsBrokerMonitor, maintain its representation incrementally, with
+     * work proportional to the number of changed destinations.
+     *
+     * @return the names of the changed destinations since last invocation - the first invocation returns all.
+     */
+    Set<String> drainChangedFqDestinationNames();
+
     /**
      * NOTE: Explanations from
      * <a href="https://www.mail-archive.com/users@activemq.apache.org/msg08847.html">users@activemq.apache.org
@@ -82,13 +429,16 @@ public interface ActiveMqBrokerStatsQuerier extends Closeable {
      * ActiveMQ.Agent query mean?</a>, or
      * <a href="https://activemq.apache.org/how-do-i-find-the-size-of-a-queue">ActiveMQ Docs: How do I find the Size of
      * a Queue</a>
+     * <p>
+     * Note: The timestamps are held as epoch millis, to keep the garbage per statistics sweep low.
      */
     class CommonStatsDto {
-        Instant statsReceived;
+        // The timestamps are volatile, as they are updated in place for unchanged stats, while being read by others.
+        volatile long statsReceivedMillis;
 
         String brokerId;
         String brokerName;
-        Instant brokerTime;
+        volatile long brokerTimeMillis;
 
         /**
          * The number of messages that currently reside in the queue.
@@ -151,11 +501,36 @@ public interface ActiveMqBrokerStatsQuerier extends Closeable {
         long memoryLimit;
         int memoryPercentUsage;
 
+        /**
+         * @return whether the other has the same statistics as this, not considering the timestamps of when the
+         *         statistics were received.
+         */
+        boolean isSameCommonStats(CommonStatsDto other) {
+            return Objects.equals(brokerId, other.brokerId)
+                    && Objects.equals(brokerName, other.brokerName)
+                    && (size == other.size)
+                    && (enqueueCount == other.enqueueCount)
+                    && (dequeueCount == other.dequeueCount)
+                    && (expiredCount == other.expiredCount)
+                    && (dispatchCount == other.dispatchCount)
+                    && (inflightCount == other.inflightCount)
+                    && (producerCount == other.producerCount)
+                    && (consumerCount == other.consumerCount)
+                    && (Double.compare(minEnqueueTime, other.minEnqueueTime) == 0)
+                    && (Double.compare(averageEnqueueTime, other.averageEnqueueTime) == 0)
+                    && (Double.compare(maxEnqueueTime, other.maxEnqueueTime) == 0)
+                    && (averageMessageSize == other.averageMessageSize)
+                    && (messagesCached == other.messagesCached)
+                    && (memoryUsage == other.memoryUsage)
+                    && (memoryLimit == other.memoryLimit)
+                    && (memoryPercentUsage == other.memoryPercentUsage);
+        }
+
         String getCommonToString() {
-            return "statsReceivedTimeMillis=" + statsReceived +
+            return "statsReceivedTimeMillis=" + Instant.ofEpochMilli(statsReceivedMillis) +
                     ", brokerId='" + brokerId + '\'' +
                     ", brokerName='" + brokerName + '\'' +
-                    ", brokerTime='" + brokerTime + '\'' +
+                    ", brokerTime='" + Instant.ofEpochMilli(brokerTimeMillis) + '\'' +
                     ", size=" + size +
                     ", enqueueCount=" + enqueueCount +
                     ", dequeueCount=" + dequeueCount +
@@ -175,10 +550,10 @@ public interface ActiveMqBrokerStatsQuerier extends Closeable {
         }
 
         String getCommonJson() {
-            return "  \"statsReceivedTimeMillis\"=" + statsReceived + "\n" +
+            return "  \"statsReceivedTimeMillis\"=" + Instant.ofEpochMilli(statsReceivedMillis) + "\n" +
                     "  \"brokerId\"=\"" + brokerId + '"' + "\n" +
                     "  \"brokerName\"=\"" + brokerName + '"' + "\n" +
-                    "  \"brokerTime\"=\"" + brokerTime + '"' + "\n" +
+                    "  \"brokerTime\"=\"" + Instant.ofEpochMilli(brokerTimeMillis) + '"' + "\n" +
                     "  \"size\"=" + size + "\n" +
                     "  \"enqueueCount\"=" + enqueueCount + "\n" +
                     "  \"dequeueCount\"=" + dequeueCount + "\n" +
@@ -256,14 +631,47 @@ public interface ActiveMqBrokerStatsQuerier extends Closeable {
 
     class DestinationStatsDto extends CommonStatsDto {
         String destinationName;
-        // Only present if there is a head message present (I created this feature in ActiveMQ!)
-        Optional<Instant> firstMessageTimestamp;
+        // Only present (non-zero) if there is a head message present (I created this feature in ActiveMQ!)
+        long firstMessageTimestampMillis;
+        // Created from an advisory, before we've gotten stats for it: The counts are unknown, not zero.
+        boolean placeholder;
+
+        /**
+         * @return whether the other has the same statistics as this, not considering the timestamps of when the
+         *         statistics were received.
+         */
+        boolean isSameStats(DestinationStatsDto other) {
+            return destinationName.equals(other.destinationName)
+                    && (firstMessageTimestampMillis == other.firstMessageTimestampMillis)
+                    && (placeholder == other.placeholder)
+                    && isSameCommonStats(other);
+        }
+
+        /**
+         * @return whether this is a queue - the size of topics doesn't tell anything.
+         */
+        boolean isQueue() {
+            return destinationName.startsWith("queue://");
+        }
+
+        /**
+         * @return whether this is a DLQ: An individual DLQ "DLQ.{destinationName}", or the global DLQ "ActiveMQ.DLQ".
+         */
+        boolean isDlq() {
+            // "queue://" is 8 long - and a DLQ is always a queue.
+            return isQueue() && (destinationName.startsWith(Statics.DLQ_PREFIX + ".", 8)
+                    || ((destinationName.length() == 8 + Statics.ACTIVE_MQ_GLOBAL_DLQ_NAME.length())
+                            && destinationName.startsWith(Statics.ACTIVE_MQ_GLOBAL_DLQ_NAME, 8)));
+        }
 
         @Override
         public String toString() {
             return "DestinationStatsDto{" +
                     ", destinationName='" + destinationName + '\'' +
-                    ", firstMessageTimestamp='" + firstMessageTimestamp + '\'' +
+                    (placeholder ? ", placeholder" : "") +
+                    ", firstMessageTimestamp='" + (firstMessageTimestampMillis != 0
+                            ? Instant.ofEpochMilli(firstMessageTimestampMillis)
+                            : null) + '\'' +
                     ", " +
                     getCommonToString() +
                     '}';
@@ -273,7 +681,9 @@ public interface ActiveMqBrokerStatsQuerier extends Closeable {
             return "{\n" +
                     "  \"destinationName\"=\"" + destinationName + "\"\n" +
                     "  \"firstMessageTimestamp\"=" +
-                    (firstMessageTimestamp.map(instant -> "\"" + instant + "\"").orElse("null")) + "\n" +
+                    (firstMessageTimestampMillis != 0
+                            ? "\"" + Instant.ofEpochMilli(firstMessageTimestampMillis) + "\""
+                            : "null") + "\n" +
                     getCommonJson() +
                     '}';
         }
@@ -1,22 +1,35 @@
 package io.mats3.matsbrokermonitor.activemq;
 
+import java.io.IOException;
 import java.time.Clock;
-import java.time.Instant;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
+import jakarta.jms.BytesMessage;
 import jakarta.jms.Connection;
 import jakarta.jms.ConnectionFactory;
 import jakarta.jms.DeliveryMode;
+import jakarta.jms.Destination;
 import jakarta.jms.JMSException;
 import jakarta.jms.MapMessage;
 import jakarta.jms.Message;
@@ -30,6 +43,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import io.mats3.matsbrokermonitor.activemq.StatsSnapshotCodec.StatsSnapshot;
+
 /**
  * @author Endre Stølsvik 2021-12-20 18:00 - http://stolsvik.com/, endre@stolsvik.com
  */
@@ -41,6 +56,9 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
 
     private static final String CORRELATION_ID_PREFIX_SCHEDULED = "Scheduled";
     private static final String CORRELATION_ID_PREFIX_FORCED = "Forced";
+    private static final String CORRELATION_ID_PREFIX_TARGETED = "Targeted";
+    private static final String CORRELATION_ID_PREFIX_FORCED_TARGETED = "ForcedTargeted";
+    private static final String CORRELATION_ID_PREFIX_SHARDED = "Sharded";
     private static final String CORRELATION_ID_PARAMETER_FULL_UPDATE = "fullUpdate";
     private static final String CORRELATION_ID_PARAMETER_NODE_ID = "nodeId";
 
@@ -71,6 +89,7 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
         _connectionFactory = connectionFactory;
         _clock = clock;
         _updateIntervalMillis = updateIntervalMillis;
+        _effectiveUpdateIntervalMillis = updateIntervalMillis;
     }
 
     private enum RunStatus {
@@ -82,8 +101,25 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
     }
 
     private String _matsDestinationPrefix = "mats.";
-
-    private final Deque<String> _waitObject_And_ForceUpdateOutstandingCorrelationIds = new ArrayDeque<>();
+    private boolean _queryMatsDestinationsOnly;
+    private DestinationNameMatcher _destinationNameMatcher = DestinationNameMatcher.matchAll();
+    private boolean _trackDestinationsUsingAdvisories;
+    private boolean _notifyDlqArrivalsUsingAdvisories;
+    private boolean _useLeaderElection;
+    private boolean _useSnapshotDistribution;
+    private boolean _firstMessageTimestampsOnlyForNonEmpty;
+    private int _sweepShards;
+    private long _hotDestinationPollIntervalMillis;
+    private HotDestinationTracker _hotDestinationTracker; // null if not polling hot destinations.
+    private long _nextHotDestinationPollMillis; // Only used from send thread, synchronized on _waitObject.
+    private AdaptiveIntervalPolicy _adaptiveIntervalPolicy; // null if fixed interval. Only used from receive thread.
+
+    private final Object _waitObject = new Object();
+    // Synchronized on _waitObject: Forced updates requested but not yet sent - merged, so there's at most one of each.
+    private PendingUpdate _forcedUpdatePending;
+    private PendingUpdate _targetedUpdatePending;
+    // Synchronized on _waitObject: Sent updates having correlationIds, keyed by the sent JMSCorrelationID.
+    private final Map<String, InFlightUpdate> _inFlightUpdates = new HashMap<>();
 
     // RunStatus: NOT_STARTED -> RUNNING -> CLOSED. Not restartable.
     private volatile RunStatus _runStatus = RunStatus.NOT_STARTED;
@@ -91,22 +127,43 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
     private volatile Thread _sendStatsRequestMessages_Thread;
     private volatile Thread _receiveDestinationsStatsReplyMessages_Thread;
     private volatile Connection _receiveDestinationsStatsReplyMessages_Connection;
+    private volatile Thread _receiveAdvisoryMessages_Thread;
+    private volatile Connection _receiveAdvisoryMessages_Connection;
+    private volatile Thread _leaderElection_Thread;
+    private volatile Connection _leaderElection_Connection;
+
+    // Set by leader election thread when receiving a heartbeat: We're leader until this time.
+    private volatile long _leaderUntilMillis;
+
+    // Destinations removed by advisory, with the broker time of the removal: Stats produced before the removal (a late
+    // reply to a sweep, or a snapshot from another node) shall not bring them back. Expired when scavenging.
+    private final ConcurrentHashMap<String, Long> _advisoryRemovedBrokerMillis = new ConcurrentHashMap<>();
 
     private volatile long _lastFullUpdatePropagatedMillis;
 
-    private volatile long _lastStatsUpdateMessageReceived = System.currentTimeMillis();
+    // Set by the receive thread if adaptive interval, otherwise the fixed interval.
+    private volatile long _effectiveUpdateIntervalMillis;
+    private volatile String _effectiveUpdateIntervalReason = "FIXED: Adaptive interval not enabled.";
 
-    // Reset in request thread, used in receive thread.
-    private final AtomicInteger _countOfDestinationsReceivedAfterRequest = new AtomicInteger();
+    private volatile long _lastStatsUpdateMessageReceived = System.currentTimeMillis();
 
-    // Only used from receive thread.
-    private int _countOfDestinationsReceivedSinceLastBatch;
+    // Only used from receive thread: The batches of replies not yet terminated, keyed by correlationId (null key for
+    // replies without correlationId).
+    private final Map<String, ReplyBatch> _openBatches = new HashMap<>();
+    // The destination stats are parsed into this, which is installed in the current stats only if changed.
+    private DestinationStatsDto _scratchDestinationStatsDto = new DestinationStatsDto();
     private volatile long _nanosAtStart_RequestQuery = 0;
 
     private volatile BrokerStatsDto _currentBrokerStatsDto;
     private final ConcurrentNavigableMap<String, DestinationStatsDto> _currentDestinationStatsDtos = new ConcurrentSkipListMap<>();
+    // The destinations whose DTO has been added, replaced or removed, since last drained.
+    private final Set<String> _changedFqDestinationNames = ConcurrentHashMap.newKeySet();
+    // When the destinations' stats were last received, so that scavenging only visits the old ones.
+    private final StatsTimeIndex _statsTimeIndex = new StatsTimeIndex();
 
-    private final CopyOnWriteArrayList<Consumer<ActiveMqBrokerStatsEvent>> _listeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<ConflatingListenerDispatcher<ActiveMqBrokerStatsEvent>> _listeners
+            = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<Consumer<ActiveMqDlqArrivalEvent>> _dlqArrivalListeners = new CopyOnWriteArrayList<>();
 
     @Override
     public void setNodeId(String nodeId) {
@@ -132,6 +189,18 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
 
         // :: First start reply consumer
         _receiveDestinationsStatsReplyMessages_Thread.start();
+        // .. and the advisory consumer, if tracking destinations or DLQ arrivals using advisories
+        if (_trackDestinationsUsingAdvisories || _notifyDlqArrivalsUsingAdvisories) {
+            _receiveAdvisoryMessages_Thread = new Thread(this::receiveAdvisoryMessagesRunnable,
+                    "MatsBrokerMonitor.ActiveMQ: Receive&Process Advisory messages " + id);
+            _receiveAdvisoryMessages_Thread.start();
+        }
+        // .. and the leader election, if enabled
+        if (_useLeaderElection) {
+            _leaderElection_Thread = new Thread(this::leaderElectionRunnable,
+                    "MatsBrokerMonitor.ActiveMQ: Leader election " + id);
+            _leaderElection_Thread.start();
+        }
         // .. then starting requester (it will chill a small tad after getting connection before doing first request)
         _sendStatsRequestMessages_Thread.start();
     }
@@ -154,28 +223,44 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
         log.info("Asked to close. Set runStatus to CLOSED, closing Connections and interrupting threads.");
 
         // Notify the request sender - it'll close the Connection on its way out.
-        synchronized (_waitObject_And_ForceUpdateOutstandingCorrelationIds) {
-            _waitObject_And_ForceUpdateOutstandingCorrelationIds.notifyAll();
+        synchronized (_waitObject) {
+            _waitObject.notifyAll();
         }
 
         // Closing Connections for the receiver - the thread will wake up from 'con.receive()'.
         closeConnectionIfNonNullIgnoreException(_receiveDestinationsStatsReplyMessages_Connection);
+        closeConnectionIfNonNullIgnoreException(_receiveAdvisoryMessages_Connection);
+        closeConnectionIfNonNullIgnoreException(_leaderElection_Connection);
 
-        // Check that both threads exit
+        // Check that all threads exit
         try {
             _sendStatsRequestMessages_Thread.join(TIMEOUT_MILLIS_GRACEFUL_THREAD_SHUTDOWN);
             _receiveDestinationsStatsReplyMessages_Thread.join(TIMEOUT_MILLIS_GRACEFUL_THREAD_SHUTDOWN);
+            if (_receiveAdvisoryMessages_Thread != null) {
+                _receiveAdvisoryMessages_Thread.join(TIMEOUT_MILLIS_GRACEFUL_THREAD_SHUTDOWN);
+            }
+            if (_leaderElection_Thread != null) {
+                _leaderElection_Thread.join(TIMEOUT_MILLIS_GRACEFUL_THREAD_SHUTDOWN);
+            }
         }
         catch (InterruptedException e) {
             /* ignore */
         }
         // .. interrupt the request sender if the above didn't work.
         interruptThread(_sendStatsRequestMessages_Thread);
-        // .. interrupt the receiver too if they haven't gotten out.
+        // .. interrupt the receivers too if they haven't gotten out.
         interruptThread(_receiveDestinationsStatsReplyMessages_Thread);
+        interruptThread(_receiveAdvisoryMessages_Thread);
+        interruptThread(_leaderElection_Thread);
         // Null out Threads
         _sendStatsRequestMessages_Thread = null;
         _receiveDestinationsStatsReplyMessages_Thread = null;
+        _receiveAdvisoryMessages_Thread = null;
+        _leaderElection_Thread = null;
+        // .. and finally the listener dispatchers.
+        for (ConflatingListenerDispatcher<ActiveMqBrokerStatsEvent> dispatcher : _listeners) {
+            dispatcher.close();
+        }
     }
 
     @Override
@@ -186,6 +271,155 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
         _matsDestinationPrefix = matsDestinationPrefix;
     }
 
+    @Override
+    public void setQueryMatsDestinationsOnly(boolean queryMatsDestinationsOnly) {
+        if (_runStatus != RunStatus.NOT_STARTED) {
+            throw new IllegalStateException("Tried setting queryMatsDestinationsOnly, but runStatus != NOT_STARTED.");
+        }
+        _queryMatsDestinationsOnly = queryMatsDestinationsOnly;
+    }
+
+    @Override
+    public void setTrackDestinationsUsingAdvisories(boolean trackDestinationsUsingAdvisories) {
+        if (_runStatus != RunStatus.NOT_STARTED) {
+            throw new IllegalStateException("Tried setting trackDestinationsUsingAdvisories,"
+                    + " but runStatus != NOT_STARTED.");
+        }
+        _trackDestinationsUsingAdvisories = trackDestinationsUsingAdvisories;
+    }
+
+    @Override
+    public void setNotifyDlqArrivalsUsingAdvisories(boolean notifyDlqArrivalsUsingAdvisories) {
+        if (_runStatus != RunStatus.NOT_STARTED) {
+            throw new IllegalStateException("Tried setting notifyDlqArrivalsUsingAdvisories,"
+                    + " but runStatus != NOT_STARTED.");
+        }
+        _notifyDlqArrivalsUsingAdvisories = notifyDlqArrivalsUsingAdvisories;
+    }
+
+    @Override
+    public void setUseLeaderElection(boolean useLeaderElection) {
+        if (_runStatus != RunStatus.NOT_STARTED) {
+            throw new IllegalStateException("Tried setting useLeaderElection, but runStatus != NOT_STARTED.");
+        }
+        _useLeaderElection = useLeaderElection;
+    }
+
+    @Override
+    public boolean isLeader() {
+        return _useLeaderElection && (System.currentTimeMillis() < _leaderUntilMillis);
+    }
+
+    @Override
+    public void setUseSnapshotDistribution(boolean useSnapshotDistribution) {
+        if (_runStatus != RunStatus.NOT_STARTED) {
+            throw new IllegalStateException("Tried setting useSnapshotDistribution, but runStatus != NOT_STARTED.");
+        }
+        _useSnapshotDistribution = useSnapshotDistribution;
+    }
+
+    @Override
+    public void setFirstMessageTimestampsOnlyForNonEmpty(boolean firstMessageTimestampsOnlyForNonEmpty) {
+        if (_runStatus != RunStatus.NOT_STARTED) {
+            throw new IllegalStateException("Tried setting firstMessageTimestampsOnlyForNonEmpty,"
+                    + " but runStatus != NOT_STARTED.");
+        }
+        _firstMessageTimestampsOnlyForNonEmpty = firstMessageTimestampsOnlyForNonEmpty;
+    }
+
+    @Override
+    public void setDestinationFilter(Collection<String> includePatterns, Collection<String> excludePatterns) {
+        if (_runStatus != RunStatus.NOT_STARTED) {
+            throw new IllegalStateException("Tried setting destinationFilter, but runStatus != NOT_STARTED.");
+        }
+        _destinationNameMatcher = DestinationNameMatcher.compile(includePatterns, excludePatterns);
+    }
+
+    @Override
+    public void setSweepShards(int numberOfShards) {
+        if (_runStatus != RunStatus.NOT_STARTED) {
+            throw new IllegalStateException("Tried setting sweepShards, but runStatus != NOT_STARTED.");
+        }
+        if (numberOfShards < 0) {
+            throw new IllegalArgumentException("numberOfShards [" + numberOfShards + "] must be zero or positive.");
+        }
+        _sweepShards = numberOfShards;
+    }
+
+    @Override
+    public void setHotDestinationPollInterval(long pollIntervalMillis) {
+        if (_runStatus != RunStatus.NOT_STARTED) {
+            throw new IllegalStateException("Tried setting hotDestinationPollInterval, but runStatus != NOT_STARTED.");
+        }
+        if (pollIntervalMillis < 0) {
+            throw new IllegalArgumentException("pollIntervalMillis [" + pollIntervalMillis + "] must be zero or"
+                    + " positive.");
+        }
+        _hotDestinationPollIntervalMillis = pollIntervalMillis;
+        _hotDestinationTracker = pollIntervalMillis > 0 ? new HotDestinationTracker() : null;
+    }
+
+    @Override
+    public void setAdaptiveUpdateInterval(long floorIntervalMillis, long ceilingIntervalMillis,
+            long headMessageAgeThresholdMillis) {
+        if (_runStatus != RunStatus.NOT_STARTED) {
+            throw new IllegalStateException("Tried setting adaptiveUpdateInterval, but runStatus != NOT_STARTED.");
+        }
+        if ((floorIntervalMillis <= 0) || (floorIntervalMillis > ceilingIntervalMillis)) {
+            throw new IllegalArgumentException("floorIntervalMillis [" + floorIntervalMillis + "] must be positive,"
+                    + " and not larger than ceilingIntervalMillis [" + ceilingIntervalMillis + "].");
+        }
+        _adaptiveIntervalPolicy = new AdaptiveIntervalPolicy(_updateIntervalMillis, floorIntervalMillis,
+                ceilingIntervalMillis, headMessageAgeThresholdMillis);
+        _effectiveUpdateIntervalMillis = _adaptiveIntervalPolicy.getIntervalMillis();
+        _effectiveUpdateIntervalReason = _adaptiveIntervalPolicy.getReason();
+    }
+
+    @Override
+    public long getEffectiveUpdateIntervalMillis() {
+        return _effectiveUpdateIntervalMillis;
+    }
+
+    @Override
+    public String getEffectiveUpdateIntervalReason() {
+        return _effectiveUpdateIntervalReason;
+    }
+
+    /**
+     * If adaptive interval, evaluate the current stats to find the interval. Invoked when a full set of stats has been
+     * received (i.e. not targeted updates).
+     */
+    private void evaluateAdaptiveInterval() {
+        if (_adaptiveIntervalPolicy == null) {
+            return;
+        }
+        long previousIntervalMillis = _effectiveUpdateIntervalMillis;
+        long intervalMillis = _adaptiveIntervalPolicy.evaluate(_currentDestinationStatsDtos.values());
+        _effectiveUpdateIntervalMillis = intervalMillis;
+        _effectiveUpdateIntervalReason = _adaptiveIntervalPolicy.getReason();
+        if (intervalMillis != previousIntervalMillis) {
+            log.info("Update interval changed from [" + previousIntervalMillis + "] ms to [" + intervalMillis
+                    + "] ms - " + _effectiveUpdateIntervalReason);
+        }
+        // ?: Shortened?
+        if (intervalMillis < previousIntervalMillis) {
+            // -> Yes, so wake the request sender, so that it doesn't wait out the longer interval.
+            synchronized (_waitObject) {
+                _waitObject.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return the topic the statistics replies shall go to: If using snapshot distribution, node-specific, as the other
+     *         nodes shall get the snapshot instead.
+     */
+    private String replyStatisticsTopicName() {
+        return _useSnapshotDistribution
+                ? QUERY_REPLY_STATISTICS_TOPIC + "." + _nodeId
+                : QUERY_REPLY_STATISTICS_TOPIC;
+    }
+
     private static void closeConnectionIfNonNullIgnoreException(Connection connection) {
         if (connection == null) {
             return;
@@ -207,11 +441,23 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
 
     @Override
     public void registerListener(Consumer<ActiveMqBrokerStatsEvent> listener) {
-        _listeners.add(listener);
+        _listeners.add(new ConflatingListenerDispatcher<>(listener, ActiveMqBrokerStatsQuerierImpl::mergeEvents,
+                "MatsBrokerMonitor.ActiveMQ: Listener dispatch [" + listener.getClass().getSimpleName() + "]"
+                        + " (Querier@" + Integer.toHexString(System.identityHashCode(this)) + ")"));
     }
 
-    private String constructCorrelationIdToSend(boolean forced, boolean fullUpdate, String correlationId) {
-        return (forced ? CORRELATION_ID_PREFIX_FORCED : CORRELATION_ID_PREFIX_SCHEDULED)
+    @Override
+    public List<ListenerDispatchStats> getListenerDispatchStats() {
+        return new ArrayList<>(_listeners);
+    }
+
+    @Override
+    public void registerDlqArrivalListener(Consumer<ActiveMqDlqArrivalEvent> listener) {
+        _dlqArrivalListeners.add(listener);
+    }
+
+    private String constructCorrelationIdToSend(String prefix, boolean fullUpdate, String correlationId) {
+        return prefix
                 + ":" + CORRELATION_ID_PARAMETER_FULL_UPDATE + "." + fullUpdate
                 + ":" + CORRELATION_ID_PARAMETER_NODE_ID + "." + _nodeId
                 + ":" + correlationId;
@@ -227,21 +473,34 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
         // The actual CorrelationId is the rest of the String
         String correlationId = sentCorrelationid.substring(thirdColon + 1);
 
-        boolean forced = CORRELATION_ID_PREFIX_FORCED.equals(prefix);
+        boolean forced = CORRELATION_ID_PREFIX_FORCED.equals(prefix)
+                || CORRELATION_ID_PREFIX_FORCED_TARGETED.equals(prefix);
+        boolean targeted = CORRELATION_ID_PREFIX_TARGETED.equals(prefix)
+                || CORRELATION_ID_PREFIX_FORCED_TARGETED.equals(prefix);
+        boolean sharded = CORRELATION_ID_PREFIX_SHARDED.equals(prefix);
         boolean fullUpdate = full.contains("true");
         String nodeId = node.substring(CORRELATION_ID_PARAMETER_NODE_ID.length() + 1);
 
-        return new CorrSplit(forced, fullUpdate, nodeId, correlationId);
+        return new CorrSplit(forced, targeted, sharded, fullUpdate, nodeId, correlationId);
+    }
+
+    private static boolean isShardedSweep(String sentCorrelationId) {
+        return (sentCorrelationId != null) && sentCorrelationId.startsWith(CORRELATION_ID_PREFIX_SHARDED + ":");
     }
 
     private static class CorrSplit {
         final boolean forced;
+        final boolean targeted;
+        final boolean sharded;
         final boolean fullUpdate;
         final String nodeId;
         final String correlationId;
 
-        public CorrSplit(boolean forced, boolean fullUpdate, String nodeId, String correlationId) {
+        public CorrSplit(boolean forced, boolean targeted, boolean sharded, boolean fullUpdate, String nodeId,
+                String correlationId) {
             this.forced = forced;
+            this.targeted = targeted;
+            this.sharded = sharded;
             this.fullUpdate = fullUpdate;
             this.nodeId = nodeId;
             this.correlationId = correlationId;
@@ -250,35 +509,143 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
 
     @Override
     public void forceUpdate(String correlationId, boolean fullUpdate) {
-        synchronized (_waitObject_And_ForceUpdateOutstandingCorrelationIds) {
-            _waitObject_And_ForceUpdateOutstandingCorrelationIds.add(constructCorrelationIdToSend(true, fullUpdate,
-                    correlationId));
-            // ?: Are there WAY too many outstanding correlation Ids?
-            if (_waitObject_And_ForceUpdateOutstandingCorrelationIds
-                    .size() > MAX_NUMBER_OF_OUTSTANDING_CORRELATION_IDS) {
-                // -> Yes, so then we're actually screwed - there are obviously no response from the broker
-                log.error("We have " + MAX_NUMBER_OF_OUTSTANDING_CORRELATION_IDS + " outstanding forced updates with"
-                        + " correlationIds, which implies that the broker does not respond. We'll just ditch them all"
-                        + " to prevent OOME; you need to figure out the problem: Probably the"
-                        + " Statistics[Broker]Plugin is not installed on the ActiveMQ server.");
-                _waitObject_And_ForceUpdateOutstandingCorrelationIds.clear();
+        synchronized (_waitObject) {
+            // Merge with any pending forced update: They'll all be completed by the same sweep.
+            if (_forcedUpdatePending == null) {
+                _forcedUpdatePending = new PendingUpdate();
             }
-            _waitObject_And_ForceUpdateOutstandingCorrelationIds.notifyAll();
+            _forcedUpdatePending.correlationIds.add(correlationId);
+            _forcedUpdatePending.fullUpdate |= fullUpdate;
+            _waitObject.notifyAll();
         }
     }
 
+    @Override
+    public void forceUpdate(String correlationId, Collection<String> fqDestinationNames) {
+        addTargetedUpdate(correlationId, fqDestinationNames);
+    }
+
+    /**
+     * Requests ASAP update of only the specified destinations, without a correlationId.
+     */
+    private void requestTargetedUpdate(Collection<String> fqDestinationNames) {
+        addTargetedUpdate(null, fqDestinationNames);
+    }
+
+    private void addTargetedUpdate(String correlationId, Collection<String> fqDestinationNames) {
+        synchronized (_waitObject) {
+            // Merge with any pending targeted update: They'll all be completed by the same request.
+            if (_targetedUpdatePending == null) {
+                _targetedUpdatePending = new PendingUpdate();
+            }
+            if (correlationId != null) {
+                _targetedUpdatePending.correlationIds.add(correlationId);
+            }
+            _targetedUpdatePending.fqDestinationNames.addAll(fqDestinationNames);
+            _waitObject.notifyAll();
+        }
+    }
+
+    /**
+     * A forced update, or targeted update, waiting to be sent. Multiple requests are merged into one.
+     */
+    private static class PendingUpdate {
+        final Set<String> correlationIds = new LinkedHashSet<>();
+        boolean fullUpdate;
+        // Only for targeted updates
+        final SortedSet<String> fqDestinationNames = new TreeSet<>();
+    }
+
+    /**
+     * A sent update having correlationIds, which will be completed by the update event. A forced sweep in flight holds
+     * back the next forced sweep, so that forced updates arriving meanwhile are merged into one sweep.
+     */
+    private static class InFlightUpdate {
+        final List<String> correlationIds;
+        final boolean sweep;
+        final long sentMillis;
+
+        InFlightUpdate(List<String> correlationIds, boolean sweep, long sentMillis) {
+            this.correlationIds = correlationIds;
+            this.sweep = sweep;
+            this.sentMillis = sentMillis;
+        }
+    }
+
+    /**
+     * Registers the update as in flight, and returns the JMSCorrelationID to send. The correlationId part is the
+     * first of the merged correlationIds, which is what other nodes will see; this node completes all of them.
+     */
+    private String registerInFlightUpdate(String prefix, PendingUpdate pendingUpdate, boolean sweep) {
+        List<String> correlationIds = new ArrayList<>(pendingUpdate.correlationIds);
+        String correlationIdToSend = constructCorrelationIdToSend(prefix, pendingUpdate.fullUpdate,
+                correlationIds.get(0));
+        synchronized (_waitObject) {
+            _inFlightUpdates.put(correlationIdToSend, new InFlightUpdate(correlationIds, sweep,
+                    System.currentTimeMillis()));
+        }
+        return correlationIdToSend;
+    }
+
+    /**
+     * Invoked from the receive thread when a batch is terminated: If it was an update sent from this node with
+     * correlationIds, it is completed, and the merged correlationIds are returned - otherwise <code>null</code>.
+     */
+    private List<String> completeInFlightUpdate(String sentCorrelationId) {
+        synchronized (_waitObject) {
+            InFlightUpdate inFlightUpdate = _inFlightUpdates.remove(sentCorrelationId);
+            if (inFlightUpdate == null) {
+                return null;
+            }
+            // ?: Was this a sweep, and do we have a forced update waiting for it to complete?
+            if (inFlightUpdate.sweep && (_forcedUpdatePending != null)) {
+                // -> Yes, so wake the sender.
+                _waitObject.notifyAll();
+            }
+            return inFlightUpdate.correlationIds;
+        }
+    }
+
+    /**
+     * Must be invoked within sync on _waitObject. Removes in flight updates which have timed out (the broker did not
+     * reply, or the reply was lost), and returns the millis when the forced sweep in flight was sent, or 0 if none.
+     */
+    private long expireInFlightUpdatesAndGetForcedSweepSentMillis() {
+        long timedOut = System.currentTimeMillis() - TIMEOUT_MILLIS_FOR_IN_FLIGHT_FORCED_UPDATE;
+        long forcedSweepSentMillis = 0;
+        Iterator<InFlightUpdate> it = _inFlightUpdates.values().iterator();
+        while (it.hasNext()) {
+            InFlightUpdate inFlightUpdate = it.next();
+            if (inFlightUpdate.sentMillis < timedOut) {
+                log.warn("Did not get the update for forced update with correlationIds "
+                        + inFlightUpdate.correlationIds + " within [" + TIMEOUT_MILLIS_FOR_IN_FLIGHT_FORCED_UPDATE
+                        + "] ms - ditching it. If this happens repeatedly, the broker probably does not respond:"
+                        + " Probably the Statistics[Broker]Plugin is not installed on the ActiveMQ server.");
+                it.remove();
+            }
+            else if (inFlightUpdate.sweep) {
+                forcedSweepSentMillis = Math.max(forcedSweepSentMillis, inFlightUpdate.sentMillis);
+            }
+        }
+        return forcedSweepSentMillis;
+    }
+
     private static class ActiveMqBrokerStatsEventImpl implements ActiveMqBrokerStatsEvent {
-        private final String _correlationId;
+        private final List<String> _correlationIds;
         private final boolean _fullUpdate;
+        private final Set<String> _partialUpdateFqDestinationNames; // nullable
+        private final boolean _completeSweep;
         private final boolean _statsEventOriginatedOnThisNode;
         private final String _originatingNodeId;
         private final double _requestReplyLatencyMillis;
 
-        public ActiveMqBrokerStatsEventImpl(String correlationId, boolean fullUpdate,
-                boolean statsEventOriginatedOnThisNode,
-                String originatingNodeId, double requestReplyLatencyMillis) {
-            _correlationId = correlationId;
+        public ActiveMqBrokerStatsEventImpl(List<String> correlationIds, boolean fullUpdate,
+                Set<String> partialUpdateFqDestinationNames, boolean completeSweep,
+                boolean statsEventOriginatedOnThisNode, String originatingNodeId, double requestReplyLatencyMillis) {
+            _correlationIds = correlationIds;
             _fullUpdate = fullUpdate;
+            _partialUpdateFqDestinationNames = partialUpdateFqDestinationNames;
+            _completeSweep = completeSweep;
             _statsEventOriginatedOnThisNode = statsEventOriginatedOnThisNode;
             _originatingNodeId = originatingNodeId;
             _requestReplyLatencyMillis = requestReplyLatencyMillis;
@@ -289,7 +656,12 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
          */
         @Override
         public Optional<String> getCorrelationId() {
-            return Optional.ofNullable(_correlationId);
+            return _correlationIds.isEmpty() ? Optional.empty() : Optional.of(_correlationIds.get(0));
+        }
+
+        @Override
+        public List<String> getCorrelationIds() {
+            return _correlationIds;
         }
 
         @Override
@@ -297,6 +669,23 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
             return _fullUpdate;
         }
 
+        @Override
+        public boolean isPartialUpdate() {
+            return _partialUpdateFqDestinationNames != null;
+        }
+
+        @Override
+        public Set<String> getPartialUpdateFqDestinationNames() {
+            return _partialUpdateFqDestinationNames != null
+                    ? _partialUpdateFqDestinationNames
+                    : Collections.emptySet();
+        }
+
+        @Override
+        public boolean isCompleteSweep() {
+            return _completeSweep;
+        }
+
         @Override
         public boolean isStatsEventOriginatedOnThisNode() {
             return _statsEventOriginatedOnThisNode;
@@ -323,6 +712,18 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
         return _currentDestinationStatsDtos;
     }
 
+    @Override
+    public Set<String> drainChangedFqDestinationNames() {
+        Set<String> drained = new HashSet<>();
+        // Remove while iterating, so that a name added meanwhile is either drained now, or stays for the next.
+        Iterator<String> it = _changedFqDestinationNames.iterator();
+        while (it.hasNext()) {
+            drained.add(it.next());
+            it.remove();
+        }
+        return drained;
+    }
+
     // ===== IMPLEMENTATION =====
 
     private void sendStatsRequestMessages() {
@@ -338,14 +739,9 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
                 // Just to point out that there is no need to save these messages if they cannot be handled.
                 producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
 
-                Queue requestQueuesQueue_main;
-                Topic requestTopicsTopic_main;
-
-                // We're asking for ALL queues and topics.
-                String queryRequestDestination_all = QUERY_REQUEST_DESTINATION_PREFIX + ".>";
-
-                requestQueuesQueue_main = session.createQueue(queryRequestDestination_all);
-                requestTopicsTopic_main = session.createTopic(queryRequestDestination_all);
+                // The destinations we send the statistics queries to (Queues give replies for queues, Topics for
+                // topics)
+                List<Destination> requestDestinations = createStatisticsRequestDestinations(session);
 
                 // :: Create queue for the "zero-termination", sent in a separate request query
                 // NOTE: We just ask for a queue which shall not be there, but request the "zero termination".
@@ -356,102 +752,192 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
                 // Request BrokerStats topic
                 Topic requestBrokerTopic = session.createTopic(QUERY_REQUEST_BROKER);
                 // Reply topic for all statistics messages (this thread)
-                Topic replyStatisticsTopic = session.createTopic(QUERY_REPLY_STATISTICS_TOPIC);
+                Topic replyStatisticsTopic = session.createTopic(replyStatisticsTopicName());
 
                 // Chill a small tad before sending first request, so that receivers hopefully have started.
                 // Notice: It isn't particularly bad if they haven't, they'll just miss the first request/reply.
                 chill((long) (CHILL_MILLIS_BEFORE_FIRST_STATS_REQUEST
                         * (1 + ThreadLocalRandom.current().nextDouble())));
 
-                String correlationIdToSend = null;
+                PendingUpdate forcedUpdateToSend = null;
+                PendingUpdate targetedUpdateToSend = null;
+                // The sharded sweep in progress, if any.
+                ShardedSweep shardedSweep = null;
 
                 while (_runStatus == RunStatus.RUNNING) {
-                    // :: Request stats for Broker
-                    Message requestBrokerMsg = session.createMessage();
-                    requestBrokerMsg.setJMSReplyTo(replyStatisticsTopic);
-                    producer.send(requestBrokerTopic, requestBrokerMsg);
-
-                    // ::: Destinations
-                    // (Notice: Directing replyTo for both Queues and Topics reply to same receiver.)
-                    // :: Request stats for Queues
-                    Message requestQueuesMsg = session.createMessage();
-                    set_includeFirstMessageTimestamp(requestQueuesMsg);
-                    requestQueuesMsg.setJMSReplyTo(replyStatisticsTopic);
-
-                    // :: Request stats for Topics
-                    Message requestTopicsMsg = session.createMessage();
-                    set_includeFirstMessageTimestamp(requestTopicsMsg);
-                    requestTopicsMsg.setJMSReplyTo(replyStatisticsTopic);
-
-                    // :: Send destination stats messages
-                    // Clear the count of destinations received since this request (we start counting from now)
-                    _countOfDestinationsReceivedAfterRequest.set(0);
-                    // We start timing from now
-                    _nanosAtStart_RequestQuery = System.nanoTime();
-                    producer.send(requestQueuesQueue_main, requestQueuesMsg);
-                    producer.send(requestTopicsTopic_main, requestTopicsMsg);
-
-                    // :: Send the null-termination query (query w/o any destination replies, only the null-terminator)
-
-                    // Do we currently have a specific correlationId?
-                    if (correlationIdToSend == null) {
-                        // -> No specific correlation Id, so make a "normal" Scheduled correlationId.
-                        // Should we do a full-update, since long time since last full update?
-                        boolean timeBasedFullUpdate = (System.currentTimeMillis()
-                                - _lastFullUpdatePropagatedMillis) > FULL_UPDATE_INTERVAL;
-                        // A random correlationId. Not really used.
-                        String random = Long.toString(ThreadLocalRandom.current().nextLong(), 36);
-                        correlationIdToSend = constructCorrelationIdToSend(false, timeBasedFullUpdate, random);
+                    // ?: Is this a targeted update, i.e. only for specific destinations?
+                    if (targetedUpdateToSend != null) {
+                        // -> Yes, so request stats only for those, and then the null-termination.
+                        sendTargetedStatsRequestMessages(session, producer, replyStatisticsTopic,
+                                requestQueuesQueue_zeroQueuesMatchWithNullTermination,
+                                targetedUpdateToSend);
+                        targetedUpdateToSend = null;
                     }
+                    // ?: Is it time for the next shard of a sharded sweep? (Forced sweeps come in between)
+                    else if ((shardedSweep != null) && !shardedSweep.isDone() && (forcedUpdateToSend == null)) {
+                        // -> Yes, so request stats for the next shard.
+                        sendShardRequestMessages(session, producer, replyStatisticsTopic,
+                                requestQueuesQueue_zeroQueuesMatchWithNullTermination, shardedSweep);
+                    }
+                    else {
+                        // :: Request stats for Broker
+                        Message requestBrokerMsg = session.createMessage();
+                        requestBrokerMsg.setJMSReplyTo(replyStatisticsTopic);
+
+                        // :: Find the correlationId, which is set on all the requests, and thus on all the replies.
+                        String correlationIdToSend;
+                        ShardedSweep newShardedSweep = null;
+                        // ?: Is this a forced update?
+                        if (forcedUpdateToSend != null) {
+                            // -> Yes, so register it as in flight, which gives the correlationId to send.
+                            correlationIdToSend = registerInFlightUpdate(CORRELATION_ID_PREFIX_FORCED,
+                                    forcedUpdateToSend, true);
+                        }
+                        else {
+                            // -> No specific correlation Id, so make a "normal" Scheduled correlationId.
+                            // Should we do a full-update, since long time since last full update?
+                            boolean timeBasedFullUpdate = (System.currentTimeMillis()
+                                    - _lastFullUpdatePropagatedMillis) > FULL_UPDATE_INTERVAL;
+                            // A random correlationId, only used to keep the batch of replies apart.
+                            String random = Long.toString(ThreadLocalRandom.current().nextLong(), 36);
+                            // ?: Should this sweep be sharded? (Full updates are not, to pick up new endpoint groups)
+                            if ((_sweepShards > 1) && !timeBasedFullUpdate) {
+                                // -> Yes, so split the destinations we know of into shards - null if we can't.
+                                newShardedSweep = createShardedSweep(session);
+                            }
+                            correlationIdToSend = constructCorrelationIdToSend(newShardedSweep != null
+                                    ? CORRELATION_ID_PREFIX_SHARDED
+                                    : CORRELATION_ID_PREFIX_SCHEDULED, timeBasedFullUpdate, random);
+                        }
+                        requestBrokerMsg.setJMSCorrelationID(correlationIdToSend);
+                        producer.send(requestBrokerTopic, requestBrokerMsg);
+
+                        // ::: Destinations
+                        // (Notice: Directing replyTo for both Queues and Topics reply to same receiver.)
+                        // We start timing from now
+                        _nanosAtStart_RequestQuery = System.nanoTime();
+
+                        // ?: Did we start a sharded sweep?
+                        if (newShardedSweep != null) {
+                            // -> Yes, so request the first shard, the rest spread over the interval.
+                            shardedSweep = newShardedSweep;
+                            shardedSweep.correlationIdToSend = correlationIdToSend;
+                            sendShardRequestMessages(session, producer, replyStatisticsTopic,
+                                    requestQueuesQueue_zeroQueuesMatchWithNullTermination, shardedSweep);
+                        }
+                        else {
+                            // -> No, so request stats for all the destinations, and then the null-termination.
+                            sendDestinationRequestMessages(session, producer, requestDestinations,
+                                    replyStatisticsTopic, correlationIdToSend);
+                            sendNullTerminationRequestMessage(session, producer, replyStatisticsTopic,
+                                    requestQueuesQueue_zeroQueuesMatchWithNullTermination, correlationIdToSend);
+                        }
 
-                    // .. construct the null-termination message
-                    Message requestNullTermination = session.createMessage();
-                    requestNullTermination.setJMSReplyTo(replyStatisticsTopic);
-                    // .. set the special property which directs the StatisticsPlugin to "empty terminate" the replies.
-                    requestNullTermination.setBooleanProperty(QUERY_REQUEST_DENOTE_END_LIST, true);
-                    requestNullTermination.setJMSCorrelationID(correlationIdToSend);
-                    producer.send(requestQueuesQueue_zeroQueuesMatchWithNullTermination, requestNullTermination);
-
-                    // We've done this job, clear out correlationId
-                    correlationIdToSend = null;
+                        // We've done this job, clear out forced update
+                        forcedUpdateToSend = null;
+                    }
 
                     // :: Chill and loop
-                    synchronized (_waitObject_And_ForceUpdateOutstandingCorrelationIds) {
+                    synchronized (_waitObject) {
                         // :: Go into wait: Either we're waking by interval, or by forced update
                         // Loop till we decide that we should do request.
+                        boolean shardedSweepIntervalPassed = false;
                         while (_runStatus == RunStatus.RUNNING) {
-                            // ?: Do we have a forced update waiting?
-                            if (!_waitObject_And_ForceUpdateOutstandingCorrelationIds.isEmpty()) {
-                                // -> Yes, so pop the force update correlationId before looping.
-                                correlationIdToSend = _waitObject_And_ForceUpdateOutstandingCorrelationIds.remove();
+                            long forcedSweepInFlightSentMillis = expireInFlightUpdatesAndGetForcedSweepSentMillis();
+                            // ?: Do we have a forced update waiting, and no forced sweep in flight?
+                            // (If there is one in flight, we let forced updates merge up until it is done.)
+                            if ((_forcedUpdatePending != null) && (forcedSweepInFlightSentMillis == 0)) {
+                                // -> Yes, so take the forced update before looping.
+                                forcedUpdateToSend = _forcedUpdatePending;
+                                _forcedUpdatePending = null;
                                 // Break out of wait-loop
                                 break;
                             }
-                            // E-> No forced update, so calculate how long to wait
+                            // If it is time to poll the hot destinations, they're added to the targeted update.
+                            long millisToNextHotDestinationPoll = pollHotDestinationsIfDue();
+                            // ?: Do we have a targeted update waiting?
+                            if (_targetedUpdatePending != null) {
+                                // -> Yes, so take the targeted update before looping.
+                                targetedUpdateToSend = _targetedUpdatePending;
+                                _targetedUpdatePending = null;
+                                // Break out of wait-loop
+                                break;
+                            }
+                            // ?: Are we in the middle of a sharded sweep?
+                            if (shardedSweep != null) {
+                                // -> Yes, so the next shard is due at its time, no matter what other nodes do.
+                                long millisToNextShard = shardedSweep.nextShardAtMillis - System.currentTimeMillis();
+                                if (millisToNextShard > 0) {
+                                    _waitObject.wait(Math.min(millisToNextShard, millisToNextHotDestinationPoll));
+                                    continue;
+                                }
+                                // ?: Are there more shards?
+                                if (!shardedSweep.isDone()) {
+                                    // -> Yes, so break out of wait-loop to request the next.
+                                    break;
+                                }
+                                // E-> The sharded sweep has had its interval, so decide about the next sweep now.
+                                shardedSweep = null;
+                                shardedSweepIntervalPassed = true;
+                            }
+                            // E-> No forced update to send now, so calculate how long to wait
                             // 10% randomness, 5% to both sides
-                            long randomRange = (long) Math.max(150, _updateIntervalMillis * .1d);
+                            long updateIntervalMillis = _effectiveUpdateIntervalMillis;
+                            long randomRange = (long) Math.max(150, updateIntervalMillis * .1d);
                             long randomness = Math.round(ThreadLocalRandom.current().nextDouble() * randomRange);
-                            long currentWait = Math.max(1, _updateIntervalMillis - (randomRange / 2) + randomness);
+                            long currentWait = Math.max(1, updateIntervalMillis - (randomRange / 2) + randomness);
+                            // ?: Is a forced update waiting for the forced sweep in flight?
+                            if (_forcedUpdatePending != null) {
+                                // -> Yes, so do not wait longer than till the one in flight times out.
+                                currentWait = Math.max(1, Math.min(currentWait, forcedSweepInFlightSentMillis
+                                        + TIMEOUT_MILLIS_FOR_IN_FLIGHT_FORCED_UPDATE - System.currentTimeMillis()));
+                            }
 
-                            // Do wait.
-                            _waitObject_And_ForceUpdateOutstandingCorrelationIds.wait(currentWait);
+                            // Do wait - unless a sharded sweep just had its interval, which is our wait.
+                            if (!shardedSweepIntervalPassed) {
+                                _waitObject.wait(Math.min(currentWait, millisToNextHotDestinationPoll));
+                            }
+                            shardedSweepIntervalPassed = false;
 
                             // ?: Not running anymore?
                             if (_runStatus != RunStatus.RUNNING) {
                                 // -> Break out of wait loop (and then all the way out, due to loop conditionals.).
                                 break;
                             }
-                            // ?: Forced update waiting?
-                            if (!_waitObject_And_ForceUpdateOutstandingCorrelationIds.isEmpty()) {
-                                // -> Loop (waitloop) to get correlationId (and then break).
+                            // ?: Forced or targeted update waiting, or time to poll the hot destinations?
+                            if ((_forcedUpdatePending != null) || (_targetedUpdatePending != null)
+                                    || (pollHotDestinationsIfDue() == 0)) {
+                                // -> Loop (waitloop) to get the forced or targeted update (and then break).
                                 continue;
                             }
 
                             // :: Check if we actually should do the request, or if the other node has already done it.
 
+                            // ?: Are we using leader election?
+                            if (_useLeaderElection) {
+                                // -> Yes, so the leader does the request, while followers only do it if overdue.
+                                if (isLeader()) {
+                                    log.debug("We are leader; I will do the request.");
+                                    // Break out of wait-loop
+                                    break;
+                                }
+                                // ?: Is the last received stats message older than two intervals?
+                                if (_lastStatsUpdateMessageReceived < (System.currentTimeMillis()
+                                        - (_effectiveUpdateIntervalMillis * 2))) {
+                                    // -> Yes, so the leader has some problem - let's do the request.
+                                    log.info("We are not leader, but the last received StatsUpdateMessage is older"
+                                            + " than two intervals - the leader seems to have a problem, so I will"
+                                            + " do the request.");
+                                    // Break out of wait-loop
+                                    break;
+                                }
+                                log.debug("We are not leader; I will NOT do the request.");
+                                continue;
+                            }
+
                             // ?: Is the last received stats message older than 75% of our interval?
                             if (_lastStatsUpdateMessageReceived < (System.currentTimeMillis()
-                                    - (_updateIntervalMillis * 0.75d))) {
+                                    - (_effectiveUpdateIntervalMillis * 0.75d))) {
                                 // -> Yes, the message is overdue enough, so let's do the request
                                 log.debug("Last received StatsUpdateMessage is too old (I am probably first of the"
                                         + " nodes, or the only node); I will do the request");
@@ -483,6 +969,262 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
         log.info("Got asked to exit, and that we do!");
     }
 
+    /**
+     * If polling hot destinations, and it is time: Adds the hot destinations to the pending targeted update. Only used
+     * from the send thread, synchronized on _waitObject.
+     *
+     * @return millis till next poll, <code>0</code> if the poll was added now, or {@link Long#MAX_VALUE} if there
+     *         are no hot destinations.
+     */
+    private long pollHotDestinationsIfDue() {
+        if (_hotDestinationTracker == null) {
+            return Long.MAX_VALUE;
+        }
+        Collection<String> hotFqDestinationNames = _hotDestinationTracker.getHotFqDestinationNames();
+        long now = System.currentTimeMillis();
+        // ?: Any hot destinations?
+        if (hotFqDestinationNames.isEmpty()) {
+            // -> No, so the first poll is an interval after they get hot (which is right after a sweep).
+            _nextHotDestinationPollMillis = now + _hotDestinationPollIntervalMillis;
+            return Long.MAX_VALUE;
+        }
+        // ?: Is it time to poll?
+        if (now < _nextHotDestinationPollMillis) {
+            // -> No, not yet.
+            return _nextHotDestinationPollMillis - now;
+        }
+        if (_targetedUpdatePending == null) {
+            _targetedUpdatePending = new PendingUpdate();
+        }
+        _targetedUpdatePending.fqDestinationNames.addAll(hotFqDestinationNames);
+        _nextHotDestinationPollMillis = now + _hotDestinationPollIntervalMillis;
+        log.debug("Polling the [" + hotFqDestinationNames.size() + "] hot destinations.");
+        return 0;
+    }
+
+    private void sendDestinationRequestMessages(Session session, MessageProducer producer,
+            List<Destination> requestDestinations, Topic replyStatisticsTopic, String correlationIdToSend)
+            throws JMSException {
+        for (Destination requestDestination : requestDestinations) {
+            Message requestDestinationsMsg = session.createMessage();
+            // ?: Should we ask for the first message timestamps in the sweep?
+            if (!_firstMessageTimestampsOnlyForNonEmpty) {
+                // -> Yes, so ask for it - otherwise asked for the non-empty after the sweep.
+                set_includeFirstMessageTimestamp(requestDestinationsMsg);
+            }
+            requestDestinationsMsg.setJMSReplyTo(replyStatisticsTopic);
+            requestDestinationsMsg.setJMSCorrelationID(correlationIdToSend);
+            producer.send(requestDestination, requestDestinationsMsg);
+        }
+    }
+
+    /**
+     * Sends the null-termination query (query w/o any destination replies, only the null-terminator).
+     */
+    private void sendNullTerminationRequestMessage(Session session, MessageProducer producer,
+            Topic replyStatisticsTopic, Queue requestQueuesQueue_zeroQueuesMatchWithNullTermination,
+            String correlationIdToSend) throws JMSException {
+        // .. construct the null-termination message
+        Message requestNullTermination = session.createMessage();
+        requestNullTermination.setJMSReplyTo(replyStatisticsTopic);
+        // .. set the special property which directs the StatisticsPlugin to "empty terminate" the replies.
+        requestNullTermination.setBooleanProperty(QUERY_REQUEST_DENOTE_END_LIST, true);
+        requestNullTermination.setJMSCorrelationID(correlationIdToSend);
+        producer.send(requestQueuesQueue_zeroQueuesMatchWithNullTermination, requestNullTermination);
+    }
+
+    /**
+     * A scheduled sweep split in shards, which are requested spread over the interval. All the shards carry the same
+     * correlationId, and only the last requests the terminator - so that the receivers get one batch for the sweep.
+     */
+    private static class ShardedSweep {
+        final List<List<Destination>> shards;
+        final long millisBetweenShards;
+        String correlationIdToSend;
+        int nextShardIndex;
+        long nextShardAtMillis;
+
+        ShardedSweep(List<List<Destination>> shards, long millisBetweenShards) {
+            this.shards = shards;
+            this.millisBetweenShards = millisBetweenShards;
+        }
+
+        boolean isDone() {
+            return nextShardIndex >= shards.size();
+        }
+    }
+
+    /**
+     * Splits the Mats destinations we know of into shards by endpoint group, balanced on the number of destinations.
+     * The global DLQ, and any Mats destinations which do not have a dot after the endpoint group, are put in the last
+     * shard.
+     *
+     * @return the sharded sweep, or <code>null</code> if we can't shard (not only Mats destinations, or fewer than two
+     *         endpoint groups known).
+     */
+    private ShardedSweep createShardedSweep(Session session) throws JMSException {
+        // ?: Are we querying only the Mats destinations?
+        if (!(_queryMatsDestinationsOnly && _matsDestinationPrefix.endsWith("."))) {
+            // -> No, so we can't shard, as the other destinations can't be split by wildcard.
+            return null;
+        }
+        // :: Count the destinations per endpoint group
+        String dlqMatsDestinationPrefix = DLQ_PREFIX + "." + _matsDestinationPrefix;
+        Map<String, Integer> destinationsPerEndpointGroup = new TreeMap<>();
+        List<String> ungroupedFqDestinationNames = new ArrayList<>();
+        for (String fqDestinationName : _currentDestinationStatsDtos.keySet()) {
+            // "queue://" and "topic://" are both 8 long.
+            String destinationName = fqDestinationName.substring(8);
+            int groupStart;
+            if (destinationName.startsWith(_matsDestinationPrefix)) {
+                groupStart = _matsDestinationPrefix.length();
+            }
+            else if (destinationName.startsWith(dlqMatsDestinationPrefix)) {
+                groupStart = dlqMatsDestinationPrefix.length();
+            }
+            else {
+                // Not a Mats destination, i.e. the global DLQ, which is requested anyway.
+                continue;
+            }
+            int groupEnd = destinationName.indexOf('.', groupStart);
+            // ?: Is there a dot after the endpoint group, so that it can be requested by wildcard?
+            if (groupEnd > groupStart) {
+                // -> Yes, so count it in its endpoint group.
+                destinationsPerEndpointGroup.merge(destinationName.substring(groupStart, groupEnd), 1, Integer::sum);
+            }
+            else {
+                // -> No, so it must be requested by itself.
+                ungroupedFqDestinationNames.add(fqDestinationName);
+            }
+        }
+        int numberOfShards = Math.min(_sweepShards, destinationsPerEndpointGroup.size());
+        // ?: Fewer than two shards?
+        if (numberOfShards < 2) {
+            // -> Yes, so no point in sharding.
+            return null;
+        }
+
+        // :: Assign the endpoint groups, largest first, to the shard having the fewest destinations so far.
+        List<Map.Entry<String, Integer>> endpointGroups = new ArrayList<>(destinationsPerEndpointGroup.entrySet());
+        endpointGroups.sort(Map.Entry.<String, Integer> comparingByValue().reversed());
+        List<List<Destination>> shards = new ArrayList<>(numberOfShards);
+        int[] destinationsInShard = new int[numberOfShards];
+        for (int i = 0; i < numberOfShards; i++) {
+            shards.add(new ArrayList<>());
+        }
+        for (Map.Entry<String, Integer> endpointGroup : endpointGroups) {
+            int smallest = 0;
+            for (int i = 1; i < numberOfShards; i++) {
+                if (destinationsInShard[i] < destinationsInShard[smallest]) {
+                    smallest = i;
+                }
+            }
+            destinationsInShard[smallest] += endpointGroup.getValue();
+            List<Destination> shard = shards.get(smallest);
+            String group = endpointGroup.getKey();
+            // Queues and topics of the endpoint group, and the DLQs (which are queues, also for topics).
+            String queryRequestDestination_group = QUERY_REQUEST_DESTINATION_PREFIX + "." + _matsDestinationPrefix
+                    + group + ".>";
+            shard.add(session.createQueue(queryRequestDestination_group));
+            shard.add(session.createTopic(queryRequestDestination_group));
+            shard.add(session.createQueue(QUERY_REQUEST_DESTINATION_PREFIX + "." + dlqMatsDestinationPrefix
+                    + group + ".>"));
+        }
+        // :: The global DLQ and the ungrouped destinations go in the last shard.
+        List<Destination> lastShard = shards.get(numberOfShards - 1);
+        lastShard.add(session.createQueue(QUERY_REQUEST_DESTINATION_PREFIX + "." + ACTIVE_MQ_GLOBAL_DLQ_NAME));
+        for (String fqDestinationName : ungroupedFqDestinationNames) {
+            String queryRequestDestination = QUERY_REQUEST_DESTINATION_PREFIX + "." + fqDestinationName.substring(8);
+            lastShard.add(fqDestinationName.startsWith("queue://")
+                    ? session.createQueue(queryRequestDestination)
+                    : session.createTopic(queryRequestDestination));
+        }
+        if (log.isDebugEnabled()) log.debug("Sharded sweep of [" + endpointGroups.size() + "] endpoint groups into ["
+                + numberOfShards + "] shards having " + Arrays.toString(destinationsInShard) + " destinations.");
+        return new ShardedSweep(shards, _effectiveUpdateIntervalMillis / numberOfShards);
+    }
+
+    /**
+     * Requests stats for the next shard of the sharded sweep, and the null-termination if it is the last.
+     */
+    private void sendShardRequestMessages(Session session, MessageProducer producer, Topic replyStatisticsTopic,
+            Queue requestQueuesQueue_zeroQueuesMatchWithNullTermination, ShardedSweep shardedSweep)
+            throws JMSException {
+        List<Destination> shard = shardedSweep.shards.get(shardedSweep.nextShardIndex++);
+        sendDestinationRequestMessages(session, producer, shard, replyStatisticsTopic,
+                shardedSweep.correlationIdToSend);
+        // ?: Was this the last shard?
+        if (shardedSweep.isDone()) {
+            // -> Yes, so terminate the sweep.
+            sendNullTerminationRequestMessage(session, producer, replyStatisticsTopic,
+                    requestQueuesQueue_zeroQueuesMatchWithNullTermination, shardedSweep.correlationIdToSend);
+        }
+        // The next shard - or, if this was the last, the next sweep - is due after this shard's part of the interval.
+        shardedSweep.nextShardAtMillis = System.currentTimeMillis() + shardedSweep.millisBetweenShards;
+    }
+
+    private void sendTargetedStatsRequestMessages(Session session, MessageProducer producer,
+            Topic replyStatisticsTopic, Queue requestQueuesQueue_zeroQueuesMatchWithNullTermination,
+            PendingUpdate targetedUpdate) throws JMSException {
+        // The correlationId is set on all the requests, and thus on all the replies - registered if forced.
+        String correlationIdToSend = !targetedUpdate.correlationIds.isEmpty()
+                ? registerInFlightUpdate(CORRELATION_ID_PREFIX_FORCED_TARGETED, targetedUpdate, false)
+                : constructCorrelationIdToSend(CORRELATION_ID_PREFIX_TARGETED, false,
+                        Long.toString(ThreadLocalRandom.current().nextLong(), 36));
+        // We start timing from now
+        _nanosAtStart_RequestQuery = System.nanoTime();
+        for (String fqDestinationName : targetedUpdate.fqDestinationNames) {
+            // Queue requests give replies for queues, Topic requests for topics. (Both prefixes are 8 long)
+            String queryRequestDestination = QUERY_REQUEST_DESTINATION_PREFIX + "." + fqDestinationName.substring(8);
+            Destination requestDestination = fqDestinationName.startsWith("queue://")
+                    ? session.createQueue(queryRequestDestination)
+                    : session.createTopic(queryRequestDestination);
+            Message requestDestinationMsg = session.createMessage();
+            set_includeFirstMessageTimestamp(requestDestinationMsg);
+            requestDestinationMsg.setJMSReplyTo(replyStatisticsTopic);
+            requestDestinationMsg.setJMSCorrelationID(correlationIdToSend);
+            producer.send(requestDestination, requestDestinationMsg);
+        }
+        // .. then the null-termination message.
+        sendNullTerminationRequestMessage(session, producer, replyStatisticsTopic,
+                requestQueuesQueue_zeroQueuesMatchWithNullTermination, correlationIdToSend);
+        log.debug("Sent targeted statistics request for " + targetedUpdate.fqDestinationNames + ".");
+    }
+
+    private List<Destination> createStatisticsRequestDestinations(Session session) throws JMSException {
+        List<Destination> requestDestinations = new ArrayList<>();
+        // ?: Should we only query for the Mats destinations, and can we (prefix must end with "." to use wildcard)?
+        if (_queryMatsDestinationsOnly && _matsDestinationPrefix.endsWith(".")) {
+            // -> Yes, so query for the Mats destinations, their DLQs, and the global DLQ.
+            // Mats queues and topics
+            String queryRequestDestination_mats = QUERY_REQUEST_DESTINATION_PREFIX + "." + _matsDestinationPrefix
+                    + ">";
+            requestDestinations.add(session.createQueue(queryRequestDestination_mats));
+            requestDestinations.add(session.createTopic(queryRequestDestination_mats));
+            // Individual DLQs for the Mats queues (and topics, as the DLQ for a topic is a queue)
+            requestDestinations.add(session.createQueue(QUERY_REQUEST_DESTINATION_PREFIX + "." + DLQ_PREFIX + "."
+                    + _matsDestinationPrefix + ">"));
+            // The global DLQ, in case the broker isn't configured with individual DLQs.
+            requestDestinations.add(session.createQueue(QUERY_REQUEST_DESTINATION_PREFIX + "."
+                    + ACTIVE_MQ_GLOBAL_DLQ_NAME));
+            log.info("Querying statistics only for the Mats destinations with prefix [" + _matsDestinationPrefix
+                    + "], their DLQs, and the global DLQ.");
+            return requestDestinations;
+        }
+        // ?: Did we want to query only the Mats destinations, but could not?
+        if (_queryMatsDestinationsOnly) {
+            // -> Yes, so warn about this
+            log.warn("Asked to query statistics only for the Mats destinations, but the MatsDestinationPrefix ["
+                    + _matsDestinationPrefix + "] does not end with a '.', which is needed for the wildcard query."
+                    + " Querying ALL queues and topics instead.");
+        }
+        // We're asking for ALL queues and topics.
+        String queryRequestDestination_all = QUERY_REQUEST_DESTINATION_PREFIX + ".>";
+        requestDestinations.add(session.createQueue(queryRequestDestination_all));
+        requestDestinations.add(session.createTopic(queryRequestDestination_all));
+        return requestDestinations;
+    }
+
     private void set_includeFirstMessageTimestamp(Message msg) throws JMSException {
         msg.setBooleanProperty(QUERY_REQUEST_DESTINATION_INCLUDE_FIRST_MESSAGE_TIMESTAMP, true);
     }
@@ -497,38 +1239,43 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
                 _receiveDestinationsStatsReplyMessages_Connection.start();
                 Session session = _receiveDestinationsStatsReplyMessages_Connection.createSession(false,
                         Session.AUTO_ACKNOWLEDGE);
-                Topic replyTopic = session.createTopic(QUERY_REPLY_STATISTICS_TOPIC);
+                // ?: Using snapshot distribution?
+                MessageProducer snapshotProducer = null;
+                Topic snapshotTopic = null;
+                if (_useSnapshotDistribution) {
+                    // -> Yes, so consume both the node-specific reply topic and the snapshot topic (composite).
+                    snapshotTopic = session.createTopic(STATISTICS_SNAPSHOT_TOPIC);
+                    snapshotProducer = session.createProducer(null);
+                    snapshotProducer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+                }
+                Topic replyTopic = session.createTopic(_useSnapshotDistribution
+                        ? replyStatisticsTopicName() + "," + STATISTICS_SNAPSHOT_TOPIC
+                        : QUERY_REPLY_STATISTICS_TOPIC);
                 MessageConsumer consumer = session.createConsumer(replyTopic);
 
-                long nanosAtEnd_lastMessageReceived = 0;
                 while (_runStatus == RunStatus.RUNNING) {
 
-                    // Note: The logic here is that we'll get a bunch of statistics reply messages, ended by either
-                    // an explicit "empty terminator", or by timing out. This first, timed receive is for the "bunch",
-                    // while the later, indefinite receive is for waiting for the next batch.
-
-                    // Since I do not feel utterly confident about the ordering of the messages vs. the multiple
-                    // requests and the last "empty terminator", we should also handle that a bunch is split into
-                    // two parts: Some replies, the empty terminator, and the rest of the replies. This is not handled
-                    // /good/, but we will at least receive the stats messages. However, the fired event will be too
-                    // early. This will definitely be a "eventually consistent" scenario - so lets hope the ordering
-                    // holds, in which case we have a very good consistency wrt. when sending the update event.
-
-                    // The net effect here is that we will receive stats updates for everything we want, but the
-                    // ordering and clean division into "sets" based on the requests being sent cannot be totally
-                    // guaranteed - both due to mentioned ordering, but also the fact that there should be multiple
-                    // nodes running this (so that we can get interleaving of requests), and that downstream can at
-                    // any point request a forced update request, which might come right after a scheduled update req.
-
-                    // However, since we do stack everything we get up into a persistent memory map on this side, we
-                    // will just get more and more current information. As long as we eventually notify our listeners
-                    // (the ActiveMqMatsBrokerMonitor), the downstream will get a good view about the broker state.
-                    // (The map is scavenged based on time: If there are old destinations that haven't gotten an update
-                    // for a longish time, it is assumed that the destination is gone from the broker).
-
-                    // Go into timed receive (receiving "the rest of the bunch", but handling startup)
-                    MapMessage statsMsg = (MapMessage) consumer.receive(
-                            TIMEOUT_MILLIS_FOR_LAST_MESSAGE_IN_BATCH_FOR_DESTINATION_STATS);
+                    // Note: The logic here is that all the requests of a sweep (or targeted update) carry the same
+                    // correlationId, which the StatisticsPlugin copies to the replies. The last request asks for an
+                    // "empty terminator" reply. The replies are thus collected in a batch per correlationId, and the
+                    // batch is ended by its terminator, giving exactly one event per request - also if several nodes
+                    // request concurrently, or a forced update comes right after a scheduled, so that the replies
+                    // interleave, and also if the replies pause for a while mid-sweep due to broker load.
+
+                    // As a last resort, a batch which hasn't gotten any replies for a while is ended without the
+                    // terminator, so that we do not hang if it is lost. Replies without correlationId (from requests
+                    // sent by nodes running an older version) are ended on a short timeout, as before.
+
+                    // Since we do stack everything we get up into a persistent memory map on this side, we will in any
+                    // case just get more and more current information. (The map is scavenged based on time: If there
+                    // are old destinations that haven't gotten an update for a longish time, it is assumed that the
+                    // destination is gone from the broker).
+
+                    // :: Receive: Timed if we have open batches (for the fallback), otherwise indefinite.
+                    long millisToNextBatchDeadline = millisToNextBatchDeadline();
+                    Message received = millisToNextBatchDeadline < 0
+                            ? consumer.receive()
+                            : consumer.receive(Math.max(1, millisToNextBatchDeadline));
 
                     // NOTE: We're using an undocumented feature of ActiveMQ's StatisticsBrokerPlugin whereby if we add
                     // a special marker to the query, the replies will be "empty terminated" by an empty MapMessage.
@@ -538,26 +1285,24 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
                         break OUTERLOOP;
                     }
 
-                    // ?: Did we either get a null, or get an "empty" MapMessage?
-                    // (Null would be timeout for stats, empty MapMessage would be the "null termination" for stats.)
-                    if ((statsMsg == null) || (statsMsg.getObject("brokerName") == null)) {
-                        // -> null or empty, but runStatus==RUNNING, so this was a timeout or "terminator".
-
-                        // Now evaluate whether this was the end of a batch of destination stats messages, and if
-                        // so, fire the event.
-                        evaluateEndOfBatch(statsMsg, nanosAtEnd_lastMessageReceived);
-
-                        // ----- So, either startup, or we've finished a batch of messages:
-                        // Go into indefinite receive: Waiting for _next batch_ of messages triggered by _next stats
-                        // request_. (Or null message, resulting from outside close due to shutdown)
-                        statsMsg = (MapMessage) consumer.receive();
-                    }
-
-                    // ----- We've either got a message from the loop, or a new message after a batch.
-
-                    // ?: Was this a null-message, most probably denoting that we're exiting?
-                    if (statsMsg == null) {
-                        // -> Yes, null message received.
+                    // ?: Did we get a null?
+                    if (received == null) {
+                        // ?: Was this the timed receive?
+                        if (millisToNextBatchDeadline >= 0) {
+                            // -> Yes, so end the batches that haven't gotten their terminator in time.
+                            for (ReplyBatch overdue : removeOverdueBatches()) {
+                                if (overdue.correlationId != null) {
+                                    log.warn("The statistics replies for correlationId [" + overdue.correlationId
+                                            + "] didn't get their terminator within ["
+                                            + TIMEOUT_MILLIS_FALLBACK_END_OF_BATCH + "] ms after the last reply:"
+                                            + " Ending the batch of [" + overdue.count + "] replies without it.");
+                                }
+                                endBatchAndPublish(overdue, overdue.correlationId, session, snapshotProducer,
+                                        snapshotTopic);
+                            }
+                            continue;
+                        }
+                        // E-> Null message from indefinite receive, most probably denoting that we're exiting.
                         log.info("Received null message from consumer.receive(), assuming shutdown.");
                         if (_runStatus != RunStatus.RUNNING) {
                             break OUTERLOOP;
@@ -566,35 +1311,68 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
                                 + " but runFlag still true?!");
                     }
 
-                    // :: Evaluate whether it is a BrokerStatistics or DestinationStatistics message
-                    if (statsMsg.getObject("destinationName") != null) {
+                    // ?: Is this a snapshot from another node?
+                    if (received instanceof BytesMessage) {
+                        // -> Yes, so install it, and go back to receiving.
+                        installSnapshot((BytesMessage) received);
+                        continue;
+                    }
+
+                    MapMessage statsMsg = (MapMessage) received;
+                    String correlationId = statsMsg.getJMSCorrelationID();
+
+                    // :: Evaluate whether it is a BrokerStatistics or DestinationStatistics message, or the terminator
+                    if (statsMsg.itemExists("destinationName")) {
                         // -> Destination stats
-                        // This was a destination stats message - count it
-                        _countOfDestinationsReceivedAfterRequest.incrementAndGet();
-                        _countOfDestinationsReceivedSinceLastBatch++;
+                        // This was a destination stats message - count it in its batch
+                        ReplyBatch batch = _openBatches.get(correlationId);
+                        if (batch == null) {
+                            boolean shardedSweep = isShardedSweep(correlationId);
+                            // The shards of a sharded sweep are spread over the interval, so wait for them.
+                            batch = new ReplyBatch(correlationId, shardedSweep
+                                    ? _effectiveUpdateIntervalMillis + TIMEOUT_MILLIS_FALLBACK_END_OF_BATCH
+                                    : TIMEOUT_MILLIS_FALLBACK_END_OF_BATCH);
+                            _openBatches.put(correlationId, batch);
+                            // ?: Is this the start of a sharded sweep?
+                            if (shardedSweep) {
+                                // -> Yes, so count the start as getting stats, as the sweep lasts most of the
+                                // interval - so that other nodes do not start their own meanwhile.
+                                _lastStatsUpdateMessageReceived = System.currentTimeMillis();
+                            }
+                        }
+                        DestinationStatsDto destinationStatsDto = installDestinationStats(statsMsg);
                         // .. log time we received this destination stats message
-                        nanosAtEnd_lastMessageReceived = System.nanoTime();
-
-                        DestinationStatsDto destinationStatsDto = mapMessageToDestinationStatsDto(statsMsg);
-                        _currentDestinationStatsDtos.put(destinationStatsDto.destinationName, destinationStatsDto);
-                        // Update that we've gotten a stats-message
-                        _lastStatsUpdateMessageReceived = System.currentTimeMillis();
+                        batch.nanosAtEnd_lastMessageReceived = System.nanoTime();
+                        // ?: Was it filtered away?
+                        if (destinationStatsDto == null) {
+                            // -> Yes, so it doesn't count.
+                            continue;
+                        }
+                        batch.count++;
+                        batch.fqDestinationNames.add(destinationStatsDto.destinationName);
+                        // NOTE: We update that we've gotten stats at end of batch, as targeted updates shall not count.
                         if (log.isTraceEnabled()) log.trace("Got DestinationStats: " + destinationStatsDto);
                     }
-                    else if (statsMsg.getObject("storeUsage") != null) {
+                    else if (statsMsg.itemExists("storeUsage")) {
                         // -> Broker stats
                         _currentBrokerStatsDto = mapMessageToBrokerStatsDto(statsMsg);
                         // Update that we've gotten a stats-message
                         _lastStatsUpdateMessageReceived = System.currentTimeMillis();
                         if (log.isTraceEnabled()) log.trace("Got BrokerStats: " + _currentBrokerStatsDto);
                     }
+                    else if (!statsMsg.itemExists("brokerName")) {
+                        // -> The "empty terminator", so end its batch.
+                        ReplyBatch batch = _openBatches.remove(correlationId);
+                        // ?: No batch for this correlationId, but replies without correlationId? (Older node)
+                        if ((batch == null) && _openBatches.containsKey(null)) {
+                            // -> Yes, so those must be what this terminates.
+                            batch = _openBatches.remove(null);
+                        }
+                        endBatchAndPublish(batch, correlationId, session, snapshotProducer, snapshotTopic);
+                    }
                     else {
-                        log.info("Got a JMS Message that was neither destination stats nor broker stats."
-                                + " This is probably an unexpected 'null termination' which happened because more than"
-                                + " one instance of the querier sent stats query at the same time, thus getting two"
-                                + " replies concurrently. Should not happen often since we have forced randomness in"
-                                + " query interval. If it does happen often, either your interval is too low,"
-                                + " you have high load or latency, very many queues - or gimme a call! \n" + statsMsg);
+                        log.info("Got a JMS Message that was neither destination stats, broker stats, nor the"
+                                + " terminator. Ignoring. \n" + statsMsg);
                     }
                 }
             }
@@ -615,49 +1393,136 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
         log.info("Got asked to exit, and that we do!");
     }
 
-    private void evaluateEndOfBatch(MapMessage statsMsg, long nanosAtEnd_lastMessageReceived) throws JMSException {
+    /**
+     * The replies to the requests having the same correlationId, or all replies without correlationId.
+     */
+    private static class ReplyBatch {
+        final String correlationId; // nullable
+        final long fallbackMillis;
+        final Set<String> fqDestinationNames = new TreeSet<>();
+        int count;
+        long nanosAtEnd_lastMessageReceived;
+
+        ReplyBatch(String correlationId, long fallbackMillis) {
+            this.correlationId = correlationId;
+            this.fallbackMillis = fallbackMillis;
+        }
+
+        long deadlineNanos() {
+            // Replies without correlationId have no terminator of their own, so end them on the short timeout.
+            return nanosAtEnd_lastMessageReceived + (correlationId != null
+                    ? fallbackMillis
+                    : TIMEOUT_MILLIS_FOR_LAST_MESSAGE_IN_BATCH_FOR_DESTINATION_STATS) * 1_000_000L;
+        }
+    }
+
+    /**
+     * @return millis till the first open batch shall be ended without terminator, or -1 if there are no open batches.
+     */
+    private long millisToNextBatchDeadline() {
+        if (_openBatches.isEmpty()) {
+            return -1;
+        }
+        long earliestDeadlineNanos = Long.MAX_VALUE;
+        for (ReplyBatch batch : _openBatches.values()) {
+            earliestDeadlineNanos = Math.min(earliestDeadlineNanos, batch.deadlineNanos());
+        }
+        return Math.max(0, (earliestDeadlineNanos - System.nanoTime()) / 1_000_000L);
+    }
+
+    private List<ReplyBatch> removeOverdueBatches() {
+        List<ReplyBatch> overdue = new ArrayList<>();
+        long nowNanos = System.nanoTime();
+        Iterator<ReplyBatch> it = _openBatches.values().iterator();
+        while (it.hasNext()) {
+            ReplyBatch batch = it.next();
+            if (nowNanos - batch.deadlineNanos() >= 0) {
+                overdue.add(batch);
+                it.remove();
+            }
+        }
+        return overdue;
+    }
+
+    private void endBatchAndPublish(ReplyBatch batch, String rawCorrelationId, Session session,
+            MessageProducer snapshotProducer, Topic snapshotTopic) throws JMSException {
+        ActiveMqBrokerStatsEventImpl event = endBatch(batch, rawCorrelationId);
+        // ?: Should we distribute what this node requested to the other nodes?
+        if ((snapshotProducer != null) && (event != null) && event.isStatsEventOriginatedOnThisNode()) {
+            // -> Yes, so publish the snapshot.
+            publishSnapshot(session, snapshotProducer, snapshotTopic, event);
+        }
+    }
+
+    /**
+     * @param batch
+     *            the batch of replies, <code>null</code> if the terminator came without any replies.
+     * @param raw
+     *            the correlationId of the request, <code>null</code> if unknown.
+     * @return the event fired to the listeners, or <code>null</code> if there were no replies in the batch.
+     */
+    private ActiveMqBrokerStatsEventImpl endBatch(ReplyBatch batch, String raw) {
+        // :: If this terminates an update sent from this node with correlationIds, complete it in any case.
+        List<String> inFlightCorrelationIds = raw != null ? completeInFlightUpdate(raw) : null;
+
         // :: Extract information from the JMS Message's CorrelationId.
         // ?: Have we gotten (bunch of) stats messages by now?
-        if (_countOfDestinationsReceivedSinceLastBatch > 0) {
+        if ((batch != null) && (batch.count > 0)) {
             // -> We've gotten 1 or more stats messages.
 
-            // We've now (hopefully) received a full set of destination stats.
+            // We've now received a full set of destination stats for the request.
 
-            // :: Pick out pieces of the raw correlation if we came here based on a final last message.
-            // (Does not work if we came here due to timeout, as we don't then have a message.)
-            String correlationId = null;
+            // :: Pick out pieces of the raw correlation, if we have it.
+            List<String> correlationIds = Collections.emptyList();
             boolean isFullUpdate = false;
+            boolean isTargetedUpdate = false;
+            boolean isShardedSweep = false;
             String originatingNodeId = null;
             boolean requestSameNode = false;
-            if (statsMsg != null) {
-                String raw = statsMsg.getJMSCorrelationID();
-                if (raw != null) {
-                    CorrSplit corrSplit = splitCorrelation(raw);
-                    // Only use the correlationId if it was supplied via a forceUpdate.
-                    correlationId = corrSplit.forced ? corrSplit.correlationId : null;
-                    isFullUpdate = corrSplit.fullUpdate;
-                    originatingNodeId = corrSplit.nodeId;
-                    requestSameNode = _nodeId.equals(originatingNodeId);
+            if (raw != null) {
+                CorrSplit corrSplit = splitCorrelation(raw);
+                // Only use the correlationId if it was supplied via a forceUpdate - and if it was sent from this
+                // node, we have all the merged correlationIds.
+                if (inFlightCorrelationIds != null) {
+                    correlationIds = inFlightCorrelationIds;
+                }
+                else if (corrSplit.forced) {
+                    correlationIds = Collections.singletonList(corrSplit.correlationId);
                 }
+                isFullUpdate = corrSplit.fullUpdate;
+                isTargetedUpdate = corrSplit.targeted;
+                isShardedSweep = corrSplit.sharded;
+                originatingNodeId = corrSplit.nodeId;
+                requestSameNode = _nodeId.equals(originatingNodeId);
+            }
+
+            // ?: Was this a targeted update of specific destinations, or a sharded sweep (counted at its start)?
+            if (!(isTargetedUpdate || isShardedSweep)) {
+                // -> No, so update that we've gotten a (full set of) stats-messages. This is used to decide whether
+                // we need to do a scheduled request, or if another node has already done it.
+                _lastStatsUpdateMessageReceived = System.currentTimeMillis();
             }
 
             // :: Log the update with metrics.
 
             MDC.put("mats.mbm.fullUpdate", Boolean.toString(isFullUpdate));
+            MDC.put("mats.mbm.targetedUpdate", Boolean.toString(isTargetedUpdate));
             MDC.put("mats.mbm.requestSameNode", Boolean.toString(requestSameNode));
-            if (correlationId != null) {
-                MDC.put("mats.mbm.correlationId", correlationId);
+            if (!correlationIds.isEmpty()) {
+                MDC.put("mats.mbm.correlationId", String.join(",", correlationIds));
             }
 
-            String msg = "#MBM_UPDATE# (Request " + (requestSameNode ? "IS" : "is NOT") + " from this node,"
+            String msg = "#MBM_UPDATE# " + (isTargetedUpdate ? "TARGETED " : "")
+                    + (isShardedSweep ? "SHARDED " : "")
+                    + "(Request " + (requestSameNode ? "IS" : "is NOT") + " from this node,"
                     + " this: " + _nodeId + ", originating: " + originatingNodeId + ")"
                     + " We've received a batch of ["
-                    + _countOfDestinationsReceivedSinceLastBatch
+                    + batch.count
                     + "] destination stats messages, current number of destinations ["
                     + _currentDestinationStatsDtos.size()
                     + "]";
             if (requestSameNode) {
-                long nanosRequestFinalReplyLatency = nanosAtEnd_lastMessageReceived
+                long nanosRequestFinalReplyLatency = batch.nanosAtEnd_lastMessageReceived
                         - _nanosAtStart_RequestQuery;
                 long nanosBetweenQueryAndNow = System.nanoTime() - _nanosAtStart_RequestQuery;
 
@@ -694,102 +1559,711 @@ public class ActiveMqBrokerStatsQuerierImpl implements ActiveMqBrokerStatsQuerie
              * Would have been nice to run this as a full-update when we scavenge some destinations, but that could be
              * messy as we might not be sure the multiple MBM nodes are in sync wrt. "old" destinations. So, we'll just
              * let the next scheduled full update do the job.
+             *
+             * Also when tracking destinations using advisories, this is kept as a backstop: It only visits the
+             * destinations whose stats are old, and catches any removal we've missed (e.g. while resubscribing).
              */
             long longAgo = System.currentTimeMillis() - SCAVENGE_OLD_STATS_SECONDS * 1000;
-            Iterator<DestinationStatsDto> currentStatsIterator = _currentDestinationStatsDtos
-                    .values().iterator();
-            while (currentStatsIterator.hasNext()) {
-                DestinationStatsDto stats = currentStatsIterator.next();
-                if (stats.statsReceived.toEpochMilli() < longAgo) {
-                    log.info("Removing destination which haven't gotten updates for ["
-                            + SCAVENGE_OLD_STATS_SECONDS
-                            + "] seconds: [" + stats.destinationName + "]");
-                    currentStatsIterator.remove();
+            // Only visit the destinations whose stats are old, using the time index.
+            for (String fqDestinationName : _statsTimeIndex.expireOlderThan(longAgo)) {
+                DestinationStatsDto stats = _currentDestinationStatsDtos.get(fqDestinationName);
+                // ?: Already removed by other means (advisory, snapshot)?
+                if (stats == null) {
+                    // -> Yes, so nothing to do.
+                    continue;
+                }
+                // ?: Did it get stats after all (should not happen, as touching moves it to a newer bucket)?
+                if (stats.statsReceivedMillis >= longAgo) {
+                    // -> Yes, so put it back in the index.
+                    _statsTimeIndex.touch(fqDestinationName, stats.statsReceivedMillis);
+                    continue;
+                }
+                log.info("Removing destination which haven't gotten updates for ["
+                        + SCAVENGE_OLD_STATS_SECONDS + "] seconds: [" + fqDestinationName + "]");
+                // (The downstream UpdateEvent will have it as removed.)
+                if (_currentDestinationStatsDtos.remove(fqDestinationName, stats)) {
+                    _changedFqDestinationNames.add(fqDestinationName);
+                }
+            }
+            // .. and by then, any late stats for destinations removed by advisory have long since arrived.
+            _advisoryRemovedBrokerMillis.values().removeIf(removedBrokerMillis -> removedBrokerMillis < longAgo);
+
+            // :: If a full set of stats, evaluate the interval till next request (if adaptive).
+            if (!isTargetedUpdate) {
+                evaluateAdaptiveInterval();
+            }
+
+            // :: If a full set of stats, evaluate which destinations are hot (if polling them).
+            if ((_hotDestinationTracker != null) && !isTargetedUpdate) {
+                // ?: Did destinations get hot, when there were none?
+                if (_hotDestinationTracker.evaluate(_currentDestinationStatsDtos.values(), requestSameNode)) {
+                    // -> Yes, so wake the sender, so that the first poll is timed from now.
+                    synchronized (_waitObject) {
+                        _waitObject.notifyAll();
+                    }
                 }
             }
 
+            // ?: Is this a sweep from this node, which didn't ask for the first message timestamps?
+            if (_firstMessageTimestampsOnlyForNonEmpty && requestSameNode && !isTargetedUpdate) {
+                // -> Yes, so ask for them for the non-empty destinations (the second tier).
+                requestFirstMessageTimestampsForNonEmpty(batch.fqDestinationNames);
+            }
+
             // :: Notify listeners
-            ActiveMqBrokerStatsEventImpl event = new ActiveMqBrokerStatsEventImpl(correlationId,
-                    isFullUpdate, requestSameNode, originatingNodeId,
+            // (If targeted, it is a partial update of the destinations we received stats for.)
+            Set<String> partialUpdateFqDestinationNames = isTargetedUpdate
+                    ? batch.fqDestinationNames
+                    : null;
+            ActiveMqBrokerStatsEventImpl event = new ActiveMqBrokerStatsEventImpl(correlationIds,
+                    isFullUpdate, partialUpdateFqDestinationNames, !isTargetedUpdate, requestSameNode,
+                    originatingNodeId,
                     requestSameNode ? (System.nanoTime() - _nanosAtStart_RequestQuery) / 1_000_000d : -1);
-            for (Consumer<ActiveMqBrokerStatsEvent> listener : _listeners) {
-                listener.accept(event);
+            notifyListeners(event);
+            return event;
+        }
+        else {
+            // -> No, we haven't got any messages for this request.
+            log.debug("Got the terminator for correlationId [" + raw + "], but no stats messages.");
+            return null;
+        }
+    }
+
+    /**
+     * Requests a targeted update, which includes the first message timestamps, of the destinations of the sweep that
+     * have messages.
+     */
+    private void requestFirstMessageTimestampsForNonEmpty(Set<String> fqDestinationNames) {
+        List<String> nonEmptyFqDestinationNames = new ArrayList<>();
+        for (String fqDestinationName : fqDestinationNames) {
+            DestinationStatsDto dto = _currentDestinationStatsDtos.get(fqDestinationName);
+            if ((dto != null) && (dto.size > 0)) {
+                nonEmptyFqDestinationNames.add(fqDestinationName);
             }
+        }
+        // ?: Any non-empty destinations?
+        if (!nonEmptyFqDestinationNames.isEmpty()) {
+            // -> Yes, so request them.
+            log.debug("Requesting first message timestamps for the [" + nonEmptyFqDestinationNames.size()
+                    + "] non-empty of the [" + fqDestinationNames.size() + "] destinations of the sweep.");
+            requestTargetedUpdate(nonEmptyFqDestinationNames);
+        }
+    }
 
-            _countOfDestinationsReceivedSinceLastBatch = 0;
+    private void publishSnapshot(Session session, MessageProducer snapshotProducer, Topic snapshotTopic,
+            ActiveMqBrokerStatsEventImpl event) throws JMSException {
+        // :: Partial update: Only the destinations we got. Otherwise: All, so that the other nodes can scavenge.
+        List<DestinationStatsDto> destinationStatsDtos = new ArrayList<>();
+        if (event.isPartialUpdate()) {
+            for (String fqDestinationName : event.getPartialUpdateFqDestinationNames()) {
+                DestinationStatsDto dto = _currentDestinationStatsDtos.get(fqDestinationName);
+                if (dto != null) {
+                    destinationStatsDtos.add(dto);
+                }
+            }
         }
         else {
-            // -> No, we haven't got any messages - probably startup
-            log.debug("We haven't gotten any stats messages - wait for first one.");
+            // Placeholders are not stats - the other nodes get them from their own advisories.
+            for (DestinationStatsDto dto : _currentDestinationStatsDtos.values()) {
+                if (!dto.placeholder) {
+                    destinationStatsDtos.add(dto);
+                }
+            }
+        }
+        StatsSnapshot snapshot = new StatsSnapshot(_nodeId, event.isFullUpdate(), event.isPartialUpdate(),
+                event.getCorrelationIds(), _currentBrokerStatsDto, destinationStatsDtos);
+        byte[] encoded;
+        try {
+            encoded = StatsSnapshotCodec.encode(snapshot);
+        }
+        catch (IOException e) {
+            // This is in-memory, so should not happen.
+            log.error("Got [" + e.getClass().getSimpleName() + "] when encoding statistics snapshot, cannot"
+                    + " distribute it to the other nodes.", e);
+            return;
         }
+        BytesMessage snapshotMsg = session.createBytesMessage();
+        snapshotMsg.setStringProperty(CORRELATION_ID_PARAMETER_NODE_ID, _nodeId);
+        snapshotMsg.writeBytes(encoded);
+        snapshotProducer.send(snapshotTopic, snapshotMsg);
+        if (log.isDebugEnabled()) log.debug("Published statistics snapshot of [" + destinationStatsDtos.size()
+                + "] destinations, [" + encoded.length + "] bytes compressed.");
     }
 
-    private BrokerStatsDto mapMessageToBrokerStatsDto(MapMessage mm) throws JMSException {
-        BrokerStatsDto dto = new BrokerStatsDto();
-        mapMessageToCommonStatsDto(mm, dto);
+    private void installSnapshot(BytesMessage snapshotMsg) throws JMSException {
+        // ?: Is this our own snapshot?
+        if (_nodeId.equals(snapshotMsg.getStringProperty(CORRELATION_ID_PARAMETER_NODE_ID))) {
+            // -> Yes, and we've already got the stats from the replies.
+            return;
+        }
+        byte[] encoded = new byte[(int) snapshotMsg.getBodyLength()];
+        snapshotMsg.readBytes(encoded);
+        StatsSnapshot snapshot;
+        try {
+            snapshot = StatsSnapshotCodec.decode(encoded);
+        }
+        catch (IOException e) {
+            log.warn("Couldn't decode statistics snapshot from node [" + snapshotMsg.getStringProperty(
+                    CORRELATION_ID_PARAMETER_NODE_ID) + "] - are the nodes running different versions? Ignoring.", e);
+            return;
+        }
 
-        dto.stompSsl = (String) mm.getObject("stomp+ssl");
-        dto.ssl = (String) mm.getObject("ssl");
-        dto.stomp = (String) mm.getObject("stomp");
-        dto.openwire = (String) mm.getObject("openwire");
-        dto.vm = (String) mm.getObject("vm");
+        // :: Install the snapshot
+        if (snapshot.brokerStatsDto != null) {
+            _currentBrokerStatsDto = snapshot.brokerStatsDto;
+        }
+        Set<String> fqDestinationNames = new TreeSet<>();
+        for (DestinationStatsDto dto : snapshot.destinationStatsDtos) {
+            // ?: Have we gotten an advisory that it was removed after these stats were produced?
+            if (isRemovedByAdvisoryAfter(dto.destinationName, dto.brokerTimeMillis)) {
+                // -> Yes, so don't bring it back.
+                continue;
+            }
+            DestinationStatsDto current = _currentDestinationStatsDtos.get(dto.destinationName);
+            // ?: Do we have stats for this destination, and are they unchanged?
+            if ((current != null) && current.isSameStats(dto)) {
+                // -> Yes, so just update the timestamps of the current (as when receiving the replies).
+                current.statsReceivedMillis = dto.statsReceivedMillis;
+                current.brokerTimeMillis = dto.brokerTimeMillis;
+            }
+            else {
+                _currentDestinationStatsDtos.put(dto.destinationName, dto);
+                _changedFqDestinationNames.add(dto.destinationName);
+            }
+            _statsTimeIndex.touch(dto.destinationName, dto.statsReceivedMillis);
+            fqDestinationNames.add(dto.destinationName);
+        }
+        // ?: Was this a partial update, i.e. targeted to specific destinations?
+        if (!snapshot.partialUpdate) {
+            // -> No, so the snapshot holds all the requesting node's destinations: Remove those we have in excess.
+            // (Except our placeholders, which are not in the snapshot - the next sweep brings their stats.)
+            Iterator<Map.Entry<String, DestinationStatsDto>> it = _currentDestinationStatsDtos.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, DestinationStatsDto> entry = it.next();
+                String fqDestinationName = entry.getKey();
+                if (!fqDestinationNames.contains(fqDestinationName) && !entry.getValue().placeholder) {
+                    it.remove();
+                    _changedFqDestinationNames.add(fqDestinationName);
+                    _statsTimeIndex.remove(fqDestinationName);
+                }
+            }
+            // We've now gotten a (full set of) stats, just as if we had received the replies ourselves.
+            _lastStatsUpdateMessageReceived = System.currentTimeMillis();
+            if (snapshot.fullUpdate) {
+                _lastFullUpdatePropagatedMillis = System.currentTimeMillis();
+            }
+            evaluateAdaptiveInterval();
+        }
 
-        dto.dataDirectory = (String) mm.getObject("dataDirectory");
+        log_update.info("#MBM_SNAPSHOT# " + (snapshot.partialUpdate ? "TARGETED " : "")
+                + "(Request is NOT from this node, this: " + _nodeId + ", originating: "
+                + snapshot.originatingNodeId + ") We've received a snapshot of [" + fqDestinationNames.size()
+                + "] destination stats, [" + encoded.length + "] bytes compressed, current number of destinations ["
+                + _currentDestinationStatsDtos.size() + "]. Notifying local listeners.");
 
-        dto.tempUsage = (long) mm.getObject("tempUsage");
-        dto.tempLimit = (long) mm.getObject("tempLimit");
-        dto.tempPercentUsage = (int) mm.getObject("tempPercentUsage");
+        notifyListeners(new ActiveMqBrokerStatsEventImpl(snapshot.correlationIds, snapshot.fullUpdate,
+                snapshot.partialUpdate ? fqDestinationNames : null, !snapshot.partialUpdate, false,
+                snapshot.originatingNodeId, -1));
+    }
 
-        dto.storeUsage = (long) mm.getObject("storeUsage");
-        dto.storePercentUsage = (int) mm.getObject("storePercentUsage");
-        dto.storeLimit = (long) mm.getObject("storeLimit");
+    private void notifyListeners(ActiveMqBrokerStatsEventImpl event) {
+        // Note: The listeners are invoked on their own threads, so this never blocks the receiving thread. (Events may
+        // be fired both from the statistics receiver and the advisory receiver threads.)
+        for (ConflatingListenerDispatcher<ActiveMqBrokerStatsEvent> dispatcher : _listeners) {
+            dispatcher.offer(event);
+        }
+    }
 
-        return dto;
+    /**
+     * Merges a pending event with a newer, for a listener which hasn't yet gotten the pending: The listeners read the
+     * current statistics, so we only need to retain what the events say about the update.
+     */
+    private static ActiveMqBrokerStatsEvent mergeEvents(ActiveMqBrokerStatsEvent pending,
+            ActiveMqBrokerStatsEvent newer) {
+        LinkedHashSet<String> correlationIds = new LinkedHashSet<>(pending.getCorrelationIds());
+        correlationIds.addAll(newer.getCorrelationIds());
+        // Only partial if both are, in which case the union of the destinations.
+        Set<String> partialUpdateFqDestinationNames = null;
+        if (pending.isPartialUpdate() && newer.isPartialUpdate()) {
+            partialUpdateFqDestinationNames = new TreeSet<>(pending.getPartialUpdateFqDestinationNames());
+            partialUpdateFqDestinationNames.addAll(newer.getPartialUpdateFqDestinationNames());
+        }
+        // If either originated on this node, we keep that - the latency is only relevant for those.
+        ActiveMqBrokerStatsEvent origin = (pending.isStatsEventOriginatedOnThisNode()
+                && !newer.isStatsEventOriginatedOnThisNode()) ? pending : newer;
+        return new ActiveMqBrokerStatsEventImpl(new ArrayList<>(correlationIds),
+                pending.isFullUpdate() || newer.isFullUpdate(), partialUpdateFqDestinationNames,
+                pending.isCompleteSweep() || newer.isCompleteSweep(), origin.isStatsEventOriginatedOnThisNode(),
+                origin.getOriginatingNodeId().orElse(null), origin.getStatsRequestReplyLatencyMillis().orElse(-1));
     }
 
-    private DestinationStatsDto mapMessageToDestinationStatsDto(MapMessage mm) throws JMSException {
+    /**
+     * Whether a destination is of interest wrt. the {@link #setQueryMatsDestinationsOnly(boolean)} setting.
+     */
+    private boolean isQueriedDestination(String fqDestinationName) {
+        if (!(_queryMatsDestinationsOnly && _matsDestinationPrefix.endsWith("."))) {
+            return true;
+        }
+        // DestinationName: remove both "queue://" and "topic://", both are 8 length.
+        String destinationName = fqDestinationName.substring(8);
+        return destinationName.startsWith(_matsDestinationPrefix)
+                || destinationName.startsWith(DLQ_PREFIX + "." + _matsDestinationPrefix)
+                || destinationName.equals(ACTIVE_MQ_GLOBAL_DLQ_NAME);
+    }
+
+    // Only used within leaderElectionRunnable-thread.
+
+    private void leaderElectionRunnable() {
+        boolean wasLeader = false;
+        while (_runStatus == RunStatus.RUNNING) {
+            try {
+                _leaderElection_Connection = _connectionFactory.createConnection();
+                _leaderElection_Connection.start();
+                Session session = _leaderElection_Connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+                Queue lockQueue = session.createQueue(LEADER_ELECTION_LOCK_QUEUE);
+                // The broker only dispatches to one exclusive consumer; if its connection drops, another takes over.
+                MessageConsumer consumer = session.createConsumer(session.createQueue(LEADER_ELECTION_LOCK_QUEUE
+                        + LEADER_ELECTION_LOCK_QUEUE_CONSUMER_OPTIONS));
+                MessageProducer producer = session.createProducer(null);
+                producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+                // Heartbeats are worthless when old.
+                producer.setTimeToLive(LEADER_ELECTION_LEASE_MILLIS);
+                log.info("Participating in leader election on lock queue [" + LEADER_ELECTION_LOCK_QUEUE + "].");
+
+                long nextHeartbeatMillis = 0;
+                while (_runStatus == RunStatus.RUNNING) {
+                    // ?: Time to send heartbeat?
+                    if (System.currentTimeMillis() >= nextHeartbeatMillis) {
+                        // -> Yes, so send it. Whoever is the leader will get it, be it us or some other node.
+                        Message heartbeat = session.createMessage();
+                        heartbeat.setStringProperty(CORRELATION_ID_PARAMETER_NODE_ID, _nodeId);
+                        producer.send(lockQueue, heartbeat);
+                        nextHeartbeatMillis = System.currentTimeMillis() + LEADER_ELECTION_HEARTBEAT_INTERVAL_MILLIS;
+                    }
+                    Message received = consumer.receive(Math.max(1,
+                            nextHeartbeatMillis - System.currentTimeMillis()));
+                    // ?: Check run flag - exit if we're not running anymore.
+                    if (_runStatus != RunStatus.RUNNING) {
+                        break;
+                    }
+                    // ?: Did we get a heartbeat?
+                    if (received != null) {
+                        // -> Yes, so we're the exclusive consumer, thus leader.
+                        _leaderUntilMillis = System.currentTimeMillis() + LEADER_ELECTION_LEASE_MILLIS;
+                    }
+                    wasLeader = logLeadershipChange(wasLeader);
+                }
+            }
+            catch (Throwable t) {
+                // We cannot be leader without the connection.
+                _leaderUntilMillis = 0;
+                wasLeader = logLeadershipChange(wasLeader);
+                // ?: Exiting?
+                if (_runStatus != RunStatus.RUNNING) {
+                    // -> Yes, exiting, so get out.
+                    break;
+                }
+                log.warn("Got a [" + t.getClass().getSimpleName() + "] in the leader election loop."
+                        + " Attempting to close JMS Connection if gotten, then chill-waiting, then trying again.", t);
+                closeConnectionIfNonNullIgnoreException(_leaderElection_Connection);
+                chill(CHILL_MILLIS_WAIT_AFTER_THROWABLE_IN_RECEIVE_LOOPS);
+            }
+        }
+        // To exit, we're signalled via the JMS Connection being closed; Our job is just to null it on our way out.
+        _leaderUntilMillis = 0;
+        _leaderElection_Connection = null;
+        log.info("Got asked to exit, and that we do!");
+    }
+
+    private boolean logLeadershipChange(boolean wasLeader) {
+        boolean isLeader = isLeader();
+        if (isLeader != wasLeader) {
+            log.info(isLeader
+                    ? "Leader election: This node [" + _nodeId + "] is now LEADER, doing the statistics requests."
+                    : "Leader election: This node [" + _nodeId + "] is no longer leader.");
+        }
+        return isLeader;
+    }
+
+    // Only used within receiveAdvisoryMessagesRunnable-thread.
+
+    private void receiveAdvisoryMessagesRunnable() {
+        OUTERLOOP: while (_runStatus == RunStatus.RUNNING) {
+            try {
+                _receiveAdvisoryMessages_Connection = _connectionFactory.createConnection();
+                _receiveAdvisoryMessages_Connection.start();
+                Session session = _receiveAdvisoryMessages_Connection.createSession(false,
+                        Session.AUTO_ACKNOWLEDGE);
+                // Using ActiveMQ's composite destination feature to subscribe to all advisory topics at once.
+                List<String> advisoryTopicNames = new ArrayList<>();
+                if (_trackDestinationsUsingAdvisories) {
+                    advisoryTopicNames.add(ADVISORY_TOPIC_QUEUE);
+                    advisoryTopicNames.add(ADVISORY_TOPIC_TOPIC);
+                }
+                if (_notifyDlqArrivalsUsingAdvisories) {
+                    advisoryTopicNames.add(ADVISORY_TOPIC_MESSAGE_DLQD_PREFIX + ">");
+                }
+                Topic advisoryTopic = session.createTopic(String.join(",", advisoryTopicNames));
+                MessageConsumer consumer = session.createConsumer(advisoryTopic);
+                log.info("Subscribed to ActiveMQ Advisory topics [" + advisoryTopic + "].");
+
+                while (_runStatus == RunStatus.RUNNING) {
+                    // Go into indefinite receive, waiting for the first advisory of a batch.
+                    Message advisoryMsg = consumer.receive();
+                    // ?: Was this a null-message, most probably denoting that we're exiting?
+                    if (advisoryMsg == null) {
+                        // -> Yes, null message received.
+                        if (_runStatus != RunStatus.RUNNING) {
+                            break OUTERLOOP;
+                        }
+                        throw new UnexpectedNullMessageReceivedException("Null message received,"
+                                + " but runFlag still true?!");
+                    }
+                    int added = 0;
+                    int removed = 0;
+                    Set<String> dlqsToRefresh = new TreeSet<>();
+                    // Handle the batch: Upon subscription we get an advisory for each existing destination, and
+                    // destinations are often created in bunches, so we gather up before notifying listeners - but
+                    // a steady stream of advisories shall not hold back the notification forever.
+                    int batchCount = 0;
+                    long batchStartMillis = System.currentTimeMillis();
+                    while (advisoryMsg != null) {
+                        // ?: Is this a MessageDLQd advisory?
+                        Topic advisoryMsgTopic = (Topic) advisoryMsg.getJMSDestination();
+                        if ((advisoryMsgTopic != null) && advisoryMsgTopic.getTopicName()
+                                .startsWith(ADVISORY_TOPIC_MESSAGE_DLQD_PREFIX)) {
+                            // -> Yes, so notify DLQ arrival listeners, and note which DLQs to refresh
+                            handleMessageDlqdAdvisory(advisoryMsg, advisoryMsgTopic, dlqsToRefresh);
+                        }
+                        else {
+                            // -> No, so it is a destination advisory.
+                            AdvisoryDestinationInfo info = getAdvisoryDestinationInfo(advisoryMsg);
+                            // Only the destinations we query, and want (not filtered away by the destination filter).
+                            if ((info != null) && isQueriedDestination(info.fqDestinationName)
+                                    && _destinationNameMatcher.matches(info.fqDestinationName)) {
+                                if (info.added) {
+                                    // It's (re)created, so stats for it are welcome again.
+                                    _advisoryRemovedBrokerMillis.remove(info.fqDestinationName);
+                                    DestinationStatsDto placeholder = createPlaceholderDestinationStatsDto(
+                                            info.fqDestinationName, advisoryMsg.getJMSTimestamp());
+                                    if (_currentDestinationStatsDtos.putIfAbsent(info.fqDestinationName,
+                                            placeholder) == null) {
+                                        _changedFqDestinationNames.add(info.fqDestinationName);
+                                        _statsTimeIndex.touch(info.fqDestinationName,
+                                                placeholder.statsReceivedMillis);
+                                        if (log.isDebugEnabled()) log.debug("Advisory: Destination added: ["
+                                                + info.fqDestinationName + "]");
+                                        added++;
+                                    }
+                                }
+                                else {
+                                    // Tombstone it, so that a late reply to a sweep doesn't bring it back.
+                                    long removedBrokerMillis = advisoryMsg.getJMSTimestamp();
+                                    _advisoryRemovedBrokerMillis.put(info.fqDestinationName,
+                                            removedBrokerMillis != 0 ? removedBrokerMillis
+                                                    : System.currentTimeMillis());
+                                    if (_currentDestinationStatsDtos.remove(info.fqDestinationName) != null) {
+                                        _changedFqDestinationNames.add(info.fqDestinationName);
+                                        _statsTimeIndex.remove(info.fqDestinationName);
+                                        log.info("Advisory: Destination removed: [" + info.fqDestinationName
+                                                + "]");
+                                        removed++;
+                                    }
+                                }
+                            }
+                        }
+                        // ?: Is the batch full, or has it been going on for too long?
+                        if ((++batchCount >= ADVISORY_BATCH_MAX_MESSAGES)
+                                || ((System.currentTimeMillis() - batchStartMillis) >= ADVISORY_BATCH_MAX_MILLIS)) {
+                            // -> Yes, so end it here - the rest comes in the next batch.
+                            break;
+                        }
+                        advisoryMsg = consumer.receive(TIMEOUT_MILLIS_FOR_LAST_MESSAGE_IN_BATCH_FOR_DESTINATION_STATS);
+                    }
+                    // ?: Check run flag - exit if we're not running anymore.
+                    if (_runStatus != RunStatus.RUNNING) {
+                        break OUTERLOOP;
+                    }
+                    // ?: Did anything change?
+                    if ((added > 0) || (removed > 0)) {
+                        // -> Yes, so notify listeners.
+                        log_update.info("#MBM_ADVISORY# Destinations added: [" + added + "], removed: [" + removed
+                                + "], current number of destinations [" + _currentDestinationStatsDtos.size()
+                                + "]. Notifying local listeners.");
+                        notifyListeners(new ActiveMqBrokerStatsEventImpl(Collections.emptyList(), false, null, false,
+                                false, null, -1));
+                    }
+                    // ?: Any DLQs to refresh due to MessageDLQd advisories?
+                    if (!dlqsToRefresh.isEmpty()) {
+                        // -> Yes, so request targeted update of those.
+                        requestTargetedUpdate(dlqsToRefresh);
+                    }
+                }
+            }
+            catch (Throwable t) {
+                // ?: Exiting?
+                if (_runStatus != RunStatus.RUNNING) {
+                    // -> Yes, exiting, so get out.
+                    break;
+                }
+                log.warn("Got a [" + t.getClass().getSimpleName() + "] in the advisory receive-loop."
+                        + " Attempting to close JMS Connection if gotten, then chill-waiting, then trying again.", t);
+                closeConnectionIfNonNullIgnoreException(_receiveAdvisoryMessages_Connection);
+                chill(CHILL_MILLIS_WAIT_AFTER_THROWABLE_IN_RECEIVE_LOOPS);
+            }
+        }
+        // To exit, we're signalled via the JMS Connection being closed; Our job is just to null it on our way out.
+        _receiveAdvisoryMessages_Connection = null;
+        log.info("Got asked to exit, and that we do!");
+    }
+
+    private void handleMessageDlqdAdvisory(Message advisoryMsg, Topic advisoryMsgTopic, Set<String> dlqsToRefresh)
+            throws JMSException {
+        // The topic name is "ActiveMQ.Advisory.MessageDLQd.{Queue|Topic}.{destinationName}"
+        String typeAndName = advisoryMsgTopic.getTopicName().substring(ADVISORY_TOPIC_MESSAGE_DLQD_PREFIX.length());
+        String originalFqDestinationName;
+        if (typeAndName.startsWith("Queue.")) {
+            originalFqDestinationName = "queue://" + typeAndName.substring("Queue.".length());
+        }
+        else if (typeAndName.startsWith("Topic.")) {
+            originalFqDestinationName = "topic://" + typeAndName.substring("Topic.".length());
+        }
+        else {
+            // E.g. TempQueue or TempTopic - not interesting.
+            return;
+        }
+        if (!isQueriedDestination(originalFqDestinationName)) {
+            return;
+        }
+        String originalMessageId = advisoryMsg.getStringProperty(ADVISORY_PROPERTY_ORIGINAL_MESSAGE_ID);
+        long advisoryBrokerMillis = advisoryMsg.getJMSTimestamp();
+        log.info("Advisory: Message [" + originalMessageId + "] DLQed from [" + originalFqDestinationName + "].");
+
+        // :: Notify DLQ arrival listeners
+        ActiveMqDlqArrivalEventImpl dlqArrivalEvent = new ActiveMqDlqArrivalEventImpl(originalFqDestinationName,
+                originalMessageId, advisoryBrokerMillis);
+        for (Consumer<ActiveMqDlqArrivalEvent> listener : _dlqArrivalListeners) {
+            try {
+                listener.accept(dlqArrivalEvent);
+            }
+            catch (Throwable t) {
+                log.error("The DLQ arrival listener of class [" + listener.getClass().getName() + "] threw when"
+                        + " being invoked. Ignoring.", t);
+            }
+        }
+
+        // :: Note which DLQs to refresh: We don't know the broker's DLQ policy, so refresh both the individual DLQ
+        // (using the "DLQ." prefix we assume everywhere), and the global DLQ. A non-existing one just gives no reply.
+        dlqsToRefresh.add("queue://" + DLQ_PREFIX + "." + originalFqDestinationName.substring(8));
+        dlqsToRefresh.add("queue://" + ACTIVE_MQ_GLOBAL_DLQ_NAME);
+    }
+
+    private static class ActiveMqDlqArrivalEventImpl implements ActiveMqDlqArrivalEvent {
+        private final String _originalFqDestinationName;
+        private final String _originalMessageId; // nullable
+        private final long _advisoryBrokerMillis;
+
+        ActiveMqDlqArrivalEventImpl(String originalFqDestinationName, String originalMessageId,
+                long advisoryBrokerMillis) {
+            _originalFqDestinationName = originalFqDestinationName;
+            _originalMessageId = originalMessageId;
+            _advisoryBrokerMillis = advisoryBrokerMillis;
+        }
+
+        @Override
+        public String getOriginalFqDestinationName() {
+            return _originalFqDestinationName;
+        }
+
+        @Override
+        public Optional<String> getOriginalMessageId() {
+            return Optional.ofNullable(_originalMessageId);
+        }
+
+        @Override
+        public long getAdvisoryBrokerMillis() {
+            return _advisoryBrokerMillis;
+        }
+    }
+
+    private DestinationStatsDto createPlaceholderDestinationStatsDto(String fqDestinationName, long brokerMillis) {
         DestinationStatsDto dto = new DestinationStatsDto();
+        dto.statsReceivedMillis = _clock.millis();
+        BrokerStatsDto brokerStatsDto = _currentBrokerStatsDto;
+        if (brokerStatsDto != null) {
+            dto.brokerId = brokerStatsDto.brokerId;
+            dto.brokerName = brokerStatsDto.brokerName;
+        }
+        dto.brokerTimeMillis = brokerMillis != 0 ? brokerMillis : System.currentTimeMillis();
+        dto.destinationName = fqDestinationName;
+        dto.placeholder = true;
+        return dto;
+    }
+
+    /**
+     * @return whether we've gotten an advisory that the destination was removed after the given broker time, i.e. that
+     *         stats produced at that time are late, and shall not bring the destination back.
+     */
+    private boolean isRemovedByAdvisoryAfter(String fqDestinationName, long brokerTimeMillis) {
+        Long removedBrokerMillis = _advisoryRemovedBrokerMillis.get(fqDestinationName);
+        return (removedBrokerMillis != null) && (brokerTimeMillis <= removedBrokerMillis);
+    }
+
+    private static class AdvisoryDestinationInfo {
+        final boolean added;
+        final String fqDestinationName;
+
+        AdvisoryDestinationInfo(boolean added, String fqDestinationName) {
+            this.added = added;
+            this.fqDestinationName = fqDestinationName;
+        }
+    }
+
+    /**
+     * The ActiveMQ Advisory messages for destinations does not carry the information as JMS properties, but as an
+     * ActiveMQ-specific "DataStructure", a <code>DestinationInfo</code>. Since we only depend on the JMS API, we dig it
+     * out reflectively: <code>ActiveMQMessage.getDataStructure()</code> gives the <code>DestinationInfo</code>, whose
+     * <code>getOperationType()</code> is 0 for add and 1 for remove, and <code>getDestination()</code> gives the
+     * <code>ActiveMQDestination</code>, whose <code>getQualifiedName()</code> gives e.g. "queue://mats.Endpoint" - i.e.
+     * the same as the "destinationName" in the statistics messages.
+     *
+     * @return the parsed info, or <code>null</code> if not a destination advisory, or if it could not be parsed.
+     */
+    private static AdvisoryDestinationInfo getAdvisoryDestinationInfo(Message advisoryMsg) {
+        try {
+            Object dataStructure = advisoryMsg.getClass().getMethod("getDataStructure").invoke(advisoryMsg);
+            if ((dataStructure == null) || (!"DestinationInfo".equals(dataStructure.getClass().getSimpleName()))) {
+                return null;
+            }
+            byte operationType = (Byte) dataStructure.getClass().getMethod("getOperationType")
+                    .invoke(dataStructure);
+            Object destination = dataStructure.getClass().getMethod("getDestination").invoke(dataStructure);
+            String qualifiedName = (String) destination.getClass().getMethod("getQualifiedName")
+                    .invoke(destination);
+            // We're only interested in queues and topics (both prefixes are 8 long, as we depend on elsewhere)
+            if (!(qualifiedName.startsWith("queue://") || qualifiedName.startsWith("topic://"))) {
+                return null;
+            }
+            return new AdvisoryDestinationInfo(operationType == 0, qualifiedName);
+        }
+        catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("Couldn't get the DestinationInfo from the Advisory message - ignoring it: " + advisoryMsg, e);
+            return null;
+        }
+    }
+
+    private BrokerStatsDto mapMessageToBrokerStatsDto(MapMessage mm) throws JMSException {
+        BrokerStatsDto dto = new BrokerStatsDto();
         mapMessageToCommonStatsDto(mm, dto);
 
-        dto.destinationName = (String) mm.getObject("destinationName");
-        dto.firstMessageTimestamp = getTimestampFromMapMessage(mm, "firstMessageTimestamp");
+        dto.stompSsl = mm.getString("stomp+ssl");
+        dto.ssl = mm.getString("ssl");
+        dto.stomp = mm.getString("stomp");
+        dto.openwire = mm.getString("openwire");
+        dto.vm = mm.getString("vm");
+
+        dto.dataDirectory = mm.getString("dataDirectory");
+
+        dto.tempUsage = mm.getLong("tempUsage");
+        dto.tempLimit = mm.getLong("tempLimit");
+        dto.tempPercentUsage = mm.getInt("tempPercentUsage");
+
+        dto.storeUsage = mm.getLong("storeUsage");
+        dto.storePercentUsage = mm.getInt("storePercentUsage");
+        dto.storeLimit = mm.getLong("storeLimit");
 
         return dto;
     }
 
-    private Optional<Instant> getTimestampFromMapMessage(MapMessage mm, String key) throws JMSException {
-        long millis = mm.getLong(key);
-        return millis != 0 ? Optional.of(Instant.ofEpochMilli(millis)) : Optional.empty();
+    /**
+     * Parses the destination stats message and installs it in the current stats. With tens of thousands of
+     * destinations, a sweep should not produce a DTO and a bunch of boxed values per destination: The message is parsed
+     * using primitive getters into a reused scratch DTO, and if the stats are unchanged from the current DTO, only the
+     * current DTO's timestamps are updated. Otherwise, the scratch DTO is installed, with the current DTO's (canonical)
+     * name instances.
+     * <p>
+     * Only used from the receive thread (and test).
+     *
+     * @return the current DTO for the destination, after installation - or <code>null</code> if the destination is
+     *         filtered away by the {@link #setDestinationFilter(Collection, Collection) destination filter}, or if the
+     *         stats are from before an advisory told that it was removed.
+     */
+    DestinationStatsDto installDestinationStats(MapMessage mm) throws JMSException {
+        String fqDestinationName = mm.getString("destinationName");
+        // ?: Do we want this destination?
+        if (!_destinationNameMatcher.matches(fqDestinationName)) {
+            // -> No, so drop it before parsing.
+            return null;
+        }
+        DestinationStatsDto scratch = _scratchDestinationStatsDto;
+        mapMessageToCommonStatsDto(mm, scratch);
+        scratch.destinationName = fqDestinationName;
+        scratch.firstMessageTimestampMillis = mm.getLong("firstMessageTimestamp");
+        // ?: Have we gotten an advisory that it was removed after these stats were produced?
+        if (isRemovedByAdvisoryAfter(fqDestinationName, scratch.brokerTimeMillis)) {
+            // -> Yes, so this is a late reply - don't bring it back.
+            return null;
+        }
+
+        DestinationStatsDto current = _currentDestinationStatsDtos.get(scratch.destinationName);
+        // ?: No first message timestamp for a non-empty destination? (Sweep not asking for it, or not asked in time)
+        if ((scratch.firstMessageTimestampMillis == 0) && (scratch.size > 0) && (current != null)) {
+            // -> Yes, so keep the one we have, until we get a new (the second tier request comes right after).
+            scratch.firstMessageTimestampMillis = current.firstMessageTimestampMillis;
+        }
+        // ?: Do we have stats for this destination, and are they unchanged?
+        if ((current != null) && current.isSameStats(scratch)) {
+            // -> Yes, so just update the timestamps of the current.
+            current.statsReceivedMillis = scratch.statsReceivedMillis;
+            current.brokerTimeMillis = scratch.brokerTimeMillis;
+            _statsTimeIndex.touch(current.destinationName, current.statsReceivedMillis);
+            return current;
+        }
+        // E-> Changed or new, so install the scratch DTO, using the canonical names if we have them.
+        if (current != null) {
+            scratch.destinationName = current.destinationName;
+            if (current.brokerName != null && current.brokerName.equals(scratch.brokerName)) {
+                scratch.brokerName = current.brokerName;
+            }
+            if (current.brokerId != null && current.brokerId.equals(scratch.brokerId)) {
+                scratch.brokerId = current.brokerId;
+            }
+        }
+        _currentDestinationStatsDtos.put(scratch.destinationName, scratch);
+        _changedFqDestinationNames.add(scratch.destinationName);
+        _statsTimeIndex.touch(scratch.destinationName, scratch.statsReceivedMillis);
+        _scratchDestinationStatsDto = new DestinationStatsDto();
+        return scratch;
     }
 
     private void mapMessageToCommonStatsDto(MapMessage mm, CommonStatsDto dto) throws JMSException {
-        dto.statsReceived = Instant.now(_clock);
+        dto.statsReceivedMillis = _clock.millis();
 
-        dto.brokerId = (String) mm.getObject("brokerId");
-        dto.brokerName = (String) mm.getObject("brokerName");
-        dto.brokerTime = Instant.ofEpochMilli(mm.getJMSTimestamp());
+        dto.brokerId = mm.getString("brokerId");
+        dto.brokerName = mm.getString("brokerName");
+        dto.brokerTimeMillis = mm.getJMSTimestamp();
 
-        dto.size = (long) mm.getObject("size");
-        dto.enqueueCount = (long) mm.getObject("enqueueCount");
-        dto.dequeueCount = (long) mm.getObject("dequeueCount");
-        dto.expiredCount = (long) mm.getObject("expiredCount");
-        dto.dispatchCount = (long) mm.getObject("dispatchCount");
-        dto.inflightCount = (long) mm.getObject("inflightCount");
+        dto.size = mm.getLong("size");
+        dto.enqueueCount = mm.getLong("enqueueCount");
+        dto.dequeueCount = mm.getLong("dequeueCount");
+        dto.expiredCount = mm.getLong("expiredCount");
+        dto.dispatchCount = mm.getLong("dispatchCount");
+        dto.inflightCount = mm.getLong("inflightCount");
 
-        dto.producerCount = (long) mm.getObject("producerCount");
-        dto.consumerCount = (long) mm.getObject("consumerCount");
+        dto.producerCount = mm.getLong("producerCount");
+        dto.consumerCount = mm.getLong("consumerCount");
 
-        dto.minEnqueueTime = (double) mm.getObject("minEnqueueTime");
-        dto.averageEnqueueTime = (double) mm.getObject("averageEnqueueTime");
-        dto.maxEnqueueTime = (double) mm.getObject("maxEnqueueTime");
+        dto.minEnqueueTime = mm.getDouble("minEnqueueTime");
+        dto.averageEnqueueTime = mm.getDouble("averageEnqueueTime");
+        dto.maxEnqueueTime = mm.getDouble("maxEnqueueTime");
 
-        dto.memoryUsage = (long) mm.getObject("memoryUsage");
-        dto.memoryLimit = (long) mm.getObject("memoryLimit");
-        dto.memoryPercentUsage = (int) mm.getObject("memoryPercentUsage");
+        dto.memoryUsage = mm.getLong("memoryUsage");
+        dto.memoryLimit = mm.getLong("memoryLimit");
+        dto.memoryPercentUsage = mm.getInt("memoryPercentUsage");
 
-        dto.averageMessageSize = (long) mm.getObject("averageMessageSize");
+        dto.averageMessageSize = mm.getLong("averageMessageSize");
 
-        dto.messagesCached = (long) mm.getObject("messagesCached");
+        dto.messagesCached = mm.getLong("messagesCached");
     }
 
     private static class UnexpectedNullMessageReceivedException extends Exception {
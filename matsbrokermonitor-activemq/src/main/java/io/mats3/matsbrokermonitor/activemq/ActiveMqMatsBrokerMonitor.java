@@ -1,15 +1,22 @@
 package io.mats3.matsbrokermonitor.activemq;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Map.Entry;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.NavigableMap;
 import java.util.Optional;
-import java.util.OptionalDouble;
-import java.util.OptionalLong;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
@@ -20,9 +27,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.ActiveMqBrokerStatsEvent;
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.ActiveMqDlqArrivalEvent;
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.BrokerStatsDto;
 import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.DestinationStatsDto;
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.ListenerDispatchStats;
+import io.mats3.matsbrokermonitor.activemq.SnapshotFileCodec.StoredSnapshot;
+import io.mats3.matsbrokermonitor.api.ColumnarBrokerSnapshot;
 import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor;
-import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.StageDestinationType;
+import io.mats3.matsbrokermonitor.api.MatsDestinationClassifier;
+import io.mats3.matsbrokermonitor.api.MatsDestinationClassifier.Classification;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.ConsumerStatus;
 
 /**
  * @author Endre Stølsvik 2021-12-27 14:40 - http://stolsvik.com/, endre@stolsvik.com
@@ -36,7 +50,8 @@ public class ActiveMqMatsBrokerMonitor implements MatsBrokerMonitor, Statics {
 
     private final ActiveMqBrokerStatsQuerier _querier;
 
-    private final String _matsDestinationPrefix;
+    // Classifies the destination names, caching the result - as a destination's stats change many times.
+    private final MatsDestinationClassifier _classifier;
 
     /**
      * Creates an instance, supplying both the querier and the MatsDestinationPrefix.
@@ -127,8 +142,10 @@ public class ActiveMqMatsBrokerMonitor implements MatsBrokerMonitor, Statics {
         // Set(/override) the MatsDestinationPrefix (they must naturally be set the same here and there).
         _querier.setMatsDestinationPrefix(matsDestinationPrefix);
         _querier.registerListener(this::eventFromQuerier);
+        _querier.registerDlqArrivalListener(this::dlqArrivalFromQuerier);
 
-        _matsDestinationPrefix = matsDestinationPrefix;
+        _classifier = MatsDestinationClassifier.create(matsDestinationPrefix, DLQ_PREFIX,
+                ACTIVE_MQ_GLOBAL_DLQ_NAME);
     }
 
     @Override
@@ -136,14 +153,224 @@ public class ActiveMqMatsBrokerMonitor implements MatsBrokerMonitor, Statics {
         return IMPLEMENTATION_VERSION_NAME_AND_VERSION;
     }
 
+    /**
+     * Only query for the Mats destinations, their DLQs, and the global DLQ, instead of all destinations on the broker -
+     * read more at {@link ActiveMqBrokerStatsQuerier#setQueryMatsDestinationsOnly(boolean)}. Must be set before
+     * {@link #start()}.
+     *
+     * @param queryMatsDestinationsOnly
+     *            whether to only query for the Mats destinations.
+     */
+    public void setQueryMatsDestinationsOnly(boolean queryMatsDestinationsOnly) {
+        _querier.setQueryMatsDestinationsOnly(queryMatsDestinationsOnly);
+    }
+
+    /**
+     * Track creation and deletion of destinations using ActiveMQ's Advisory topics, so that new and deleted queues and
+     * topics are reflected immediately - read more at
+     * {@link ActiveMqBrokerStatsQuerier#setTrackDestinationsUsingAdvisories(boolean)}. Must be set before
+     * {@link #start()}.
+     *
+     * @param trackDestinationsUsingAdvisories
+     *            whether to track creation and deletion of destinations using ActiveMQ's Advisory topics.
+     */
+    public void setTrackDestinationsUsingAdvisories(boolean trackDestinationsUsingAdvisories) {
+        _querier.setTrackDestinationsUsingAdvisories(trackDestinationsUsingAdvisories);
+    }
+
+    /**
+     * Get notified of messages being DLQed as soon as it happens using ActiveMQ's "MessageDLQd" Advisory topics, giving
+     * {@link DlqArrivalEvent}s to the {@link #registerDlqArrivalListener(Consumer) DLQ arrival listeners}, and a
+     * targeted refresh of the statistics of the DLQ - read more at
+     * {@link ActiveMqBrokerStatsQuerier#setNotifyDlqArrivalsUsingAdvisories(boolean)}. Must be set before
+     * {@link #start()}.
+     *
+     * @param notifyDlqArrivalsUsingAdvisories
+     *            whether to subscribe to ActiveMQ's "MessageDLQd" Advisory topics.
+     */
+    public void setNotifyDlqArrivalsUsingAdvisories(boolean notifyDlqArrivalsUsingAdvisories) {
+        _querier.setNotifyDlqArrivalsUsingAdvisories(notifyDlqArrivalsUsingAdvisories);
+    }
+
+    /**
+     * Elect a leader among the MatsBrokerMonitor nodes using an ActiveMQ exclusive consumer on a lock queue, so that
+     * only the leader sends the scheduled statistics requests - read more at
+     * {@link ActiveMqBrokerStatsQuerier#setUseLeaderElection(boolean)}. Must be set before {@link #start()}.
+     *
+     * @param useLeaderElection
+     *            whether to elect a leader which alone does the scheduled statistics requests.
+     */
+    public void setUseLeaderElection(boolean useLeaderElection) {
+        _querier.setUseLeaderElection(useLeaderElection);
+    }
+
+    /**
+     * @return whether this node currently is the leader, if leader election is enabled.
+     */
+    public boolean isLeader() {
+        return _querier.isLeader();
+    }
+
+    /**
+     * Distribute the statistics from the requesting node to the other MatsBrokerMonitor nodes as a single compressed
+     * snapshot message, instead of all nodes consuming all the statistics reply messages from the broker - read more
+     * at {@link ActiveMqBrokerStatsQuerier#setUseSnapshotDistribution(boolean)}. All nodes must use the same setting.
+     * Must be set before {@link #start()}.
+     *
+     * @param useSnapshotDistribution
+     *            whether to distribute statistics to the other nodes as a single compressed snapshot message.
+     */
+    public void setUseSnapshotDistribution(boolean useSnapshotDistribution) {
+        _querier.setUseSnapshotDistribution(useSnapshotDistribution);
+    }
+
+    /**
+     * Request the timestamp of the first message only for the destinations having messages, in a second request right
+     * after each sweep, so that the broker does not have to page in the head message of every destination on every
+     * sweep - read more at {@link ActiveMqBrokerStatsQuerier#setFirstMessageTimestampsOnlyForNonEmpty(boolean)}.
+     * Must be set before {@link #start()}.
+     *
+     * @param firstMessageTimestampsOnlyForNonEmpty
+     *            whether to request the first message timestamps only for destinations having messages.
+     */
+    public void setFirstMessageTimestampsOnlyForNonEmpty(boolean firstMessageTimestampsOnlyForNonEmpty) {
+        _querier.setFirstMessageTimestampsOnlyForNonEmpty(firstMessageTimestampsOnlyForNonEmpty);
+    }
+
+    /**
+     * Spread the scheduled sweeps over the interval in the given number of shards, split by endpoint group, so that the
+     * broker sees a steady trickle of statistics requests instead of a spike - read more at
+     * {@link ActiveMqBrokerStatsQuerier#setSweepShards(int)}. Only applies when querying only the Mats destinations.
+     * Must be set before {@link #start()}.
+     *
+     * @param numberOfShards
+     *            the number of shards to split the scheduled sweeps into, <code>0</code> or <code>1</code> to not
+     *            shard.
+     */
+    public void setSweepShards(int numberOfShards) {
+        _querier.setSweepShards(numberOfShards);
+    }
+
+    /**
+     * Poll the "hot" destinations - DLQs getting messages, and queues whose head message age is rising - with targeted
+     * statistics requests at the given interval, much shorter than the update interval, giving partial
+     * {@link UpdateEvent}s - read more at {@link ActiveMqBrokerStatsQuerier#setHotDestinationPollInterval(long)}. Must
+     * be set before {@link #start()}.
+     *
+     * @param pollIntervalMillis
+     *            the interval between the polls of the hot destinations, <code>0</code> to not poll.
+     */
+    public void setHotDestinationPollInterval(long pollIntervalMillis) {
+        _querier.setHotDestinationPollInterval(pollIntervalMillis);
+    }
+
+    /**
+     * Include and exclude patterns for the fully qualified names of the destinations to hold statistics for, e.g.
+     * <code>"topic://ActiveMQ.Advisory.*"</code>, where <code>'*'</code> matches any sequence of characters - the other
+     * destinations are dropped before parsing, and never reach the {@link BrokerSnapshot} - read more at
+     * {@link ActiveMqBrokerStatsQuerier#setDestinationFilter(Collection, Collection)}. Must be set before
+     * {@link #start()}.
+     *
+     * @param includePatterns
+     *            the patterns of which a destination must match one, <code>null</code> or empty to include all.
+     * @param excludePatterns
+     *            the patterns of which a destination must match none, <code>null</code> or empty to exclude none.
+     */
+    public void setDestinationFilter(Collection<String> includePatterns, Collection<String> excludePatterns) {
+        _querier.setDestinationFilter(includePatterns, excludePatterns);
+    }
+
+    /**
+     * Persist the last snapshot to the given local file after each full update (written on a separate thread, to a
+     * temporary file which is then moved in place), and load it upon {@link #start()} - so that
+     * {@link #getSnapshot()} has data right after a restart, instead of being empty until the first statistics sweep
+     * is done. The live updates are applied on top of the loaded destinations, and the snapshots are marked
+     * {@link BrokerSnapshot#isStale() stale} until the first complete (non-partial) sweep, which also removes the
+     * loaded destinations the broker no longer has. A missing or unreadable file is ignored (logged). Default is
+     * <code>null</code>, i.e. no persistence. Must be set before {@link #start()}.
+     *
+     * @param snapshotFile
+     *            the file to persist the snapshot to, or <code>null</code> for no persistence.
+     */
+    public void setSnapshotFile(Path snapshotFile) {
+        if (_started) {
+            throw new IllegalStateException("Must be set before start.");
+        }
+        if (_snapshotFileWriter != null) {
+            _snapshotFileWriter.close();
+            _snapshotFileWriter = null;
+        }
+        _snapshotFile = snapshotFile;
+        if (snapshotFile != null) {
+            // Conflating: If the writing doesn't keep up, only the latest snapshot is written.
+            _snapshotFileWriter = new ConflatingListenerDispatcher<>(this::writeSnapshotFile, (pending, newer) -> newer,
+                    "MatsBrokerMonitor.ActiveMQ: Snapshot file writer"
+                            + " (MatsBrokerMonitor@" + Integer.toHexString(System.identityHashCode(this)) + ")");
+        }
+    }
+
+    /**
+     * Adapt the interval between the statistics requests to the activity on the broker: Shortened towards the floor
+     * when DLQs grow, head messages get old or queues are rising, and backed off towards the ceiling when nothing is
+     * queued - read more at {@link ActiveMqBrokerStatsQuerier#setAdaptiveUpdateInterval(long, long, long)}. The
+     * current interval and the reason for it is available on the {@link BrokerSnapshot}. Must be set before
+     * {@link #start()}.
+     *
+     * @param floorIntervalMillis
+     *            the shortest interval, used when something is wrong.
+     * @param ceilingIntervalMillis
+     *            the longest interval, backed off to when nothing is queued.
+     * @param headMessageAgeThresholdMillis
+     *            if any head message is older than this, the interval is set to the floor.
+     */
+    public void setAdaptiveUpdateInterval(long floorIntervalMillis, long ceilingIntervalMillis,
+            long headMessageAgeThresholdMillis) {
+        _querier.setAdaptiveUpdateInterval(floorIntervalMillis, ceilingIntervalMillis,
+                headMessageAgeThresholdMillis);
+    }
+
+    /**
+     * The listeners are invoked on their own threads, so that a slow listener never holds back the reception of
+     * statistics, nor the other listeners: If an event arrives while the previous is still waiting to be dispatched to
+     * the listener, they are merged - so a slow listener only sees the latest state. See
+     * {@link #getListenerDispatchStats()} to check whether the listeners keep up.
+     */
     @Override
     public void registerListener(Consumer<UpdateEvent> listener) {
-        _listeners.add(listener);
+        _listeners.add(new ConflatingListenerDispatcher<>(listener, this::mergeUpdateEvents,
+                "MatsBrokerMonitor.ActiveMQ: UpdateEvent dispatch [" + listener.getClass().getSimpleName() + "]"
+                        + " (MatsBrokerMonitor@" + Integer.toHexString(System.identityHashCode(this)) + ")"));
     }
 
     @Override
     public void removeListener(Consumer<UpdateEvent> listener) {
-        _listeners.remove(listener);
+        for (ConflatingListenerDispatcher<UpdateEventImpl> dispatcher : _listeners) {
+            if (dispatcher.getListener() == listener) {
+                _listeners.remove(dispatcher);
+                dispatcher.close();
+            }
+        }
+    }
+
+    /**
+     * @return the dispatch statistics, i.e. number of events dispatched and conflated, and lag, for the listeners of
+     *         the querier (which is this MatsBrokerMonitor), and for the {@link #registerListener(Consumer) listeners of
+     *         this MatsBrokerMonitor}.
+     */
+    public List<ListenerDispatchStats> getListenerDispatchStats() {
+        List<ListenerDispatchStats> stats = new ArrayList<>(_querier.getListenerDispatchStats());
+        stats.addAll(_listeners);
+        return stats;
+    }
+
+    @Override
+    public void registerDlqArrivalListener(Consumer<DlqArrivalEvent> listener) {
+        _dlqArrivalListeners.add(listener);
+    }
+
+    @Override
+    public void removeDlqArrivalListener(Consumer<DlqArrivalEvent> listener) {
+        _dlqArrivalListeners.remove(listener);
     }
 
     @Override
@@ -151,14 +378,31 @@ public class ActiveMqMatsBrokerMonitor implements MatsBrokerMonitor, Statics {
         _querier.forceUpdate(correlationId, full);
     }
 
+    @Override
+    public void forceUpdate(String correlationId, Collection<String> fqDestinationNames) {
+        _querier.forceUpdate(correlationId, fqDestinationNames);
+    }
+
     @Override
     public void start() {
+        _started = true;
+        // ?: Should we warm-start from the persisted snapshot?
+        if (_snapshotFile != null) {
+            // -> Yes, so load it before the querier can give us live updates.
+            loadSnapshotFile();
+        }
         _querier.start();
     }
 
     @Override
     public void close() {
         _querier.close();
+        for (ConflatingListenerDispatcher<UpdateEventImpl> dispatcher : _listeners) {
+            dispatcher.close();
+        }
+        if (_snapshotFileWriter != null) {
+            _snapshotFileWriter.close();
+        }
     }
 
     @Override
@@ -166,175 +410,132 @@ public class ActiveMqMatsBrokerMonitor implements MatsBrokerMonitor, Statics {
         return Optional.ofNullable(_brokerSnapshot);
     }
 
-    // ===== IMPLEMENTATION
+    /**
+     * The history holds the last {@value Statics#DESTINATION_HISTORY_SAMPLES} changes of the destination's statistics
+     * (unchanged statistics means unchanged counters, so each sample's values hold until the next), ending with the
+     * current statistics.
+     */
+    @Override
+    public Optional<DestinationHistory> getHistory(String fqDestinationName) {
+        DestinationHistoryRing history = _destinationHistories.get(fqDestinationName);
+        DestinationStatsDto current = _querier.getCurrentDestinationStatsDtos().get(fqDestinationName);
+        if ((history == null) || (current == null)) {
+            return Optional.empty();
+        }
+        return Optional.of(history.snapshot(current));
+    }
 
-    private final CopyOnWriteArrayList<Consumer<UpdateEvent>> _listeners = new CopyOnWriteArrayList<>();
+    /**
+     * The history holds the last {@value Statics#BROKER_RESOURCE_HISTORY_SAMPLES} samples of the broker's resource
+     * usage, at least {@value Statics#BROKER_RESOURCE_SAMPLE_INTERVAL_MILLIS} ms apart, the latest being the current.
+     */
+    @Override
+    public List<BrokerResourceUsage> getBrokerResourceHistory() {
+        return _brokerResourceHistory.history();
+    }
 
-    private volatile BrokerSnapshotImpl _brokerSnapshot;
+    // ===== IMPLEMENTATION
 
-    private static class BrokerSnapshotImpl implements BrokerSnapshot {
-        private final long _lastUpdateLocalMillis;
-        private final long _lastUpdateBrokerMillis;
-        private final NavigableMap<String, MatsBrokerDestination> _matsDestinations;
-        private final BrokerInfo _brokerInfo; // nullable
-        private final Double _requestReplyLatencyMillis; // nullable
-
-        public BrokerSnapshotImpl(long lastUpdateLocalMillis, long lastUpdateBrokerMillis,
-                NavigableMap<String, MatsBrokerDestination> matsDestinations,
-                BrokerInfo brokerInfo, Double requestReplyLatencyMillis) {
-            _lastUpdateLocalMillis = lastUpdateLocalMillis;
-            _lastUpdateBrokerMillis = lastUpdateBrokerMillis;
-            _matsDestinations = matsDestinations;
-            _brokerInfo = brokerInfo;
-            _requestReplyLatencyMillis = requestReplyLatencyMillis;
-        }
+    private final CopyOnWriteArrayList<ConflatingListenerDispatcher<UpdateEventImpl>> _listeners
+            = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<Consumer<DlqArrivalEvent>> _dlqArrivalListeners = new CopyOnWriteArrayList<>();
 
-        @Override
-        public long getLastUpdateLocalMillis() {
-            return _lastUpdateLocalMillis;
-        }
+    // Written only from the querier listener dispatch thread (and when warm-starting, before start), read from any.
+    // Each snapshot is built from the previous, sharing the column chunks of the destinations that didn't change.
+    private volatile ColumnarBrokerSnapshot _brokerSnapshot;
 
-        @Override
-        public OptionalLong getLastUpdateBrokerMillis() {
-            return OptionalLong.of(_lastUpdateBrokerMillis);
-        }
+    // :: Snapshot persistence, set before start.
+    private volatile boolean _started;
+    private Path _snapshotFile; // null if no persistence
+    private ConflatingListenerDispatcher<ColumnarBrokerSnapshot> _snapshotFileWriter; // null if no persistence
 
-        @Override
-        public OptionalDouble getStatisticsRequestReplyLatencyMillis() {
-            return _requestReplyLatencyMillis == null
-                    ? OptionalDouble.empty()
-                    : OptionalDouble.of(_requestReplyLatencyMillis);
-        }
+    // :: Only used from the querier listener dispatch thread:
+    private long _latestUpdateBrokerMillis;
+    // Whether warm-started from the snapshot file, and the first complete sweep hasn't yet come: Snapshots are stale.
+    private boolean _warmStartedStale;
+    // The history of each destination's statistics, read from any thread.
+    private final ConcurrentHashMap<String, DestinationHistoryRing> _destinationHistories = new ConcurrentHashMap<>();
+    // The history of the broker's resource usage, read from any thread.
+    private final BrokerResourceHistory _brokerResourceHistory = new BrokerResourceHistory();
 
-        @Override
-        public NavigableMap<String, MatsBrokerDestination> getMatsDestinations() {
-            return Collections.unmodifiableNavigableMap(_matsDestinations);
-        }
+    /**
+     * View of the counters of an (immutable, except the timestamps) {@link DestinationStatsDto}.
+     */
+    private static class DestinationCountersImpl implements DestinationCounters {
+        private final DestinationStatsDto _stats;
 
-        @Override
-        public Optional<BrokerInfo> getBrokerInfo() {
-            return Optional.ofNullable(_brokerInfo);
+        private DestinationCountersImpl(DestinationStatsDto stats) {
+            _stats = stats;
         }
-    }
 
-    private static class MatsBrokerDestinationImpl implements MatsBrokerDestination {
-        private final long _lastUpdateMillis;
-        private final long _lastUpdateBrokerMillis;
-        private final String _fqDestinationName;
-        private final String _destinationName;
-        private final String _matsStageId;
-        private final StageDestinationType _stageDestinationType; // nullable
-        private final DestinationType _destinationType; // nullable
-        private final boolean _isDlq;
-        private final boolean _isDefaultGlobalDlq;
-        private final long _numberOfQueuedMessages;
-        private final long _numberOfInFlightMessages;
-        private final long _headMessageAgeMillis;
-
-        public MatsBrokerDestinationImpl(long lastUpdateMillis, long lastUpdateBrokerMillis, String fqDestinationName,
-                String destinationName, String matsStageId, StageDestinationType stageDestinationType,
-                DestinationType destinationType, boolean isDlq,
-                boolean isDefaultGlobalDlq, long numberOfQueuedMessages, long numberOfInFlightMessages,
-                long headMessageAgeMillis) {
-            _lastUpdateMillis = lastUpdateMillis;
-            _lastUpdateBrokerMillis = lastUpdateBrokerMillis;
-            _fqDestinationName = fqDestinationName;
-            _destinationName = destinationName;
-            _matsStageId = matsStageId;
-            _stageDestinationType = stageDestinationType;
-            _destinationType = destinationType;
-            _isDlq = isDlq;
-            _isDefaultGlobalDlq = isDefaultGlobalDlq;
-            _numberOfQueuedMessages = numberOfQueuedMessages;
-            _numberOfInFlightMessages = numberOfInFlightMessages;
-            _headMessageAgeMillis = headMessageAgeMillis;
+        @Override
+        public long getConsumerCount() {
+            return _stats.consumerCount;
         }
 
         @Override
-        public long getLastUpdateLocalMillis() {
-            return _lastUpdateMillis;
+        public long getProducerCount() {
+            return _stats.producerCount;
         }
 
         @Override
-        public OptionalLong getLastUpdateBrokerMillis() {
-            if (_lastUpdateBrokerMillis == 0) {
-                return OptionalLong.empty();
-            }
-            return OptionalLong.of(_lastUpdateBrokerMillis);
+        public long getEnqueueCount() {
+            return _stats.enqueueCount;
         }
 
         @Override
-        public String getFqDestinationName() {
-            return _fqDestinationName;
+        public long getDequeueCount() {
+            return _stats.dequeueCount;
         }
 
         @Override
-        public String getDestinationName() {
-            return _destinationName;
+        public long getDispatchCount() {
+            return _stats.dispatchCount;
         }
 
         @Override
-        public DestinationType getDestinationType() {
-            return _destinationType;
+        public long getExpiredCount() {
+            return _stats.expiredCount;
         }
 
         @Override
-        public boolean isDlq() {
-            return _isDlq;
+        public double getMinEnqueueTimeMillis() {
+            return _stats.minEnqueueTime;
         }
 
         @Override
-        public boolean isBrokerDefaultGlobalDlq() {
-            return _isDefaultGlobalDlq;
+        public double getAverageEnqueueTimeMillis() {
+            return _stats.averageEnqueueTime;
         }
 
         @Override
-        public Optional<String> getMatsStageId() {
-            return Optional.ofNullable(_matsStageId);
+        public double getMaxEnqueueTimeMillis() {
+            return _stats.maxEnqueueTime;
         }
 
         @Override
-        public Optional<StageDestinationType> getStageDestinationType() {
-            return Optional.ofNullable(_stageDestinationType);
+        public long getAverageMessageSize() {
+            return _stats.averageMessageSize;
         }
 
         @Override
-        public long getNumberOfQueuedMessages() {
-            return _numberOfQueuedMessages;
+        public long getMemoryUsage() {
+            return _stats.memoryUsage;
         }
 
         @Override
-        public OptionalLong getNumberOfInflightMessages() {
-            return OptionalLong.of(_numberOfInFlightMessages);
+        public long getMemoryLimit() {
+            return _stats.memoryLimit;
         }
 
         @Override
-        public OptionalLong getHeadMessageAgeMillis() {
-            if (_headMessageAgeMillis == 0) {
-                return OptionalLong.empty();
-            }
-            return OptionalLong.of(_headMessageAgeMillis);
+        public int getMemoryPercentUsage() {
+            return _stats.memoryPercentUsage;
         }
 
         @Override
         public String toString() {
-            return "MatsBrokerDestinationImpl{" +
-                    "lastUpdateMillis=" + LocalDateTime.ofInstant(Instant.ofEpochMilli(_lastUpdateMillis),
-                            ZoneId.systemDefault()) +
-                    ", lastUpdateBrokerMillis=" + (_lastUpdateBrokerMillis == 0 ? "{not present}"
-                            : LocalDateTime.ofInstant(Instant.ofEpochMilli(_lastUpdateBrokerMillis),
-                                    ZoneId.systemDefault())) +
-                    ", destinationName='" + _destinationName + '\'' +
-                    ", matsStageId='" + _matsStageId + '\'' +
-                    ", destinationType=" + _destinationType +
-                    ", isDlq=" + _isDlq +
-                    ", isGlobalDlq=" + _isDefaultGlobalDlq +
-                    ", numberOfQueuedMessages=" + _numberOfQueuedMessages +
-                    ", numberOfInFlightMessages=" + _numberOfInFlightMessages +
-                    ", headMessageAgeMillis=" + (_headMessageAgeMillis == 0
-                            ? "{not present}"
-                            : _headMessageAgeMillis) +
-                    '}';
+            return "DestinationCountersImpl{" + _stats.getCommonToString() + '}';
         }
     }
 
@@ -342,11 +543,14 @@ public class ActiveMqMatsBrokerMonitor implements MatsBrokerMonitor, Statics {
         private final String _brokerType;
         private final String _brokerName;
         private final String _brokerJson; // nullable
+        private final BrokerResourceUsage _resourceUsage; // nullable
 
-        public BrokerInfoImpl(String brokerType, String brokerName, String brokerJson) {
+        public BrokerInfoImpl(String brokerType, String brokerName, String brokerJson,
+                BrokerResourceUsage resourceUsage) {
             _brokerType = brokerType;
             _brokerName = brokerName;
             _brokerJson = brokerJson;
+            _resourceUsage = resourceUsage;
         }
 
         @Override
@@ -363,27 +567,37 @@ public class ActiveMqMatsBrokerMonitor implements MatsBrokerMonitor, Statics {
         public Optional<String> getBrokerJson() {
             return Optional.ofNullable(_brokerJson);
         }
+
+        @Override
+        public Optional<BrokerResourceUsage> getResourceUsage() {
+            return Optional.ofNullable(_resourceUsage);
+        }
     }
 
     private static class UpdateEventImpl implements UpdateEvent {
         private final long _statisticsUpdateMillis;
-        private final String _correlationId; // nullable
+        private final List<String> _correlationIds;
         private final boolean _isFullUpdate;
+        private final boolean _isPartialUpdate;
         private final boolean _updateEventOriginatedOnThisNode;
         private final BrokerInfo _brokerInfo; // nullable
         private final NavigableMap<String, MatsBrokerDestination> _eventDestinations;
+        private final Set<String> _removedFqDestinationNames;
         private final String _originatingNodeId;
 
-        public UpdateEventImpl(long statisticsUpdateMillis, String correlationId, boolean isFullUpdate,
-                BrokerInfo brokerInfo, NavigableMap<String, MatsBrokerDestination> eventDestinations,
-                boolean updateEventOriginatedOnThisNode,
+        public UpdateEventImpl(long statisticsUpdateMillis, List<String> correlationIds, boolean isFullUpdate,
+                boolean isPartialUpdate, BrokerInfo brokerInfo,
+                NavigableMap<String, MatsBrokerDestination> eventDestinations,
+                Set<String> removedFqDestinationNames, boolean updateEventOriginatedOnThisNode,
                 String originatingNodeId) {
             _statisticsUpdateMillis = statisticsUpdateMillis;
-            _correlationId = correlationId;
+            _correlationIds = correlationIds;
             _isFullUpdate = isFullUpdate;
+            _isPartialUpdate = isPartialUpdate;
             _updateEventOriginatedOnThisNode = updateEventOriginatedOnThisNode;
             _brokerInfo = brokerInfo;
             _eventDestinations = eventDestinations;
+            _removedFqDestinationNames = removedFqDestinationNames;
             _originatingNodeId = originatingNodeId;
         }
 
@@ -394,7 +608,12 @@ public class ActiveMqMatsBrokerMonitor implements MatsBrokerMonitor, Statics {
 
         @Override
         public Optional<String> getCorrelationId() {
-            return Optional.ofNullable(_correlationId);
+            return _correlationIds.isEmpty() ? Optional.empty() : Optional.of(_correlationIds.get(0));
+        }
+
+        @Override
+        public List<String> getCorrelationIds() {
+            return _correlationIds;
         }
 
         @Override
@@ -402,6 +621,11 @@ public class ActiveMqMatsBrokerMonitor implements MatsBrokerMonitor, Statics {
             return _isFullUpdate;
         }
 
+        @Override
+        public boolean isPartialUpdate() {
+            return _isPartialUpdate;
+        }
+
         @Override
         public boolean isUpdateEventOriginatedOnThisNode() {
             return _updateEventOriginatedOnThisNode;
@@ -417,90 +641,229 @@ public class ActiveMqMatsBrokerMonitor implements MatsBrokerMonitor, Statics {
             return _eventDestinations;
         }
 
+        @Override
+        public Set<String> getRemovedDestinations() {
+            return _removedFqDestinationNames;
+        }
+
         @Override
         public String toString() {
             return "UpdateEventImpl{" +
                     "statisticsUpdateMillis=" + LocalDateTime.ofInstant(Instant.ofEpochMilli(_statisticsUpdateMillis),
                             ZoneId.systemDefault()) +
-                    ", correlationId='" + _correlationId + '\'' +
+                    ", correlationIds=" + _correlationIds +
                     ", isFullUpdate=" + _isFullUpdate +
+                    ", isPartialUpdate=" + _isPartialUpdate +
                     ", updateEventOriginatedOnThisNode=" + _updateEventOriginatedOnThisNode +
                     ", brokerInfo=" + _brokerInfo +
                     ", eventDestinations=" + _eventDestinations.size() +
+                    ", removedDestinations=" + _removedFqDestinationNames +
                     ", originatingNodeId='" + _originatingNodeId + '\'' +
                     '}';
         }
     }
 
-    private void eventFromQuerier(ActiveMqBrokerStatsEvent event) {
-        ConcurrentNavigableMap<String, DestinationStatsDto> destStatsDtos = _querier
-                .getCurrentDestinationStatsDtos();
-
-        long latestUpdateBrokerMillis = 0;
+    private static class DlqArrivalEventImpl implements DlqArrivalEvent {
+        private final long _arrivalBrokerMillis;
+        private final String _originalFqDestinationName;
+        private final String _matsStageId; // nullable
+        private final String _messageId; // nullable
 
-        TreeMap<String, MatsBrokerDestination> matsDestinationsMap = new TreeMap<>();
-        TreeMap<String, MatsBrokerDestination> matsDestinationsMapNonZero = new TreeMap<>();
-
-        for (Entry<String, DestinationStatsDto> entry : destStatsDtos.entrySet()) {
-            String fqDestinationName = entry.getKey();
-            // DestinationName: remove both "queue://" and "topic://", both are 8 length.
-            String destinationName = fqDestinationName.substring(8);
+        public DlqArrivalEventImpl(long arrivalBrokerMillis, String originalFqDestinationName, String matsStageId,
+                String messageId) {
+            _arrivalBrokerMillis = arrivalBrokerMillis;
+            _originalFqDestinationName = originalFqDestinationName;
+            _matsStageId = matsStageId;
+            _messageId = messageId;
+        }
 
-            // Whether this is the global DLQ
-            boolean isGlobalDlq = ACTIVE_MQ_GLOBAL_DLQ_NAME.equals(destinationName);
+        @Override
+        public long getArrivalBrokerMillis() {
+            return _arrivalBrokerMillis;
+        }
 
-            // Whether this is a DLQ at all.
-            boolean isAnyDlq = destinationName.startsWith(DLQ_PREFIX);
+        @Override
+        public String getOriginalFqDestinationName() {
+            return _originalFqDestinationName;
+        }
 
-            // Is this a queue?
-            MatsBrokerDestination.DestinationType destinationType = fqDestinationName.startsWith("queue://")
-                    ? MatsBrokerDestination.DestinationType.QUEUE
-                    : MatsBrokerDestination.DestinationType.TOPIC;
+        @Override
+        public Optional<String> getMatsStageId() {
+            return Optional.ofNullable(_matsStageId);
+        }
 
-            // Whether this is a DLQ: Individual DLQ or global DLQ.
-            boolean isDlq = isGlobalDlq || isAnyDlq;
+        @Override
+        public Optional<String> getMessageId() {
+            return Optional.ofNullable(_messageId);
+        }
 
-            // :: Find the MatsStageId for this destination, chop off "mats." or "DLQ.mats."
+        @Override
+        public String toString() {
+            return "DlqArrivalEventImpl{" +
+                    "arrivalBrokerMillis=" + LocalDateTime.ofInstant(Instant.ofEpochMilli(_arrivalBrokerMillis),
+                            ZoneId.systemDefault()) +
+                    ", originalFqDestinationName='" + _originalFqDestinationName + '\'' +
+                    ", matsStageId='" + _matsStageId + '\'' +
+                    ", messageId='" + _messageId + '\'' +
+                    '}';
+        }
+    }
 
-            StageDestinationType stageDestinationType = null;
-            String matsStageId = null;
-            for (StageDestinationType sdt : StageDestinationType.values()) {
-                String prefixToEvaluate = (sdt.isDlq() ? DLQ_PREFIX + "." : "")
-                        + _matsDestinationPrefix + sdt.getMidfix();
-                if (destinationName.startsWith(prefixToEvaluate)) {
-                    stageDestinationType = sdt;
-                    matsStageId = destinationName.substring(prefixToEvaluate.length());
-                    break;
-                }
+    private void dlqArrivalFromQuerier(ActiveMqDlqArrivalEvent dlqArrival) {
+        // :: Find the MatsStageId for the original destination (which is not a DLQ)
+        Classification classification = _classifier.classify(dlqArrival.getOriginalFqDestinationName());
+        String matsStageId = classification.isDlq() ? null : classification.getMatsStageIdOrNull();
+        DlqArrivalEventImpl dlqArrivalEvent = new DlqArrivalEventImpl(dlqArrival.getAdvisoryBrokerMillis(),
+                dlqArrival.getOriginalFqDestinationName(), matsStageId,
+                dlqArrival.getOriginalMessageId().orElse(null));
+        for (Consumer<DlqArrivalEvent> listener : _dlqArrivalListeners) {
+            try {
+                listener.accept(dlqArrivalEvent);
             }
+            catch (Throwable t) {
+                log.error("The DLQ arrival listener of class [" + listener.getClass().getName() + "] threw when"
+                        + " being invoked. Ignoring.", t);
+            }
+        }
+    }
 
-            DestinationStatsDto stats = entry.getValue();
+    private void loadSnapshotFile() {
+        // ?: Is there a file?
+        if (!Files.exists(_snapshotFile)) {
+            // -> No, so nothing to load (first start, or we've never gotten a full update).
+            log.info("No snapshot file [" + _snapshotFile + "] to warm-start from.");
+            return;
+        }
+        StoredSnapshot stored;
+        try {
+            stored = SnapshotFileCodec.read(_snapshotFile);
+        }
+        catch (IOException | RuntimeException e) {
+            log.warn("Could not read the snapshot file [" + _snapshotFile + "], ignoring it.", e);
+            return;
+        }
+        // Seed the snapshot, so that the live updates are applied on top: Until the first complete sweep, the
+        // destinations not yet received keep their values from the file.
+        ColumnarBrokerSnapshot.Builder builder = ColumnarBrokerSnapshot.newBuilder()
+                .lastUpdateLocalMillis(stored.lastUpdateLocalMillis)
+                .lastUpdateBrokerMillis(stored.lastUpdateBrokerMillis)
+                .updateInterval(stored.updateIntervalMillis, stored.updateIntervalReason)
+                .brokerInfo(stored.brokerType != null
+                        ? new BrokerInfoImpl(stored.brokerType, stored.brokerName, stored.brokerJson, null)
+                        : null)
+                .stale(true);
+        for (DestinationStatsDto stats : stored.destinationStatsDtos) {
+            int id = builder.add(_classifier.classify(stats.destinationName));
+            setStats(builder, id, stats, null);
+        }
+        _latestUpdateBrokerMillis = stored.lastUpdateBrokerMillis;
+        _warmStartedStale = true;
+        _brokerSnapshot = builder.build();
+        log.info("Warm-started from snapshot file [" + _snapshotFile + "] with [" + _brokerSnapshot.size()
+                + "] destinations, last updated [" + Instant.ofEpochMilli(stored.lastUpdateLocalMillis)
+                + "] - marked stale until the first complete sweep.");
+    }
 
-            long numberOfQueuedMessages = stats.size;
-            long numberOfInflightMessages = stats.inflightCount;
-            long lastUpdateMillis = stats.statsReceived.toEpochMilli();
-            long lastUpdateBrokerMillis = stats.brokerTime.toEpochMilli();
+    private void writeSnapshotFile(ColumnarBrokerSnapshot snapshot) {
+        try {
+            SnapshotFileCodec.write(snapshot, _snapshotFile);
+        }
+        catch (IOException | RuntimeException e) {
+            log.warn("Could not write the snapshot file [" + _snapshotFile + "], ignoring.", e);
+        }
+    }
 
-            latestUpdateBrokerMillis = Math.max(latestUpdateBrokerMillis, lastUpdateBrokerMillis);
+    private void eventFromQuerier(ActiveMqBrokerStatsEvent event) {
+        ConcurrentNavigableMap<String, DestinationStatsDto> destStatsDtos = _querier
+                .getCurrentDestinationStatsDtos();
 
-            // If present: Calculate age: If lastUpdateBrokerMillis present, use this, otherwise lastUpdateMillis
-            long headMessageAgeMillis = stats.firstMessageTimestamp.map(instant -> (lastUpdateBrokerMillis != 0
-                    ? lastUpdateBrokerMillis
-                    : lastUpdateMillis) - instant.toEpochMilli())
-                    .orElse(0L);
-
-            // Create the representation
-            MatsBrokerDestinationImpl matsBrokerDestination = new MatsBrokerDestinationImpl(lastUpdateMillis,
-                    lastUpdateBrokerMillis, fqDestinationName, destinationName, matsStageId, stageDestinationType,
-                    destinationType, isDlq, isGlobalDlq, numberOfQueuedMessages, numberOfInflightMessages,
-                    headMessageAgeMillis);
-            // Put it in the map.
-            matsDestinationsMap.put(fqDestinationName, matsBrokerDestination);
-            // ?: Does it has non-zero queue count?
-            if (matsBrokerDestination.getNumberOfQueuedMessages() > 0) {
-                // -> Yes, non-zero queue count.
-                matsDestinationsMapNonZero.put(fqDestinationName, matsBrokerDestination);
+        // :: Build the new snapshot from the previous: Only the column chunks of the destinations whose values change
+        // are copied, the rest are shared.
+        ColumnarBrokerSnapshot previousSnapshot = _brokerSnapshot;
+        ColumnarBrokerSnapshot.Builder builder = previousSnapshot != null
+                ? previousSnapshot.toBuilder()
+                : ColumnarBrokerSnapshot.newBuilder();
+        long latestUpdateBrokerMillis = _latestUpdateBrokerMillis;
+
+        // :: Apply the changed destinations.
+        Set<String> changedFqDestinationNames = _querier.drainChangedFqDestinationNames();
+        TreeSet<String> removedFqDestinationNames = new TreeSet<>();
+        for (String fqDestinationName : changedFqDestinationNames) {
+            DestinationStatsDto stats = destStatsDtos.get(fqDestinationName);
+            // ?: Is the destination gone?
+            if (stats == null) {
+                // -> Yes, so remove it - and tell the listeners explicitly, if it was present.
+                if (builder.remove(fqDestinationName)) {
+                    removedFqDestinationNames.add(fqDestinationName);
+                }
+                _classifier.forget(fqDestinationName);
+                _destinationHistories.remove(fqDestinationName);
+                continue;
+            }
+            // ?: Is this a placeholder from an advisory, i.e. we don't know its stats yet?
+            if (stats.placeholder) {
+                // -> Yes, so if we already have it (e.g. warm-started from file), keep what we have.
+                if (builder.indexOf(fqDestinationName) >= 0) {
+                    continue;
+                }
+            }
+            else {
+                latestUpdateBrokerMillis = Math.max(latestUpdateBrokerMillis, stats.brokerTimeMillis);
+            }
+            int id = builder.add(_classifier.classify(fqDestinationName));
+            // Record the changed stats in its history - but not a placeholder's unknown counts.
+            DestinationHistoryRing history = null;
+            if (!stats.placeholder) {
+                history = _destinationHistories.computeIfAbsent(fqDestinationName,
+                        fq -> new DestinationHistoryRing());
+                history.record(stats);
+            }
+            setStats(builder, id, stats, history);
+        }
+
+        // :: Update the timestamps of the destinations whose stats were received again unchanged: The querier then
+        // only updates the timestamps in place in the DTO. The timestamps, and the rates and status which decay with
+        // time, are columns of the snapshot - so this only writes a few primitives, and only the chunks holding them
+        // are copied: The destinations' other values stay shared with the previous snapshots.
+        Iterable<String> receivedFqDestinationNames = event.isPartialUpdate()
+                ? event.getPartialUpdateFqDestinationNames()
+                : destStatsDtos.keySet();
+        for (String fqDestinationName : receivedFqDestinationNames) {
+            DestinationStatsDto stats = destStatsDtos.get(fqDestinationName);
+            int id = builder.indexOf(fqDestinationName);
+            // ?: Gone, not present, or a placeholder (which we don't replace what we have with)?
+            if ((stats == null) || (id < 0) || stats.placeholder) {
+                // -> Yes, so nothing to update.
+                continue;
             }
+            // Read the timestamps once, as the querier may update them in place concurrently.
+            long lastUpdateLocalMillis = stats.statsReceivedMillis;
+            long lastUpdateBrokerMillis = stats.brokerTimeMillis;
+            // ?: Have the timestamps moved since the destination's values were set?
+            if ((builder.getLastUpdateLocalMillis(id) == lastUpdateLocalMillis)
+                    && (builder.getLastUpdateBrokerMillis(id) == lastUpdateBrokerMillis)) {
+                // -> No, so it is current.
+                continue;
+            }
+            latestUpdateBrokerMillis = Math.max(latestUpdateBrokerMillis, lastUpdateBrokerMillis);
+            builder.setUpdated(id, lastUpdateLocalMillis, lastUpdateBrokerMillis);
+            setRates(builder, id, stats, _destinationHistories.get(fqDestinationName));
+        }
+
+        // ?: Warm-started from the snapshot file, and is this the first complete sweep? (Not a partial update, nor the
+        // destination advisories, which only tell about some destinations.)
+        boolean stale = _warmStartedStale;
+        if (stale && event.isCompleteSweep()) {
+            // -> Yes, so remove the destinations from the file which the broker no longer has - and we're live.
+            for (String fqDestinationName : builder.getFqDestinationNames()) {
+                if (!destStatsDtos.containsKey(fqDestinationName)) {
+                    removedFqDestinationNames.add(fqDestinationName);
+                    builder.remove(fqDestinationName);
+                    _classifier.forget(fqDestinationName);
+                }
+            }
+            _warmStartedStale = false;
+            stale = false;
         }
 
         // ----- We've parsed the update from the Querier.
@@ -508,42 +871,141 @@ public class ActiveMqMatsBrokerMonitor implements MatsBrokerMonitor, Statics {
         long nowMillis = System.currentTimeMillis();
 
         // :: Create the BrokerInfo object, if we have info
-        BrokerInfoImpl brokerInfo = _querier.getCurrentBrokerStatsDto()
-                .map(brokerStatsDto -> new BrokerInfoImpl(BROKER_TYPE,
-                        brokerStatsDto.brokerName,
-                        brokerStatsDto.toJson()))
-                .orElse(null);
+        Optional<BrokerStatsDto> brokerStatsDto = _querier.getCurrentBrokerStatsDto();
+        BrokerInfoImpl brokerInfo = null;
+        if (brokerStatsDto.isPresent()) {
+            BrokerStatsDto dto = brokerStatsDto.get();
+            // .. and record the resource usage in its history.
+            BrokerResourceUsage resourceUsage = _brokerResourceHistory.record(dto);
+            brokerInfo = new BrokerInfoImpl(BROKER_TYPE, dto.brokerName, dto.toJson(), resourceUsage);
+            latestUpdateBrokerMillis = Math.max(latestUpdateBrokerMillis, dto.brokerTimeMillis);
+        }
+        _latestUpdateBrokerMillis = latestUpdateBrokerMillis;
 
         // :: Create the new BrokerSnapshot, store it in volatile field.
-        _brokerSnapshot = new BrokerSnapshotImpl(nowMillis, latestUpdateBrokerMillis, matsDestinationsMap, brokerInfo,
-                event.getStatsRequestReplyLatencyMillis().isPresent()
-                        ? event.getStatsRequestReplyLatencyMillis().getAsDouble()
-                        : null);
+        ColumnarBrokerSnapshot snapshot = builder
+                .lastUpdateLocalMillis(nowMillis)
+                .lastUpdateBrokerMillis(latestUpdateBrokerMillis)
+                .statisticsRequestReplyLatencyMillis(event.getStatsRequestReplyLatencyMillis().orElse(Double.NaN))
+                .updateInterval(_querier.getEffectiveUpdateIntervalMillis(),
+                        _querier.getEffectiveUpdateIntervalReason())
+                .brokerInfo(brokerInfo)
+                .stale(stale)
+                .build();
+        _brokerSnapshot = snapshot;
 
         // ::: Notify listeners
 
         // :: Is this a full update?
         boolean isFullUpdate = event.isFullUpdate();
 
+        // ?: Full update, and should we persist the snapshot?
+        if (isFullUpdate && (_snapshotFileWriter != null)) {
+            // -> Yes, so hand it to the writer thread.
+            _snapshotFileWriter.offer(snapshot);
+        }
+
         if (log.isTraceEnabled()) log.trace("Got event for [" + destStatsDtos.size() + "] destinations, ["
-                + matsDestinationsMap.size() + "] of them was Mats-relevant, [" + matsDestinationsMapNonZero.size()
-                + "] was non-zero. Notifying listeners, isFullUpdate:[" + isFullUpdate + "]");
+                + changedFqDestinationNames.size() + "] of them changed, [" + snapshot.getNumberOfNonEmptyDestinations()
+                + "] is non-zero. Notifying listeners, isFullUpdate:[" + isFullUpdate + "]");
 
         // :: Construct and send the update event to listeners.
-        TreeMap<String, MatsBrokerDestination> eventDestinations = isFullUpdate
-                ? matsDestinationsMap
-                : matsDestinationsMapNonZero;
-        UpdateEventImpl update = new UpdateEventImpl(System.currentTimeMillis(), event.getCorrelationId().orElse(null),
-                isFullUpdate, brokerInfo, eventDestinations, event.isStatsEventOriginatedOnThisNode(),
-                event.getOriginatingNodeId().orElse(null));
-        for (Consumer<UpdateEvent> listener : _listeners) {
-            try {
-                listener.accept(update);
-            }
-            catch (Throwable t) {
-                log.error("The listener of class [" + listener.getClass().getName() + "] threw when being invoked."
-                        + " Ignoring.", t);
+        NavigableMap<String, MatsBrokerDestination> eventDestinations;
+        // ?: Is this a partial update, i.e. only specific destinations updated?
+        if (event.isPartialUpdate()) {
+            // -> Yes, so the event shall contain only those, also the ones with zero messages.
+            eventDestinations = new TreeMap<>();
+            for (String fqDestinationName : event.getPartialUpdateFqDestinationNames()) {
+                MatsBrokerDestination matsBrokerDestination = snapshot.getMatsDestinations().get(fqDestinationName);
+                if (matsBrokerDestination != null) {
+                    eventDestinations.put(fqDestinationName, matsBrokerDestination);
+                }
             }
         }
+        else {
+            // Note: These are immutable views of the snapshot, so they can be handed out as is.
+            eventDestinations = isFullUpdate
+                    ? snapshot.getMatsDestinations()
+                    : snapshot.getNonEmptyMatsDestinations();
+        }
+        UpdateEventImpl update = new UpdateEventImpl(System.currentTimeMillis(), event.getCorrelationIds(),
+                isFullUpdate, event.isPartialUpdate(), brokerInfo, eventDestinations,
+                Collections.unmodifiableSortedSet(removedFqDestinationNames),
+                event.isStatsEventOriginatedOnThisNode(), event.getOriginatingNodeId().orElse(null));
+        // Note: The listeners are invoked on their own threads, merging events if they don't keep up.
+        for (ConflatingListenerDispatcher<UpdateEventImpl> dispatcher : _listeners) {
+            dispatcher.offer(update);
+        }
+    }
+
+    /**
+     * Sets all the values of the destination's row from the stats, which have changed.
+     */
+    private static void setStats(ColumnarBrokerSnapshot.Builder builder, int id, DestinationStatsDto stats,
+            DestinationHistoryRing history) {
+        // ?: Are these stats from the broker? (Not if a placeholder from an advisory, whose counts are unknown, or if
+        // loaded from a snapshot file, which only has the sizes.)
+        boolean fromBroker = !stats.placeholder && (stats.brokerId != null);
+        builder.setMessages(id, stats.size, stats.placeholder ? -1 : stats.inflightCount,
+                stats.firstMessageTimestampMillis, fromBroker ? new DestinationCountersImpl(stats) : null)
+                .setUpdated(id, stats.statsReceivedMillis, stats.brokerTimeMillis);
+        setRates(builder, id, stats, history);
+    }
+
+    /**
+     * Sets the rates and consumer status of the destination's row, calculated from its history - they are calculated
+     * now, as the history is shared with the later snapshots, which record into it.
+     */
+    private static void setRates(ColumnarBrokerSnapshot.Builder builder, int id, DestinationStatsDto stats,
+            DestinationHistoryRing history) {
+        // ?: Do we have a history?
+        if (history == null) {
+            // -> No, so no rates.
+            builder.setRates(id, Double.NaN, Double.NaN, Double.NaN, ConsumerStatus.OK);
+            return;
+        }
+        builder.setRates(id, history.enqueueRatePerSecond(stats), history.dequeueRatePerSecond(stats),
+                history.queueDepthSlopePerSecond(stats), history.getConsumerStatus(stats));
+    }
+
+    /**
+     * Merges a pending event with a newer, for a listener which hasn't yet gotten the pending.
+     */
+    private UpdateEventImpl mergeUpdateEvents(UpdateEventImpl pending, UpdateEventImpl newer) {
+        LinkedHashSet<String> correlationIds = new LinkedHashSet<>(pending.getCorrelationIds());
+        correlationIds.addAll(newer.getCorrelationIds());
+        boolean isFullUpdate = pending.isFullUpdate() || newer.isFullUpdate();
+        // Only partial if both are.
+        boolean isPartialUpdate = pending.isPartialUpdate() && newer.isPartialUpdate();
+
+        NavigableMap<String, MatsBrokerDestination> eventDestinations;
+        // ?: Both partial?
+        if (isPartialUpdate) {
+            // -> Yes, so the union of the destinations, the newer winning.
+            eventDestinations = new TreeMap<>(pending.getEventDestinations());
+            eventDestinations.putAll(newer.getEventDestinations());
+        }
+        // ?: Does the newer have the destinations the merged event shall have?
+        else if (!newer.isPartialUpdate() && (newer.isFullUpdate() == isFullUpdate)) {
+            // -> Yes, so use those.
+            eventDestinations = newer.getEventDestinations();
+        }
+        else {
+            // -> No, so we must pick them from the current snapshot (which is at least as new as the newer event).
+            eventDestinations = isFullUpdate
+                    ? _brokerSnapshot.getMatsDestinations()
+                    : _brokerSnapshot.getNonEmptyMatsDestinations();
+        }
+        // If either originated on this node, we keep that.
+        UpdateEventImpl origin = (pending.isUpdateEventOriginatedOnThisNode()
+                && !newer.isUpdateEventOriginatedOnThisNode()) ? pending : newer;
+        // :: The removed destinations of both, except those that have come back since.
+        TreeSet<String> removedFqDestinationNames = new TreeSet<>(pending.getRemovedDestinations());
+        removedFqDestinationNames.addAll(newer.getRemovedDestinations());
+        removedFqDestinationNames.removeIf(_brokerSnapshot.getMatsDestinations()::containsKey);
+        return new UpdateEventImpl(newer.getStatisticsUpdateMillis(), new ArrayList<>(correlationIds),
+                isFullUpdate, isPartialUpdate, newer.getBrokerInfo().orElse(pending.getBrokerInfo().orElse(null)),
+                eventDestinations, Collections.unmodifiableSortedSet(removedFqDestinationNames),
+                origin.isUpdateEventOriginatedOnThisNode(), origin._originatingNodeId);
     }
 }
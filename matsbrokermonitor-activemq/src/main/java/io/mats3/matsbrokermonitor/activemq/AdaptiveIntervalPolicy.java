@@ -0,0 +1,113 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.util.Collection;
+
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.DestinationStatsDto;
+
+/**
+ * Decides the interval between the scheduled statistics requests based on the activity seen in the last full set of
+ * statistics: Shortened to the floor when any DLQ grows or a head message gets too old, halved (down to the floor)
+ * when the number of queued messages is rising, and doubled (up to the ceiling) when nothing is queued - otherwise the
+ * configured base interval.
+ * <p>
+ * Only used from the receive thread.
+ */
+final class AdaptiveIntervalPolicy {
+    private final long _baseIntervalMillis;
+    private final long _floorIntervalMillis;
+    private final long _ceilingIntervalMillis;
+    private final long _headMessageAgeThresholdMillis;
+
+    // -1 until first evaluation.
+    private long _previousDlqTotal = -1;
+    private long _previousQueuedTotal = -1;
+
+    private long _intervalMillis;
+    private String _reason;
+
+    AdaptiveIntervalPolicy(long baseIntervalMillis, long floorIntervalMillis, long ceilingIntervalMillis,
+            long headMessageAgeThresholdMillis) {
+        _floorIntervalMillis = floorIntervalMillis;
+        _ceilingIntervalMillis = ceilingIntervalMillis;
+        _baseIntervalMillis = clamp(baseIntervalMillis);
+        _headMessageAgeThresholdMillis = headMessageAgeThresholdMillis;
+        _intervalMillis = _baseIntervalMillis;
+        _reason = "NORMAL: No statistics evaluated yet.";
+    }
+
+    long getIntervalMillis() {
+        return _intervalMillis;
+    }
+
+    String getReason() {
+        return _reason;
+    }
+
+    /**
+     * Evaluates a full set of destination statistics.
+     *
+     * @return the new interval.
+     */
+    long evaluate(Collection<DestinationStatsDto> destinationStatsDtos) {
+        long dlqTotal = 0;
+        long queuedTotal = 0;
+        long maxHeadMessageAgeMillis = 0;
+        String oldestHeadMessageDestination = null;
+        for (DestinationStatsDto dto : destinationStatsDtos) {
+            if (!dto.isQueue()) {
+                continue;
+            }
+            if (dto.isDlq()) {
+                dlqTotal += dto.size;
+                continue;
+            }
+            queuedTotal += dto.size;
+            // Messages on DLQs sit there until handled, so head message age is only relevant for the other queues.
+            if (dto.firstMessageTimestampMillis != 0) {
+                long headMessageAgeMillis = dto.brokerTimeMillis - dto.firstMessageTimestampMillis;
+                if (headMessageAgeMillis > maxHeadMessageAgeMillis) {
+                    maxHeadMessageAgeMillis = headMessageAgeMillis;
+                    oldestHeadMessageDestination = dto.destinationName;
+                }
+            }
+        }
+
+        // ?: Has any DLQ grown?
+        if ((_previousDlqTotal >= 0) && (dlqTotal > _previousDlqTotal)) {
+            // -> Yes, so we want to follow closely.
+            _intervalMillis = _floorIntervalMillis;
+            _reason = "DLQ_GROWING: Messages on DLQs increased from " + _previousDlqTotal + " to " + dlqTotal + ".";
+        }
+        // ?: Is any head message older than the threshold?
+        else if (maxHeadMessageAgeMillis > _headMessageAgeThresholdMillis) {
+            // -> Yes, so we want to follow closely.
+            _intervalMillis = _floorIntervalMillis;
+            _reason = "HEAD_MESSAGE_AGE: Head message on [" + oldestHeadMessageDestination + "] is "
+                    + maxHeadMessageAgeMillis + " ms old, threshold is " + _headMessageAgeThresholdMillis + " ms.";
+        }
+        // ?: Is the number of queued messages rising?
+        else if ((_previousQueuedTotal >= 0) && (queuedTotal > _previousQueuedTotal)) {
+            // -> Yes, so shorten the interval.
+            _intervalMillis = clamp(Math.min(_intervalMillis, _baseIntervalMillis) / 2);
+            _reason = "QUEUE_DEPTH_RISING: Queued messages increased from " + _previousQueuedTotal + " to "
+                    + queuedTotal + ".";
+        }
+        // ?: Is nothing queued?
+        else if (queuedTotal == 0) {
+            // -> Yes, so back off.
+            _intervalMillis = clamp(Math.max(_intervalMillis, _baseIntervalMillis) * 2);
+            _reason = "IDLE: No messages queued (not counting DLQs).";
+        }
+        else {
+            _intervalMillis = _baseIntervalMillis;
+            _reason = "NORMAL: " + queuedTotal + " messages queued, not rising.";
+        }
+        _previousDlqTotal = dlqTotal;
+        _previousQueuedTotal = queuedTotal;
+        return _intervalMillis;
+    }
+
+    private long clamp(long intervalMillis) {
+        return Math.max(_floorIntervalMillis, Math.min(_ceilingIntervalMillis, intervalMillis));
+    }
+}
@@ -0,0 +1,237 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.BrokerStatsDto;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerResourceUsage;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination;
+
+/**
+ * Fixed-size ring buffer of the broker's resource usage, kept in a single primitive array like the
+ * {@link DestinationHistoryRing}. The broker stats come with every sweep, but the samples are kept at least
+ * {@link #BROKER_RESOURCE_SAMPLE_INTERVAL_MILLIS} apart, so that the history spans a useful period also with a short
+ * update interval: A sweep arriving sooner than that after the second latest sample replaces the latest, so that the
+ * latest sample always is the current.
+ * <p>
+ * The time-to-limit projections for store and temp are calculated when a sample is recorded, from the least squares
+ * slope of the usage over the samples within {@link #BROKER_RESOURCE_PROJECTION_WINDOW_MILLIS}.
+ * <p>
+ * Thread safe: Recorded from the querier's listener dispatch thread, read from any thread.
+ */
+final class BrokerResourceHistory implements Statics {
+    // :: The fields of each sample, interleaved in the array.
+    private static final int TIMESTAMP = 0;
+    private static final int STORE_USAGE = 1;
+    private static final int STORE_LIMIT = 2;
+    private static final int STORE_PERCENT_USAGE = 3;
+    private static final int TEMP_USAGE = 4;
+    private static final int TEMP_LIMIT = 5;
+    private static final int TEMP_PERCENT_USAGE = 6;
+    private static final int MEMORY_USAGE = 7;
+    private static final int MEMORY_LIMIT = 8;
+    private static final int MEMORY_PERCENT_USAGE = 9;
+    private static final int STORE_TIME_TO_LIMIT = 10; // ABSENT if not enough history
+    private static final int TEMP_TIME_TO_LIMIT = 11; // ABSENT if not enough history
+    private static final int FIELDS = 12;
+
+    private static final long ABSENT = -1;
+
+    // :: Synchronized on this
+    private final long[] _samples = new long[BROKER_RESOURCE_HISTORY_SAMPLES * FIELDS];
+    private int _next; // index of the sample to write next
+    private int _count;
+
+    /**
+     * Records the broker stats, unless already recorded, and returns the resulting latest usage.
+     */
+    synchronized BrokerResourceUsage record(BrokerStatsDto stats) {
+        // ?: Already have this (or newer) stats?
+        if ((_count > 0) && (stats.statsReceivedMillis <= sample(_count - 1, TIMESTAMP))) {
+            // -> Yes, so just return the latest.
+            return usage(_count - 1);
+        }
+        // ?: Is the latest sample too close to the one before it?
+        if ((_count > 1)
+                && ((stats.statsReceivedMillis - sample(_count - 2, TIMESTAMP))
+                        < BROKER_RESOURCE_SAMPLE_INTERVAL_MILLIS)) {
+            // -> Yes, so replace the latest.
+            _next = (_next - 1 + BROKER_RESOURCE_HISTORY_SAMPLES) % BROKER_RESOURCE_HISTORY_SAMPLES;
+            _count--;
+        }
+        int offset = _next * FIELDS;
+        _samples[offset + TIMESTAMP] = stats.statsReceivedMillis;
+        _samples[offset + STORE_USAGE] = stats.storeUsage;
+        _samples[offset + STORE_LIMIT] = stats.storeLimit;
+        _samples[offset + STORE_PERCENT_USAGE] = stats.storePercentUsage;
+        _samples[offset + TEMP_USAGE] = stats.tempUsage;
+        _samples[offset + TEMP_LIMIT] = stats.tempLimit;
+        _samples[offset + TEMP_PERCENT_USAGE] = stats.tempPercentUsage;
+        _samples[offset + MEMORY_USAGE] = stats.memoryUsage;
+        _samples[offset + MEMORY_LIMIT] = stats.memoryLimit;
+        _samples[offset + MEMORY_PERCENT_USAGE] = stats.memoryPercentUsage;
+        _next = (_next + 1) % BROKER_RESOURCE_HISTORY_SAMPLES;
+        _count = Math.min(_count + 1, BROKER_RESOURCE_HISTORY_SAMPLES);
+        // Projections, now that the new sample is in place.
+        _samples[offset + STORE_TIME_TO_LIMIT] = timeToLimit(STORE_USAGE, STORE_LIMIT);
+        _samples[offset + TEMP_TIME_TO_LIMIT] = timeToLimit(TEMP_USAGE, TEMP_LIMIT);
+        return usage(_count - 1);
+    }
+
+    /**
+     * @return a copy of the history, oldest first.
+     */
+    synchronized List<BrokerResourceUsage> history() {
+        List<BrokerResourceUsage> history = new ArrayList<>(_count);
+        for (int i = 0; i < _count; i++) {
+            history.add(usage(i));
+        }
+        return history;
+    }
+
+    private long timeToLimit(int usageField, int limitField) {
+        int latest = _count - 1;
+        long usage = sample(latest, usageField);
+        long limit = sample(latest, limitField);
+        // ?: No limit reported?
+        if (limit <= 0) {
+            // -> No, so we can't tell.
+            return ABSENT;
+        }
+        if (usage >= limit) {
+            return 0;
+        }
+        // :: Least squares slope of usage over time, over the samples within the window.
+        long latestMillis = sample(latest, TIMESTAMP);
+        long windowStartMillis = latestMillis - BROKER_RESOURCE_PROJECTION_WINDOW_MILLIS;
+        int first = latest;
+        while ((first > 0) && (sample(first - 1, TIMESTAMP) >= windowStartMillis)) {
+            first--;
+        }
+        int n = latest - first + 1;
+        // ?: Enough samples, spanning some time?
+        if ((n < 2) || ((latestMillis - sample(first, TIMESTAMP)) < BROKER_RESOURCE_SAMPLE_INTERVAL_MILLIS)) {
+            // -> No, so we can't tell yet.
+            return ABSENT;
+        }
+        // Relative to the latest, to keep the numbers small.
+        double meanX = 0;
+        double meanY = 0;
+        for (int i = first; i <= latest; i++) {
+            meanX += sample(i, TIMESTAMP) - latestMillis;
+            meanY += sample(i, usageField) - usage;
+        }
+        meanX /= n;
+        meanY /= n;
+        double covariance = 0;
+        double variance = 0;
+        for (int i = first; i <= latest; i++) {
+            double dx = (sample(i, TIMESTAMP) - latestMillis) - meanX;
+            covariance += dx * ((sample(i, usageField) - usage) - meanY);
+            variance += dx * dx;
+        }
+        double bytesPerMilli = covariance / variance;
+        // ?: Is the usage growing?
+        if (!(bytesPerMilli > 0)) {
+            // -> No, so it will not hit the limit at the current rate.
+            return MatsBrokerDestination.FORECAST_NEVER;
+        }
+        return (long) Math.ceil((limit - usage) / bytesPerMilli);
+    }
+
+    private BrokerResourceUsage usage(int logicalIndex) {
+        long[] sample = new long[FIELDS];
+        System.arraycopy(_samples, physicalIndex(logicalIndex) * FIELDS, sample, 0, FIELDS);
+        return new BrokerResourceUsageImpl(sample);
+    }
+
+    private long sample(int logicalIndex, int field) {
+        return _samples[physicalIndex(logicalIndex) * FIELDS + field];
+    }
+
+    private int physicalIndex(int logicalIndex) {
+        // Oldest is at _next if full, otherwise at 0.
+        int oldest = _count == BROKER_RESOURCE_HISTORY_SAMPLES ? _next : 0;
+        return (oldest + logicalIndex) % BROKER_RESOURCE_HISTORY_SAMPLES;
+    }
+
+    private static final class BrokerResourceUsageImpl implements BrokerResourceUsage {
+        private final long[] _sample;
+
+        private BrokerResourceUsageImpl(long[] sample) {
+            _sample = sample;
+        }
+
+        @Override
+        public long getTimestampMillis() {
+            return _sample[TIMESTAMP];
+        }
+
+        @Override
+        public long getStoreUsage() {
+            return _sample[STORE_USAGE];
+        }
+
+        @Override
+        public long getStoreLimit() {
+            return _sample[STORE_LIMIT];
+        }
+
+        @Override
+        public int getStorePercentUsage() {
+            return (int) _sample[STORE_PERCENT_USAGE];
+        }
+
+        @Override
+        public long getTempUsage() {
+            return _sample[TEMP_USAGE];
+        }
+
+        @Override
+        public long getTempLimit() {
+            return _sample[TEMP_LIMIT];
+        }
+
+        @Override
+        public int getTempPercentUsage() {
+            return (int) _sample[TEMP_PERCENT_USAGE];
+        }
+
+        @Override
+        public long getMemoryUsage() {
+            return _sample[MEMORY_USAGE];
+        }
+
+        @Override
+        public long getMemoryLimit() {
+            return _sample[MEMORY_LIMIT];
+        }
+
+        @Override
+        public int getMemoryPercentUsage() {
+            return (int) _sample[MEMORY_PERCENT_USAGE];
+        }
+
+        @Override
+        public OptionalLong getStoreTimeToLimitMillis() {
+            return optional(_sample[STORE_TIME_TO_LIMIT]);
+        }
+
+        @Override
+        public OptionalLong getTempTimeToLimitMillis() {
+            return optional(_sample[TEMP_TIME_TO_LIMIT]);
+        }
+
+        private static OptionalLong optional(long value) {
+            return value == ABSENT ? OptionalLong.empty() : OptionalLong.of(value);
+        }
+
+        @Override
+        public String toString() {
+            return "BrokerResourceUsage{store=" + getStoreUsage() + "/" + getStoreLimit()
+                    + ", temp=" + getTempUsage() + "/" + getTempLimit()
+                    + ", memory=" + getMemoryUsage() + "/" + getMemoryLimit() + '}';
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.ListenerDispatchStats;
+
+/**
+ * Invokes a listener on its own thread, via a single-slot mailbox: If an event is offered while the previous is still
+ * waiting to be dispatched, the two are merged using the supplied merger, so that a slow listener only sees the latest
+ * state, and never holds back the thread offering the events (e.g. the thread receiving the statistics replies).
+ *
+ * @param <E>
+ *            the type of event.
+ */
+final class ConflatingListenerDispatcher<E> implements ListenerDispatchStats, Statics {
+    private static final Logger log = LoggerFactory.getLogger(ConflatingListenerDispatcher.class);
+
+    private final Consumer<? super E> _listener;
+    private final BinaryOperator<E> _merger;
+    private final String _threadName;
+
+    private final Object _lock = new Object();
+    // :: Synchronized on _lock
+    private E _pending;
+    private long _pendingSinceNanos;
+    private Thread _thread;
+    private boolean _closed;
+    private long _dispatchedCount;
+    private long _conflatedCount;
+    private long _lastLagNanos;
+    private long _maxLagNanos;
+
+    /**
+     * @param listener
+     *            the listener to invoke.
+     * @param merger
+     *            merges the pending event (first argument) with a newer event (second argument).
+     * @param threadName
+     *            the name of the dispatch thread, which is started upon the first offered event.
+     */
+    ConflatingListenerDispatcher(Consumer<? super E> listener, BinaryOperator<E> merger, String threadName) {
+        _listener = listener;
+        _merger = merger;
+        _threadName = threadName;
+    }
+
+    Consumer<? super E> getListener() {
+        return _listener;
+    }
+
+    /**
+     * Puts the event in the mailbox, merging with any pending event - never blocks on the listener.
+     */
+    void offer(E event) {
+        synchronized (_lock) {
+            if (_closed) {
+                return;
+            }
+            // ?: Is there already an event waiting to be dispatched?
+            if (_pending != null) {
+                // -> Yes, so merge with it - the listener will only see the merged event. Keep the original lag.
+                _pending = _merger.apply(_pending, event);
+                _conflatedCount++;
+            }
+            else {
+                // -> No, so this is the one.
+                _pending = event;
+                _pendingSinceNanos = System.nanoTime();
+            }
+            // ?: Have we started the dispatch thread yet?
+            if (_thread == null) {
+                // -> No, so do it now.
+                _thread = new Thread(this::dispatchRunnable, _threadName);
+                _thread.setDaemon(true);
+                _thread.start();
+            }
+            _lock.notifyAll();
+        }
+    }
+
+    void close() {
+        Thread thread;
+        synchronized (_lock) {
+            _closed = true;
+            _pending = null;
+            thread = _thread;
+            _lock.notifyAll();
+        }
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(TIMEOUT_MILLIS_GRACEFUL_THREAD_SHUTDOWN);
+        }
+        catch (InterruptedException e) {
+            /* ignore */
+        }
+        // .. interrupt if the listener is still stuck.
+        thread.interrupt();
+    }
+
+    private void dispatchRunnable() {
+        while (true) {
+            E event;
+            synchronized (_lock) {
+                while ((_pending == null) && !_closed) {
+                    try {
+                        _lock.wait();
+                    }
+                    catch (InterruptedException e) {
+                        log.info("Got interrupted while waiting for events, exiting.");
+                        return;
+                    }
+                }
+                if (_closed) {
+                    return;
+                }
+                event = _pending;
+                _pending = null;
+                _lastLagNanos = System.nanoTime() - _pendingSinceNanos;
+                _maxLagNanos = Math.max(_maxLagNanos, _lastLagNanos);
+                _dispatchedCount++;
+            }
+            try {
+                _listener.accept(event);
+            }
+            catch (Throwable t) {
+                log.error("The listener of class [" + _listener.getClass().getName() + "] threw when being invoked."
+                        + " Ignoring.", t);
+            }
+        }
+    }
+
+    // ===== ListenerDispatchStats
+
+    @Override
+    public String getListenerClassName() {
+        return _listener.getClass().getName();
+    }
+
+    @Override
+    public long getDispatchedCount() {
+        synchronized (_lock) {
+            return _dispatchedCount;
+        }
+    }
+
+    @Override
+    public long getConflatedCount() {
+        synchronized (_lock) {
+            return _conflatedCount;
+        }
+    }
+
+    @Override
+    public double getCurrentLagMillis() {
+        synchronized (_lock) {
+            return _pending != null ? (System.nanoTime() - _pendingSinceNanos) / 1_000_000d : 0;
+        }
+    }
+
+    @Override
+    public double getLastLagMillis() {
+        synchronized (_lock) {
+            return _lastLagNanos / 1_000_000d;
+        }
+    }
+
+    @Override
+    public double getMaxLagMillis() {
+        synchronized (_lock) {
+            return _maxLagNanos / 1_000_000d;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ConflatingListenerDispatcher{listener=" + getListenerClassName()
+                + ", dispatched=" + getDispatchedCount() + ", conflated=" + getConflatedCount()
+                + ", currentLagMillis=" + getCurrentLagMillis() + ", lastLagMillis=" + getLastLagMillis()
+                + ", maxLagMillis=" + getMaxLagMillis() + "}";
+    }
+}
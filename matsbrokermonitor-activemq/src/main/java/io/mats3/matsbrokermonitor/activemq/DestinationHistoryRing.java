@@ -0,0 +1,226 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.util.OptionalDouble;
+
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.DestinationStatsDto;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.DestinationHistory;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.ConsumerStatus;
+
+/**
+ * Fixed-size ring buffer of the last {@link #DESTINATION_HISTORY_SAMPLES} samples of a destination's statistics, kept
+ * in a single primitive array. A sample is recorded when the statistics change - when they are unchanged, the counters
+ * are too, so the series is a step function where each sample's values hold until the next sample, and the current
+ * DTO (whose timestamp is updated in place) is the latest point.
+ * <p>
+ * The rates are calculated over {@link #DESTINATION_RATE_WINDOW_MILLIS}, from the value at the start of the window to
+ * the current - so a destination whose counters stop moving has its rates decay towards zero as time passes.
+ * <p>
+ * The history also drives the consumer status, see {@link #getConsumerStatus(DestinationStatsDto)}.
+ * <p>
+ * Thread safe: Recorded from the querier's listener dispatch thread, read from any thread.
+ */
+final class DestinationHistoryRing implements Statics {
+    // :: The fields of each sample, interleaved in the array.
+    private static final int TIMESTAMP = 0;
+    private static final int QUEUED = 1;
+    private static final int ENQUEUE_COUNT = 2;
+    private static final int DEQUEUE_COUNT = 3;
+    private static final int EXPIRED_COUNT = 4;
+    private static final int CONSUMER_COUNT = 5;
+    private static final int AVERAGE_ENQUEUE_TIME = 6; // double, as raw long bits
+    private static final int FIELDS = 7;
+
+    // :: Synchronized on this
+    private final long[] _samples = new long[DESTINATION_HISTORY_SAMPLES * FIELDS];
+    private int _next; // index of the sample to write next
+    private int _count;
+
+    synchronized void record(DestinationStatsDto stats) {
+        write(_samples, _next * FIELDS, stats);
+        _next = (_next + 1) % DESTINATION_HISTORY_SAMPLES;
+        _count = Math.min(_count + 1, DESTINATION_HISTORY_SAMPLES);
+    }
+
+    /**
+     * @param current
+     *            the current stats of the destination, being the latest point.
+     * @return a copy of the series, oldest first, ending with the current stats.
+     */
+    synchronized DestinationHistory snapshot(DestinationStatsDto current) {
+        // ?: Is the current stats newer than the latest sample (it is, unless just recorded)?
+        boolean includeCurrent = (_count == 0) || (current.statsReceivedMillis > sample(_count - 1, TIMESTAMP));
+        int size = _count + (includeCurrent ? 1 : 0);
+        long[] samples = new long[size * FIELDS];
+        for (int i = 0; i < _count; i++) {
+            System.arraycopy(_samples, physicalIndex(i) * FIELDS, samples, i * FIELDS, FIELDS);
+        }
+        if (includeCurrent) {
+            write(samples, _count * FIELDS, current);
+        }
+        return new DestinationHistoryImpl(samples, size);
+    }
+
+    OptionalDouble getEnqueueRatePerSecond(DestinationStatsDto current) {
+        return optional(enqueueRatePerSecond(current));
+    }
+
+    OptionalDouble getDequeueRatePerSecond(DestinationStatsDto current) {
+        return optional(dequeueRatePerSecond(current));
+    }
+
+    OptionalDouble getQueueDepthSlopePerSecond(DestinationStatsDto current) {
+        return optional(queueDepthSlopePerSecond(current));
+    }
+
+    // :: The primitive variants, NaN if not present: The monitor stores them straight into the snapshot's columns.
+
+    double enqueueRatePerSecond(DestinationStatsDto current) {
+        return ratePerSecond(current, ENQUEUE_COUNT, current.enqueueCount, true);
+    }
+
+    double dequeueRatePerSecond(DestinationStatsDto current) {
+        return ratePerSecond(current, DEQUEUE_COUNT, current.dequeueCount, true);
+    }
+
+    double queueDepthSlopePerSecond(DestinationStatsDto current) {
+        return ratePerSecond(current, QUEUED, current.size, false);
+    }
+
+    private static OptionalDouble optional(double ratePerSecond) {
+        return Double.isNaN(ratePerSecond) ? OptionalDouble.empty() : OptionalDouble.of(ratePerSecond);
+    }
+
+    private synchronized double ratePerSecond(DestinationStatsDto current, int field, long currentValue,
+            boolean isCounter) {
+        if (_count == 0) {
+            return Double.NaN;
+        }
+        long nowMillis = current.statsReceivedMillis;
+        long windowStartMillis = nowMillis - DESTINATION_RATE_WINDOW_MILLIS;
+        // :: Find the value at the start of the window: The newest sample at or before it - or the oldest we have.
+        int baseline = 0;
+        for (int i = _count - 1; i >= 0; i--) {
+            if (sample(i, TIMESTAMP) <= windowStartMillis) {
+                baseline = i;
+                break;
+            }
+        }
+        long baselineMillis = Math.max(sample(baseline, TIMESTAMP), windowStartMillis);
+        long baselineValue = sample(baseline, field);
+        long millis = nowMillis - baselineMillis;
+        // ?: No time span, or a counter that went backwards (e.g. broker restarted)?
+        if ((millis <= 0) || (isCounter && (currentValue < baselineValue))) {
+            // -> Yes, so we can't tell.
+            return Double.NaN;
+        }
+        return (currentValue - baselineValue) * 1000d / millis;
+    }
+
+    /**
+     * {@link ConsumerStatus#STUCK} if the destination has had messages and consumers, while the dequeue count has been
+     * flat, for at least {@link #CONSUMER_STUCK_FLAT_MILLIS}. {@link ConsumerStatus#SLOW} if it has messages and
+     * consumers, and the average enqueue time has risen over the last {@link #CONSUMER_SLOW_RISING_SAMPLES} samples.
+     */
+    synchronized ConsumerStatus getConsumerStatus(DestinationStatsDto current) {
+        if ((_count == 0) || (current.size == 0) || (current.consumerCount == 0)) {
+            return ConsumerStatus.OK;
+        }
+        // :: Stuck? Find when the current run of messages, consumers and flat dequeue count started.
+        long flatSinceMillis = -1;
+        for (int i = _count - 1; i >= 0; i--) {
+            if ((sample(i, DEQUEUE_COUNT) != current.dequeueCount) || (sample(i, QUEUED) == 0)
+                    || (sample(i, CONSUMER_COUNT) == 0)) {
+                break;
+            }
+            flatSinceMillis = sample(i, TIMESTAMP);
+        }
+        if ((flatSinceMillis != -1)
+                && ((current.statsReceivedMillis - flatSinceMillis) >= CONSUMER_STUCK_FLAT_MILLIS)) {
+            return ConsumerStatus.STUCK;
+        }
+        // :: Slow? Is the average enqueue time rising over the last samples?
+        if (_count < CONSUMER_SLOW_RISING_SAMPLES) {
+            return ConsumerStatus.OK;
+        }
+        for (int i = _count - CONSUMER_SLOW_RISING_SAMPLES + 1; i < _count; i++) {
+            double previous = Double.longBitsToDouble(sample(i - 1, AVERAGE_ENQUEUE_TIME));
+            double averageEnqueueTime = Double.longBitsToDouble(sample(i, AVERAGE_ENQUEUE_TIME));
+            if (!(averageEnqueueTime > previous)) {
+                return ConsumerStatus.OK;
+            }
+        }
+        return ConsumerStatus.SLOW;
+    }
+
+    private static void write(long[] samples, int offset, DestinationStatsDto stats) {
+        samples[offset + TIMESTAMP] = stats.statsReceivedMillis;
+        samples[offset + QUEUED] = stats.size;
+        samples[offset + ENQUEUE_COUNT] = stats.enqueueCount;
+        samples[offset + DEQUEUE_COUNT] = stats.dequeueCount;
+        samples[offset + EXPIRED_COUNT] = stats.expiredCount;
+        samples[offset + CONSUMER_COUNT] = stats.consumerCount;
+        samples[offset + AVERAGE_ENQUEUE_TIME] = Double.doubleToRawLongBits(stats.averageEnqueueTime);
+    }
+
+    private long sample(int logicalIndex, int field) {
+        return _samples[physicalIndex(logicalIndex) * FIELDS + field];
+    }
+
+    private int physicalIndex(int logicalIndex) {
+        // Oldest is at _next if full, otherwise at 0.
+        int oldest = _count == DESTINATION_HISTORY_SAMPLES ? _next : 0;
+        return (oldest + logicalIndex) % DESTINATION_HISTORY_SAMPLES;
+    }
+
+    private static final class DestinationHistoryImpl implements DestinationHistory {
+        private final long[] _samples;
+        private final int _size;
+
+        private DestinationHistoryImpl(long[] samples, int size) {
+            _samples = samples;
+            _size = size;
+        }
+
+        @Override
+        public int size() {
+            return _size;
+        }
+
+        @Override
+        public long getTimestampMillis(int index) {
+            return get(index, TIMESTAMP);
+        }
+
+        @Override
+        public long getNumberOfQueuedMessages(int index) {
+            return get(index, QUEUED);
+        }
+
+        @Override
+        public long getEnqueueCount(int index) {
+            return get(index, ENQUEUE_COUNT);
+        }
+
+        @Override
+        public long getDequeueCount(int index) {
+            return get(index, DEQUEUE_COUNT);
+        }
+
+        @Override
+        public long getExpiredCount(int index) {
+            return get(index, EXPIRED_COUNT);
+        }
+
+        private long get(int index, int field) {
+            if ((index < 0) || (index >= _size)) {
+                throw new IndexOutOfBoundsException("index [" + index + "] is not within [0, " + _size + ").");
+            }
+            return _samples[index * FIELDS + field];
+        }
+
+        @Override
+        public String toString() {
+            return "DestinationHistory{samples=" + _size + '}';
+        }
+    }
+}
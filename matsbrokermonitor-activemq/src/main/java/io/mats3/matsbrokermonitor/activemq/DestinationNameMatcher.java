@@ -0,0 +1,133 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Matches fully qualified destination names (e.g. <code>"queue://mats.Service.method"</code>) against include and
+ * exclude patterns, where <code>'*'</code> matches any sequence of characters (also dots). A name matches if it matches
+ * any of the include patterns (or there are none), and none of the exclude patterns.
+ * <p>
+ * The patterns are compiled once: Patterns without <code>'*'</code> are looked up in a set, patterns with a single
+ * trailing <code>'*'</code> are prefix checks, and only the rest are combined into one regex - so the typical filters
+ * cost a hash lookup and a few <code>startsWith</code>.
+ * <p>
+ * Thread safe (immutable).
+ */
+final class DestinationNameMatcher {
+    private static final DestinationNameMatcher MATCH_ALL = new DestinationNameMatcher(null, null);
+
+    private final CompiledPatterns _includes; // null if none, i.e. all are included.
+    private final CompiledPatterns _excludes; // null if none.
+
+    private DestinationNameMatcher(CompiledPatterns includes, CompiledPatterns excludes) {
+        _includes = includes;
+        _excludes = excludes;
+    }
+
+    /**
+     * @param includePatterns
+     *            the patterns of which a name must match one - <code>null</code> or empty to include all.
+     * @param excludePatterns
+     *            the patterns of which a name must match none - <code>null</code> or empty to exclude none.
+     */
+    static DestinationNameMatcher compile(Collection<String> includePatterns, Collection<String> excludePatterns) {
+        CompiledPatterns includes = CompiledPatterns.compile(includePatterns);
+        CompiledPatterns excludes = CompiledPatterns.compile(excludePatterns);
+        return (includes == null) && (excludes == null)
+                ? MATCH_ALL
+                : new DestinationNameMatcher(includes, excludes);
+    }
+
+    static DestinationNameMatcher matchAll() {
+        return MATCH_ALL;
+    }
+
+    boolean isMatchAll() {
+        return this == MATCH_ALL;
+    }
+
+    boolean matches(String fqDestinationName) {
+        return ((_includes == null) || _includes.matchesAny(fqDestinationName))
+                && ((_excludes == null) || !_excludes.matchesAny(fqDestinationName));
+    }
+
+    @Override
+    public String toString() {
+        return "DestinationNameMatcher{includes=" + _includes + ", excludes=" + _excludes + "}";
+    }
+
+    private static final class CompiledPatterns {
+        private final Set<String> _exact;
+        private final String[] _prefixes;
+        private final Pattern _regex; // null if none.
+        private final String _source;
+
+        private CompiledPatterns(Set<String> exact, String[] prefixes, Pattern regex, String source) {
+            _exact = exact;
+            _prefixes = prefixes;
+            _regex = regex;
+            _source = source;
+        }
+
+        static CompiledPatterns compile(Collection<String> patterns) {
+            if ((patterns == null) || patterns.isEmpty()) {
+                return null;
+            }
+            Set<String> exact = new HashSet<>();
+            List<String> prefixes = new ArrayList<>();
+            StringBuilder regex = new StringBuilder();
+            for (String pattern : patterns) {
+                int firstStar = pattern.indexOf('*');
+                // ?: No wildcard?
+                if (firstStar == -1) {
+                    // -> Exact match.
+                    exact.add(pattern);
+                }
+                // ?: Single wildcard at the end?
+                else if (firstStar == pattern.length() - 1) {
+                    // -> Prefix match.
+                    prefixes.add(pattern.substring(0, firstStar));
+                }
+                else {
+                    // -> General: Quote the parts between the wildcards.
+                    if (regex.length() > 0) {
+                        regex.append('|');
+                    }
+                    String[] parts = pattern.split("\\*", -1);
+                    for (int i = 0; i < parts.length; i++) {
+                        if (i > 0) {
+                            regex.append(".*");
+                        }
+                        if (!parts[i].isEmpty()) {
+                            regex.append(Pattern.quote(parts[i]));
+                        }
+                    }
+                }
+            }
+            return new CompiledPatterns(exact, prefixes.toArray(new String[0]),
+                    regex.length() > 0 ? Pattern.compile(regex.toString()) : null, patterns.toString());
+        }
+
+        boolean matchesAny(String fqDestinationName) {
+            if (_exact.contains(fqDestinationName)) {
+                return true;
+            }
+            for (String prefix : _prefixes) {
+                if (fqDestinationName.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return (_regex != null) && _regex.matcher(fqDestinationName).matches();
+        }
+
+        @Override
+        public String toString() {
+            return _source;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.DestinationStatsDto;
+
+/**
+ * Keeps the set of "hot" destinations, scored from the last few full sets of statistics: DLQs having messages where
+ * the number changed since the previous sweep, and queues whose head message age is rising and has passed
+ * {@link #HOT_DESTINATION_MIN_HEAD_MESSAGE_AGE_MILLIS}. A destination stays hot until it has not qualified for
+ * {@link #HOT_DESTINATION_COOL_DOWN_SWEEPS} sweeps in a row. The hot destinations are polled using targeted updates at
+ * a much higher rate than the sweeps.
+ * <p>
+ * If more than {@link #HOT_DESTINATIONS_MAX} are hot, the highest scored are kept: DLQs before queues, the DLQs by how
+ * much they grew, and the queues by their head message age - as of the last sweep they qualified.
+ * <p>
+ * Evaluated from the receive thread, while the hot set is read from the send thread.
+ */
+final class HotDestinationTracker implements Statics {
+    // :: Only used from the receive thread
+    private Map<String, Long> _previousDlqSizes = new HashMap<>();
+    private Map<String, Long> _previousHeadMessageAgeMillis = new HashMap<>();
+    private final Map<String, HotDestination> _hotDestinations = new HashMap<>();
+
+    private volatile Collection<String> _hotFqDestinationNames = Collections.emptyList();
+
+    /**
+     * @return the current hot set, immutable - empty if none.
+     */
+    Collection<String> getHotFqDestinationNames() {
+        return _hotFqDestinationNames;
+    }
+
+    /**
+     * Evaluates a full set of destination statistics.
+     *
+     * @param sweepFromThisNode
+     *            whether this node did the sweep - if not, the node that did also polls the hot destinations, and this
+     *            node's hot set is cleared.
+     * @return <code>true</code> if the hot set went from empty to non-empty.
+     */
+    boolean evaluate(Collection<DestinationStatsDto> destinationStatsDtos, boolean sweepFromThisNode) {
+        boolean wasEmpty = _hotFqDestinationNames.isEmpty();
+        Map<String, Long> dlqSizes = new HashMap<>();
+        Map<String, Long> headMessageAgeMillis = new HashMap<>();
+        Map<String, HotDestination> qualified = new HashMap<>();
+        for (DestinationStatsDto dto : destinationStatsDtos) {
+            if (!dto.isQueue()) {
+                continue;
+            }
+            String fqDestinationName = dto.destinationName;
+            if (dto.isDlq()) {
+                if (dto.size == 0) {
+                    continue;
+                }
+                dlqSizes.put(fqDestinationName, dto.size);
+                Long previousSize = _previousDlqSizes.get(fqDestinationName);
+                // ?: Is this a DLQ with messages, which has changed (or is new)?
+                if ((previousSize == null) || (previousSize != dto.size)) {
+                    // -> Yes, so it is hot, scored by how much it grew.
+                    qualified.put(fqDestinationName, new HotDestination(fqDestinationName, true,
+                            dto.size - (previousSize == null ? 0 : previousSize)));
+                }
+                continue;
+            }
+            if (dto.firstMessageTimestampMillis == 0) {
+                continue;
+            }
+            long ageMillis = dto.brokerTimeMillis - dto.firstMessageTimestampMillis;
+            headMessageAgeMillis.put(fqDestinationName, ageMillis);
+            Long previousAgeMillis = _previousHeadMessageAgeMillis.get(fqDestinationName);
+            // ?: Is the head message age rising, and old enough to be interesting?
+            if ((previousAgeMillis != null) && (ageMillis > previousAgeMillis)
+                    && (ageMillis >= HOT_DESTINATION_MIN_HEAD_MESSAGE_AGE_MILLIS)) {
+                // -> Yes, so it is hot, scored by the age.
+                qualified.put(fqDestinationName, new HotDestination(fqDestinationName, false, ageMillis));
+            }
+        }
+        _previousDlqSizes = dlqSizes;
+        _previousHeadMessageAgeMillis = headMessageAgeMillis;
+
+        // :: Cool down the hot destinations that did not qualify this time, then add those that did.
+        Iterator<HotDestination> it = _hotDestinations.values().iterator();
+        while (it.hasNext()) {
+            HotDestination hotDestination = it.next();
+            if (qualified.containsKey(hotDestination.fqDestinationName)) {
+                continue;
+            }
+            // E-> Did not qualify this time (or is gone), so count up, and remove if calmed down.
+            hotDestination.sweepsSinceQualified++;
+            if (hotDestination.sweepsSinceQualified >= HOT_DESTINATION_COOL_DOWN_SWEEPS) {
+                it.remove();
+            }
+        }
+        _hotDestinations.putAll(qualified);
+
+        // ?: Did another node do the sweep?
+        if (!sweepFromThisNode) {
+            // -> Yes, so it polls the hot destinations, not us.
+            _hotFqDestinationNames = Collections.emptyList();
+            return false;
+        }
+        // :: Publish the hot set, capped to the highest scored.
+        List<HotDestination> ranked = new ArrayList<>(_hotDestinations.values());
+        ranked.sort(HotDestination.HIGHEST_SCORE_FIRST);
+        ArrayList<String> hot = new ArrayList<>(Math.min(ranked.size(), HOT_DESTINATIONS_MAX));
+        for (HotDestination hotDestination : ranked) {
+            if (hot.size() == HOT_DESTINATIONS_MAX) {
+                break;
+            }
+            hot.add(hotDestination.fqDestinationName);
+        }
+        _hotFqDestinationNames = Collections.unmodifiableList(hot);
+        return wasEmpty && !hot.isEmpty();
+    }
+
+    private static final class HotDestination {
+        // DLQs before queues, then the highest score - and then by name, to be deterministic.
+        static final Comparator<HotDestination> HIGHEST_SCORE_FIRST = Comparator
+                .comparing((HotDestination hotDestination) -> !hotDestination.dlq)
+                .thenComparing(Comparator.comparingLong((HotDestination hotDestination) -> hotDestination.score)
+                        .reversed())
+                .thenComparing(hotDestination -> hotDestination.fqDestinationName);
+
+        final String fqDestinationName;
+        final boolean dlq;
+        // DLQ: The growth since the previous sweep. Queue: The head message age.
+        final long score;
+        int sweepsSinceQualified;
+
+        HotDestination(String fqDestinationName, boolean dlq, long score) {
+            this.fqDestinationName = fqDestinationName;
+            this.dlq = dlq;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.DestinationStatsDto;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerInfo;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerSnapshot;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination;
+
+/**
+ * Writes and reads a {@link BrokerSnapshot} to/from a local file in a compact binary format, so that a restarted
+ * MatsBrokerMonitor can show the last known state until the first live update arrives. Only the numbers are stored
+ * per destination - the classification is redone from the destination name when read.
+ * <p>
+ * The file is written to a temporary file in the same directory, and then moved in place, so that a reader never
+ * sees a half-written file.
+ */
+final class SnapshotFileCodec {
+    private static final int MAGIC = 0x4D42_534E; // "MBSN"
+    private static final int VERSION = 1;
+    private static final long ABSENT = -1;
+    // The least number of bytes of a destination: The name's length, and the 5 numbers.
+    private static final int MIN_DESTINATION_BYTES = 4 + 5 * 8;
+
+    private SnapshotFileCodec() {
+        /* utility class */
+    }
+
+    /**
+     * The contents of a snapshot file.
+     */
+    static final class StoredSnapshot {
+        long lastUpdateLocalMillis;
+        long lastUpdateBrokerMillis;
+        long updateIntervalMillis;
+        String updateIntervalReason;
+        String brokerType; // null if no BrokerInfo
+        String brokerName;
+        String brokerJson; // nullable
+        final List<DestinationStatsDto> destinationStatsDtos = new ArrayList<>();
+    }
+
+    static void write(BrokerSnapshot snapshot, Path file) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream fileOut = Files.newOutputStream(tempFile);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshot.getLastUpdateLocalMillis());
+            out.writeLong(snapshot.getLastUpdateBrokerMillis().orElse(0));
+            out.writeLong(snapshot.getUpdateIntervalMillis());
+            writeString(out, snapshot.getUpdateIntervalReason());
+            Optional<BrokerInfo> brokerInfo = snapshot.getBrokerInfo();
+            out.writeBoolean(brokerInfo.isPresent());
+            if (brokerInfo.isPresent()) {
+                writeString(out, brokerInfo.get().getBrokerType());
+                writeString(out, brokerInfo.get().getBrokerName());
+                writeString(out, brokerInfo.get().getBrokerJson().orElse(null));
+            }
+            out.writeInt(snapshot.getMatsDestinations().size());
+            for (MatsBrokerDestination destination : snapshot.getMatsDestinations().values()) {
+                writeString(out, destination.getFqDestinationName());
+                out.writeLong(destination.getNumberOfQueuedMessages());
+                out.writeLong(destination.getNumberOfInflightMessages().orElse(ABSENT));
+                out.writeLong(destination.getHeadMessageAgeMillis().orElse(ABSENT));
+                out.writeLong(destination.getLastUpdateLocalMillis());
+                out.writeLong(destination.getLastUpdateBrokerMillis().orElse(0));
+            }
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the file fully into memory first, so that the lengths and counts in it can be checked against the number
+     * of bytes remaining - a corrupt file shall give an {@link IOException}, not a huge allocation.
+     */
+    static StoredSnapshot read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("The file [" + file + "] is not a MatsBrokerMonitor snapshot file.");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("The snapshot file [" + file + "] has version [" + version + "], while we"
+                        + " only understand [" + VERSION + "].");
+            }
+            StoredSnapshot stored = new StoredSnapshot();
+            stored.lastUpdateLocalMillis = in.readLong();
+            stored.lastUpdateBrokerMillis = in.readLong();
+            stored.updateIntervalMillis = in.readLong();
+            stored.updateIntervalReason = readString(in);
+            if (in.readBoolean()) {
+                stored.brokerType = readString(in);
+                stored.brokerName = readString(in);
+                stored.brokerJson = readString(in);
+            }
+            int count = in.readInt();
+            // ?: Is the count impossible wrt. the bytes remaining?
+            if ((count < 0) || (count > in.available() / MIN_DESTINATION_BYTES)) {
+                // -> Yes, so the file is corrupt.
+                throw new IOException("The snapshot file [" + file + "] is corrupt: Destination count [" + count
+                        + "], while only [" + in.available() + "] bytes remaining.");
+            }
+            for (int i = 0; i < count; i++) {
+                DestinationStatsDto dto = new DestinationStatsDto();
+                dto.destinationName = readString(in);
+                dto.size = in.readLong();
+                long inflightCount = in.readLong();
+                dto.inflightCount = inflightCount == ABSENT ? 0 : inflightCount;
+                long headMessageAgeMillis = in.readLong();
+                dto.statsReceivedMillis = in.readLong();
+                dto.brokerTimeMillis = in.readLong();
+                // Recreate the timestamp of the head message from the age, wrt. the time the age was calculated.
+                if (headMessageAgeMillis != ABSENT) {
+                    dto.firstMessageTimestampMillis = (dto.brokerTimeMillis != 0
+                            ? dto.brokerTimeMillis
+                            : dto.statsReceivedMillis) - headMessageAgeMillis;
+                }
+                stored.destinationStatsDtos.add(dto);
+            }
+            // ?: Anything after the last destination?
+            if (in.available() != 0) {
+                // -> Yes, so the file is not what we wrote.
+                throw new IOException("The snapshot file [" + file + "] is corrupt: [" + in.available()
+                        + "] bytes after the last destination.");
+            }
+            return stored;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        // ?: Is the length impossible wrt. the bytes remaining?
+        if ((length < 0) || (length > in.available())) {
+            // -> Yes, so the file is corrupt.
+            throw new IOException("Corrupt snapshot file: String length [" + length + "], while only ["
+                    + in.available() + "] bytes remaining.");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
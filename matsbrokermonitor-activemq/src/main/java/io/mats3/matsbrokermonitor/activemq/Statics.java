@@ -13,20 +13,49 @@ public interface Statics {
     String ACTIVE_MQ_GLOBAL_DLQ_NAME = "ActiveMQ.DLQ";
     String DLQ_PREFIX = "DLQ";
     int SCAVENGE_OLD_STATS_SECONDS = 10 * 60;
-    int MAX_NUMBER_OF_OUTSTANDING_CORRELATION_IDS = 150;
+    // The width of the buckets of the index of when stats were last received, used for scavenging.
+    int STATS_TIME_INDEX_BUCKET_MILLIS = 10 * 1000;
 
     // :: For ActiveMqBrokerStatsQuerierImpl:
 
     int DEFAULT_UPDATE_INTERVAL_MILLIS = 150_000; // 2.5 minutes
     int CHILL_MILLIS_BEFORE_FIRST_STATS_REQUEST = 1500;
     int CHILL_MILLIS_WAIT_AFTER_THROWABLE_IN_RECEIVE_LOOPS = 30 * 1000;
+    // Replies without correlationId (from older versions) are ended by this timeout after the last reply.
     int TIMEOUT_MILLIS_FOR_LAST_MESSAGE_IN_BATCH_FOR_DESTINATION_STATS = 250;
+    // A batch of advisories is ended after this many messages, or this long, even if more keep coming.
+    int ADVISORY_BATCH_MAX_MESSAGES = 1000;
+    int ADVISORY_BATCH_MAX_MILLIS = 2 * 1000;
+    // Last resort: A batch of replies not getting its terminator is ended this long after its last reply.
+    int TIMEOUT_MILLIS_FALLBACK_END_OF_BATCH = 5 * 1000;
     int TIMEOUT_MILLIS_GRACEFUL_THREAD_SHUTDOWN = 2500;
+    // Leader election: Heartbeat interval, and how long a node considers itself leader after last received heartbeat.
+    int LEADER_ELECTION_HEARTBEAT_INTERVAL_MILLIS = 5 * 1000;
+    int LEADER_ELECTION_LEASE_MILLIS = 3 * LEADER_ELECTION_HEARTBEAT_INTERVAL_MILLIS;
+    // A forced update not answered within this time is ditched, and does no longer hold back the next forced update.
+    int TIMEOUT_MILLIS_FOR_IN_FLIGHT_FORCED_UPDATE = 30 * 1000;
+    // Hot destination polling: Queues must have a head message at least this old, to be hot due to rising head age.
+    int HOT_DESTINATION_MIN_HEAD_MESSAGE_AGE_MILLIS = 30 * 1000;
+    // .. a hot destination is no longer hot when it has not qualified for this many sweeps in a row.
+    int HOT_DESTINATION_COOL_DOWN_SWEEPS = 3;
+    // .. and we poll at most this many destinations.
+    int HOT_DESTINATIONS_MAX = 100;
 
     // :: For ActiveMqMatsBrokerMonitor:
 
     // Time between automatic full updates from ActiveMqBrokerStatsQuerier
     long FULL_UPDATE_INTERVAL = 20 * 60 * 1000; // 20 minutes
+    // The number of samples kept per destination for the history, and the window for the derived rates.
+    int DESTINATION_HISTORY_SAMPLES = 16;
+    long DESTINATION_RATE_WINDOW_MILLIS = 5 * 60 * 1000; // 5 minutes
+    // A destination with messages and consumers, but flat dequeue count for this long, has stuck consumers.
+    long CONSUMER_STUCK_FLAT_MILLIS = 2 * 60 * 1000; // 2 minutes
+    // .. and one whose average enqueue time has risen over this many samples in a row, has slow consumers.
+    int CONSUMER_SLOW_RISING_SAMPLES = 3;
+    // The broker resource history: Number of samples, min time between samples, and the window for the projections.
+    int BROKER_RESOURCE_HISTORY_SAMPLES = 120;
+    long BROKER_RESOURCE_SAMPLE_INTERVAL_MILLIS = 30 * 1000; // 30 seconds
+    long BROKER_RESOURCE_PROJECTION_WINDOW_MILLIS = 30 * 60 * 1000; // 30 minutes
 
     String QUERY_REQUEST_BROKER = "ActiveMQ.Statistics.Broker";
     /**
@@ -40,6 +69,34 @@ public interface Statics {
 
     String QUERY_REPLY_STATISTICS_TOPIC = "matsbrokermonitor.MatsBrokerMonitor.ActiveMQ.Statistics";
 
+    /**
+     * Topic for the compressed statistics snapshots, when using snapshot distribution: The node that requested the
+     * statistics publishes what it got to the other nodes. (The replies then go to a node-specific topic,
+     * {@link #QUERY_REPLY_STATISTICS_TOPIC} + "." + nodeId.)
+     */
+    String STATISTICS_SNAPSHOT_TOPIC = "matsbrokermonitor.MatsBrokerMonitor.ActiveMQ.Snapshot";
+
+    /**
+     * Lock queue for leader election: All nodes send heartbeats to it, and consume it using an ActiveMQ exclusive
+     * consumer - the broker only dispatches to one of them, which thus is the leader.
+     */
+    String LEADER_ELECTION_LOCK_QUEUE = "matsbrokermonitor.MatsBrokerMonitor.ActiveMQ.LeaderElection";
+    String LEADER_ELECTION_LOCK_QUEUE_CONSUMER_OPTIONS = "?consumer.exclusive=true";
+
+    /**
+     * ActiveMQ Advisory topics for destinations being created and deleted. Note that advisories for the existing
+     * destinations are sent to a new subscriber on these topics, so that one gets the full picture upon subscribing.
+     */
+    String ADVISORY_TOPIC_QUEUE = "ActiveMQ.Advisory.Queue";
+    String ADVISORY_TOPIC_TOPIC = "ActiveMQ.Advisory.Topic";
+    /**
+     * ActiveMQ Advisory topics for messages being DLQed: Postfixed with "{Queue|Topic}.{destinationName}", where the
+     * destination is the one the message was DLQed <i>from</i>.
+     */
+    String ADVISORY_TOPIC_MESSAGE_DLQD_PREFIX = "ActiveMQ.Advisory.MessageDLQd.";
+    // NOTICE: Spelling error is in ActiveMQ's AdvisorySupport.MSG_PROPERTY_MESSAGE_ID.
+    String ADVISORY_PROPERTY_ORIGINAL_MESSAGE_ID = "orignalMessageId";
+
     /**
      * Divide out nanos to ms with 3 decimals.
      */
@@ -0,0 +1,247 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.BrokerStatsDto;
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.CommonStatsDto;
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.DestinationStatsDto;
+
+/**
+ * Compact binary, GZIP-compressed, encoding of a set of statistics: The {@link BrokerStatsDto} and the
+ * {@link DestinationStatsDto}s, with some information about the update they resulted from. Used to distribute the
+ * statistics gathered by one node to the other nodes as a single message, instead of each node consuming all the
+ * statistics replies from the broker.
+ * <p>
+ * The format is private to this implementation, but versioned, so that nodes running different versions can reject
+ * snapshots they do not understand.
+ */
+final class StatsSnapshotCodec {
+    private static final int MAGIC = 0x4D424D53; // "MBMS"
+    private static final int VERSION = 1;
+
+    // DEFLATE cannot compress better than about 1032:1, so the decoded snapshot is at most this times the encoded.
+    private static final long MAX_DEFLATE_RATIO = 1032;
+    // The least an encoded correlationId takes: writeUTF's length.
+    private static final int MIN_CORRELATION_ID_BYTES = 2;
+    // The least an encoded destination takes: Empty name, and both nullable strings null.
+    private static final int MIN_DESTINATION_BYTES = 2 + 8 + 8 + 1 + 1 + 8 + 8 * 8 + 3 * 8 + 4 * 8 + 4;
+
+    private StatsSnapshotCodec() {
+        /* static methods only */
+    }
+
+    /**
+     * A decoded (or to-be-encoded) snapshot of statistics.
+     */
+    static class StatsSnapshot {
+        final String originatingNodeId;
+        final boolean fullUpdate;
+        final boolean partialUpdate;
+        final List<String> correlationIds;
+        final BrokerStatsDto brokerStatsDto; // nullable
+        final Collection<DestinationStatsDto> destinationStatsDtos;
+
+        StatsSnapshot(String originatingNodeId, boolean fullUpdate, boolean partialUpdate,
+                List<String> correlationIds, BrokerStatsDto brokerStatsDto,
+                Collection<DestinationStatsDto> destinationStatsDtos) {
+            this.originatingNodeId = originatingNodeId;
+            this.fullUpdate = fullUpdate;
+            this.partialUpdate = partialUpdate;
+            this.correlationIds = correlationIds;
+            this.brokerStatsDto = brokerStatsDto;
+            this.destinationStatsDtos = destinationStatsDtos;
+        }
+    }
+
+    static byte[] encode(StatsSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeNullableString(out, snapshot.originatingNodeId);
+            out.writeBoolean(snapshot.fullUpdate);
+            out.writeBoolean(snapshot.partialUpdate);
+            out.writeInt(snapshot.correlationIds.size());
+            for (String correlationId : snapshot.correlationIds) {
+                out.writeUTF(correlationId);
+            }
+            // :: Broker stats
+            out.writeBoolean(snapshot.brokerStatsDto != null);
+            if (snapshot.brokerStatsDto != null) {
+                writeBrokerStats(out, snapshot.brokerStatsDto);
+            }
+            // :: Destination stats
+            out.writeInt(snapshot.destinationStatsDtos.size());
+            for (DestinationStatsDto dto : snapshot.destinationStatsDtos) {
+                writeDestinationStats(out, dto);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    static StatsSnapshot decode(byte[] encoded) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(encoded)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a MatsBrokerMonitor statistics snapshot: Wrong magic.");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unknown version [" + version + "] of statistics snapshot, this node"
+                        + " understands version [" + VERSION + "].");
+            }
+            String originatingNodeId = readNullableString(in);
+            boolean fullUpdate = in.readBoolean();
+            boolean partialUpdate = in.readBoolean();
+            int numCorrelationIds = readCount(in, "CorrelationId", MIN_CORRELATION_ID_BYTES, encoded.length);
+            List<String> correlationIds = numCorrelationIds == 0
+                    ? Collections.emptyList()
+                    : new ArrayList<>(numCorrelationIds);
+            for (int i = 0; i < numCorrelationIds; i++) {
+                correlationIds.add(in.readUTF());
+            }
+            BrokerStatsDto brokerStatsDto = in.readBoolean() ? readBrokerStats(in) : null;
+            int numDestinations = readCount(in, "Destination", MIN_DESTINATION_BYTES, encoded.length);
+            List<DestinationStatsDto> destinationStatsDtos = new ArrayList<>(numDestinations);
+            for (int i = 0; i < numDestinations; i++) {
+                destinationStatsDtos.add(readDestinationStats(in));
+            }
+            // ?: Anything after the snapshot? (Reading to the end also makes GZIP verify its trailer, catching a
+            // truncated snapshot.)
+            if (in.read() != -1) {
+                throw new IOException("Unexpected data after the end of the statistics snapshot.");
+            }
+            return new StatsSnapshot(originatingNodeId, fullUpdate, partialUpdate, correlationIds, brokerStatsDto,
+                    destinationStatsDtos);
+        }
+    }
+
+    /**
+     * Reads a count, checking it against what the encoded bytes can possibly hold - so that a corrupt count is an
+     * {@link IOException}, not a huge allocation or an {@link IllegalArgumentException} on a negative capacity.
+     */
+    private static int readCount(DataInputStream in, String what, int minBytesPerElement, int encodedLength)
+            throws IOException {
+        int count = in.readInt();
+        if ((count < 0) || (count > encodedLength * MAX_DEFLATE_RATIO / minBytesPerElement)) {
+            throw new IOException(what + " count [" + count + "] in statistics snapshot is not within [0, "
+                    + (encodedLength * MAX_DEFLATE_RATIO / minBytesPerElement) + "] given the encoded size of ["
+                    + encodedLength + "] bytes.");
+        }
+        return count;
+    }
+
+    private static void writeBrokerStats(DataOutputStream out, BrokerStatsDto dto) throws IOException {
+        writeCommonStats(out, dto);
+        out.writeLong(dto.storeUsage);
+        out.writeLong(dto.storeLimit);
+        out.writeInt(dto.storePercentUsage);
+        out.writeLong(dto.tempUsage);
+        out.writeLong(dto.tempLimit);
+        out.writeInt(dto.tempPercentUsage);
+        writeNullableString(out, dto.stompSsl);
+        writeNullableString(out, dto.ssl);
+        writeNullableString(out, dto.stomp);
+        writeNullableString(out, dto.openwire);
+        writeNullableString(out, dto.vm);
+        writeNullableString(out, dto.dataDirectory);
+    }
+
+    private static BrokerStatsDto readBrokerStats(DataInputStream in) throws IOException {
+        BrokerStatsDto dto = new BrokerStatsDto();
+        readCommonStats(in, dto);
+        dto.storeUsage = in.readLong();
+        dto.storeLimit = in.readLong();
+        dto.storePercentUsage = in.readInt();
+        dto.tempUsage = in.readLong();
+        dto.tempLimit = in.readLong();
+        dto.tempPercentUsage = in.readInt();
+        dto.stompSsl = readNullableString(in);
+        dto.ssl = readNullableString(in);
+        dto.stomp = readNullableString(in);
+        dto.openwire = readNullableString(in);
+        dto.vm = readNullableString(in);
+        dto.dataDirectory = readNullableString(in);
+        return dto;
+    }
+
+    private static void writeDestinationStats(DataOutputStream out, DestinationStatsDto dto) throws IOException {
+        out.writeUTF(dto.destinationName);
+        out.writeLong(dto.firstMessageTimestampMillis);
+        writeCommonStats(out, dto);
+    }
+
+    private static DestinationStatsDto readDestinationStats(DataInputStream in) throws IOException {
+        DestinationStatsDto dto = new DestinationStatsDto();
+        dto.destinationName = in.readUTF();
+        dto.firstMessageTimestampMillis = in.readLong();
+        readCommonStats(in, dto);
+        return dto;
+    }
+
+    private static void writeCommonStats(DataOutputStream out, CommonStatsDto dto) throws IOException {
+        out.writeLong(dto.statsReceivedMillis);
+        writeNullableString(out, dto.brokerId);
+        writeNullableString(out, dto.brokerName);
+        out.writeLong(dto.brokerTimeMillis);
+        out.writeLong(dto.size);
+        out.writeLong(dto.enqueueCount);
+        out.writeLong(dto.dequeueCount);
+        out.writeLong(dto.expiredCount);
+        out.writeLong(dto.dispatchCount);
+        out.writeLong(dto.inflightCount);
+        out.writeLong(dto.producerCount);
+        out.writeLong(dto.consumerCount);
+        out.writeDouble(dto.minEnqueueTime);
+        out.writeDouble(dto.averageEnqueueTime);
+        out.writeDouble(dto.maxEnqueueTime);
+        out.writeLong(dto.averageMessageSize);
+        out.writeLong(dto.messagesCached);
+        out.writeLong(dto.memoryUsage);
+        out.writeLong(dto.memoryLimit);
+        out.writeInt(dto.memoryPercentUsage);
+    }
+
+    private static void readCommonStats(DataInputStream in, CommonStatsDto dto) throws IOException {
+        dto.statsReceivedMillis = in.readLong();
+        dto.brokerId = readNullableString(in);
+        dto.brokerName = readNullableString(in);
+        dto.brokerTimeMillis = in.readLong();
+        dto.size = in.readLong();
+        dto.enqueueCount = in.readLong();
+        dto.dequeueCount = in.readLong();
+        dto.expiredCount = in.readLong();
+        dto.dispatchCount = in.readLong();
+        dto.inflightCount = in.readLong();
+        dto.producerCount = in.readLong();
+        dto.consumerCount = in.readLong();
+        dto.minEnqueueTime = in.readDouble();
+        dto.averageEnqueueTime = in.readDouble();
+        dto.maxEnqueueTime = in.readDouble();
+        dto.averageMessageSize = in.readLong();
+        dto.messagesCached = in.readLong();
+        dto.memoryUsage = in.readLong();
+        dto.memoryLimit = in.readLong();
+        dto.memoryPercentUsage = in.readInt();
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,93 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index of the destinations by when their statistics were last received, so that finding the destinations that have
+ * not gotten statistics for a while only visits those, instead of all destinations: The destinations are kept in
+ * buckets of {@link #STATS_TIME_INDEX_BUCKET_MILLIS}, and a destination is only moved when its timestamp crosses into
+ * a newer bucket - so touching a destination is typically a single hash lookup.
+ * <p>
+ * The index may hold destinations which have been removed by other means (e.g. advisories or snapshots) - the caller
+ * validates the expired names against the current statistics.
+ * <p>
+ * Thread safe: Touched from both the statistics receiver and the advisory receiver threads.
+ */
+final class StatsTimeIndex implements Statics {
+    private final Object _lock = new Object();
+    // :: Synchronized on _lock
+    // Bucket number (millis / bucket width) -> destinations whose last received stats are within that bucket.
+    private final TreeMap<Long, Set<String>> _buckets = new TreeMap<>();
+    private final Map<String, Long> _bucketOfDestination = new HashMap<>();
+
+    /**
+     * Records that statistics for the destination were received at the given time.
+     */
+    void touch(String fqDestinationName, long statsReceivedMillis) {
+        long bucket = statsReceivedMillis / STATS_TIME_INDEX_BUCKET_MILLIS;
+        synchronized (_lock) {
+            Long currentBucket = _bucketOfDestination.get(fqDestinationName);
+            // ?: Already in this (or a newer) bucket?
+            if ((currentBucket != null) && (currentBucket >= bucket)) {
+                // -> Yes, so nothing to do - the common case.
+                return;
+            }
+            if (currentBucket != null) {
+                removeFromBucket(fqDestinationName, currentBucket);
+            }
+            _bucketOfDestination.put(fqDestinationName, bucket);
+            _buckets.computeIfAbsent(bucket, b -> new HashSet<>()).add(fqDestinationName);
+        }
+    }
+
+    void remove(String fqDestinationName) {
+        synchronized (_lock) {
+            Long currentBucket = _bucketOfDestination.remove(fqDestinationName);
+            if (currentBucket != null) {
+                removeFromBucket(fqDestinationName, currentBucket);
+            }
+        }
+    }
+
+    /**
+     * Removes and returns the destinations whose last received statistics are older than the given time - only
+     * visiting whole buckets that are entirely older, thus a destination may be returned up to one bucket width later
+     * than its exact expiry.
+     */
+    List<String> expireOlderThan(long olderThanMillis) {
+        List<String> expired = new ArrayList<>();
+        synchronized (_lock) {
+            while (!_buckets.isEmpty()) {
+                Entry<Long, Set<String>> oldest = _buckets.firstEntry();
+                // ?: Does the oldest bucket end after the cutoff?
+                if ((oldest.getKey() + 1) * STATS_TIME_INDEX_BUCKET_MILLIS > olderThanMillis) {
+                    // -> Yes, so it is not entirely expired, and neither are the newer.
+                    break;
+                }
+                _buckets.pollFirstEntry();
+                for (String fqDestinationName : oldest.getValue()) {
+                    _bucketOfDestination.remove(fqDestinationName);
+                    expired.add(fqDestinationName);
+                }
+            }
+        }
+        return expired;
+    }
+
+    private void removeFromBucket(String fqDestinationName, long bucket) {
+        Set<String> destinations = _buckets.get(bucket);
+        if (destinations != null) {
+            destinations.remove(fqDestinationName);
+            if (destinations.isEmpty()) {
+                _buckets.remove(bucket);
+            }
+        }
+    }
+}
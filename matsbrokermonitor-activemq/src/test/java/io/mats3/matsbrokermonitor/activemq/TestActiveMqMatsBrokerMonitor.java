@@ -0,0 +1,335 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.ActiveMqBrokerStatsEvent;
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.BrokerStatsDto;
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.DestinationStatsDto;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerSnapshot;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination;
+
+/**
+ * Tests the {@link ActiveMqMatsBrokerMonitor}'s handling of the events from the querier, using a fake querier which
+ * hands the events over synchronously: That a warm-started snapshot stays stale until a complete sweep, and that
+ * stats received again unchanged only move the timestamps of the new snapshot.
+ */
+public class TestActiveMqMatsBrokerMonitor {
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final Path _file = createTempFile();
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(_file);
+    }
+
+    @Test
+    public void warmStartedSnapshotStaysStale_untilCompleteSweep() throws IOException {
+        // :: ARRANGE
+
+        // A first monitor gets a sweep, and its snapshot is what the second monitor warm-starts from.
+        FakeQuerier firstQuerier = new FakeQuerier();
+        ActiveMqMatsBrokerMonitor first = ActiveMqMatsBrokerMonitor.baseCreate(firstQuerier, "mats.");
+        firstQuerier.put(destinationStats("queue://mats.Service.a", 3, NOW));
+        firstQuerier.put(destinationStats("queue://mats.Service.gone", 1, NOW));
+        firstQuerier.fire(new FakeEvent(true, null));
+        SnapshotFileCodec.write(first.getSnapshot().orElseThrow(), _file);
+        first.close();
+
+        FakeQuerier querier = new FakeQuerier();
+        ActiveMqMatsBrokerMonitor monitor = ActiveMqMatsBrokerMonitor.baseCreate(querier, "mats.");
+        monitor.setSnapshotFile(_file);
+        monitor.start();
+
+        // :: ACT & ASSERT
+
+        Assert.assertTrue(monitor.getSnapshot().orElseThrow().isStale());
+
+        // A destination advisory: Not a sweep, even though not partial.
+        DestinationStatsDto placeholder = destinationStats("queue://mats.Service.new", 0, NOW + 1000);
+        placeholder.placeholder = true;
+        querier.put(placeholder);
+        querier.fire(new FakeEvent(false, null));
+        BrokerSnapshot afterAdvisory = monitor.getSnapshot().orElseThrow();
+        Assert.assertTrue(afterAdvisory.isStale());
+        Assert.assertTrue(afterAdvisory.getMatsDestinations().containsKey("queue://mats.Service.gone"));
+        Assert.assertTrue(afterAdvisory.getMatsDestinations().containsKey("queue://mats.Service.new"));
+
+        // A targeted update: Not a sweep.
+        querier.put(destinationStats("queue://mats.Service.a", 4, NOW + 2000));
+        querier.fire(new FakeEvent(false, Collections.singleton("queue://mats.Service.a")));
+        BrokerSnapshot afterTargeted = monitor.getSnapshot().orElseThrow();
+        Assert.assertTrue(afterTargeted.isStale());
+        Assert.assertEquals(4, afterTargeted.getMatsDestinations().get("queue://mats.Service.a")
+                .getNumberOfQueuedMessages());
+
+        // The sweep, which the destination from the file is not in: Live, and it is gone.
+        querier.put(destinationStats("queue://mats.Service.new", 2, NOW + 3000));
+        querier.fire(new FakeEvent(true, null));
+        BrokerSnapshot afterSweep = monitor.getSnapshot().orElseThrow();
+        Assert.assertFalse(afterSweep.isStale());
+        Assert.assertEquals(Set.of("queue://mats.Service.a", "queue://mats.Service.new"),
+                afterSweep.getMatsDestinations().keySet());
+
+        monitor.close();
+    }
+
+    @Test
+    public void unchangedStatsReceivedAgain_onlyMoveTheTimestampsOfTheNewSnapshot() {
+        // :: ARRANGE
+
+        FakeQuerier querier = new FakeQuerier();
+        ActiveMqMatsBrokerMonitor monitor = ActiveMqMatsBrokerMonitor.baseCreate(querier, "mats.");
+        DestinationStatsDto a = destinationStats("queue://mats.Service.a", 3, NOW);
+        querier.put(a);
+        querier.put(destinationStats("queue://mats.Service.b", 5, NOW));
+        querier.fire(new FakeEvent(true, null));
+        BrokerSnapshot first = monitor.getSnapshot().orElseThrow();
+
+        // :: ACT
+
+        // The querier updates the timestamps of unchanged stats in place, and doesn't report them as changed.
+        a.statsReceivedMillis = NOW + 60_000;
+        a.brokerTimeMillis = NOW + 60_000;
+        querier.fire(new FakeEvent(false, Collections.singleton("queue://mats.Service.a")));
+        BrokerSnapshot second = monitor.getSnapshot().orElseThrow();
+
+        // :: ASSERT
+
+        MatsBrokerDestination firstA = first.getMatsDestinations().get("queue://mats.Service.a");
+        MatsBrokerDestination secondA = second.getMatsDestinations().get("queue://mats.Service.a");
+        Assert.assertEquals(NOW + 60_000, secondA.getLastUpdateLocalMillis());
+        Assert.assertEquals(3, secondA.getNumberOfQueuedMessages());
+        // The earlier snapshot is not affected.
+        Assert.assertEquals(NOW, firstA.getLastUpdateLocalMillis());
+        Assert.assertEquals(NOW, firstA.getLastUpdateBrokerMillis().getAsLong());
+        // The values that didn't change are shared, not rebuilt.
+        Assert.assertSame(firstA.getCounters().orElseThrow(), secondA.getCounters().orElseThrow());
+        Assert.assertEquals(NOW, second.getMatsDestinations().get("queue://mats.Service.b").getLastUpdateLocalMillis());
+
+        monitor.close();
+    }
+
+    private static DestinationStatsDto destinationStats(String fqDestinationName, long size, long millis) {
+        DestinationStatsDto dto = new DestinationStatsDto();
+        dto.destinationName = fqDestinationName;
+        dto.size = size;
+        dto.statsReceivedMillis = millis;
+        dto.brokerTimeMillis = millis;
+        dto.brokerId = "ID:broker";
+        dto.brokerName = "broker";
+        return dto;
+    }
+
+    private static Path createTempFile() {
+        try {
+            return Files.createTempFile("TestActiveMqMatsBrokerMonitor", ".snapshot");
+        }
+        catch (IOException e) {
+            throw new AssertionError("Could not create temp file.", e);
+        }
+    }
+
+    /**
+     * Holds the destination stats the test puts, and hands the events synchronously to the monitor.
+     */
+    private static class FakeQuerier implements ActiveMqBrokerStatsQuerier {
+        private final ConcurrentNavigableMap<String, DestinationStatsDto> _destinationStatsDtos
+                = new ConcurrentSkipListMap<>();
+        private final Set<String> _changedFqDestinationNames = new HashSet<>();
+        private Consumer<ActiveMqBrokerStatsEvent> _listener;
+
+        void put(DestinationStatsDto dto) {
+            _destinationStatsDtos.put(dto.destinationName, dto);
+            _changedFqDestinationNames.add(dto.destinationName);
+        }
+
+        void fire(ActiveMqBrokerStatsEvent event) {
+            _listener.accept(event);
+        }
+
+        @Override
+        public void setNodeId(String nodeId) {
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void setMatsDestinationPrefix(String matsDestinationPrefix) {
+        }
+
+        @Override
+        public void setQueryMatsDestinationsOnly(boolean queryMatsDestinationsOnly) {
+        }
+
+        @Override
+        public void setDestinationFilter(Collection<String> includePatterns, Collection<String> excludePatterns) {
+        }
+
+        @Override
+        public void setTrackDestinationsUsingAdvisories(boolean trackDestinationsUsingAdvisories) {
+        }
+
+        @Override
+        public void setNotifyDlqArrivalsUsingAdvisories(boolean notifyDlqArrivalsUsingAdvisories) {
+        }
+
+        @Override
+        public void setUseLeaderElection(boolean useLeaderElection) {
+        }
+
+        @Override
+        public boolean isLeader() {
+            return true;
+        }
+
+        @Override
+        public void setUseSnapshotDistribution(boolean useSnapshotDistribution) {
+        }
+
+        @Override
+        public void setFirstMessageTimestampsOnlyForNonEmpty(boolean firstMessageTimestampsOnlyForNonEmpty) {
+        }
+
+        @Override
+        public void setSweepShards(int numberOfShards) {
+        }
+
+        @Override
+        public void setHotDestinationPollInterval(long pollIntervalMillis) {
+        }
+
+        @Override
+        public void setAdaptiveUpdateInterval(long floorIntervalMillis, long ceilingIntervalMillis,
+                long headMessageAgeThresholdMillis) {
+        }
+
+        @Override
+        public long getEffectiveUpdateIntervalMillis() {
+            return 60_000;
+        }
+
+        @Override
+        public String getEffectiveUpdateIntervalReason() {
+            return "NORMAL: Testing";
+        }
+
+        @Override
+        public void registerListener(Consumer<ActiveMqBrokerStatsEvent> listener) {
+            _listener = listener;
+        }
+
+        @Override
+        public List<ListenerDispatchStats> getListenerDispatchStats() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void registerDlqArrivalListener(Consumer<ActiveMqDlqArrivalEvent> listener) {
+        }
+
+        @Override
+        public void forceUpdate(String correlationId, boolean fullUpdate) {
+        }
+
+        @Override
+        public void forceUpdate(String correlationId, Collection<String> fqDestinationNames) {
+        }
+
+        @Override
+        public Optional<BrokerStatsDto> getCurrentBrokerStatsDto() {
+            return Optional.empty();
+        }
+
+        @Override
+        public ConcurrentNavigableMap<String, DestinationStatsDto> getCurrentDestinationStatsDtos() {
+            return _destinationStatsDtos;
+        }
+
+        @Override
+        public Set<String> drainChangedFqDestinationNames() {
+            Set<String> drained = new HashSet<>(_changedFqDestinationNames);
+            _changedFqDestinationNames.clear();
+            return drained;
+        }
+    }
+
+    private static class FakeEvent implements ActiveMqBrokerStatsEvent {
+        private final boolean _completeSweep;
+        private final Set<String> _partialUpdateFqDestinationNames; // nullable
+
+        FakeEvent(boolean completeSweep, Set<String> partialUpdateFqDestinationNames) {
+            _completeSweep = completeSweep;
+            _partialUpdateFqDestinationNames = partialUpdateFqDestinationNames;
+        }
+
+        @Override
+        public Optional<String> getCorrelationId() {
+            return Optional.empty();
+        }
+
+        @Override
+        public List<String> getCorrelationIds() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isFullUpdate() {
+            return false;
+        }
+
+        @Override
+        public boolean isPartialUpdate() {
+            return _partialUpdateFqDestinationNames != null;
+        }
+
+        @Override
+        public Set<String> getPartialUpdateFqDestinationNames() {
+            return _partialUpdateFqDestinationNames != null
+                    ? _partialUpdateFqDestinationNames
+                    : Collections.emptySet();
+        }
+
+        @Override
+        public boolean isCompleteSweep() {
+            return _completeSweep;
+        }
+
+        @Override
+        public boolean isStatsEventOriginatedOnThisNode() {
+            return _completeSweep;
+        }
+
+        @Override
+        public Optional<String> getOriginatingNodeId() {
+            return Optional.empty();
+        }
+
+        @Override
+        public OptionalDouble getStatsRequestReplyLatencyMillis() {
+            return OptionalDouble.empty();
+        }
+    }
+}
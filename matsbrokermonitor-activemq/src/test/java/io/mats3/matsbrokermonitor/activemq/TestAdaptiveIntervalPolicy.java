@@ -0,0 +1,139 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.DestinationStatsDto;
+
+/**
+ * Tests the {@link AdaptiveIntervalPolicy}: Widening when idle, narrowing when the queues rise, DLQs grow or head
+ * messages get old - always within the floor and ceiling.
+ */
+public class TestAdaptiveIntervalPolicy {
+    private static final long BASE = 60_000;
+    private static final long FLOOR = 10_000;
+    private static final long CEILING = 300_000;
+    private static final long HEAD_AGE_THRESHOLD = 120_000;
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    public void startsAtBase() {
+        AdaptiveIntervalPolicy policy = new AdaptiveIntervalPolicy(BASE, FLOOR, CEILING, HEAD_AGE_THRESHOLD);
+        Assert.assertEquals(BASE, policy.getIntervalMillis());
+    }
+
+    @Test
+    public void baseIsClampedToFloorAndCeiling() {
+        Assert.assertEquals(FLOOR, new AdaptiveIntervalPolicy(1, FLOOR, CEILING, HEAD_AGE_THRESHOLD)
+                .getIntervalMillis());
+        Assert.assertEquals(CEILING, new AdaptiveIntervalPolicy(Long.MAX_VALUE / 4, FLOOR, CEILING,
+                HEAD_AGE_THRESHOLD).getIntervalMillis());
+    }
+
+    @Test
+    public void widensWhenIdle_upToCeiling() {
+        // :: ARRANGE
+
+        AdaptiveIntervalPolicy policy = new AdaptiveIntervalPolicy(BASE, FLOOR, CEILING, HEAD_AGE_THRESHOLD);
+        List<DestinationStatsDto> idle = Collections.singletonList(queue("queue://mats.Service.method", 0));
+
+        // :: ACT & ASSERT
+
+        Assert.assertEquals(2 * BASE, policy.evaluate(idle));
+        Assert.assertTrue(policy.getReason(), policy.getReason().startsWith("IDLE"));
+        Assert.assertEquals(4 * BASE, policy.evaluate(idle));
+        // 8 * BASE is above the ceiling.
+        Assert.assertEquals(CEILING, policy.evaluate(idle));
+        Assert.assertEquals(CEILING, policy.evaluate(idle));
+    }
+
+    @Test
+    public void narrowsWhenQueueDepthRises_downToFloor() {
+        // :: ARRANGE
+
+        AdaptiveIntervalPolicy policy = new AdaptiveIntervalPolicy(BASE, FLOOR, CEILING, HEAD_AGE_THRESHOLD);
+        // First evaluation: Nothing to compare with, so normal.
+        Assert.assertEquals(BASE, policy.evaluate(Collections.singletonList(queue("queue://mats.A", 10))));
+        Assert.assertTrue(policy.getReason(), policy.getReason().startsWith("NORMAL"));
+
+        // :: ACT & ASSERT
+
+        Assert.assertEquals(BASE / 2, policy.evaluate(Collections.singletonList(queue("queue://mats.A", 20))));
+        Assert.assertTrue(policy.getReason(), policy.getReason().startsWith("QUEUE_DEPTH_RISING"));
+        Assert.assertEquals(BASE / 4, policy.evaluate(Collections.singletonList(queue("queue://mats.A", 30))));
+        // BASE / 8 is below the floor.
+        Assert.assertEquals(FLOOR, policy.evaluate(Collections.singletonList(queue("queue://mats.A", 40))));
+
+        // Not rising anymore: Back to base.
+        Assert.assertEquals(BASE, policy.evaluate(Collections.singletonList(queue("queue://mats.A", 40))));
+        Assert.assertTrue(policy.getReason(), policy.getReason().startsWith("NORMAL"));
+    }
+
+    @Test
+    public void risingAfterIdle_narrowsFromBase() {
+        // :: ARRANGE
+
+        AdaptiveIntervalPolicy policy = new AdaptiveIntervalPolicy(BASE, FLOOR, CEILING, HEAD_AGE_THRESHOLD);
+        policy.evaluate(Collections.singletonList(queue("queue://mats.A", 0)));
+        policy.evaluate(Collections.singletonList(queue("queue://mats.A", 0)));
+        Assert.assertEquals(4 * BASE, policy.getIntervalMillis());
+
+        // :: ACT & ASSERT
+
+        // Rising shall not halve the widened interval, but from the base.
+        Assert.assertEquals(BASE / 2, policy.evaluate(Collections.singletonList(queue("queue://mats.A", 5))));
+    }
+
+    @Test
+    public void growingDlq_goesToFloor() {
+        // :: ARRANGE
+
+        AdaptiveIntervalPolicy policy = new AdaptiveIntervalPolicy(BASE, FLOOR, CEILING, HEAD_AGE_THRESHOLD);
+        policy.evaluate(Arrays.asList(queue("queue://mats.A", 0), queue("queue://DLQ.mats.A", 1)));
+
+        // :: ACT & ASSERT
+
+        Assert.assertEquals(FLOOR, policy.evaluate(Arrays.asList(queue("queue://mats.A", 0),
+                queue("queue://DLQ.mats.A", 2))));
+        Assert.assertTrue(policy.getReason(), policy.getReason().startsWith("DLQ_GROWING"));
+        // The global DLQ counts as a DLQ too.
+        policy.evaluate(Collections.singletonList(queue("queue://ActiveMQ.DLQ", 2)));
+        Assert.assertEquals(FLOOR, policy.evaluate(Collections.singletonList(queue("queue://ActiveMQ.DLQ", 3))));
+        Assert.assertTrue(policy.getReason(), policy.getReason().startsWith("DLQ_GROWING"));
+    }
+
+    @Test
+    public void oldHeadMessage_goesToFloor_butNotOnDlqsOrTopics() {
+        // :: ARRANGE
+
+        AdaptiveIntervalPolicy policy = new AdaptiveIntervalPolicy(BASE, FLOOR, CEILING, HEAD_AGE_THRESHOLD);
+        DestinationStatsDto old = queue("queue://mats.A", 1);
+        old.firstMessageTimestampMillis = NOW - HEAD_AGE_THRESHOLD - 1;
+        DestinationStatsDto oldOnDlq = queue("queue://DLQ.mats.B", 1);
+        oldOnDlq.firstMessageTimestampMillis = NOW - 10 * HEAD_AGE_THRESHOLD;
+        DestinationStatsDto topic = queue("topic://mats.C", 1);
+        topic.firstMessageTimestampMillis = NOW - 10 * HEAD_AGE_THRESHOLD;
+
+        // :: ACT & ASSERT
+
+        // Old head message on DLQ and topic: Not relevant.
+        Assert.assertEquals(BASE, policy.evaluate(Arrays.asList(oldOnDlq, topic, queue("queue://mats.A", 1))));
+        // Old head message on a queue.
+        Assert.assertEquals(FLOOR, policy.evaluate(Arrays.asList(oldOnDlq, topic, old)));
+        Assert.assertTrue(policy.getReason(), policy.getReason().startsWith("HEAD_MESSAGE_AGE"));
+        Assert.assertTrue(policy.getReason(), policy.getReason().contains("queue://mats.A"));
+    }
+
+    private static DestinationStatsDto queue(String fqDestinationName, long size) {
+        DestinationStatsDto dto = new DestinationStatsDto();
+        dto.destinationName = fqDestinationName;
+        dto.size = size;
+        dto.brokerTimeMillis = NOW;
+        dto.statsReceivedMillis = NOW;
+        return dto;
+    }
+}
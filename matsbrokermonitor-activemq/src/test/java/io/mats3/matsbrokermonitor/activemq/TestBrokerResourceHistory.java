@@ -0,0 +1,220 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.BrokerStatsDto;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerResourceUsage;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination;
+
+/**
+ * Tests the {@link BrokerResourceHistory}: The least squares time-to-limit projection, including flat and negative
+ * slopes, when there is not enough history to tell, the replacement of samples closer than
+ * {@link Statics#BROKER_RESOURCE_SAMPLE_INTERVAL_MILLIS}, and wraparound past
+ * {@link Statics#BROKER_RESOURCE_HISTORY_SAMPLES}.
+ */
+public class TestBrokerResourceHistory implements Statics {
+    private static final long T0 = 1_700_000_000_000L;
+    private static final long MINUTE = 60_000;
+    private static final long STORE_LIMIT = 1_000_000;
+
+    @Test
+    public void linearGrowth_projectsTimeToLimit() {
+        // :: ARRANGE
+
+        BrokerResourceHistory history = new BrokerResourceHistory();
+        BrokerResourceUsage usage = null;
+
+        // :: ACT
+
+        // Growing 600 bytes per minute, i.e. 0.01 bytes per milli.
+        for (int i = 0; i < 5; i++) {
+            usage = history.record(stats(T0 + i * MINUTE, 1000 + 600L * i, 0));
+        }
+
+        // :: ASSERT
+
+        // 3400 used, 996_600 left at 0.01 bytes per milli.
+        Assert.assertEquals(3400, usage.getStoreUsage());
+        Assert.assertEquals(99_660_000, usage.getStoreTimeToLimitMillis().getAsLong());
+    }
+
+    @Test
+    public void noisyGrowth_usesLeastSquaresSlope() {
+        // :: ARRANGE
+
+        BrokerResourceHistory history = new BrokerResourceHistory();
+        long[] storeUsages = { 0, 20, 10, 30 };
+        BrokerResourceUsage usage = null;
+
+        // :: ACT
+
+        for (int i = 0; i < storeUsages.length; i++) {
+            usage = history.record(stats(T0 + i * MINUTE, storeUsages[i], 0));
+        }
+
+        // :: ASSERT
+
+        // Least squares over (0, 0), (1, 20), (2, 10), (3, 30) minutes: Slope 8 bytes per minute - while the
+        // endpoints alone would have given 10 bytes per minute.
+        double bytesPerMilli = 8d / MINUTE;
+        Assert.assertEquals((STORE_LIMIT - 30) / bytesPerMilli, usage.getStoreTimeToLimitMillis().getAsLong(), 1);
+    }
+
+    @Test
+    public void flatOrShrinking_isNever() {
+        // :: ARRANGE
+
+        BrokerResourceHistory flat = new BrokerResourceHistory();
+        BrokerResourceHistory shrinking = new BrokerResourceHistory();
+        BrokerResourceUsage flatUsage = null;
+        BrokerResourceUsage shrinkingUsage = null;
+
+        // :: ACT
+
+        for (int i = 0; i < 4; i++) {
+            flatUsage = flat.record(stats(T0 + i * MINUTE, 5000, 0));
+            shrinkingUsage = shrinking.record(stats(T0 + i * MINUTE, 5000 - 100L * i, 0));
+        }
+
+        // :: ASSERT
+
+        Assert.assertEquals(MatsBrokerDestination.FORECAST_NEVER, flatUsage.getStoreTimeToLimitMillis().getAsLong());
+        Assert.assertEquals(MatsBrokerDestination.FORECAST_NEVER,
+                shrinkingUsage.getStoreTimeToLimitMillis().getAsLong());
+    }
+
+    @Test
+    public void atOrOverLimit_isZero() {
+        // :: ARRANGE
+
+        BrokerResourceHistory history = new BrokerResourceHistory();
+
+        // :: ACT
+
+        // At the limit, even with a single sample.
+        BrokerResourceUsage atLimit = history.record(stats(T0, STORE_LIMIT, 0));
+        BrokerResourceUsage overLimit = history.record(stats(T0 + MINUTE, STORE_LIMIT + 10, 0));
+
+        // :: ASSERT
+
+        Assert.assertEquals(0, atLimit.getStoreTimeToLimitMillis().getAsLong());
+        Assert.assertEquals(0, overLimit.getStoreTimeToLimitMillis().getAsLong());
+    }
+
+    @Test
+    public void notEnoughHistory_orNoLimit_isAbsent() {
+        // :: ARRANGE
+
+        BrokerResourceHistory history = new BrokerResourceHistory();
+
+        // :: ACT & ASSERT
+
+        // A single sample: Can't tell. Temp has no limit reported.
+        BrokerResourceUsage usage = history.record(stats(T0, 1000, 500));
+        Assert.assertFalse(usage.getStoreTimeToLimitMillis().isPresent());
+        Assert.assertFalse(usage.getTempTimeToLimitMillis().isPresent());
+        // Two samples, but spanning less than the sample interval.
+        usage = history.record(stats(T0 + BROKER_RESOURCE_SAMPLE_INTERVAL_MILLIS - 1, 2000, 600));
+        Assert.assertFalse(usage.getStoreTimeToLimitMillis().isPresent());
+        // Spanning the sample interval: Now we can tell - but still not for temp, having no limit.
+        usage = history.record(stats(T0 + BROKER_RESOURCE_SAMPLE_INTERVAL_MILLIS, 3000, 700));
+        Assert.assertTrue(usage.getStoreTimeToLimitMillis().isPresent());
+        Assert.assertFalse(usage.getTempTimeToLimitMillis().isPresent());
+    }
+
+    @Test
+    public void onlySamplesWithinProjectionWindowCount() {
+        // :: ARRANGE
+
+        BrokerResourceHistory history = new BrokerResourceHistory();
+        // Steep growth long ago, outside the window.
+        history.record(stats(T0, 0, 0));
+        history.record(stats(T0 + MINUTE, 500_000, 0));
+        long start = T0 + MINUTE + BROKER_RESOURCE_PROJECTION_WINDOW_MILLIS + MINUTE;
+        BrokerResourceUsage usage = null;
+
+        // :: ACT
+
+        // Then flat, within the window.
+        for (int i = 0; i < 5; i++) {
+            usage = history.record(stats(start + i * MINUTE, 500_000, 0));
+        }
+
+        // :: ASSERT
+
+        Assert.assertEquals(MatsBrokerDestination.FORECAST_NEVER, usage.getStoreTimeToLimitMillis().getAsLong());
+    }
+
+    @Test
+    public void samplesCloserThanInterval_replaceLatest() {
+        // :: ARRANGE
+
+        BrokerResourceHistory history = new BrokerResourceHistory();
+        long interval = BROKER_RESOURCE_SAMPLE_INTERVAL_MILLIS;
+
+        // :: ACT
+
+        history.record(stats(T0, 1, 0));
+        history.record(stats(T0 + interval / 3, 2, 0));
+        // Too close to the second latest (T0): Replaces the latest.
+        history.record(stats(T0 + 2 * interval / 3, 3, 0));
+        // Far enough from the second latest (T0): Appended.
+        history.record(stats(T0 + interval + interval / 3, 4, 0));
+        // Same or older stats: Ignored, returning the latest.
+        BrokerResourceUsage ignored = history.record(stats(T0 + interval, 99, 0));
+
+        // :: ASSERT
+
+        List<BrokerResourceUsage> samples = history.history();
+        Assert.assertEquals(3, samples.size());
+        Assert.assertEquals(T0, samples.get(0).getTimestampMillis());
+        Assert.assertEquals(T0 + 2 * interval / 3, samples.get(1).getTimestampMillis());
+        Assert.assertEquals(3, samples.get(1).getStoreUsage());
+        Assert.assertEquals(T0 + interval + interval / 3, samples.get(2).getTimestampMillis());
+        Assert.assertEquals(4, ignored.getStoreUsage());
+    }
+
+    @Test
+    public void wrapsAround_keepingTheLatestSamples() {
+        // :: ARRANGE
+
+        BrokerResourceHistory history = new BrokerResourceHistory();
+        int recorded = BROKER_RESOURCE_HISTORY_SAMPLES + 10;
+        BrokerResourceUsage usage = null;
+
+        // :: ACT
+
+        for (int i = 0; i < recorded; i++) {
+            usage = history.record(stats(T0 + i * MINUTE, 600L * i, 1000L * i));
+        }
+
+        // :: ASSERT
+
+        List<BrokerResourceUsage> samples = history.history();
+        Assert.assertEquals(BROKER_RESOURCE_HISTORY_SAMPLES, samples.size());
+        // Oldest first: The first 10 are overwritten.
+        for (int i = 0; i < BROKER_RESOURCE_HISTORY_SAMPLES; i++) {
+            Assert.assertEquals(T0 + (i + 10) * MINUTE, samples.get(i).getTimestampMillis());
+            Assert.assertEquals(600L * (i + 10), samples.get(i).getStoreUsage());
+        }
+        // The projection is over the retained samples - while temp, having no limit, has none.
+        long storeUsage = 600L * (recorded - 1);
+        Assert.assertEquals((STORE_LIMIT - storeUsage) * 100, usage.getStoreTimeToLimitMillis().getAsLong());
+        Assert.assertFalse(usage.getTempTimeToLimitMillis().isPresent());
+    }
+
+    private static BrokerStatsDto stats(long statsReceivedMillis, long storeUsage, long tempUsage) {
+        BrokerStatsDto dto = new BrokerStatsDto();
+        dto.statsReceivedMillis = statsReceivedMillis;
+        dto.brokerTimeMillis = statsReceivedMillis;
+        dto.storeUsage = storeUsage;
+        dto.storeLimit = STORE_LIMIT;
+        dto.tempUsage = tempUsage;
+        // No temp limit reported.
+        dto.tempLimit = 0;
+        return dto;
+    }
+}
@@ -0,0 +1,140 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link ConflatingListenerDispatcher}: Events offered while the listener is busy are merged, so that the
+ * intermediate events are dropped - but the last one is always delivered.
+ */
+public class TestConflatingListenerDispatcher {
+
+    @Test
+    public void conflatesWhileListenerIsBusy_deliversLast() throws InterruptedException {
+        // :: ARRANGE
+
+        CountDownLatch listenerEntered = new CountDownLatch(1);
+        CountDownLatch releaseListener = new CountDownLatch(1);
+        LinkedBlockingQueue<String> received = new LinkedBlockingQueue<>();
+        ConflatingListenerDispatcher<String> dispatcher = new ConflatingListenerDispatcher<>(event -> {
+            received.add(event);
+            listenerEntered.countDown();
+            awaitUninterruptibly(releaseListener);
+        }, (pending, newer) -> newer, "TestConflatingListenerDispatcher");
+
+        try {
+            // :: ACT
+
+            dispatcher.offer("1");
+            Assert.assertTrue(listenerEntered.await(10, TimeUnit.SECONDS));
+            // The listener is now busy with "1", so these are merged, newer winning.
+            dispatcher.offer("2");
+            dispatcher.offer("3");
+            dispatcher.offer("4");
+            releaseListener.countDown();
+
+            // :: ASSERT
+
+            Assert.assertEquals("1", received.poll(10, TimeUnit.SECONDS));
+            Assert.assertEquals("4", received.poll(10, TimeUnit.SECONDS));
+            // Nothing more shall come.
+            Assert.assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+            Assert.assertEquals(2, dispatcher.getDispatchedCount());
+            Assert.assertEquals(2, dispatcher.getConflatedCount());
+        }
+        finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    public void mergerGetsPendingAndNewerInOrder() throws InterruptedException {
+        // :: ARRANGE
+
+        CountDownLatch listenerEntered = new CountDownLatch(1);
+        CountDownLatch releaseListener = new CountDownLatch(1);
+        LinkedBlockingQueue<String> received = new LinkedBlockingQueue<>();
+        ConflatingListenerDispatcher<String> dispatcher = new ConflatingListenerDispatcher<>(event -> {
+            received.add(event);
+            listenerEntered.countDown();
+            awaitUninterruptibly(releaseListener);
+        }, (pending, newer) -> pending + "+" + newer, "TestConflatingListenerDispatcher");
+
+        try {
+            // :: ACT
+
+            dispatcher.offer("a");
+            Assert.assertTrue(listenerEntered.await(10, TimeUnit.SECONDS));
+            dispatcher.offer("b");
+            dispatcher.offer("c");
+            releaseListener.countDown();
+
+            // :: ASSERT
+
+            Assert.assertEquals("a", received.poll(10, TimeUnit.SECONDS));
+            Assert.assertEquals("b+c", received.poll(10, TimeUnit.SECONDS));
+        }
+        finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    public void throwingListenerDoesNotStopDispatch() throws InterruptedException {
+        // :: ARRANGE
+
+        LinkedBlockingQueue<String> received = new LinkedBlockingQueue<>();
+        ConflatingListenerDispatcher<String> dispatcher = new ConflatingListenerDispatcher<>(event -> {
+            received.add(event);
+            throw new IllegalStateException("Test: Listener throws.");
+        }, (pending, newer) -> newer, "TestConflatingListenerDispatcher");
+
+        try {
+            // :: ACT
+
+            dispatcher.offer("1");
+            Assert.assertEquals("1", received.poll(10, TimeUnit.SECONDS));
+            dispatcher.offer("2");
+
+            // :: ASSERT
+
+            Assert.assertEquals("2", received.poll(10, TimeUnit.SECONDS));
+        }
+        finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    public void noEventsAfterClose() throws InterruptedException {
+        // :: ARRANGE
+
+        LinkedBlockingQueue<String> received = new LinkedBlockingQueue<>();
+        ConflatingListenerDispatcher<String> dispatcher = new ConflatingListenerDispatcher<>(received::add,
+                (pending, newer) -> newer, "TestConflatingListenerDispatcher");
+        dispatcher.offer("1");
+        Assert.assertEquals("1", received.poll(10, TimeUnit.SECONDS));
+
+        // :: ACT
+
+        dispatcher.close();
+        dispatcher.offer("2");
+
+        // :: ASSERT
+
+        Assert.assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
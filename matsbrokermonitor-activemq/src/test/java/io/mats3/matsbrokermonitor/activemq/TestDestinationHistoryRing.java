@@ -0,0 +1,278 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.util.OptionalDouble;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.DestinationStatsDto;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.DestinationHistory;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.ConsumerStatus;
+
+/**
+ * Tests the {@link DestinationHistoryRing}: That it keeps the last {@link Statics#DESTINATION_HISTORY_SAMPLES} samples
+ * when wrapping around, the rate calculations over {@link Statics#DESTINATION_RATE_WINDOW_MILLIS}, and the
+ * {@link ConsumerStatus} transitions.
+ */
+public class TestDestinationHistoryRing implements Statics {
+    private static final long T0 = 1_700_000_000_000L;
+    private static final double DELTA = 0.000_001;
+
+    @Test
+    public void empty_noRates() {
+        // :: ARRANGE
+
+        DestinationHistoryRing ring = new DestinationHistoryRing();
+        DestinationStatsDto current = stats(T0, 10, 100, 90);
+
+        // :: ACT & ASSERT
+
+        Assert.assertFalse(ring.getEnqueueRatePerSecond(current).isPresent());
+        Assert.assertFalse(ring.getDequeueRatePerSecond(current).isPresent());
+        Assert.assertFalse(ring.getQueueDepthSlopePerSecond(current).isPresent());
+        // The snapshot consists of only the current.
+        DestinationHistory history = ring.snapshot(current);
+        Assert.assertEquals(1, history.size());
+        Assert.assertEquals(100, history.getEnqueueCount(0));
+    }
+
+    @Test
+    public void wrapsAround_keepingTheLatestSamples() {
+        // :: ARRANGE
+
+        DestinationHistoryRing ring = new DestinationHistoryRing();
+        int recorded = DESTINATION_HISTORY_SAMPLES + 5;
+        for (int i = 0; i < recorded; i++) {
+            ring.record(stats(T0 + i * 1000L, i, 10L * i, 5L * i));
+        }
+
+        // :: ACT
+
+        // The current is the last recorded, i.e. not newer: Not included again.
+        DestinationHistory latest = ring.snapshot(stats(T0 + (recorded - 1) * 1000L, recorded - 1,
+                10L * (recorded - 1), 5L * (recorded - 1)));
+        // A newer current is included as the latest point.
+        DestinationHistory withCurrent = ring.snapshot(stats(T0 + recorded * 1000L, 0, 999, 998));
+
+        // :: ASSERT
+
+        Assert.assertEquals(DESTINATION_HISTORY_SAMPLES, latest.size());
+        // Oldest first: The first 5 are overwritten.
+        for (int i = 0; i < DESTINATION_HISTORY_SAMPLES; i++) {
+            Assert.assertEquals(T0 + (i + 5) * 1000L, latest.getTimestampMillis(i));
+            Assert.assertEquals(i + 5, latest.getNumberOfQueuedMessages(i));
+            Assert.assertEquals(10L * (i + 5), latest.getEnqueueCount(i));
+            Assert.assertEquals(5L * (i + 5), latest.getDequeueCount(i));
+        }
+        Assert.assertEquals(DESTINATION_HISTORY_SAMPLES + 1, withCurrent.size());
+        Assert.assertEquals(999, withCurrent.getEnqueueCount(DESTINATION_HISTORY_SAMPLES));
+        Assert.assertThrows(IndexOutOfBoundsException.class, () -> latest.getTimestampMillis(latest.size()));
+    }
+
+    @Test
+    public void rates_withinWindow_fromOldestSample() {
+        // :: ARRANGE
+
+        DestinationHistoryRing ring = new DestinationHistoryRing();
+        ring.record(stats(T0, 100, 1000, 900));
+        ring.record(stats(T0 + 30_000, 80, 1500, 1420));
+
+        // :: ACT
+
+        // 60 seconds after the oldest sample.
+        DestinationStatsDto current = stats(T0 + 60_000, 40, 1600, 1560);
+
+        // :: ASSERT
+
+        Assert.assertEquals(10d, ring.getEnqueueRatePerSecond(current).getAsDouble(), DELTA);
+        Assert.assertEquals(11d, ring.getDequeueRatePerSecond(current).getAsDouble(), DELTA);
+        // The depth may go down.
+        Assert.assertEquals(-1d, ring.getQueueDepthSlopePerSecond(current).getAsDouble(), DELTA);
+    }
+
+    @Test
+    public void rates_fromValueAtWindowStart_decayingWhenFlat() {
+        // :: ARRANGE
+
+        DestinationHistoryRing ring = new DestinationHistoryRing();
+        ring.record(stats(T0, 0, 0, 0));
+        ring.record(stats(T0 + 60_000, 0, 3000, 3000));
+        long windowSeconds = DESTINATION_RATE_WINDOW_MILLIS / 1000;
+
+        // :: ACT
+
+        // The first sample is at the window start: The change since is spread over the full window.
+        OptionalDouble rate = ring.getEnqueueRatePerSecond(stats(T0 + DESTINATION_RATE_WINDOW_MILLIS,
+                0, 3000, 3000));
+        // Both samples before the window start: The latest's value holds at the window start, so the counter hasn't
+        // moved within the window.
+        OptionalDouble flatRate = ring.getEnqueueRatePerSecond(stats(T0 + 120_000 + DESTINATION_RATE_WINDOW_MILLIS,
+                0, 3000, 3000));
+
+        // :: ASSERT
+
+        Assert.assertEquals(3000d / windowSeconds, rate.getAsDouble(), DELTA);
+        Assert.assertEquals(0d, flatRate.getAsDouble(), DELTA);
+    }
+
+    @Test
+    public void rates_afterWraparound_useOldestRetainedSample() {
+        // :: ARRANGE
+
+        DestinationHistoryRing ring = new DestinationHistoryRing();
+        // One sample per second, enqueue count rising 5 per second - well within the window.
+        for (int i = 0; i < DESTINATION_HISTORY_SAMPLES * 2; i++) {
+            ring.record(stats(T0 + i * 1000L, 0, 5L * i, 5L * i));
+        }
+        long nowMillis = T0 + DESTINATION_HISTORY_SAMPLES * 2 * 1000L;
+
+        // :: ACT
+
+        OptionalDouble rate = ring.getEnqueueRatePerSecond(stats(nowMillis, 0, 5L * DESTINATION_HISTORY_SAMPLES * 2,
+                0));
+
+        // :: ASSERT
+
+        Assert.assertEquals(5d, rate.getAsDouble(), DELTA);
+    }
+
+    @Test
+    public void counterReset_orNoTimeSpan_noRate() {
+        // :: ARRANGE
+
+        DestinationHistoryRing ring = new DestinationHistoryRing();
+        ring.record(stats(T0, 50, 1000, 900));
+
+        // :: ACT & ASSERT
+
+        // Counter went backwards, e.g. the broker restarted: Can't tell.
+        DestinationStatsDto afterRestart = stats(T0 + 60_000, 5, 10, 5);
+        Assert.assertFalse(ring.getEnqueueRatePerSecond(afterRestart).isPresent());
+        Assert.assertFalse(ring.getDequeueRatePerSecond(afterRestart).isPresent());
+        // .. but the depth is not a counter, so it may go down.
+        Assert.assertEquals(-0.75d, ring.getQueueDepthSlopePerSecond(afterRestart).getAsDouble(), DELTA);
+
+        // No time span since the only sample.
+        Assert.assertFalse(ring.getEnqueueRatePerSecond(stats(T0, 50, 1000, 900)).isPresent());
+    }
+
+    @Test
+    public void consumerStatus_okWithoutHistoryMessagesOrConsumers() {
+        // :: ARRANGE
+
+        DestinationHistoryRing ring = new DestinationHistoryRing();
+        long later = T0 + 10 * CONSUMER_STUCK_FLAT_MILLIS;
+
+        // :: ACT & ASSERT
+
+        Assert.assertEquals(ConsumerStatus.OK, ring.getConsumerStatus(consumed(later, 10, 1, 100, 5)));
+        ring.record(consumed(T0, 10, 1, 100, 5));
+        // No messages: Nothing to consume.
+        Assert.assertEquals(ConsumerStatus.OK, ring.getConsumerStatus(consumed(later, 0, 1, 100, 5)));
+        // No consumers: Not the consumers' fault.
+        Assert.assertEquals(ConsumerStatus.OK, ring.getConsumerStatus(consumed(later, 10, 0, 100, 5)));
+    }
+
+    @Test
+    public void consumerStatus_okToStuck_andBackWhenDequeueMoves() {
+        // :: ARRANGE
+
+        DestinationHistoryRing ring = new DestinationHistoryRing();
+        ring.record(consumed(T0, 10, 1, 100, 5));
+        ring.record(consumed(T0 + 30_000, 20, 1, 100, 5));
+
+        // :: ACT & ASSERT
+
+        // Flat dequeue count, but not for long enough.
+        Assert.assertEquals(ConsumerStatus.OK, ring.getConsumerStatus(consumed(T0 + CONSUMER_STUCK_FLAT_MILLIS - 1,
+                20, 1, 100, 5)));
+        // Flat for long enough.
+        Assert.assertEquals(ConsumerStatus.STUCK, ring.getConsumerStatus(consumed(T0 + CONSUMER_STUCK_FLAT_MILLIS,
+                20, 1, 100, 5)));
+        // The dequeue count moved: Not stuck anymore.
+        ring.record(consumed(T0 + CONSUMER_STUCK_FLAT_MILLIS + 1000, 15, 1, 105, 5));
+        Assert.assertEquals(ConsumerStatus.OK, ring.getConsumerStatus(consumed(T0 + CONSUMER_STUCK_FLAT_MILLIS
+                + 2000, 15, 1, 105, 5)));
+    }
+
+    @Test
+    public void consumerStatus_flatRunStartsAfterEmptyQueue() {
+        // :: ARRANGE
+
+        DestinationHistoryRing ring = new DestinationHistoryRing();
+        ring.record(consumed(T0, 10, 1, 100, 5));
+        // The queue was empty here, so the consumers weren't stuck before this.
+        ring.record(consumed(T0 + 60_000, 0, 1, 100, 5));
+        ring.record(consumed(T0 + 90_000, 10, 1, 100, 5));
+
+        // :: ACT & ASSERT
+
+        Assert.assertEquals(ConsumerStatus.OK, ring.getConsumerStatus(consumed(T0 + CONSUMER_STUCK_FLAT_MILLIS + 1000,
+                10, 1, 100, 5)));
+        Assert.assertEquals(ConsumerStatus.STUCK, ring.getConsumerStatus(consumed(T0 + 90_000
+                + CONSUMER_STUCK_FLAT_MILLIS, 10, 1, 100, 5)));
+    }
+
+    @Test
+    public void consumerStatus_okToSlow_andBackWhenEnqueueTimeStopsRising() {
+        // :: ARRANGE
+
+        DestinationHistoryRing ring = new DestinationHistoryRing();
+        long dequeueCount = 100;
+        double averageEnqueueTime = 5;
+
+        // :: ACT & ASSERT
+
+        // Rising average enqueue time, while consuming: Slow once over enough samples.
+        for (int i = 0; i < CONSUMER_SLOW_RISING_SAMPLES; i++) {
+            DestinationStatsDto stats = consumed(T0 + i * 1000L, 10, 1, dequeueCount++, averageEnqueueTime++);
+            ring.record(stats);
+            Assert.assertEquals("Sample " + i, i < CONSUMER_SLOW_RISING_SAMPLES - 1
+                    ? ConsumerStatus.OK
+                    : ConsumerStatus.SLOW, ring.getConsumerStatus(stats));
+        }
+        // Still rising: Still slow.
+        DestinationStatsDto rising = consumed(T0 + 10_000, 10, 1, dequeueCount++, averageEnqueueTime);
+        ring.record(rising);
+        Assert.assertEquals(ConsumerStatus.SLOW, ring.getConsumerStatus(rising));
+        // Not rising anymore: OK.
+        DestinationStatsDto notRising = consumed(T0 + 11_000, 10, 1, dequeueCount, averageEnqueueTime);
+        ring.record(notRising);
+        Assert.assertEquals(ConsumerStatus.OK, ring.getConsumerStatus(notRising));
+    }
+
+    @Test
+    public void consumerStatus_stuckWinsOverSlow() {
+        // :: ARRANGE
+
+        DestinationHistoryRing ring = new DestinationHistoryRing();
+        for (int i = 0; i < CONSUMER_SLOW_RISING_SAMPLES; i++) {
+            ring.record(consumed(T0 + i * 1000L, 10, 1, 100, 5 + i));
+        }
+
+        // :: ACT & ASSERT
+
+        Assert.assertEquals(ConsumerStatus.SLOW, ring.getConsumerStatus(consumed(T0 + 10_000, 10, 1, 100, 7)));
+        Assert.assertEquals(ConsumerStatus.STUCK, ring.getConsumerStatus(consumed(T0 + CONSUMER_STUCK_FLAT_MILLIS,
+                10, 1, 100, 7)));
+    }
+
+    private static DestinationStatsDto consumed(long statsReceivedMillis, long queued, long consumerCount,
+            long dequeueCount, double averageEnqueueTime) {
+        DestinationStatsDto dto = stats(statsReceivedMillis, queued, dequeueCount + queued, dequeueCount);
+        dto.consumerCount = consumerCount;
+        dto.averageEnqueueTime = averageEnqueueTime;
+        return dto;
+    }
+
+    private static DestinationStatsDto stats(long statsReceivedMillis, long queued, long enqueueCount, long dequeueCount) {
+        DestinationStatsDto dto = new DestinationStatsDto();
+        dto.destinationName = "queue://mats.Service.method";
+        dto.statsReceivedMillis = statsReceivedMillis;
+        dto.brokerTimeMillis = statsReceivedMillis;
+        dto.size = queued;
+        dto.enqueueCount = enqueueCount;
+        dto.dequeueCount = dequeueCount;
+        return dto;
+    }
+}
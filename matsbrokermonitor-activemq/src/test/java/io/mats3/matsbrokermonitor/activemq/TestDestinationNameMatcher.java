@@ -0,0 +1,109 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link DestinationNameMatcher}: Exact, prefix and general glob patterns, and the include/exclude logic.
+ */
+public class TestDestinationNameMatcher {
+
+    @Test
+    public void noPatterns_matchesAll() {
+        Assert.assertTrue(DestinationNameMatcher.compile(null, null).isMatchAll());
+        Assert.assertTrue(DestinationNameMatcher.compile(Collections.emptyList(), Collections.emptyList())
+                .isMatchAll());
+        Assert.assertTrue(DestinationNameMatcher.matchAll().matches("queue://anything"));
+    }
+
+    @Test
+    public void exact() {
+        DestinationNameMatcher matcher = includes("queue://mats.Service.method");
+        Assert.assertFalse(matcher.isMatchAll());
+        Assert.assertTrue(matcher.matches("queue://mats.Service.method"));
+        Assert.assertFalse(matcher.matches("queue://mats.Service.method2"));
+        Assert.assertFalse(matcher.matches("queue://mats.Service"));
+        Assert.assertFalse(matcher.matches("topic://mats.Service.method"));
+    }
+
+    @Test
+    public void trailingWildcard_isPrefix_alsoOverDots() {
+        DestinationNameMatcher matcher = includes("queue://mats.*");
+        Assert.assertTrue(matcher.matches("queue://mats."));
+        Assert.assertTrue(matcher.matches("queue://mats.Service.method.stage1"));
+        Assert.assertFalse(matcher.matches("queue://matsX"));
+        Assert.assertFalse(matcher.matches("queue://DLQ.mats.Service"));
+    }
+
+    @Test
+    public void singleWildcard_matchesEverything() {
+        DestinationNameMatcher matcher = includes("*");
+        Assert.assertTrue(matcher.matches(""));
+        Assert.assertTrue(matcher.matches("queue://anything.at.all"));
+    }
+
+    @Test
+    public void leadingAndInnerWildcards() {
+        DestinationNameMatcher matcher = includes("*.stage1", "queue://*.private.*");
+        Assert.assertTrue(matcher.matches("queue://mats.Service.method.stage1"));
+        Assert.assertTrue(matcher.matches("topic://x.stage1"));
+        Assert.assertFalse(matcher.matches("queue://mats.Service.method.stage10"));
+        Assert.assertTrue(matcher.matches("queue://mats.private.Service"));
+        // The wildcard may match the empty string.
+        Assert.assertTrue(matcher.matches("queue://.private."));
+        Assert.assertFalse(matcher.matches("topic://mats.private.Service"));
+        Assert.assertFalse(matcher.matches("queue://mats.privateService"));
+    }
+
+    @Test
+    public void regexSpecialCharactersAreLiteral() {
+        DestinationNameMatcher matcher = includes("queue://a.b*", "queue://x+y*$z", "queue://(p)*");
+        // The '.' is a literal dot.
+        Assert.assertTrue(matcher.matches("queue://a.bc"));
+        Assert.assertFalse(matcher.matches("queue://aXbc"));
+        // '+', '$', '(' and ')' are literal.
+        Assert.assertTrue(matcher.matches("queue://x+y123$z"));
+        Assert.assertFalse(matcher.matches("queue://xxy123$z"));
+        Assert.assertFalse(matcher.matches("queue://x+y123z"));
+        Assert.assertTrue(matcher.matches("queue://(p)q"));
+        Assert.assertFalse(matcher.matches("queue://pq"));
+    }
+
+    @Test
+    public void combinedRegexAlternatives_eachMatchWholeName() {
+        DestinationNameMatcher matcher = includes("a*b", "c*d");
+        Assert.assertTrue(matcher.matches("aXb"));
+        Assert.assertTrue(matcher.matches("cXd"));
+        // Must not match across the alternatives, or partially.
+        Assert.assertFalse(matcher.matches("aXd"));
+        Assert.assertFalse(matcher.matches("aXbc"));
+        Assert.assertFalse(matcher.matches("zcXd"));
+    }
+
+    @Test
+    public void excludeWinsOverInclude() {
+        DestinationNameMatcher matcher = DestinationNameMatcher.compile(List.of("queue://mats.*"),
+                List.of("queue://mats.Test*", "*.private"));
+        Assert.assertTrue(matcher.matches("queue://mats.Service.method"));
+        Assert.assertFalse(matcher.matches("queue://mats.TestService.method"));
+        Assert.assertFalse(matcher.matches("queue://mats.Service.private"));
+        // Not included at all.
+        Assert.assertFalse(matcher.matches("queue://other.Service"));
+    }
+
+    @Test
+    public void onlyExcludes_includesTheRest() {
+        DestinationNameMatcher matcher = DestinationNameMatcher.compile(null, List.of("topic://ActiveMQ.Advisory.*"));
+        Assert.assertFalse(matcher.isMatchAll());
+        Assert.assertTrue(matcher.matches("queue://mats.Service.method"));
+        Assert.assertFalse(matcher.matches("topic://ActiveMQ.Advisory.Queue"));
+    }
+
+    private static DestinationNameMatcher includes(String... patterns) {
+        return DestinationNameMatcher.compile(Arrays.asList(patterns), null);
+    }
+}
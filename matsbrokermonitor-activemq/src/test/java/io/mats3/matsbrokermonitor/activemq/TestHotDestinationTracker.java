@@ -0,0 +1,196 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.DestinationStatsDto;
+
+/**
+ * Tests the {@link HotDestinationTracker}: Promotion of changing DLQs and queues with rising head message age to the
+ * hot set, eviction after {@link Statics#HOT_DESTINATION_COOL_DOWN_SWEEPS} sweeps without qualifying, and that the
+ * cap keeps the highest scored.
+ */
+public class TestHotDestinationTracker implements Statics {
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    public void changingDlqIsPromoted_andEvictedAfterCoolDown() {
+        // :: ARRANGE
+
+        HotDestinationTracker tracker = new HotDestinationTracker();
+
+        // :: ACT & ASSERT
+
+        // A new DLQ with messages is hot, and the hot set went from empty to non-empty.
+        Assert.assertTrue(tracker.evaluate(Collections.singletonList(dlq("queue://DLQ.mats.A", 1)), true));
+        Assert.assertEquals(List.of("queue://DLQ.mats.A"), List.copyOf(tracker.getHotFqDestinationNames()));
+        // Still changing: Still hot, but not newly non-empty.
+        Assert.assertFalse(tracker.evaluate(Collections.singletonList(dlq("queue://DLQ.mats.A", 2)), true));
+        Assert.assertEquals(1, tracker.getHotFqDestinationNames().size());
+
+        // Unchanged: Stays hot for the cool down sweeps, minus the last one, which evicts it.
+        for (int i = 1; i < HOT_DESTINATION_COOL_DOWN_SWEEPS; i++) {
+            tracker.evaluate(Collections.singletonList(dlq("queue://DLQ.mats.A", 2)), true);
+            Assert.assertEquals("Sweep " + i, 1, tracker.getHotFqDestinationNames().size());
+        }
+        tracker.evaluate(Collections.singletonList(dlq("queue://DLQ.mats.A", 2)), true);
+        Assert.assertTrue(tracker.getHotFqDestinationNames().isEmpty());
+    }
+
+    @Test
+    public void requalifyingResetsCoolDown() {
+        // :: ARRANGE
+
+        HotDestinationTracker tracker = new HotDestinationTracker();
+        tracker.evaluate(Collections.singletonList(dlq("queue://DLQ.mats.A", 1)), true);
+
+        // :: ACT
+
+        // Cool down all but the last sweep, then change again.
+        for (int i = 1; i < HOT_DESTINATION_COOL_DOWN_SWEEPS; i++) {
+            tracker.evaluate(Collections.singletonList(dlq("queue://DLQ.mats.A", 1)), true);
+        }
+        tracker.evaluate(Collections.singletonList(dlq("queue://DLQ.mats.A", 5)), true);
+        // .. and one unchanged, which would have evicted it without the change.
+        tracker.evaluate(Collections.singletonList(dlq("queue://DLQ.mats.A", 5)), true);
+
+        // :: ASSERT
+
+        Assert.assertEquals(1, tracker.getHotFqDestinationNames().size());
+    }
+
+    @Test
+    public void emptyDlqIsNotHot_andTopicsAreIgnored() {
+        // :: ARRANGE
+
+        HotDestinationTracker tracker = new HotDestinationTracker();
+
+        // :: ACT
+
+        boolean becameNonEmpty = tracker.evaluate(Arrays.asList(dlq("queue://DLQ.mats.A", 0),
+                headAge("topic://mats.T", 10 * HOT_DESTINATION_MIN_HEAD_MESSAGE_AGE_MILLIS),
+                dlq("topic://DLQ.mats.T", 7)), true);
+
+        // :: ASSERT
+
+        Assert.assertFalse(becameNonEmpty);
+        Assert.assertTrue(tracker.getHotFqDestinationNames().isEmpty());
+    }
+
+    @Test
+    public void risingHeadMessageAgeIsPromoted_onlyWhenOldEnough() {
+        // :: ARRANGE
+
+        HotDestinationTracker tracker = new HotDestinationTracker();
+        long young = HOT_DESTINATION_MIN_HEAD_MESSAGE_AGE_MILLIS / 4;
+        long old = HOT_DESTINATION_MIN_HEAD_MESSAGE_AGE_MILLIS;
+
+        // :: ACT & ASSERT
+
+        // First sighting: Nothing to compare with.
+        tracker.evaluate(Arrays.asList(headAge("queue://mats.Young", young), headAge("queue://mats.Old", old)), true);
+        Assert.assertTrue(tracker.getHotFqDestinationNames().isEmpty());
+        // Rising for both, but only the old one is old enough.
+        tracker.evaluate(Arrays.asList(headAge("queue://mats.Young", 2 * young),
+                headAge("queue://mats.Old", 2 * old)), true);
+        Assert.assertEquals(List.of("queue://mats.Old"), List.copyOf(tracker.getHotFqDestinationNames()));
+    }
+
+    @Test
+    public void sweepFromOtherNodeClearsHotSet() {
+        // :: ARRANGE
+
+        HotDestinationTracker tracker = new HotDestinationTracker();
+        tracker.evaluate(Collections.singletonList(dlq("queue://DLQ.mats.A", 1)), true);
+        Assert.assertEquals(1, tracker.getHotFqDestinationNames().size());
+
+        // :: ACT
+
+        boolean becameNonEmpty = tracker.evaluate(Collections.singletonList(dlq("queue://DLQ.mats.A", 2)), false);
+
+        // :: ASSERT
+
+        Assert.assertFalse(becameNonEmpty);
+        Assert.assertTrue(tracker.getHotFqDestinationNames().isEmpty());
+    }
+
+    @Test
+    public void hotSetIsCapped_keepingTheHighestScored() {
+        // :: ARRANGE
+
+        HotDestinationTracker tracker = new HotDestinationTracker();
+        // Named so that alphabetical order is the opposite of the growth: "Service000" grows the least.
+        List<DestinationStatsDto> dlqs = new ArrayList<>();
+        for (int i = 0; i < HOT_DESTINATIONS_MAX + 10; i++) {
+            dlqs.add(dlq(String.format("queue://DLQ.mats.Service%03d", i), i + 1));
+        }
+
+        // :: ACT
+
+        tracker.evaluate(dlqs, true);
+
+        // :: ASSERT
+
+        List<String> hot = List.copyOf(tracker.getHotFqDestinationNames());
+        Assert.assertEquals(HOT_DESTINATIONS_MAX, hot.size());
+        // The ten that grew the least are out, and the one that grew the most is first.
+        for (int i = 0; i < 10; i++) {
+            Assert.assertFalse(hot.contains(String.format("queue://DLQ.mats.Service%03d", i)));
+        }
+        Assert.assertEquals(String.format("queue://DLQ.mats.Service%03d", HOT_DESTINATIONS_MAX + 9), hot.get(0));
+    }
+
+    @Test
+    public void cappedHotSet_prefersDlqs_thenOldestHeadMessage() {
+        // :: ARRANGE
+
+        HotDestinationTracker tracker = new HotDestinationTracker();
+        long old = HOT_DESTINATION_MIN_HEAD_MESSAGE_AGE_MILLIS;
+        // Queues with head message age, first sighting - rising on the next.
+        List<DestinationStatsDto> queues = new ArrayList<>();
+        for (int i = 0; i < HOT_DESTINATIONS_MAX; i++) {
+            queues.add(headAge(String.format("queue://mats.Service%03d", i), old + i));
+        }
+        tracker.evaluate(queues, true);
+        List<DestinationStatsDto> sweep = new ArrayList<>();
+        for (int i = 0; i < HOT_DESTINATIONS_MAX; i++) {
+            sweep.add(headAge(String.format("queue://mats.Service%03d", i), 2 * old + i));
+        }
+        sweep.add(dlq("queue://DLQ.mats.Service999", 1));
+
+        // :: ACT
+
+        tracker.evaluate(sweep, true);
+
+        // :: ASSERT
+
+        List<String> hot = List.copyOf(tracker.getHotFqDestinationNames());
+        Assert.assertEquals(HOT_DESTINATIONS_MAX, hot.size());
+        Assert.assertEquals("queue://DLQ.mats.Service999", hot.get(0));
+        Assert.assertEquals(String.format("queue://mats.Service%03d", HOT_DESTINATIONS_MAX - 1), hot.get(1));
+        // .. and the youngest head message is the one out.
+        Assert.assertFalse(hot.contains("queue://mats.Service000"));
+    }
+
+    private static DestinationStatsDto dlq(String fqDestinationName, long size) {
+        DestinationStatsDto dto = new DestinationStatsDto();
+        dto.destinationName = fqDestinationName;
+        dto.size = size;
+        dto.brokerTimeMillis = NOW;
+        return dto;
+    }
+
+    private static DestinationStatsDto headAge(String fqDestinationName, long headMessageAgeMillis) {
+        DestinationStatsDto dto = new DestinationStatsDto();
+        dto.destinationName = fqDestinationName;
+        dto.size = 1;
+        dto.brokerTimeMillis = NOW;
+        dto.firstMessageTimestampMillis = NOW - headMessageAgeMillis;
+        return dto;
+    }
+}
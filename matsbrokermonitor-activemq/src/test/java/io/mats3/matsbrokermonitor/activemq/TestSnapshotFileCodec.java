@@ -0,0 +1,353 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.DestinationStatsDto;
+import io.mats3.matsbrokermonitor.activemq.SnapshotFileCodec.StoredSnapshot;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerInfo;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerSnapshot;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.DestinationType;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.StageDestinationType;
+
+/**
+ * Tests the {@link SnapshotFileCodec}: That a snapshot survives the round-trip through the file, and that a truncated
+ * or corrupt file is rejected with an {@link IOException} - also when a length or count in it is huge.
+ */
+public class TestSnapshotFileCodec {
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final Path _file = createTempFile();
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(_file);
+        Files.deleteIfExists(_file.resolveSibling(_file.getFileName() + ".tmp"));
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        // :: ARRANGE
+
+        TestBrokerSnapshot snapshot = new TestBrokerSnapshot(new TestBrokerInfo("{\"brokerName\":\"broker\"}"),
+                new TestDestination("queue://mats.Service.method", 10, OptionalLong.of(2), OptionalLong.of(5000),
+                        NOW - 1000),
+                new TestDestination("queue://DLQ.mats.Service.method", 3, OptionalLong.empty(), OptionalLong.empty(),
+                        0));
+
+        // :: ACT
+
+        SnapshotFileCodec.write(snapshot, _file);
+        StoredSnapshot stored = SnapshotFileCodec.read(_file);
+
+        // :: ASSERT
+
+        Assert.assertEquals(NOW, stored.lastUpdateLocalMillis);
+        Assert.assertEquals(NOW - 500, stored.lastUpdateBrokerMillis);
+        Assert.assertEquals(60_000, stored.updateIntervalMillis);
+        Assert.assertEquals("NORMAL: Testing", stored.updateIntervalReason);
+        Assert.assertEquals("ActiveMQ", stored.brokerType);
+        Assert.assertEquals("broker", stored.brokerName);
+        Assert.assertEquals("{\"brokerName\":\"broker\"}", stored.brokerJson);
+
+        // In order of the destination name.
+        List<DestinationStatsDto> destinations = stored.destinationStatsDtos;
+        Assert.assertEquals(2, destinations.size());
+
+        DestinationStatsDto dlq = destinations.get(0);
+        Assert.assertEquals("queue://DLQ.mats.Service.method", dlq.destinationName);
+        Assert.assertEquals(3, dlq.size);
+        // Absent in-flight count is read as 0, absent head message age as no head message.
+        Assert.assertEquals(0, dlq.inflightCount);
+        Assert.assertEquals(0, dlq.firstMessageTimestampMillis);
+        Assert.assertEquals(NOW, dlq.statsReceivedMillis);
+        Assert.assertEquals(0, dlq.brokerTimeMillis);
+
+        DestinationStatsDto queue = destinations.get(1);
+        Assert.assertEquals("queue://mats.Service.method", queue.destinationName);
+        Assert.assertEquals(10, queue.size);
+        Assert.assertEquals(2, queue.inflightCount);
+        Assert.assertEquals(NOW, queue.statsReceivedMillis);
+        Assert.assertEquals(NOW - 1000, queue.brokerTimeMillis);
+        // The head message timestamp is recreated from the age, wrt. the broker time.
+        Assert.assertEquals(NOW - 1000 - 5000, queue.firstMessageTimestampMillis);
+    }
+
+    @Test
+    public void roundTripWithoutBrokerInfoOrDestinations() throws IOException {
+        // :: ARRANGE
+
+        TestBrokerSnapshot snapshot = new TestBrokerSnapshot(null);
+
+        // :: ACT
+
+        SnapshotFileCodec.write(snapshot, _file);
+        StoredSnapshot stored = SnapshotFileCodec.read(_file);
+
+        // :: ASSERT
+
+        Assert.assertNull(stored.brokerType);
+        Assert.assertNull(stored.brokerName);
+        Assert.assertNull(stored.brokerJson);
+        Assert.assertTrue(stored.destinationStatsDtos.isEmpty());
+        // The temporary file is moved in place.
+        Assert.assertFalse(Files.exists(_file.resolveSibling(_file.getFileName() + ".tmp")));
+    }
+
+    @Test
+    public void truncatedFileIsRejected() throws IOException {
+        // :: ARRANGE
+
+        SnapshotFileCodec.write(new TestBrokerSnapshot(new TestBrokerInfo(null),
+                new TestDestination("queue://mats.A", 1, OptionalLong.of(1), OptionalLong.of(1), NOW)), _file);
+        byte[] bytes = Files.readAllBytes(_file);
+
+        // :: ACT & ASSERT
+
+        // Cut at every length: None shall read, all shall fail with IOException.
+        for (int length = 0; length < bytes.length; length++) {
+            Files.write(_file, Arrays.copyOf(bytes, length));
+            Assert.assertThrows("Length " + length, IOException.class, () -> SnapshotFileCodec.read(_file));
+        }
+        // .. as shall trailing garbage.
+        Files.write(_file, Arrays.copyOf(bytes, bytes.length + 1));
+        Assert.assertThrows(IOException.class, () -> SnapshotFileCodec.read(_file));
+    }
+
+    @Test
+    public void hugeOrNegativeStringLengthIsRejected() throws IOException {
+        for (int length : new int[] { Integer.MAX_VALUE, 1_000_000, -2, Integer.MIN_VALUE }) {
+            // :: ARRANGE
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = writeHeader(bytes);
+            // The update interval reason, with a corrupt length - and then a few bytes.
+            out.writeInt(length);
+            out.write(new byte[16]);
+            Files.write(_file, bytes.toByteArray());
+
+            // :: ACT & ASSERT
+
+            IOException e = Assert.assertThrows("Length " + length, IOException.class,
+                    () -> SnapshotFileCodec.read(_file));
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("String length [" + length + "]"));
+        }
+    }
+
+    @Test
+    public void hugeOrNegativeDestinationCountIsRejected() throws IOException {
+        for (int count : new int[] { Integer.MAX_VALUE, 2, -1 }) {
+            // :: ARRANGE
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = writeHeader(bytes);
+            out.writeInt(-1); // No update interval reason
+            out.writeBoolean(false); // No BrokerInfo
+            out.writeInt(count);
+            // Room for one destination with an empty name - so 2 is too many.
+            out.writeInt(0);
+            out.write(new byte[5 * 8]);
+            Files.write(_file, bytes.toByteArray());
+
+            // :: ACT & ASSERT
+
+            IOException e = Assert.assertThrows("Count " + count, IOException.class,
+                    () -> SnapshotFileCodec.read(_file));
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("Destination count [" + count + "]"));
+        }
+    }
+
+    @Test
+    public void foreignFileIsRejected() throws IOException {
+        // :: ARRANGE
+
+        Files.write(_file, "Not a snapshot file at all".getBytes());
+
+        // :: ACT & ASSERT
+
+        Assert.assertThrows(IOException.class, () -> SnapshotFileCodec.read(_file));
+    }
+
+    private static DataOutputStream writeHeader(ByteArrayOutputStream bytes) throws IOException {
+        DataOutputStream out = new DataOutputStream(bytes);
+        // Magic and version
+        out.writeInt(0x4D42_534E);
+        out.writeInt(1);
+        // lastUpdateLocalMillis, lastUpdateBrokerMillis, updateIntervalMillis
+        out.writeLong(NOW);
+        out.writeLong(NOW);
+        out.writeLong(60_000);
+        return out;
+    }
+
+    private static Path createTempFile() {
+        try {
+            return Files.createTempFile("TestSnapshotFileCodec", ".snapshot");
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Could not create temp file.", e);
+        }
+    }
+
+    private static class TestBrokerSnapshot implements BrokerSnapshot {
+        private final BrokerInfo _brokerInfo;
+        private final NavigableMap<String, MatsBrokerDestination> _matsDestinations = new TreeMap<>();
+
+        TestBrokerSnapshot(BrokerInfo brokerInfo, MatsBrokerDestination... destinations) {
+            _brokerInfo = brokerInfo;
+            for (MatsBrokerDestination destination : destinations) {
+                _matsDestinations.put(destination.getFqDestinationName(), destination);
+            }
+        }
+
+        @Override
+        public long getLastUpdateLocalMillis() {
+            return NOW;
+        }
+
+        @Override
+        public OptionalLong getLastUpdateBrokerMillis() {
+            return OptionalLong.of(NOW - 500);
+        }
+
+        @Override
+        public OptionalDouble getStatisticsRequestReplyLatencyMillis() {
+            return OptionalDouble.empty();
+        }
+
+        @Override
+        public long getUpdateIntervalMillis() {
+            return 60_000;
+        }
+
+        @Override
+        public String getUpdateIntervalReason() {
+            return "NORMAL: Testing";
+        }
+
+        @Override
+        public NavigableMap<String, MatsBrokerDestination> getMatsDestinations() {
+            return _matsDestinations;
+        }
+
+        @Override
+        public Optional<BrokerInfo> getBrokerInfo() {
+            return Optional.ofNullable(_brokerInfo);
+        }
+    }
+
+    private static class TestBrokerInfo implements BrokerInfo {
+        private final String _brokerJson;
+
+        TestBrokerInfo(String brokerJson) {
+            _brokerJson = brokerJson;
+        }
+
+        @Override
+        public String getBrokerType() {
+            return "ActiveMQ";
+        }
+
+        @Override
+        public String getBrokerName() {
+            return "broker";
+        }
+
+        @Override
+        public Optional<String> getBrokerJson() {
+            return Optional.ofNullable(_brokerJson);
+        }
+    }
+
+    private static class TestDestination implements MatsBrokerDestination {
+        private final String _fqDestinationName;
+        private final long _numberOfQueuedMessages;
+        private final OptionalLong _numberOfInflightMessages;
+        private final OptionalLong _headMessageAgeMillis;
+        private final long _lastUpdateBrokerMillis;
+
+        TestDestination(String fqDestinationName, long numberOfQueuedMessages, OptionalLong numberOfInflightMessages,
+                OptionalLong headMessageAgeMillis, long lastUpdateBrokerMillis) {
+            _fqDestinationName = fqDestinationName;
+            _numberOfQueuedMessages = numberOfQueuedMessages;
+            _numberOfInflightMessages = numberOfInflightMessages;
+            _headMessageAgeMillis = headMessageAgeMillis;
+            _lastUpdateBrokerMillis = lastUpdateBrokerMillis;
+        }
+
+        @Override
+        public long getLastUpdateLocalMillis() {
+            return NOW;
+        }
+
+        @Override
+        public OptionalLong getLastUpdateBrokerMillis() {
+            return _lastUpdateBrokerMillis == 0 ? OptionalLong.empty() : OptionalLong.of(_lastUpdateBrokerMillis);
+        }
+
+        @Override
+        public String getFqDestinationName() {
+            return _fqDestinationName;
+        }
+
+        @Override
+        public String getDestinationName() {
+            return _fqDestinationName.substring("queue://".length());
+        }
+
+        @Override
+        public DestinationType getDestinationType() {
+            return DestinationType.QUEUE;
+        }
+
+        @Override
+        public boolean isDlq() {
+            return _fqDestinationName.contains("DLQ.");
+        }
+
+        @Override
+        public boolean isBrokerDefaultGlobalDlq() {
+            return false;
+        }
+
+        @Override
+        public Optional<String> getMatsStageId() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<StageDestinationType> getStageDestinationType() {
+            return Optional.empty();
+        }
+
+        @Override
+        public long getNumberOfQueuedMessages() {
+            return _numberOfQueuedMessages;
+        }
+
+        @Override
+        public OptionalLong getNumberOfInflightMessages() {
+            return _numberOfInflightMessages;
+        }
+
+        @Override
+        public OptionalLong getHeadMessageAgeMillis() {
+            return _headMessageAgeMillis;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.jms.JMSException;
+import jakarta.jms.MapMessage;
+
+import org.apache.activemq.command.ActiveMQMapMessage;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.management.ThreadMXBean;
+
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.DestinationStatsDto;
+
+/**
+ * Measures the garbage produced when parsing and installing the destination statistics reply messages: When the stats
+ * are unchanged since the previous sweep, there shall be close to no allocations per destination.
+ */
+public class TestStatsParsingAllocation {
+    private static final Logger log = LoggerFactory.getLogger(TestStatsParsingAllocation.class);
+
+    private static final int NUMBER_OF_DESTINATIONS = 10_000;
+
+    @Test
+    public void unchangedStatsShouldNotAllocatePerDestination() throws JMSException {
+        ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue("Thread allocation measurement not supported on this JVM.",
+                threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        // :: ARRANGE
+
+        ActiveMqBrokerStatsQuerierImpl statsQuerier = ActiveMqBrokerStatsQuerierImpl.create(null);
+        List<MapMessage> messages = new ArrayList<>(NUMBER_OF_DESTINATIONS);
+        for (int i = 0; i < NUMBER_OF_DESTINATIONS; i++) {
+            messages.add(createDestinationStatsMessage("queue://mats.Service" + i + ".method", i));
+        }
+
+        // :: ACT
+
+        // First sweep: All destinations are new.
+        long bytesFirstSweep = sweep(threadMXBean, statsQuerier, messages);
+        DestinationStatsDto dtoAfterFirstSweep = statsQuerier.getCurrentDestinationStatsDtos()
+                .get("queue://mats.Service0.method");
+        // Some sweeps to warm up.
+        for (int i = 0; i < 5; i++) {
+            sweep(threadMXBean, statsQuerier, messages);
+        }
+        // Measure a sweep where all stats are unchanged.
+        long bytesUnchangedSweep = sweep(threadMXBean, statsQuerier, messages);
+
+        // :: ASSERT
+
+        log.info("Allocated bytes for [" + NUMBER_OF_DESTINATIONS + "] destinations: First sweep: ["
+                + bytesFirstSweep + "] (" + (bytesFirstSweep / NUMBER_OF_DESTINATIONS) + " per destination),"
+                + " unchanged sweep: [" + bytesUnchangedSweep + "] (" + (bytesUnchangedSweep / NUMBER_OF_DESTINATIONS)
+                + " per destination).");
+
+        Assert.assertTrue("A sweep with unchanged stats should allocate less than 16 bytes per destination, but"
+                + " allocated [" + bytesUnchangedSweep + "] bytes for [" + NUMBER_OF_DESTINATIONS + "] destinations.",
+                bytesUnchangedSweep < NUMBER_OF_DESTINATIONS * 16L);
+        // The unchanged DTO should be the same instance.
+        Assert.assertSame(dtoAfterFirstSweep, statsQuerier.getCurrentDestinationStatsDtos()
+                .get("queue://mats.Service0.method"));
+
+        // :: Change the stats for one destination: This shall give a new DTO, with the same (canonical) name instance.
+        messages.get(0).setLong("size", 42);
+        sweep(threadMXBean, statsQuerier, messages);
+        DestinationStatsDto dtoAfterChange = statsQuerier.getCurrentDestinationStatsDtos()
+                .get("queue://mats.Service0.method");
+        Assert.assertNotSame(dtoAfterFirstSweep, dtoAfterChange);
+        Assert.assertEquals(42, dtoAfterChange.size);
+        Assert.assertSame(dtoAfterFirstSweep.destinationName, dtoAfterChange.destinationName);
+    }
+
+    private static long sweep(ThreadMXBean threadMXBean, ActiveMqBrokerStatsQuerierImpl statsQuerier,
+            List<MapMessage> messages) throws JMSException {
+        long bytesBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < messages.size(); i++) {
+            statsQuerier.installDestinationStats(messages.get(i));
+        }
+        return threadMXBean.getCurrentThreadAllocatedBytes() - bytesBefore;
+    }
+
+    private static MapMessage createDestinationStatsMessage(String fqDestinationName, long size)
+            throws JMSException {
+        ActiveMQMapMessage mm = new ActiveMQMapMessage();
+        mm.setJMSTimestamp(System.currentTimeMillis());
+        mm.setString("destinationName", fqDestinationName);
+        mm.setString("brokerId", "ID:test-broker-1");
+        mm.setString("brokerName", "test-broker");
+        mm.setLong("size", size);
+        mm.setLong("enqueueCount", size * 10);
+        mm.setLong("dequeueCount", size * 9);
+        mm.setLong("expiredCount", 0);
+        mm.setLong("dispatchCount", size * 9);
+        mm.setLong("inflightCount", 0);
+        mm.setLong("producerCount", 1);
+        mm.setLong("consumerCount", 2);
+        mm.setDouble("minEnqueueTime", 1.5);
+        mm.setDouble("averageEnqueueTime", 12.25);
+        mm.setDouble("maxEnqueueTime", 100);
+        mm.setLong("memoryUsage", 1024);
+        mm.setLong("memoryLimit", 1024 * 1024);
+        mm.setInt("memoryPercentUsage", 0);
+        mm.setLong("averageMessageSize", 512);
+        mm.setLong("messagesCached", 0);
+        mm.setLong("firstMessageTimestamp", size > 0 ? System.currentTimeMillis() - 1000 : 0);
+        return mm;
+    }
+}
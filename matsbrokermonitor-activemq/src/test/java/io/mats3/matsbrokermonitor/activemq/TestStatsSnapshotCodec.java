@@ -0,0 +1,210 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.BrokerStatsDto;
+import io.mats3.matsbrokermonitor.activemq.ActiveMqBrokerStatsQuerier.DestinationStatsDto;
+import io.mats3.matsbrokermonitor.activemq.StatsSnapshotCodec.StatsSnapshot;
+
+/**
+ * Tests the {@link StatsSnapshotCodec}: That a snapshot survives the round-trip, and that truncated or foreign input is
+ * rejected with an {@link IOException}, not garbage - also when a count in it is huge or negative.
+ */
+public class TestStatsSnapshotCodec {
+
+    @Test
+    public void roundTrip() throws IOException {
+        // :: ARRANGE
+
+        BrokerStatsDto brokerStats = new BrokerStatsDto();
+        fillCommonStats(brokerStats, 1);
+        brokerStats.storeUsage = 1000;
+        brokerStats.storeLimit = 10_000;
+        brokerStats.storePercentUsage = 10;
+        brokerStats.tempUsage = 2000;
+        brokerStats.tempLimit = 20_000;
+        brokerStats.tempPercentUsage = 10;
+        brokerStats.openwire = "tcp://localhost:61616";
+        brokerStats.dataDirectory = "/var/activemq";
+
+        DestinationStatsDto queue = destinationStats("queue://mats.Service.method", 2);
+        queue.firstMessageTimestampMillis = 1_700_000_000_000L;
+        DestinationStatsDto topic = destinationStats("topic://mats.Service.topic", 3);
+        // Nulls shall survive.
+        topic.brokerName = null;
+
+        StatsSnapshot snapshot = new StatsSnapshot("node-1", true, false, Arrays.asList("cid-1", "cid-2"),
+                brokerStats, Arrays.asList(queue, topic));
+
+        // :: ACT
+
+        StatsSnapshot decoded = StatsSnapshotCodec.decode(StatsSnapshotCodec.encode(snapshot));
+
+        // :: ASSERT
+
+        Assert.assertEquals("node-1", decoded.originatingNodeId);
+        Assert.assertTrue(decoded.fullUpdate);
+        Assert.assertFalse(decoded.partialUpdate);
+        Assert.assertEquals(Arrays.asList("cid-1", "cid-2"), decoded.correlationIds);
+
+        Assert.assertNotNull(decoded.brokerStatsDto);
+        Assert.assertTrue(brokerStats.isSameCommonStats(decoded.brokerStatsDto));
+        Assert.assertEquals(brokerStats.statsReceivedMillis, decoded.brokerStatsDto.statsReceivedMillis);
+        Assert.assertEquals(brokerStats.brokerTimeMillis, decoded.brokerStatsDto.brokerTimeMillis);
+        Assert.assertEquals(1000, decoded.brokerStatsDto.storeUsage);
+        Assert.assertEquals(10_000, decoded.brokerStatsDto.storeLimit);
+        Assert.assertEquals(20_000, decoded.brokerStatsDto.tempLimit);
+        Assert.assertEquals("tcp://localhost:61616", decoded.brokerStatsDto.openwire);
+        Assert.assertNull(decoded.brokerStatsDto.ssl);
+        Assert.assertEquals("/var/activemq", decoded.brokerStatsDto.dataDirectory);
+
+        List<DestinationStatsDto> destinations = List.copyOf(decoded.destinationStatsDtos);
+        Assert.assertEquals(2, destinations.size());
+        assertSameDestinationStats(queue, destinations.get(0));
+        assertSameDestinationStats(topic, destinations.get(1));
+        Assert.assertNull(destinations.get(1).brokerName);
+    }
+
+    @Test
+    public void roundTripWithoutBrokerStatsOrCorrelationIds() throws IOException {
+        // :: ARRANGE
+
+        StatsSnapshot snapshot = new StatsSnapshot(null, false, true, Collections.emptyList(), null,
+                Collections.singletonList(destinationStats("queue://DLQ.mats.Service.method", 4)));
+
+        // :: ACT
+
+        StatsSnapshot decoded = StatsSnapshotCodec.decode(StatsSnapshotCodec.encode(snapshot));
+
+        // :: ASSERT
+
+        Assert.assertNull(decoded.originatingNodeId);
+        Assert.assertFalse(decoded.fullUpdate);
+        Assert.assertTrue(decoded.partialUpdate);
+        Assert.assertTrue(decoded.correlationIds.isEmpty());
+        Assert.assertNull(decoded.brokerStatsDto);
+        Assert.assertEquals(1, decoded.destinationStatsDtos.size());
+    }
+
+    @Test
+    public void truncatedInputIsRejected() throws IOException {
+        // :: ARRANGE
+
+        StatsSnapshot snapshot = new StatsSnapshot("node-1", false, false, Collections.emptyList(), null,
+                Arrays.asList(destinationStats("queue://mats.A", 1), destinationStats("queue://mats.B", 2)));
+        byte[] encoded = StatsSnapshotCodec.encode(snapshot);
+
+        // :: ACT & ASSERT
+
+        // Cut at every length: None shall decode, all shall fail with IOException.
+        for (int length = 0; length < encoded.length; length++) {
+            byte[] truncated = Arrays.copyOf(encoded, length);
+            Assert.assertThrows("Length " + length, IOException.class, () -> StatsSnapshotCodec.decode(truncated));
+        }
+    }
+
+    @Test
+    public void hugeOrNegativeCorrelationIdCountIsRejected() throws IOException {
+        for (int count : new int[] { Integer.MAX_VALUE, 100_000_000, -1, Integer.MIN_VALUE }) {
+            // :: ARRANGE
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = writeHeader(bytes)) {
+                out.writeInt(count);
+                out.write(new byte[16]);
+            }
+
+            // :: ACT & ASSERT
+
+            IOException e = Assert.assertThrows("Count " + count, IOException.class,
+                    () -> StatsSnapshotCodec.decode(bytes.toByteArray()));
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("CorrelationId count [" + count + "]"));
+        }
+    }
+
+    @Test
+    public void hugeOrNegativeDestinationCountIsRejected() throws IOException {
+        for (int count : new int[] { Integer.MAX_VALUE, 100_000_000, -1, Integer.MIN_VALUE }) {
+            // :: ARRANGE
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = writeHeader(bytes)) {
+                out.writeInt(0); // No correlationIds
+                out.writeBoolean(false); // No broker stats
+                out.writeInt(count);
+                out.write(new byte[16]);
+            }
+
+            // :: ACT & ASSERT
+
+            IOException e = Assert.assertThrows("Count " + count, IOException.class,
+                    () -> StatsSnapshotCodec.decode(bytes.toByteArray()));
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("Destination count [" + count + "]"));
+        }
+    }
+
+    @Test
+    public void foreignInputIsRejected() {
+        // :: ACT & ASSERT
+
+        // Not GZIP at all.
+        Assert.assertThrows(IOException.class, () -> StatsSnapshotCodec.decode(new byte[] { 1, 2, 3, 4, 5, 6 }));
+    }
+
+    private static DataOutputStream writeHeader(ByteArrayOutputStream bytes) throws IOException {
+        DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes));
+        // Magic and version
+        out.writeInt(0x4D42_4D53);
+        out.writeInt(1);
+        // No originating node id, not full, not partial
+        out.writeBoolean(false);
+        out.writeBoolean(false);
+        out.writeBoolean(false);
+        return out;
+    }
+
+    private static DestinationStatsDto destinationStats(String fqDestinationName, int seed) {
+        DestinationStatsDto dto = new DestinationStatsDto();
+        dto.destinationName = fqDestinationName;
+        fillCommonStats(dto, seed);
+        return dto;
+    }
+
+    private static void fillCommonStats(ActiveMqBrokerStatsQuerier.CommonStatsDto dto, int seed) {
+        dto.statsReceivedMillis = 1_700_000_001_000L + seed;
+        dto.brokerId = "ID:broker-" + seed;
+        dto.brokerName = "broker";
+        dto.brokerTimeMillis = 1_700_000_002_000L + seed;
+        dto.size = 10L * seed;
+        dto.enqueueCount = 100L * seed;
+        dto.dequeueCount = 90L * seed;
+        dto.expiredCount = seed;
+        dto.dispatchCount = 95L * seed;
+        dto.inflightCount = 5L * seed;
+        dto.producerCount = seed;
+        dto.consumerCount = 2L * seed;
+        dto.minEnqueueTime = 0.5 * seed;
+        dto.averageEnqueueTime = 1.25 * seed;
+        dto.maxEnqueueTime = 10.75 * seed;
+        dto.averageMessageSize = 512L * seed;
+        dto.messagesCached = seed;
+        dto.memoryUsage = 1024L * seed;
+        dto.memoryLimit = 1024L * 1024;
+        dto.memoryPercentUsage = seed;
+    }
+
+    private static void assertSameDestinationStats(DestinationStatsDto expected, DestinationStatsDto actual) {
+        Assert.assertTrue("Expected " + expected + ", got " + actual, expected.isSameStats(actual));
+        Assert.assertEquals(expected.statsReceivedMillis, actual.statsReceivedMillis);
+        Assert.assertEquals(expected.brokerTimeMillis, actual.brokerTimeMillis);
+    }
+}
@@ -0,0 +1,118 @@
+package io.mats3.matsbrokermonitor.activemq;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link StatsTimeIndex}: Expiry by whole buckets of {@link Statics#STATS_TIME_INDEX_BUCKET_MILLIS}, that
+ * re-touching moves a destination forward (never back), removal, and rolling over many bucket periods.
+ */
+public class TestStatsTimeIndex implements Statics {
+    // Start of a bucket.
+    private static final long T0 = 1_700_000_000_000L / STATS_TIME_INDEX_BUCKET_MILLIS * STATS_TIME_INDEX_BUCKET_MILLIS;
+    private static final long BUCKET = STATS_TIME_INDEX_BUCKET_MILLIS;
+
+    @Test
+    public void expiresOnlyWholeBucketsOlderThanCutoff() {
+        // :: ARRANGE
+
+        StatsTimeIndex index = new StatsTimeIndex();
+        index.touch("queue://mats.A", T0);
+        index.touch("queue://mats.B", T0 + BUCKET - 1);
+        index.touch("queue://mats.C", T0 + BUCKET);
+        index.touch("queue://mats.D", T0 + 3 * BUCKET);
+
+        // :: ACT & ASSERT
+
+        // Cutoff inside the first bucket: It is not entirely older, so nothing - even though A is older.
+        Assert.assertTrue(index.expireOlderThan(T0 + BUCKET - 1).isEmpty());
+        // Cutoff at the end of the first bucket: A and B.
+        Assert.assertEquals(List.of("queue://mats.A", "queue://mats.B"), sorted(index.expireOlderThan(T0 + BUCKET)));
+        // Already expired are not returned again.
+        Assert.assertTrue(index.expireOlderThan(T0 + BUCKET).isEmpty());
+        // Cutoff far after C's, but before D's bucket end.
+        Assert.assertEquals(List.of("queue://mats.C"), index.expireOlderThan(T0 + 3 * BUCKET + 1));
+        Assert.assertEquals(List.of("queue://mats.D"), index.expireOlderThan(T0 + 4 * BUCKET));
+    }
+
+    @Test
+    public void reTouchMovesForward_neverBack() {
+        // :: ARRANGE
+
+        StatsTimeIndex index = new StatsTimeIndex();
+        index.touch("queue://mats.A", T0);
+        index.touch("queue://mats.B", T0);
+
+        // :: ACT
+
+        // A gets new stats in a later bucket, and then late stats from before - which shall not move it back.
+        index.touch("queue://mats.A", T0 + 5 * BUCKET);
+        index.touch("queue://mats.A", T0 + BUCKET);
+        // B is touched again within its bucket.
+        index.touch("queue://mats.B", T0 + BUCKET - 1);
+
+        // :: ASSERT
+
+        Assert.assertEquals(List.of("queue://mats.B"), index.expireOlderThan(T0 + 5 * BUCKET));
+        Assert.assertEquals(List.of("queue://mats.A"), index.expireOlderThan(T0 + 6 * BUCKET));
+    }
+
+    @Test
+    public void removedIsNotExpired() {
+        // :: ARRANGE
+
+        StatsTimeIndex index = new StatsTimeIndex();
+        index.touch("queue://mats.A", T0);
+        index.touch("queue://mats.B", T0);
+
+        // :: ACT
+
+        index.remove("queue://mats.A");
+        // Removing an unknown is fine.
+        index.remove("queue://mats.Unknown");
+
+        // :: ASSERT
+
+        Assert.assertEquals(List.of("queue://mats.B"), index.expireOlderThan(T0 + BUCKET));
+    }
+
+    @Test
+    public void rollingOverManyBucketPeriods_reEntersAfterExpiry() {
+        // :: ARRANGE
+
+        StatsTimeIndex index = new StatsTimeIndex();
+        int periods = 1_000;
+        int keepAliveBuckets = 3;
+
+        // :: ACT & ASSERT
+
+        // "Live" is touched every bucket, "Intermittent" every 5th: It expires in between, and comes back.
+        int intermittentExpiries = 0;
+        for (int i = 0; i < periods; i++) {
+            long nowMillis = T0 + i * BUCKET;
+            index.touch("queue://mats.Live", nowMillis);
+            if (i % 5 == 0) {
+                index.touch("queue://mats.Intermittent", nowMillis);
+            }
+            List<String> expired = index.expireOlderThan(nowMillis - keepAliveBuckets * BUCKET);
+            Assert.assertFalse("Period " + i, expired.contains("queue://mats.Live"));
+            if (expired.contains("queue://mats.Intermittent")) {
+                intermittentExpiries++;
+            }
+        }
+        // It expires 4 buckets after each touch, i.e. once per 5 periods - also the last.
+        Assert.assertEquals(periods / 5, intermittentExpiries);
+        // In the end, the live one expires too.
+        Assert.assertEquals(List.of("queue://mats.Live"), index.expireOlderThan(T0 + (periods + 1) * BUCKET));
+    }
+
+    private static List<String> sorted(List<String> names) {
+        List<String> sorted = new ArrayList<>(names);
+        Collections.sort(sorted);
+        return sorted;
+    }
+}
@@ -0,0 +1,1251 @@
+package io.mats3.matsbrokermonitor.api;
+
+import java.util.AbstractMap;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerInfo;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerSnapshot;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.DestinationCounters;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.ConsumerStatus;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.DestinationType;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.StageDestinationType;
+import io.mats3.matsbrokermonitor.api.MatsDestinationClassifier.Classification;
+
+/**
+ * A compact, immutable {@link BrokerSnapshot} for very large fabrics, in struct-of-arrays form: Each destination has a
+ * dense int id, and its values are stored in primitive columns (<code>long[]</code>, <code>double[]</code> and
+ * <code>byte[]</code>) instead of in an object per destination. The {@link MatsBrokerDestination} instances handed out
+ * are flyweight views over a row, and the aggregations (e.g. {@link #getTotalNumberOfQueuedMessages()}) are plain loops
+ * over the columns.
+ * <p>
+ * The columns are split in chunks of 256 rows, which a snapshot shares with the snapshots made from it using
+ * {@link #toBuilder()}: Only the chunks holding rows whose values changed are copied. Thus, a new snapshot where a few
+ * destinations changed costs in proportion to those, not to the total number of destinations - and the values that
+ * change on every update, like the timestamps and rates, are a few primitives per destination, not a new object. The
+ * ids of removed destinations are reused for new destinations.
+ * <p>
+ * Create from any other snapshot using {@link #of(BrokerSnapshot)}, or build using {@link #newBuilder()}.
+ * <p>
+ * Thread safe (immutable).
+ */
+public final class ColumnarBrokerSnapshot implements BrokerSnapshot {
+    private static final int CHUNK_SHIFT = 8;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // The number of inflight messages when not known (the other values use 0 for "not present", as the DTOs do).
+    private static final long INFLIGHT_ABSENT = -1;
+
+    private static final StageDestinationType[] STAGE_DESTINATION_TYPES = StageDestinationType.values();
+    private static final ConsumerStatus[] CONSUMER_STATUSES = ConsumerStatus.values();
+
+    private static final byte FLAG_PRESENT = 1;
+    private static final byte FLAG_QUEUE = 2;
+    private static final byte FLAG_DLQ = 4;
+    private static final byte FLAG_GLOBAL_DLQ = 8;
+
+    // :: Snapshot-level
+    private final long _lastUpdateLocalMillis;
+    private final long _lastUpdateBrokerMillis; // 0 if not present
+    private final double _statisticsRequestReplyLatencyMillis; // NaN if not present
+    private final long _updateIntervalMillis;
+    private final String _updateIntervalReason;
+    private final BrokerInfo _brokerInfo; // nullable
+    private final boolean _stale;
+
+    // :: Indexes: Fully qualified destination name -> id, for all destinations, and for those having queued messages.
+    private final PersistentSortedMap<Integer> _ids;
+    private final PersistentSortedMap<Integer> _nonEmptyIds;
+    private final int[] _freeIds; // the ids of removed destinations, for reuse
+    private final int _idLimit; // all ids are within [0, idLimit)
+
+    // :: Columns, indexed by id. Removed destinations' rows are cleared.
+    private final Column<String[]> _fqDestinationNames; // null elements if removed
+    private final Column<String[]> _destinationNames;
+    private final Column<String[]> _matsStageIds; // null elements if not Mats destination
+    private final Column<byte[]> _flags;
+    private final Column<byte[]> _stageDestinationTypes; // ordinal, -1 if not Mats destination
+    private final Column<long[]> _numberOfQueuedMessages;
+    private final Column<long[]> _numberOfInflightMessages; // INFLIGHT_ABSENT if not known
+    private final Column<long[]> _headMessageTimestampMillis; // 0 if no head message
+    private final Column<long[]> _destinationLastUpdateLocalMillis;
+    private final Column<long[]> _destinationLastUpdateBrokerMillis; // 0 if not present
+    private final Column<double[]> _enqueueRatePerSecond; // NaN if not present
+    private final Column<double[]> _dequeueRatePerSecond; // NaN if not present
+    private final Column<double[]> _queueDepthSlopePerSecond; // NaN if not present
+    private final Column<byte[]> _consumerStatuses; // ordinal
+    private final Column<DestinationCounters[]> _counters; // null elements if not present. Referenced, not copied.
+
+    private volatile NavigableMap<String, MatsBrokerDestination> _matsDestinations; // lazily created view
+    private volatile NavigableMap<String, MatsBrokerDestination> _nonEmptyMatsDestinations; // lazily created view
+
+    private ColumnarBrokerSnapshot(Builder builder) {
+        _lastUpdateLocalMillis = builder._lastUpdateLocalMillis;
+        _lastUpdateBrokerMillis = builder._lastUpdateBrokerMillis;
+        _statisticsRequestReplyLatencyMillis = builder._statisticsRequestReplyLatencyMillis;
+        _updateIntervalMillis = builder._updateIntervalMillis;
+        _updateIntervalReason = builder._updateIntervalReason;
+        _brokerInfo = builder._brokerInfo;
+        _stale = builder._stale;
+
+        _ids = builder._ids;
+        _nonEmptyIds = builder._nonEmptyIds;
+        _freeIds = Arrays.copyOf(builder._freeIds, builder._freeIdCount);
+        _idLimit = builder._idLimit;
+
+        _fqDestinationNames = builder._fqDestinationNames;
+        _destinationNames = builder._destinationNames;
+        _matsStageIds = builder._matsStageIds;
+        _flags = builder._flags;
+        _stageDestinationTypes = builder._stageDestinationTypes;
+        _numberOfQueuedMessages = builder._numberOfQueuedMessages;
+        _numberOfInflightMessages = builder._numberOfInflightMessages;
+        _headMessageTimestampMillis = builder._headMessageTimestampMillis;
+        _destinationLastUpdateLocalMillis = builder._destinationLastUpdateLocalMillis;
+        _destinationLastUpdateBrokerMillis = builder._destinationLastUpdateBrokerMillis;
+        _enqueueRatePerSecond = builder._enqueueRatePerSecond;
+        _dequeueRatePerSecond = builder._dequeueRatePerSecond;
+        _queueDepthSlopePerSecond = builder._queueDepthSlopePerSecond;
+        _consumerStatuses = builder._consumerStatuses;
+        _counters = builder._counters;
+    }
+
+    /**
+     * @return a builder for a snapshot without any destinations.
+     */
+    public static Builder newBuilder() {
+        return new Builder(null);
+    }
+
+    /**
+     * @return a builder starting out with the values of this snapshot, sharing its columns until changed - this
+     *         snapshot is not affected by what is done with the builder.
+     */
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    /**
+     * @return a columnar copy of the given snapshot - or the same instance, if it already is columnar.
+     */
+    public static ColumnarBrokerSnapshot of(BrokerSnapshot snapshot) {
+        if (snapshot instanceof ColumnarBrokerSnapshot) {
+            return (ColumnarBrokerSnapshot) snapshot;
+        }
+        Builder builder = newBuilder()
+                .lastUpdateLocalMillis(snapshot.getLastUpdateLocalMillis())
+                .lastUpdateBrokerMillis(snapshot.getLastUpdateBrokerMillis().orElse(0))
+                .statisticsRequestReplyLatencyMillis(snapshot.getStatisticsRequestReplyLatencyMillis()
+                        .orElse(Double.NaN))
+                .updateInterval(snapshot.getUpdateIntervalMillis(), snapshot.getUpdateIntervalReason())
+                .brokerInfo(snapshot.getBrokerInfo().orElse(null))
+                .stale(snapshot.isStale());
+        for (MatsBrokerDestination destination : snapshot.getMatsDestinations().values()) {
+            int id = builder.add(destination.getFqDestinationName(), destination.getDestinationName(),
+                    destination.getDestinationType(), destination.isDlq(), destination.isBrokerDefaultGlobalDlq(),
+                    destination.getMatsStageId().orElse(null), destination.getStageDestinationType().orElse(null));
+            long lastUpdateLocalMillis = destination.getLastUpdateLocalMillis();
+            long lastUpdateBrokerMillis = destination.getLastUpdateBrokerMillis().orElse(0);
+            // The head message age is relative to the destination's last update, so store its timestamp.
+            OptionalLong headMessageAgeMillis = destination.getHeadMessageAgeMillis();
+            long headMessageTimestampMillis = headMessageAgeMillis.isPresent()
+                    ? (lastUpdateBrokerMillis != 0 ? lastUpdateBrokerMillis : lastUpdateLocalMillis)
+                            - headMessageAgeMillis.getAsLong()
+                    : 0;
+            builder.setMessages(id, destination.getNumberOfQueuedMessages(),
+                    destination.getNumberOfInflightMessages().orElse(INFLIGHT_ABSENT), headMessageTimestampMillis,
+                    destination.getCounters().orElse(null))
+                    .setUpdated(id, lastUpdateLocalMillis, lastUpdateBrokerMillis)
+                    .setRates(id, destination.getEnqueueRatePerSecond().orElse(Double.NaN),
+                            destination.getDequeueRatePerSecond().orElse(Double.NaN),
+                            destination.getQueueDepthSlopePerSecond().orElse(Double.NaN),
+                            destination.getConsumerStatus());
+        }
+        return builder.build();
+    }
+
+    // ===== Columnar access
+
+    /**
+     * @return the number of destinations.
+     */
+    public int size() {
+        return _ids.size();
+    }
+
+    /**
+     * @return the upper bound (exclusive) of the ids: They are within <code>[0, idLimit)</code>, with holes where
+     *         destinations were removed, see {@link #isPresent(int)}.
+     */
+    public int getIdLimit() {
+        return _idLimit;
+    }
+
+    /**
+     * @return whether there is a destination with the given id.
+     */
+    public boolean isPresent(int id) {
+        return (id >= 0) && (id < _idLimit) && ((byteAt(_flags, id) & FLAG_PRESENT) != 0);
+    }
+
+    /**
+     * @return the id of the destination, or <code>-1</code> if not present.
+     */
+    public int indexOf(String fqDestinationName) {
+        Integer id = _ids.get(fqDestinationName);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return a flyweight view of the destination with the given id.
+     */
+    public MatsBrokerDestination getDestination(int id) {
+        checkId(id);
+        return new DestinationRow(this, id);
+    }
+
+    public String getFqDestinationName(int id) {
+        checkId(id);
+        return objectAt(_fqDestinationNames, id);
+    }
+
+    public long getNumberOfQueuedMessages(int id) {
+        checkId(id);
+        return longAt(_numberOfQueuedMessages, id);
+    }
+
+    public OptionalLong getHeadMessageAgeMillis(int id) {
+        checkId(id);
+        return headMessageAgeMillis(id);
+    }
+
+    /**
+     * @return the sum of queued messages over all destinations.
+     */
+    public long getTotalNumberOfQueuedMessages() {
+        long total = 0;
+        // Note: Removed destinations' rows are cleared, so we need not check whether present.
+        for (int chunk = 0; chunk < chunkCount(_idLimit); chunk++) {
+            long[] numberOfQueuedMessages = _numberOfQueuedMessages.chunk(chunk);
+            int rows = rowsInChunk(chunk, _idLimit);
+            for (int row = 0; row < rows; row++) {
+                total += numberOfQueuedMessages[row];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return the number of destinations having queued messages.
+     */
+    public int getNumberOfNonEmptyDestinations() {
+        return _nonEmptyIds.size();
+    }
+
+    /**
+     * @param dlqs
+     *            whether to consider the DLQs (<code>true</code>) or the other destinations (<code>false</code>).
+     * @return the id of the destination with the oldest head message among the DLQs or non-DLQs, or <code>-1</code>
+     *         if none has a head message.
+     */
+    public int getIdOfOldestHeadMessage(boolean dlqs) {
+        int oldestId = -1;
+        long oldestAge = Long.MIN_VALUE;
+        for (int chunk = 0; chunk < chunkCount(_idLimit); chunk++) {
+            byte[] flags = _flags.chunk(chunk);
+            long[] headMessageTimestampMillis = _headMessageTimestampMillis.chunk(chunk);
+            long[] lastUpdateLocalMillis = _destinationLastUpdateLocalMillis.chunk(chunk);
+            long[] lastUpdateBrokerMillis = _destinationLastUpdateBrokerMillis.chunk(chunk);
+            int rows = rowsInChunk(chunk, _idLimit);
+            for (int row = 0; row < rows; row++) {
+                // ?: Removed, no head message, or not of the kind we look for?
+                if (((flags[row] & FLAG_PRESENT) == 0) || (headMessageTimestampMillis[row] == 0)
+                        || (((flags[row] & FLAG_DLQ) != 0) != dlqs)) {
+                    // -> Yes, so skip.
+                    continue;
+                }
+                long age = (lastUpdateBrokerMillis[row] != 0 ? lastUpdateBrokerMillis[row] : lastUpdateLocalMillis[row])
+                        - headMessageTimestampMillis[row];
+                if (age > oldestAge) {
+                    oldestAge = age;
+                    oldestId = (chunk << CHUNK_SHIFT) | row;
+                }
+            }
+        }
+        return oldestId;
+    }
+
+    /**
+     * @return the destinations having queued messages, consisting of flyweight views over the rows.
+     */
+    public NavigableMap<String, MatsBrokerDestination> getNonEmptyMatsDestinations() {
+        NavigableMap<String, MatsBrokerDestination> nonEmptyMatsDestinations = _nonEmptyMatsDestinations;
+        if (nonEmptyMatsDestinations == null) {
+            nonEmptyMatsDestinations = new DestinationsView(this, _nonEmptyIds);
+            _nonEmptyMatsDestinations = nonEmptyMatsDestinations;
+        }
+        return nonEmptyMatsDestinations;
+    }
+
+    // ===== BrokerSnapshot
+
+    @Override
+    public long getLastUpdateLocalMillis() {
+        return _lastUpdateLocalMillis;
+    }
+
+    @Override
+    public OptionalLong getLastUpdateBrokerMillis() {
+        return _lastUpdateBrokerMillis != 0 ? OptionalLong.of(_lastUpdateBrokerMillis) : OptionalLong.empty();
+    }
+
+    @Override
+    public OptionalDouble getStatisticsRequestReplyLatencyMillis() {
+        return optional(_statisticsRequestReplyLatencyMillis);
+    }
+
+    @Override
+    public long getUpdateIntervalMillis() {
+        return _updateIntervalMillis;
+    }
+
+    @Override
+    public String getUpdateIntervalReason() {
+        return _updateIntervalReason;
+    }
+
+    /**
+     * The map consists of flyweight views over the rows, which are created when accessed.
+     */
+    @Override
+    public NavigableMap<String, MatsBrokerDestination> getMatsDestinations() {
+        NavigableMap<String, MatsBrokerDestination> matsDestinations = _matsDestinations;
+        if (matsDestinations == null) {
+            matsDestinations = new DestinationsView(this, _ids);
+            _matsDestinations = matsDestinations;
+        }
+        return matsDestinations;
+    }
+
+    @Override
+    public Optional<BrokerInfo> getBrokerInfo() {
+        return Optional.ofNullable(_brokerInfo);
+    }
+
+    @Override
+    public boolean isStale() {
+        return _stale;
+    }
+
+    /**
+     * Loops over the consumer status column, only creating views for the destinations having problems.
+     */
+    @Override
+    public NavigableMap<String, ConsumerStatus> getConsumerProblems() {
+        TreeMap<String, ConsumerStatus> problems = new TreeMap<>();
+        for (int chunk = 0; chunk < chunkCount(_idLimit); chunk++) {
+            byte[] consumerStatuses = _consumerStatuses.chunk(chunk);
+            int rows = rowsInChunk(chunk, _idLimit);
+            for (int row = 0; row < rows; row++) {
+                // Note: Removed destinations' rows are cleared to OK.
+                if (consumerStatuses[row] != ConsumerStatus.OK.ordinal()) {
+                    problems.put(_fqDestinationNames.chunk(chunk)[row], CONSUMER_STATUSES[consumerStatuses[row]]);
+                }
+            }
+        }
+        return Collections.unmodifiableNavigableMap(problems);
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarBrokerSnapshot{destinations=" + size()
+                + ", totalQueued=" + getTotalNumberOfQueuedMessages()
+                + ", lastUpdateLocalMillis=" + _lastUpdateLocalMillis
+                + (_stale ? ", stale" : "") + '}';
+    }
+
+    /**
+     * For tests: The number of chunks this snapshot has in common with the other, over all the columns.
+     */
+    int sharedChunks(ColumnarBrokerSnapshot other) {
+        return _fqDestinationNames.sharedChunks(other._fqDestinationNames)
+                + _destinationNames.sharedChunks(other._destinationNames)
+                + _matsStageIds.sharedChunks(other._matsStageIds)
+                + _flags.sharedChunks(other._flags)
+                + _stageDestinationTypes.sharedChunks(other._stageDestinationTypes)
+                + _numberOfQueuedMessages.sharedChunks(other._numberOfQueuedMessages)
+                + _numberOfInflightMessages.sharedChunks(other._numberOfInflightMessages)
+                + _headMessageTimestampMillis.sharedChunks(other._headMessageTimestampMillis)
+                + _destinationLastUpdateLocalMillis.sharedChunks(other._destinationLastUpdateLocalMillis)
+                + _destinationLastUpdateBrokerMillis.sharedChunks(other._destinationLastUpdateBrokerMillis)
+                + _enqueueRatePerSecond.sharedChunks(other._enqueueRatePerSecond)
+                + _dequeueRatePerSecond.sharedChunks(other._dequeueRatePerSecond)
+                + _queueDepthSlopePerSecond.sharedChunks(other._queueDepthSlopePerSecond)
+                + _consumerStatuses.sharedChunks(other._consumerStatuses)
+                + _counters.sharedChunks(other._counters);
+    }
+
+    // ===== Implementation
+
+    private void checkId(int id) {
+        if (!isPresent(id)) {
+            throw new IndexOutOfBoundsException("No destination with id [" + id + "], ids are within [0, "
+                    + _idLimit + ").");
+        }
+    }
+
+    private OptionalLong headMessageAgeMillis(int id) {
+        long headMessageTimestampMillis = longAt(_headMessageTimestampMillis, id);
+        if (headMessageTimestampMillis == 0) {
+            return OptionalLong.empty();
+        }
+        // The age as of the destination's last update: Use the broker's time if present, otherwise ours.
+        long lastUpdateBrokerMillis = longAt(_destinationLastUpdateBrokerMillis, id);
+        return OptionalLong.of((lastUpdateBrokerMillis != 0
+                ? lastUpdateBrokerMillis
+                : longAt(_destinationLastUpdateLocalMillis, id)) - headMessageTimestampMillis);
+    }
+
+    private static int chunkCount(int idLimit) {
+        return (idLimit + CHUNK_MASK) >> CHUNK_SHIFT;
+    }
+
+    private static int rowsInChunk(int chunk, int idLimit) {
+        return Math.min(CHUNK_SIZE, idLimit - (chunk << CHUNK_SHIFT));
+    }
+
+    private static long longAt(Column<long[]> column, int id) {
+        return column.chunk(id >> CHUNK_SHIFT)[id & CHUNK_MASK];
+    }
+
+    private static double doubleAt(Column<double[]> column, int id) {
+        return column.chunk(id >> CHUNK_SHIFT)[id & CHUNK_MASK];
+    }
+
+    private static byte byteAt(Column<byte[]> column, int id) {
+        return column.chunk(id >> CHUNK_SHIFT)[id & CHUNK_MASK];
+    }
+
+    private static <T> T objectAt(Column<T[]> column, int id) {
+        return column.chunk(id >> CHUNK_SHIFT)[id & CHUNK_MASK];
+    }
+
+    private static OptionalDouble optional(double value) {
+        return Double.isNaN(value) ? OptionalDouble.empty() : OptionalDouble.of(value);
+    }
+
+    /**
+     * Builds a {@link ColumnarBrokerSnapshot}, either from scratch using {@link ColumnarBrokerSnapshot#newBuilder()},
+     * or from a previous snapshot using {@link ColumnarBrokerSnapshot#toBuilder()}: The first write to a chunk of a
+     * column copies it, the rest of the chunks are shared with the previous snapshot. Setting a value to what it
+     * already is, does not copy the chunk.
+     * <p>
+     * Single use: After {@link #build()}, the builder cannot be used anymore. Not thread safe.
+     */
+    public static final class Builder {
+        // :: Snapshot-level
+        private long _lastUpdateLocalMillis;
+        private long _lastUpdateBrokerMillis;
+        private double _statisticsRequestReplyLatencyMillis = Double.NaN;
+        private long _updateIntervalMillis;
+        private String _updateIntervalReason = "";
+        private BrokerInfo _brokerInfo;
+        private boolean _stale;
+
+        // :: Indexes
+        private PersistentSortedMap<Integer> _ids;
+        private PersistentSortedMap<Integer> _nonEmptyIds;
+        private int[] _freeIds;
+        private int _freeIdCount;
+        private int _idLimit;
+
+        // :: Columns
+        private final Column<String[]> _fqDestinationNames;
+        private final Column<String[]> _destinationNames;
+        private final Column<String[]> _matsStageIds;
+        private final Column<byte[]> _flags;
+        private final Column<byte[]> _stageDestinationTypes;
+        private final Column<long[]> _numberOfQueuedMessages;
+        private final Column<long[]> _numberOfInflightMessages;
+        private final Column<long[]> _headMessageTimestampMillis;
+        private final Column<long[]> _destinationLastUpdateLocalMillis;
+        private final Column<long[]> _destinationLastUpdateBrokerMillis;
+        private final Column<double[]> _enqueueRatePerSecond;
+        private final Column<double[]> _dequeueRatePerSecond;
+        private final Column<double[]> _queueDepthSlopePerSecond;
+        private final Column<byte[]> _consumerStatuses;
+        private final Column<DestinationCounters[]> _counters;
+
+        private boolean _built;
+
+        private Builder(ColumnarBrokerSnapshot previous) {
+            // ?: From scratch?
+            if (previous == null) {
+                // -> Yes, so empty indexes and columns.
+                _ids = PersistentSortedMap.empty();
+                _nonEmptyIds = PersistentSortedMap.empty();
+                _freeIds = new int[0];
+                _fqDestinationNames = new Column<>(String[]::new, String[]::clone);
+                _destinationNames = new Column<>(String[]::new, String[]::clone);
+                _matsStageIds = new Column<>(String[]::new, String[]::clone);
+                _flags = new Column<>(byte[]::new, byte[]::clone);
+                _stageDestinationTypes = new Column<>(byte[]::new, byte[]::clone);
+                _numberOfQueuedMessages = new Column<>(long[]::new, long[]::clone);
+                _numberOfInflightMessages = new Column<>(long[]::new, long[]::clone);
+                _headMessageTimestampMillis = new Column<>(long[]::new, long[]::clone);
+                _destinationLastUpdateLocalMillis = new Column<>(long[]::new, long[]::clone);
+                _destinationLastUpdateBrokerMillis = new Column<>(long[]::new, long[]::clone);
+                _enqueueRatePerSecond = new Column<>(double[]::new, double[]::clone);
+                _dequeueRatePerSecond = new Column<>(double[]::new, double[]::clone);
+                _queueDepthSlopePerSecond = new Column<>(double[]::new, double[]::clone);
+                _consumerStatuses = new Column<>(byte[]::new, byte[]::clone);
+                _counters = new Column<>(DestinationCounters[]::new, DestinationCounters[]::clone);
+                return;
+            }
+            // E-> From the previous snapshot, sharing its chunks until written.
+            _lastUpdateLocalMillis = previous._lastUpdateLocalMillis;
+            _lastUpdateBrokerMillis = previous._lastUpdateBrokerMillis;
+            _statisticsRequestReplyLatencyMillis = previous._statisticsRequestReplyLatencyMillis;
+            _updateIntervalMillis = previous._updateIntervalMillis;
+            _updateIntervalReason = previous._updateIntervalReason;
+            _brokerInfo = previous._brokerInfo;
+            _stale = previous._stale;
+            _ids = previous._ids;
+            _nonEmptyIds = previous._nonEmptyIds;
+            _freeIds = previous._freeIds.clone();
+            _freeIdCount = previous._freeIds.length;
+            _idLimit = previous._idLimit;
+            _fqDestinationNames = previous._fqDestinationNames.thaw();
+            _destinationNames = previous._destinationNames.thaw();
+            _matsStageIds = previous._matsStageIds.thaw();
+            _flags = previous._flags.thaw();
+            _stageDestinationTypes = previous._stageDestinationTypes.thaw();
+            _numberOfQueuedMessages = previous._numberOfQueuedMessages.thaw();
+            _numberOfInflightMessages = previous._numberOfInflightMessages.thaw();
+            _headMessageTimestampMillis = previous._headMessageTimestampMillis.thaw();
+            _destinationLastUpdateLocalMillis = previous._destinationLastUpdateLocalMillis.thaw();
+            _destinationLastUpdateBrokerMillis = previous._destinationLastUpdateBrokerMillis.thaw();
+            _enqueueRatePerSecond = previous._enqueueRatePerSecond.thaw();
+            _dequeueRatePerSecond = previous._dequeueRatePerSecond.thaw();
+            _queueDepthSlopePerSecond = previous._queueDepthSlopePerSecond.thaw();
+            _consumerStatuses = previous._consumerStatuses.thaw();
+            _counters = previous._counters.thaw();
+        }
+
+        // ----- Snapshot-level
+
+        public Builder lastUpdateLocalMillis(long lastUpdateLocalMillis) {
+            checkNotBuilt();
+            _lastUpdateLocalMillis = lastUpdateLocalMillis;
+            return this;
+        }
+
+        /**
+         * @param lastUpdateBrokerMillis
+         *            the broker's time of the last update, <code>0</code> if not present.
+         */
+        public Builder lastUpdateBrokerMillis(long lastUpdateBrokerMillis) {
+            checkNotBuilt();
+            _lastUpdateBrokerMillis = lastUpdateBrokerMillis;
+            return this;
+        }
+
+        /**
+         * @param statisticsRequestReplyLatencyMillis
+         *            the latency, <code>NaN</code> if not present.
+         */
+        public Builder statisticsRequestReplyLatencyMillis(double statisticsRequestReplyLatencyMillis) {
+            checkNotBuilt();
+            _statisticsRequestReplyLatencyMillis = statisticsRequestReplyLatencyMillis;
+            return this;
+        }
+
+        public Builder updateInterval(long updateIntervalMillis, String updateIntervalReason) {
+            checkNotBuilt();
+            _updateIntervalMillis = updateIntervalMillis;
+            _updateIntervalReason = updateIntervalReason;
+            return this;
+        }
+
+        /**
+         * @param brokerInfo
+         *            the broker info, <code>null</code> if not present.
+         */
+        public Builder brokerInfo(BrokerInfo brokerInfo) {
+            checkNotBuilt();
+            _brokerInfo = brokerInfo;
+            return this;
+        }
+
+        public Builder stale(boolean stale) {
+            checkNotBuilt();
+            _stale = stale;
+            return this;
+        }
+
+        // ----- Destinations
+
+        /**
+         * @return the number of destinations.
+         */
+        public int size() {
+            return _ids.size();
+        }
+
+        /**
+         * @return the id of the destination, or <code>-1</code> if not present.
+         */
+        public int indexOf(String fqDestinationName) {
+            Integer id = _ids.get(fqDestinationName);
+            return id != null ? id : -1;
+        }
+
+        /**
+         * @return the fully qualified names of the destinations, sorted - immutable, so not affected by later changes.
+         */
+        public Set<String> getFqDestinationNames() {
+            return Collections.unmodifiableSet(_ids.keySet());
+        }
+
+        /**
+         * Adds the classified destination, see {@link #add(String, String, DestinationType, boolean, boolean, String,
+         * StageDestinationType)}.
+         */
+        public int add(Classification classification) {
+            return add(classification.getFqDestinationName(), classification.getDestinationName(),
+                    classification.getDestinationType(), classification.isDlq(),
+                    classification.isBrokerDefaultGlobalDlq(), classification.getMatsStageIdOrNull(),
+                    classification.getStageDestinationType().orElse(null));
+        }
+
+        /**
+         * Adds the destination, with no messages, not yet updated, and no rates: Its row must be set using the setters.
+         * If the destination is already present, nothing is changed.
+         *
+         * @return the id of the added destination - or the id it already had.
+         */
+        public int add(String fqDestinationName, String destinationName, DestinationType destinationType, boolean dlq,
+                boolean brokerDefaultGlobalDlq, String matsStageId, StageDestinationType stageDestinationType) {
+            checkNotBuilt();
+            Integer existing = _ids.get(fqDestinationName);
+            if (existing != null) {
+                return existing;
+            }
+            // Reuse a removed destination's id, if any.
+            int id = _freeIdCount > 0 ? _freeIds[--_freeIdCount] : _idLimit++;
+            _ids = _ids.with(fqDestinationName, id);
+            set(_fqDestinationNames, id, fqDestinationName);
+            set(_destinationNames, id, destinationName);
+            set(_matsStageIds, id, matsStageId);
+            setByte(_flags, id, (byte) (FLAG_PRESENT
+                    | (destinationType == DestinationType.QUEUE ? FLAG_QUEUE : 0)
+                    | (dlq ? FLAG_DLQ : 0)
+                    | (brokerDefaultGlobalDlq ? FLAG_GLOBAL_DLQ : 0)));
+            setByte(_stageDestinationTypes, id, (byte) (stageDestinationType != null
+                    ? stageDestinationType.ordinal()
+                    : -1));
+            clearValues(id);
+            return id;
+        }
+
+        /**
+         * Removes the destination, its id is reused for a later added destination.
+         *
+         * @return whether it was present.
+         */
+        public boolean remove(String fqDestinationName) {
+            checkNotBuilt();
+            Integer id = _ids.get(fqDestinationName);
+            if (id == null) {
+                return false;
+            }
+            _ids = _ids.without(fqDestinationName);
+            _nonEmptyIds = _nonEmptyIds.without(fqDestinationName);
+            set(_fqDestinationNames, id, null);
+            set(_destinationNames, id, null);
+            set(_matsStageIds, id, null);
+            setByte(_flags, id, (byte) 0);
+            setByte(_stageDestinationTypes, id, (byte) -1);
+            clearValues(id);
+            if (_freeIdCount == _freeIds.length) {
+                _freeIds = Arrays.copyOf(_freeIds, Math.max(8, _freeIds.length * 2));
+            }
+            _freeIds[_freeIdCount++] = id;
+            return true;
+        }
+
+        /**
+         * Sets the values which come from the destination's statistics.
+         *
+         * @param numberOfInflightMessages
+         *            the number of inflight messages, <code>-1</code> if not known.
+         * @param headMessageTimestampMillis
+         *            the timestamp of the head message, <code>0</code> if none - its age is reckoned from the
+         *            destination's {@link #setUpdated(int, long, long) last update}.
+         * @param counters
+         *            the counters, <code>null</code> if not present - referenced, so they must be immutable.
+         */
+        public Builder setMessages(int id, long numberOfQueuedMessages, long numberOfInflightMessages,
+                long headMessageTimestampMillis, DestinationCounters counters) {
+            checkNotBuilt();
+            checkBuilderId(id);
+            setLong(_numberOfQueuedMessages, id, numberOfQueuedMessages);
+            setLong(_numberOfInflightMessages, id, numberOfInflightMessages);
+            setLong(_headMessageTimestampMillis, id, headMessageTimestampMillis);
+            set(_counters, id, counters);
+            String fqDestinationName = objectAt(_fqDestinationNames, id);
+            _nonEmptyIds = numberOfQueuedMessages > 0
+                    ? _nonEmptyIds.with(fqDestinationName, _ids.get(fqDestinationName))
+                    : _nonEmptyIds.without(fqDestinationName);
+            return this;
+        }
+
+        /**
+         * Sets when the destination's statistics were last updated - which is also when they were received again
+         * unchanged.
+         *
+         * @param lastUpdateBrokerMillis
+         *            the broker's time, <code>0</code> if not present.
+         */
+        public Builder setUpdated(int id, long lastUpdateLocalMillis, long lastUpdateBrokerMillis) {
+            checkNotBuilt();
+            checkBuilderId(id);
+            setLong(_destinationLastUpdateLocalMillis, id, lastUpdateLocalMillis);
+            setLong(_destinationLastUpdateBrokerMillis, id, lastUpdateBrokerMillis);
+            return this;
+        }
+
+        /**
+         * Sets the rates and consumer status, which are calculated from the destination's history - <code>NaN</code>
+         * for a rate not present.
+         */
+        public Builder setRates(int id, double enqueueRatePerSecond, double dequeueRatePerSecond,
+                double queueDepthSlopePerSecond, ConsumerStatus consumerStatus) {
+            checkNotBuilt();
+            checkBuilderId(id);
+            setDouble(_enqueueRatePerSecond, id, enqueueRatePerSecond);
+            setDouble(_dequeueRatePerSecond, id, dequeueRatePerSecond);
+            setDouble(_queueDepthSlopePerSecond, id, queueDepthSlopePerSecond);
+            setByte(_consumerStatuses, id, (byte) consumerStatus.ordinal());
+            return this;
+        }
+
+        public long getLastUpdateLocalMillis(int id) {
+            checkBuilderId(id);
+            return longAt(_destinationLastUpdateLocalMillis, id);
+        }
+
+        public long getLastUpdateBrokerMillis(int id) {
+            checkBuilderId(id);
+            return longAt(_destinationLastUpdateBrokerMillis, id);
+        }
+
+        public long getNumberOfQueuedMessages(int id) {
+            checkBuilderId(id);
+            return longAt(_numberOfQueuedMessages, id);
+        }
+
+        /**
+         * @return the snapshot - after which this builder cannot be used anymore.
+         */
+        public ColumnarBrokerSnapshot build() {
+            checkNotBuilt();
+            _built = true;
+            return new ColumnarBrokerSnapshot(this);
+        }
+
+        private void clearValues(int id) {
+            setLong(_numberOfQueuedMessages, id, 0);
+            setLong(_numberOfInflightMessages, id, INFLIGHT_ABSENT);
+            setLong(_headMessageTimestampMillis, id, 0);
+            setLong(_destinationLastUpdateLocalMillis, id, 0);
+            setLong(_destinationLastUpdateBrokerMillis, id, 0);
+            setDouble(_enqueueRatePerSecond, id, Double.NaN);
+            setDouble(_dequeueRatePerSecond, id, Double.NaN);
+            setDouble(_queueDepthSlopePerSecond, id, Double.NaN);
+            setByte(_consumerStatuses, id, (byte) ConsumerStatus.OK.ordinal());
+            set(_counters, id, null);
+        }
+
+        private void checkNotBuilt() {
+            if (_built) {
+                throw new IllegalStateException("The snapshot is built, so this builder cannot be used anymore.");
+            }
+        }
+
+        private void checkBuilderId(int id) {
+            if ((id < 0) || (id >= _idLimit) || ((byteAt(_flags, id) & FLAG_PRESENT) == 0)) {
+                throw new IndexOutOfBoundsException("No destination with id [" + id + "], ids are within [0, "
+                        + _idLimit + ").");
+            }
+        }
+
+        // :: The setters only copy the chunk if the value changes.
+
+        private static void setLong(Column<long[]> column, int id, long value) {
+            if ((column.hasChunk(id >> CHUNK_SHIFT)) && (longAt(column, id) == value)) {
+                return;
+            }
+            column.writableChunk(id >> CHUNK_SHIFT)[id & CHUNK_MASK] = value;
+        }
+
+        private static void setDouble(Column<double[]> column, int id, double value) {
+            // Note: Compare the bits, so that NaN equals NaN.
+            if ((column.hasChunk(id >> CHUNK_SHIFT))
+                    && (Double.doubleToLongBits(doubleAt(column, id)) == Double.doubleToLongBits(value))) {
+                return;
+            }
+            column.writableChunk(id >> CHUNK_SHIFT)[id & CHUNK_MASK] = value;
+        }
+
+        private static void setByte(Column<byte[]> column, int id, byte value) {
+            if ((column.hasChunk(id >> CHUNK_SHIFT)) && (byteAt(column, id) == value)) {
+                return;
+            }
+            column.writableChunk(id >> CHUNK_SHIFT)[id & CHUNK_MASK] = value;
+        }
+
+        private static <T> void set(Column<T[]> column, int id, T value) {
+            if ((column.hasChunk(id >> CHUNK_SHIFT)) && (objectAt(column, id) == value)) {
+                return;
+            }
+            column.writableChunk(id >> CHUNK_SHIFT)[id & CHUNK_MASK] = value;
+        }
+    }
+
+    /**
+     * A column split in chunks of {@link #CHUNK_SIZE} rows. A snapshot's columns are never written: A builder
+     * {@link #thaw() thaws} them, getting columns sharing the chunks, where the first write to a chunk copies it.
+     *
+     * @param <C>
+     *            the type of the chunks, e.g. <code>long[]</code>.
+     */
+    private static final class Column<C> {
+        private final IntFunction<C> _newChunk;
+        private final UnaryOperator<C> _copyChunk;
+        private Object[] _chunks;
+        private int _chunkCount;
+        private boolean[] _owned; // null if frozen, i.e. part of a snapshot
+
+        private Column(IntFunction<C> newChunk, UnaryOperator<C> copyChunk) {
+            this(newChunk, copyChunk, new Object[0], 0, new boolean[0]);
+        }
+
+        private Column(IntFunction<C> newChunk, UnaryOperator<C> copyChunk, Object[] chunks, int chunkCount,
+                boolean[] owned) {
+            _newChunk = newChunk;
+            _copyChunk = copyChunk;
+            _chunks = chunks;
+            _chunkCount = chunkCount;
+            _owned = owned;
+        }
+
+        @SuppressWarnings("unchecked")
+        C chunk(int chunkIndex) {
+            return (C) _chunks[chunkIndex];
+        }
+
+        boolean hasChunk(int chunkIndex) {
+            return chunkIndex < _chunkCount;
+        }
+
+        /**
+         * @return a writable column sharing the chunks of this - which must be frozen.
+         */
+        Column<C> thaw() {
+            return new Column<>(_newChunk, _copyChunk, Arrays.copyOf(_chunks, _chunkCount), _chunkCount,
+                    new boolean[_chunkCount]);
+        }
+
+        /**
+         * @return the chunk, copied first if shared with a snapshot - or created, if beyond the current chunks.
+         */
+        C writableChunk(int chunkIndex) {
+            // ?: Beyond the current chunks?
+            if (chunkIndex >= _chunkCount) {
+                // -> Yes, so add chunks up to and including it (ids are dense, so this is the next).
+                if (chunkIndex >= _chunks.length) {
+                    int capacity = Math.max(chunkIndex + 1, _chunks.length * 2);
+                    _chunks = Arrays.copyOf(_chunks, capacity);
+                    _owned = Arrays.copyOf(_owned, capacity);
+                }
+                while (_chunkCount <= chunkIndex) {
+                    _chunks[_chunkCount] = _newChunk.apply(CHUNK_SIZE);
+                    _owned[_chunkCount] = true;
+                    _chunkCount++;
+                }
+            }
+            // ?: Is the chunk shared with a snapshot?
+            else if (!_owned[chunkIndex]) {
+                // -> Yes, so copy it.
+                _chunks[chunkIndex] = _copyChunk.apply(chunk(chunkIndex));
+                _owned[chunkIndex] = true;
+            }
+            return chunk(chunkIndex);
+        }
+
+        int sharedChunks(Column<C> other) {
+            int shared = 0;
+            for (int i = 0; i < Math.min(_chunkCount, other._chunkCount); i++) {
+                if (_chunks[i] == other._chunks[i]) {
+                    shared++;
+                }
+            }
+            return shared;
+        }
+    }
+
+    /**
+     * Flyweight view over a row of the columns.
+     */
+    private static final class DestinationRow implements MatsBrokerDestination {
+        private final ColumnarBrokerSnapshot _snapshot;
+        private final int _id;
+
+        private DestinationRow(ColumnarBrokerSnapshot snapshot, int id) {
+            _snapshot = snapshot;
+            _id = id;
+        }
+
+        @Override
+        public long getLastUpdateLocalMillis() {
+            return longAt(_snapshot._destinationLastUpdateLocalMillis, _id);
+        }
+
+        @Override
+        public OptionalLong getLastUpdateBrokerMillis() {
+            long lastUpdateBrokerMillis = longAt(_snapshot._destinationLastUpdateBrokerMillis, _id);
+            return lastUpdateBrokerMillis != 0 ? OptionalLong.of(lastUpdateBrokerMillis) : OptionalLong.empty();
+        }
+
+        @Override
+        public String getFqDestinationName() {
+            return objectAt(_snapshot._fqDestinationNames, _id);
+        }
+
+        @Override
+        public String getDestinationName() {
+            return objectAt(_snapshot._destinationNames, _id);
+        }
+
+        @Override
+        public DestinationType getDestinationType() {
+            return (byteAt(_snapshot._flags, _id) & FLAG_QUEUE) != 0 ? DestinationType.QUEUE : DestinationType.TOPIC;
+        }
+
+        @Override
+        public boolean isDlq() {
+            return (byteAt(_snapshot._flags, _id) & FLAG_DLQ) != 0;
+        }
+
+        @Override
+        public boolean isBrokerDefaultGlobalDlq() {
+            return (byteAt(_snapshot._flags, _id) & FLAG_GLOBAL_DLQ) != 0;
+        }
+
+        @Override
+        public Optional<String> getMatsStageId() {
+            return Optional.ofNullable(objectAt(_snapshot._matsStageIds, _id));
+        }
+
+        @Override
+        public Optional<StageDestinationType> getStageDestinationType() {
+            byte ordinal = byteAt(_snapshot._stageDestinationTypes, _id);
+            return ordinal < 0 ? Optional.empty() : Optional.of(STAGE_DESTINATION_TYPES[ordinal]);
+        }
+
+        @Override
+        public long getNumberOfQueuedMessages() {
+            return longAt(_snapshot._numberOfQueuedMessages, _id);
+        }
+
+        @Override
+        public OptionalLong getNumberOfInflightMessages() {
+            long numberOfInflightMessages = longAt(_snapshot._numberOfInflightMessages, _id);
+            return numberOfInflightMessages != INFLIGHT_ABSENT
+                    ? OptionalLong.of(numberOfInflightMessages)
+                    : OptionalLong.empty();
+        }
+
+        @Override
+        public OptionalLong getHeadMessageAgeMillis() {
+            return _snapshot.headMessageAgeMillis(_id);
+        }
+
+        @Override
+        public OptionalDouble getEnqueueRatePerSecond() {
+            return optional(doubleAt(_snapshot._enqueueRatePerSecond, _id));
+        }
+
+        @Override
+        public OptionalDouble getDequeueRatePerSecond() {
+            return optional(doubleAt(_snapshot._dequeueRatePerSecond, _id));
+        }
+
+        @Override
+        public OptionalDouble getQueueDepthSlopePerSecond() {
+            return optional(doubleAt(_snapshot._queueDepthSlopePerSecond, _id));
+        }
+
+        @Override
+        public ConsumerStatus getConsumerStatus() {
+            return CONSUMER_STATUSES[byteAt(_snapshot._consumerStatuses, _id)];
+        }
+
+        @Override
+        public Optional<DestinationCounters> getCounters() {
+            return Optional.ofNullable(objectAt(_snapshot._counters, _id));
+        }
+
+        // Views of the same row of the same snapshot are equal, so that the maps of views behave as maps.
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof DestinationRow)) {
+                return false;
+            }
+            DestinationRow other = (DestinationRow) o;
+            return (_snapshot == other._snapshot) && (_id == other._id);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(_snapshot) * 31 + _id;
+        }
+
+        @Override
+        public String toString() {
+            return "DestinationRow{" + getFqDestinationName()
+                    + ", id=" + _id
+                    + ", queued=" + getNumberOfQueuedMessages()
+                    + ", inflight=" + longAt(_snapshot._numberOfInflightMessages, _id)
+                    + ", headAge=" + getHeadMessageAgeMillis() + '}';
+        }
+    }
+
+    /**
+     * Map view over an index, whose values are flyweight views over the rows, created when accessed. Lookups,
+     * navigation and iteration are done on the index. The sub map and descending views are made from a
+     * {@link TreeMap} copy of the map, created upon first use - these are not expected to be used on the hot path.
+     */
+    private static final class DestinationsView extends AbstractMap<String, MatsBrokerDestination>
+            implements NavigableMap<String, MatsBrokerDestination> {
+        private final ColumnarBrokerSnapshot _snapshot;
+        private final PersistentSortedMap<Integer> _index;
+        private volatile NavigableMap<String, MatsBrokerDestination> _navigableCopy; // lazily created
+
+        private DestinationsView(ColumnarBrokerSnapshot snapshot, PersistentSortedMap<Integer> index) {
+            _snapshot = snapshot;
+            _index = index;
+        }
+
+        // ===== Map
+
+        @Override
+        public int size() {
+            return _index.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return _index.isEmpty();
+        }
+
+        @Override
+        public MatsBrokerDestination get(Object key) {
+            Integer id = _index.get(key);
+            return id != null ? new DestinationRow(_snapshot, id) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return _index.containsKey(key);
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return _index.keySet();
+        }
+
+        @Override
+        public Set<Entry<String, MatsBrokerDestination>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, MatsBrokerDestination>> iterator() {
+                    Iterator<Entry<String, Integer>> it = _index.entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, MatsBrokerDestination> next() {
+                            return view(it.next());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return _index.size();
+                }
+            };
+        }
+
+        // ===== SortedMap & NavigableMap
+
+        @Override
+        public Comparator<? super String> comparator() {
+            // Natural ordering
+            return null;
+        }
+
+        @Override
+        public String firstKey() {
+            return _index.firstKey();
+        }
+
+        @Override
+        public String lastKey() {
+            return _index.lastKey();
+        }
+
+        @Override
+        public Entry<String, MatsBrokerDestination> firstEntry() {
+            return view(_index.firstEntry());
+        }
+
+        @Override
+        public Entry<String, MatsBrokerDestination> lastEntry() {
+            return view(_index.lastEntry());
+        }
+
+        @Override
+        public Entry<String, MatsBrokerDestination> lowerEntry(String key) {
+            return view(_index.lowerEntry(key));
+        }
+
+        @Override
+        public Entry<String, MatsBrokerDestination> floorEntry(String key) {
+            return view(_index.floorEntry(key));
+        }
+
+        @Override
+        public Entry<String, MatsBrokerDestination> ceilingEntry(String key) {
+            return view(_index.ceilingEntry(key));
+        }
+
+        @Override
+        public Entry<String, MatsBrokerDestination> higherEntry(String key) {
+            return view(_index.higherEntry(key));
+        }
+
+        @Override
+        public String lowerKey(String key) {
+            return _index.lowerKey(key);
+        }
+
+        @Override
+        public String floorKey(String key) {
+            return _index.floorKey(key);
+        }
+
+        @Override
+        public String ceilingKey(String key) {
+            return _index.ceilingKey(key);
+        }
+
+        @Override
+        public String higherKey(String key) {
+            return _index.higherKey(key);
+        }
+
+        @Override
+        public Entry<String, MatsBrokerDestination> pollFirstEntry() {
+            throw new UnsupportedOperationException("Immutable map.");
+        }
+
+        @Override
+        public Entry<String, MatsBrokerDestination> pollLastEntry() {
+            throw new UnsupportedOperationException("Immutable map.");
+        }
+
+        @Override
+        public NavigableMap<String, MatsBrokerDestination> descendingMap() {
+            return navigableCopy().descendingMap();
+        }
+
+        @Override
+        public NavigableSet<String> navigableKeySet() {
+            return navigableCopy().navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<String> descendingKeySet() {
+            return navigableCopy().descendingKeySet();
+        }
+
+        @Override
+        public NavigableMap<String, MatsBrokerDestination> subMap(String fromKey, boolean fromInclusive,
+                String toKey, boolean toInclusive) {
+            return navigableCopy().subMap(fromKey, fromInclusive, toKey, toInclusive);
+        }
+
+        @Override
+        public NavigableMap<String, MatsBrokerDestination> headMap(String toKey, boolean inclusive) {
+            return navigableCopy().headMap(toKey, inclusive);
+        }
+
+        @Override
+        public NavigableMap<String, MatsBrokerDestination> tailMap(String fromKey, boolean inclusive) {
+            return navigableCopy().tailMap(fromKey, inclusive);
+        }
+
+        @Override
+        public SortedMap<String, MatsBrokerDestination> subMap(String fromKey, String toKey) {
+            return subMap(fromKey, true, toKey, false);
+        }
+
+        @Override
+        public SortedMap<String, MatsBrokerDestination> headMap(String toKey) {
+            return headMap(toKey, false);
+        }
+
+        @Override
+        public SortedMap<String, MatsBrokerDestination> tailMap(String fromKey) {
+            return tailMap(fromKey, true);
+        }
+
+        private Entry<String, MatsBrokerDestination> view(Map.Entry<String, Integer> entry) {
+            return entry == null
+                    ? null
+                    : new SimpleImmutableEntry<>(entry.getKey(), new DestinationRow(_snapshot, entry.getValue()));
+        }
+
+        private NavigableMap<String, MatsBrokerDestination> navigableCopy() {
+            NavigableMap<String, MatsBrokerDestination> copy = _navigableCopy;
+            if (copy == null) {
+                copy = Collections.unmodifiableNavigableMap(new TreeMap<>(this));
+                _navigableCopy = copy;
+            }
+            return copy;
+        }
+    }
+}
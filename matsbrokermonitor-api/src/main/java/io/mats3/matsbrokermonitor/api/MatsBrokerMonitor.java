@@ -4,12 +4,19 @@ import java.io.Closeable;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.OptionalDouble;
 import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Consumer;
 
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.ConsumerStatus;
+
 /**
  * Provides a way to get data from the broker which is not possible to glean from the Mats3 system itself, nor from
  * standard ways by the JMS API (or any other known messaging protocol).
@@ -51,12 +58,77 @@ public interface MatsBrokerMonitor extends Closeable {
 
     Optional<BrokerSnapshot> getSnapshot();
 
+    /**
+     * @param fqDestinationName
+     *            the {@link MatsBrokerDestination#getFqDestinationName() fully qualified destination name}.
+     * @return the recent history of the destination's statistics, if the implementation keeps it and the destination
+     *         is known. Default {@link Optional#empty()}.
+     */
+    default Optional<DestinationHistory> getHistory(String fqDestinationName) {
+        return Optional.empty();
+    }
+
+    /**
+     * @return the recent history of the broker's resource usage, oldest first, if the implementation keeps it. The
+     *         latest is the same as {@link BrokerSnapshot#getBrokerResourceUsage()}. Default empty list.
+     */
+    default List<BrokerResourceUsage> getBrokerResourceHistory() {
+        return Collections.emptyList();
+    }
+
     void registerListener(Consumer<UpdateEvent> listener);
 
     void removeListener(Consumer<UpdateEvent> listener);
 
+    /**
+     * Requests an ASAP update of all destinations. Forced updates which arrive while another is pending or in flight
+     * may be merged into one request to the broker, in which case the resulting {@link UpdateEvent} completes all of
+     * them (see {@link UpdateEvent#getCorrelationIds()}), and is full if any of them asked for full.
+     *
+     * @param correlationId
+     *            the correlationId which will be present on the resulting {@link UpdateEvent}.
+     * @param full
+     *            whether the resulting {@link UpdateEvent} should be {@link UpdateEvent#isFullUpdate() full}.
+     */
     void forceUpdate(String correlationId, boolean full);
 
+    /**
+     * Requests an ASAP update of only the specified destinations, e.g. to refresh the count of a DLQ after having
+     * reissued, muted or deleted messages from it - which is much cheaper than a {@link #forceUpdate(String, boolean)
+     * full sweep} of all destinations on the broker. The resulting {@link UpdateEvent} will be
+     * {@link UpdateEvent#isPartialUpdate() partial}, containing only the specified destinations (if they exist on the
+     * broker), and have the supplied correlationId.
+     * <p>
+     * Default is a {@link #forceUpdate(String, boolean) full update} of all destinations, which also covers the
+     * specified destinations, for implementations not supporting targeted updates.
+     *
+     * @param correlationId
+     *            the correlationId which will be present on the resulting {@link UpdateEvent}.
+     * @param fqDestinationNames
+     *            the {@link MatsBrokerDestination#getFqDestinationName() fully qualified destination names} to update,
+     *            e.g. <code>"queue://DLQ.mats.ServiceName.someServiceMethodName"</code>.
+     */
+    default void forceUpdate(String correlationId, Collection<String> fqDestinationNames) {
+        forceUpdate(correlationId, true);
+    }
+
+    /**
+     * Registers a listener for {@link DlqArrivalEvent}s, which are emitted as soon as the broker reports that a message
+     * was put on a Dead Letter Queue - if the implementation supports it, and is configured to do it. This is in
+     * addition to the ordinary {@link UpdateEvent}s, which will reflect the new DLQ count when the statistics for the
+     * DLQ have been refreshed. Default no-op, for implementations not supporting it.
+     *
+     * @param listener
+     *            the listener to be invoked for each DLQ arrival.
+     */
+    default void registerDlqArrivalListener(Consumer<DlqArrivalEvent> listener) {
+        /* no-op */
+    }
+
+    default void removeDlqArrivalListener(Consumer<DlqArrivalEvent> listener) {
+        /* no-op */
+    }
+
     interface BrokerSnapshot {
         /**
          * @return the millis-since-Epoch when this was last updated, using the time of this receiving computer. Compare
@@ -77,6 +149,22 @@ public interface MatsBrokerMonitor extends Closeable {
          */
         OptionalDouble getStatisticsRequestReplyLatencyMillis();
 
+        /**
+         * @return the interval currently used between the periodic statistics updates, which may be adaptive to the
+         *         activity on the broker, if the implementation supports it. Default <code>0</code>, meaning unknown.
+         */
+        default long getUpdateIntervalMillis() {
+            return 0;
+        }
+
+        /**
+         * @return a human readable reason for the {@link #getUpdateIntervalMillis() current update interval}, e.g.
+         *         <code>"FIXED"</code> if not adaptive. Default <code>"UNKNOWN"</code>.
+         */
+        default String getUpdateIntervalReason() {
+            return "UNKNOWN";
+        }
+
         /**
          * @return a
          *         <code>Map[FullyQualifiedDestinationName, {@link MatsBrokerDestination MatsBrokerDestination}]</code> for
@@ -89,6 +177,31 @@ public interface MatsBrokerMonitor extends Closeable {
          * @return a {@link BrokerInfo} instance.
          */
         Optional<BrokerInfo> getBrokerInfo();
+
+        /**
+         * @return whether this snapshot is not (entirely) from live updates, but e.g. partly loaded from a persisted
+         *         copy after a restart, until the first complete live update has arrived. The numbers of the
+         *         destinations not yet updated may then be far off, and their timestamps tell when they were last live.
+         *         Default <code>false</code>.
+         */
+        default boolean isStale() {
+            return false;
+        }
+
+        /**
+         * @return a <code>Map[FullyQualifiedDestinationName, {@link ConsumerStatus}]</code> of the destinations whose
+         *         {@link MatsBrokerDestination#getConsumerStatus() consumer status} is not {@link ConsumerStatus#OK}.
+         */
+        default NavigableMap<String, ConsumerStatus> getConsumerProblems() {
+            return consumerProblems(getMatsDestinations().values());
+        }
+
+        /**
+         * @return the broker's resource usage, from the {@link #getBrokerInfo() BrokerInfo}.
+         */
+        default Optional<BrokerResourceUsage> getBrokerResourceUsage() {
+            return getBrokerInfo().flatMap(BrokerInfo::getResourceUsage);
+        }
     }
 
     interface BrokerInfo {
@@ -107,6 +220,67 @@ public interface MatsBrokerMonitor extends Closeable {
          *         account.
          */
         Optional<String> getBrokerJson();
+
+        /**
+         * @return the broker's store, temp and memory usage, with projections - if the implementation provides it.
+         *         Default {@link Optional#empty()}.
+         */
+        default Optional<BrokerResourceUsage> getResourceUsage() {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The broker's usage of its resources, and projections of when the store and temp usage will hit their limits
+     * based on the recent growth. When the store is full, the broker stops producers (producer flow control) - which
+     * typically happens when DLQs pile up.
+     */
+    interface BrokerResourceUsage {
+        /**
+         * @return the millis-since-epoch, on the MatsBrokerMonitor node, when the statistics were received.
+         */
+        long getTimestampMillis();
+
+        /**
+         * @return the bytes used of the persistent message store.
+         */
+        long getStoreUsage();
+
+        long getStoreLimit();
+
+        int getStorePercentUsage();
+
+        /**
+         * @return the bytes used of the temp store, used for non-persistent messages spooled to disk.
+         */
+        long getTempUsage();
+
+        long getTempLimit();
+
+        int getTempPercentUsage();
+
+        /**
+         * @return the bytes used of the broker's memory for messages.
+         */
+        long getMemoryUsage();
+
+        long getMemoryLimit();
+
+        int getMemoryPercentUsage();
+
+        /**
+         * @return the projected millis until the {@link #getStoreUsage() store usage} hits the limit, by the growth
+         *         over the last period: <code>0</code> if already at the limit,
+         *         {@link MatsBrokerDestination#FORECAST_NEVER} if not growing - or {@link OptionalLong#empty()} if not
+         *         enough history.
+         */
+        OptionalLong getStoreTimeToLimitMillis();
+
+        /**
+         * @return the projected millis until the {@link #getTempUsage() temp usage} hits the limit, same semantics as
+         *         {@link #getStoreTimeToLimitMillis()}.
+         */
+        OptionalLong getTempTimeToLimitMillis();
     }
 
     /**
@@ -117,7 +291,9 @@ public interface MatsBrokerMonitor extends Closeable {
      * update comes with {@link #isFullUpdate()} <code>false</code>, the receiver should assume that any destinations
      * not mentioned have zero messages pending. If {@link #isFullUpdate()} is <code>true</code>, the receiver should
      * consider the {@link #getEventDestinations()} as authoritative information about all currently known
-     * Mats3-relevant destinations on the broker, thus overwriting any local view kept by incremental updates.
+     * Mats3-relevant destinations on the broker, thus overwriting any local view kept by incremental updates. If
+     * {@link #isPartialUpdate()} is <code>true</code>, only the mentioned destinations were updated, and the receiver
+     * should leave any destinations not mentioned as they were.
      */
     interface UpdateEvent {
         /**
@@ -127,10 +303,20 @@ public interface MatsBrokerMonitor extends Closeable {
 
         /**
          * @return the correlationId if this update event is a reply to an invocation of
-         *         {@link #forceUpdate(String, boolean)}, otherwise {@link Optional#empty()}.
+         *         {@link #forceUpdate(String, boolean)}, otherwise {@link Optional#empty()}. If several forced updates
+         *         were merged, this is the first of {@link #getCorrelationIds()}.
          */
         Optional<String> getCorrelationId();
 
+        /**
+         * @return all the correlationIds this update event is a reply to, as forced updates may be merged into one
+         *         request to the broker - an empty list if not a reply to any forced update. Default is the
+         *         {@link #getCorrelationId() correlationId}, if present.
+         */
+        default List<String> getCorrelationIds() {
+            return getCorrelationId().map(List::of).orElse(List.of());
+        }
+
         /**
          * A full update will be sent when {@link #forceUpdate(String, boolean)} was invoked with the 'full' parameter
          * set to <code>true</code>, and will be sent periodically, and might be sent when destinations disappear.
@@ -141,7 +327,7 @@ public interface MatsBrokerMonitor extends Closeable {
          * BrokerSnapshots} taken after such an event will also reflect the new situation.
          * <p>
          * When this is <code>false</code>, the receiver shall assume that any destinations not mentioned have zero
-         * messages pending.
+         * messages pending - unless {@link #isPartialUpdate()} is <code>true</code>.
          *
          * @return whether this is a full update (<code>true</code>), in which case the receiver should consider the
          *         {@link #getEventDestinations()} as authoritative information about all currently known destinations
@@ -149,6 +335,21 @@ public interface MatsBrokerMonitor extends Closeable {
          */
         boolean isFullUpdate();
 
+        /**
+         * A partial update will be sent when {@link #forceUpdate(String, Collection)} was invoked, or when the
+         * implementation by other means has refreshed only specific destinations. It is never a
+         * {@link #isFullUpdate() full update}.
+         * <p>
+         * When this is <code>true</code>, the {@link #getEventDestinations()} contains the updated destinations, also
+         * those having zero messages, and the receiver shall leave any destinations not mentioned as they were.
+         *
+         * @return whether this is a partial update (<code>true</code>), in which case only the destinations mentioned
+         *         in {@link #getEventDestinations()} were updated. Default <code>false</code>.
+         */
+        default boolean isPartialUpdate() {
+            return false;
+        }
+
         /**
          * Relevant for the local listeners on the {@link MatsBrokerMonitor} nodes. If this is <code>true</code>, the
          * {@link MatsBrokerMonitor} node which produced this event is the one which did the actual statistics request
@@ -174,12 +375,82 @@ public interface MatsBrokerMonitor extends Closeable {
 
         /**
          * @return a Map[FullyQualifiedDestinationName, {@link MatsBrokerDestination}] for either the non-zero
-         *         destinations, or if {@link #isFullUpdate()} is true, all destinations.
+         *         destinations, or if {@link #isFullUpdate()} is true, all destinations, or if
+         *         {@link #isPartialUpdate()} is true, the updated destinations.
          */
         NavigableMap<String, MatsBrokerDestination> getEventDestinations();
+
+        /**
+         * @return the FullyQualifiedDestinationNames of the destinations that have been removed since the previous
+         *         event, e.g. deleted on the broker, or scavenged as they haven't gotten statistics for a long time -
+         *         so that a consumer keeping state from partial or non-full updates doesn't have to diff against a full
+         *         update to find them. Default empty.
+         */
+        default Set<String> getRemovedDestinations() {
+            return Collections.emptySet();
+        }
+
+        /**
+         * @return a <code>Map[FullyQualifiedDestinationName, {@link ConsumerStatus}]</code> of the
+         *         {@link #getEventDestinations() event's destinations} whose consumer status is not
+         *         {@link ConsumerStatus#OK}. (As slow or stuck consumers requires messages on the destination, a
+         *         non-full update has them all, while a partial update only has those among the updated.)
+         */
+        default NavigableMap<String, ConsumerStatus> getConsumerProblems() {
+            return consumerProblems(getEventDestinations().values());
+        }
+    }
+
+    /**
+     * Lightweight event emitted to {@link #registerDlqArrivalListener(Consumer) DLQ arrival listeners} as soon as the
+     * broker reports that a message was put on a Dead Letter Queue, i.e. without waiting for the next statistics
+     * update. The DLQ's new message count will come in a subsequent {@link UpdateEvent}.
+     */
+    interface DlqArrivalEvent {
+        /**
+         * @return the millis-since-epoch <i>on the broker side</i> when the message was DLQed.
+         */
+        long getArrivalBrokerMillis();
+
+        /**
+         * @return the fully qualified destination name of the destination the message was DLQed <i>from</i>, e.g.
+         *         <code>"queue://mats.ServiceName.someServiceMethodName"</code>.
+         */
+        String getOriginalFqDestinationName();
+
+        /**
+         * @return the Mats StageId of the destination the message was DLQed from, if it represents a Mats Stage.
+         */
+        Optional<String> getMatsStageId();
+
+        /**
+         * @return the broker's message id of the DLQed message, if available.
+         */
+        Optional<String> getMessageId();
+    }
+
+    /**
+     * @return the destinations whose {@link MatsBrokerDestination#getConsumerStatus() consumer status} is not
+     *         {@link ConsumerStatus#OK}, keyed by FullyQualifiedDestinationName.
+     */
+    static NavigableMap<String, ConsumerStatus> consumerProblems(Collection<MatsBrokerDestination> destinations) {
+        TreeMap<String, ConsumerStatus> problems = new TreeMap<>();
+        for (MatsBrokerDestination destination : destinations) {
+            ConsumerStatus consumerStatus = destination.getConsumerStatus();
+            if (consumerStatus != ConsumerStatus.OK) {
+                problems.put(destination.getFqDestinationName(), consumerStatus);
+            }
+        }
+        return problems;
     }
 
     interface MatsBrokerDestination {
+        /**
+         * Value of the forecasts ({@link #getDrainEtaMillis()} and {@link #getHeadAgeBreachEtaMillis(long)}) when the
+         * event will never happen at the current rates.
+         */
+        long FORECAST_NEVER = Long.MAX_VALUE;
+
         /**
          * Queue or Topic.
          */
@@ -187,6 +458,29 @@ public interface MatsBrokerMonitor extends Closeable {
             QUEUE, TOPIC;
         }
 
+        /**
+         * The state of the consumers of a destination, as evaluated over consecutive statistics updates - catching
+         * wedged consumers before the head message age gets high.
+         */
+        enum ConsumerStatus {
+            /**
+             * Nothing noteworthy, or not evaluated (e.g. no messages, no consumers, or not enough history).
+             */
+            OK,
+
+            /**
+             * There are messages and consumers, but the average time messages stay on the destination is rising over
+             * consecutive updates: The consumers do not keep up as before.
+             */
+            SLOW,
+
+            /**
+             * There are messages and consumers, but no messages have been consumed over consecutive updates: The
+             * consumers are probably stuck, e.g. a wedged stage thread.
+             */
+            STUCK;
+        }
+
         /**
          * Mats-specific Stage Destination Type of this destination, which is a categorization of the different
          * destinations a Mats Stage can have
@@ -434,6 +728,209 @@ public interface MatsBrokerMonitor extends Closeable {
          *         consumers), while the queue actually still progresses since consumer 2 is still chugging along.
          */
         OptionalLong getHeadMessageAgeMillis();
+
+        /**
+         * @return the rate of messages enqueued to this destination, per second, over the last few minutes - if the
+         *         implementation keeps history. Together with {@link #getDequeueRatePerSecond()}, this tells "deep but
+         *         draining fast" from "deep and stuck". Default {@link OptionalDouble#empty()}.
+         */
+        default OptionalDouble getEnqueueRatePerSecond() {
+            return OptionalDouble.empty();
+        }
+
+        /**
+         * @return the rate of messages dequeued (consumed and acknowledged) from this destination, per second, over
+         *         the last few minutes - if the implementation keeps history. Default {@link OptionalDouble#empty()}.
+         */
+        default OptionalDouble getDequeueRatePerSecond() {
+            return OptionalDouble.empty();
+        }
+
+        /**
+         * @return the change in {@link #getNumberOfQueuedMessages() number of queued messages} per second over the
+         *         last few minutes, positive if growing - if the implementation keeps history. Default
+         *         {@link OptionalDouble#empty()}.
+         */
+        default OptionalDouble getQueueDepthSlopePerSecond() {
+            return OptionalDouble.empty();
+        }
+
+        /**
+         * Forecast of when this destination will be empty, answering "when will it be empty at the current rate, or
+         * will it ever be?": The number of queued messages over the {@link #getQueueDepthSlopePerSecond() depth
+         * slope}. Note that a busy destination in steady state (flat depth) never drains - for such,
+         * {@link #getHeadAgeBreachEtaMillis(long)} is the more relevant forecast.
+         *
+         * @return millis until empty, <code>0</code> if already empty, {@link #FORECAST_NEVER} if not draining - or
+         *         {@link OptionalLong#empty()} if the rates are not known.
+         */
+        default OptionalLong getDrainEtaMillis() {
+            long queued = getNumberOfQueuedMessages();
+            if (queued == 0) {
+                return OptionalLong.of(0);
+            }
+            OptionalDouble slope = getQueueDepthSlopePerSecond();
+            if (slope.isEmpty()) {
+                return OptionalLong.empty();
+            }
+            // ?: Is the depth shrinking?
+            if (slope.getAsDouble() >= 0) {
+                // -> No, so it will not drain at the current rates.
+                return OptionalLong.of(FORECAST_NEVER);
+            }
+            return OptionalLong.of((long) Math.ceil(queued * 1000d / -slope.getAsDouble()));
+        }
+
+        /**
+         * Forecast of when the {@link #getHeadMessageAgeMillis() head message age} will exceed the given limit. The
+         * head age is modelled as the time a message enqueued now must wait - the number of queued messages over the
+         * {@link #getDequeueRatePerSecond() dequeue rate} - with the depth projected linearly along the
+         * {@link #getQueueDepthSlopePerSecond() depth slope}. If nothing is dequeued, the head message simply ages
+         * with the clock.
+         *
+         * @param headAgeLimitMillis
+         *            the head age limit, e.g. what a health check alerts on.
+         * @return millis until the limit is exceeded, <code>0</code> if already exceeded (or the current backlog
+         *         already implies waits above the limit), {@link #FORECAST_NEVER} if not at the current rates - or
+         *         {@link OptionalLong#empty()} if the rates are not known.
+         */
+        default OptionalLong getHeadAgeBreachEtaMillis(long headAgeLimitMillis) {
+            long queued = getNumberOfQueuedMessages();
+            if (queued == 0) {
+                return OptionalLong.of(FORECAST_NEVER);
+            }
+            long headAgeMillis = getHeadMessageAgeMillis().orElse(0);
+            if (headAgeMillis >= headAgeLimitMillis) {
+                return OptionalLong.of(0);
+            }
+            OptionalDouble dequeueRate = getDequeueRatePerSecond();
+            OptionalDouble slope = getQueueDepthSlopePerSecond();
+            if (dequeueRate.isEmpty() || slope.isEmpty()) {
+                return OptionalLong.empty();
+            }
+            // ?: Is anything dequeued?
+            if (dequeueRate.getAsDouble() <= 0) {
+                // -> No, so the head message just gets older.
+                return OptionalLong.of(headAgeLimitMillis - headAgeMillis);
+            }
+            // The depth at which the wait time hits the limit.
+            double limitDepth = headAgeLimitMillis / 1000d * dequeueRate.getAsDouble();
+            if (queued >= limitDepth) {
+                return OptionalLong.of(0);
+            }
+            // ?: Is the depth growing?
+            if (slope.getAsDouble() <= 0) {
+                // -> No, so the wait time will not reach the limit at the current rates.
+                return OptionalLong.of(FORECAST_NEVER);
+            }
+            return OptionalLong.of((long) Math.ceil((limitDepth - queued) * 1000d / slope.getAsDouble()));
+        }
+
+        /**
+         * @return the {@link ConsumerStatus} of this destination - if the implementation evaluates it. Default
+         *         {@link ConsumerStatus#OK}.
+         */
+        default ConsumerStatus getConsumerStatus() {
+            return ConsumerStatus.OK;
+        }
+
+        /**
+         * @return the broker's full set of counters for this destination <i>when this update was produced</i> - if
+         *         the implementation provides them. Default {@link Optional#empty()}.
+         */
+        default Optional<DestinationCounters> getCounters() {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The broker's counters for a destination, as reported by the broker's statistics - for capacity planning, e.g.
+     * consumer fan-out, message size and broker memory pressure. The counts are cumulative since the broker (or the
+     * destination) was started.
+     */
+    interface DestinationCounters {
+        long getConsumerCount();
+
+        long getProducerCount();
+
+        /**
+         * @return the number of messages that have been written to the destination.
+         */
+        long getEnqueueCount();
+
+        /**
+         * @return the number of messages that have been acknowledged by consumers.
+         */
+        long getDequeueCount();
+
+        /**
+         * @return the number of messages that have been dispatched (sent) to consumers - may be higher than the
+         *         {@link #getEnqueueCount() enqueue count}, as redeliveries are included.
+         */
+        long getDispatchCount();
+
+        /**
+         * @return the number of messages that were not delivered because they expired.
+         */
+        long getExpiredCount();
+
+        /**
+         * @return the minimum time messages remained on the destination, in milliseconds.
+         */
+        double getMinEnqueueTimeMillis();
+
+        /**
+         * @return the average time messages remained on the destination, in milliseconds - i.e. the time it takes
+         *         the consumers to get to, and process, a message.
+         */
+        double getAverageEnqueueTimeMillis();
+
+        /**
+         * @return the maximum time messages remained on the destination, in milliseconds.
+         */
+        double getMaxEnqueueTimeMillis();
+
+        /**
+         * @return the average size of the messages, in bytes.
+         */
+        long getAverageMessageSize();
+
+        /**
+         * @return the broker memory used by the destination, in bytes.
+         */
+        long getMemoryUsage();
+
+        /**
+         * @return the broker memory limit of the destination, in bytes.
+         */
+        long getMemoryLimit();
+
+        /**
+         * @return the {@link #getMemoryUsage() memory usage} in percent of the {@link #getMemoryLimit() limit}.
+         */
+        int getMemoryPercentUsage();
+    }
+
+    /**
+     * The recent history of a destination's statistics, as a series of samples, oldest first - index
+     * <code>[0, size)</code>. The counts are cumulative since the broker started, so a drop means that the broker
+     * restarted. Immutable copy.
+     */
+    interface DestinationHistory {
+        int size();
+
+        /**
+         * @return the millis-since-epoch, on this node, when the statistics of the sample were received.
+         */
+        long getTimestampMillis(int index);
+
+        long getNumberOfQueuedMessages(int index);
+
+        long getEnqueueCount(int index);
+
+        long getDequeueCount(int index);
+
+        long getExpiredCount(int index);
     }
 
     /**
@@ -444,6 +941,7 @@ public interface MatsBrokerMonitor extends Closeable {
         private String bt;
         private String bn;
         private Optional<String> bj;
+        private BrokerResourceUsageDto ru; // nullable
 
         public static BrokerInfoDto of(BrokerInfo brokerInfo) {
             return new BrokerInfoDto(brokerInfo);
@@ -457,6 +955,7 @@ public interface MatsBrokerMonitor extends Closeable {
             bt = brokerInfo.getBrokerType();
             bn = brokerInfo.getBrokerName();
             bj = brokerInfo.getBrokerJson();
+            ru = brokerInfo.getResourceUsage().map(BrokerResourceUsageDto::of).orElse(null);
         }
 
         @Override
@@ -474,6 +973,11 @@ public interface MatsBrokerMonitor extends Closeable {
             return bj;
         }
 
+        @Override
+        public Optional<BrokerResourceUsage> getResourceUsage() {
+            return Optional.ofNullable(ru);
+        }
+
         @Override
         public String toString() {
             return "BrokerInfoDto{" +
@@ -483,6 +987,242 @@ public interface MatsBrokerMonitor extends Closeable {
         }
     }
 
+    /**
+     * A DTO-implementation of {@link BrokerResourceUsage}, which can be sent over Mats3 (field serialized). Used by the
+     * Broadcaster and BroadcasterReceiver, as part of {@link BrokerInfoDto}.
+     */
+    class BrokerResourceUsageDto implements BrokerResourceUsage {
+        private long ts;
+        private long su;
+        private long sl;
+        private int spu;
+        private long tu;
+        private long tl;
+        private int tpu;
+        private long mu;
+        private long ml;
+        private int mpu;
+        private OptionalLong sttl;
+        private OptionalLong tttl;
+
+        public static BrokerResourceUsageDto of(BrokerResourceUsage brokerResourceUsage) {
+            return new BrokerResourceUsageDto(brokerResourceUsage);
+        }
+
+        private BrokerResourceUsageDto() {
+            /* need no-args constructor for deserializing with Jackson */
+        }
+
+        private BrokerResourceUsageDto(BrokerResourceUsage brokerResourceUsage) {
+            ts = brokerResourceUsage.getTimestampMillis();
+            su = brokerResourceUsage.getStoreUsage();
+            sl = brokerResourceUsage.getStoreLimit();
+            spu = brokerResourceUsage.getStorePercentUsage();
+            tu = brokerResourceUsage.getTempUsage();
+            tl = brokerResourceUsage.getTempLimit();
+            tpu = brokerResourceUsage.getTempPercentUsage();
+            mu = brokerResourceUsage.getMemoryUsage();
+            ml = brokerResourceUsage.getMemoryLimit();
+            mpu = brokerResourceUsage.getMemoryPercentUsage();
+            sttl = brokerResourceUsage.getStoreTimeToLimitMillis();
+            tttl = brokerResourceUsage.getTempTimeToLimitMillis();
+        }
+
+        @Override
+        public long getTimestampMillis() {
+            return ts;
+        }
+
+        @Override
+        public long getStoreUsage() {
+            return su;
+        }
+
+        @Override
+        public long getStoreLimit() {
+            return sl;
+        }
+
+        @Override
+        public int getStorePercentUsage() {
+            return spu;
+        }
+
+        @Override
+        public long getTempUsage() {
+            return tu;
+        }
+
+        @Override
+        public long getTempLimit() {
+            return tl;
+        }
+
+        @Override
+        public int getTempPercentUsage() {
+            return tpu;
+        }
+
+        @Override
+        public long getMemoryUsage() {
+            return mu;
+        }
+
+        @Override
+        public long getMemoryLimit() {
+            return ml;
+        }
+
+        @Override
+        public int getMemoryPercentUsage() {
+            return mpu;
+        }
+
+        @Override
+        public OptionalLong getStoreTimeToLimitMillis() {
+            return sttl != null ? sttl : OptionalLong.empty();
+        }
+
+        @Override
+        public OptionalLong getTempTimeToLimitMillis() {
+            return tttl != null ? tttl : OptionalLong.empty();
+        }
+
+        @Override
+        public String toString() {
+            return "BrokerResourceUsageDto{" +
+                    "timestamp=" + Instant.ofEpochMilli(ts) +
+                    ", store=" + su + "/" + sl + " (" + spu + "%), timeToLimit=" + sttl +
+                    ", temp=" + tu + "/" + tl + " (" + tpu + "%), timeToLimit=" + tttl +
+                    ", memory=" + mu + "/" + ml + " (" + mpu + "%)" +
+                    '}';
+        }
+    }
+
+    /**
+     * A DTO-implementation of {@link DestinationCounters}, which can be sent over Mats3 (field serialized). Used by the
+     * Broadcaster and BroadcasterReceiver, as part of {@link MatsBrokerDestinationDto}.
+     */
+    class DestinationCountersDto implements DestinationCounters {
+        private long cc;
+        private long pc;
+        private long ec;
+        private long dc;
+        private long dpc;
+        private long exc;
+        private double minet;
+        private double avget;
+        private double maxet;
+        private long ams;
+        private long mu;
+        private long ml;
+        private int mpu;
+
+        public static DestinationCountersDto of(DestinationCounters destinationCounters) {
+            return new DestinationCountersDto(destinationCounters);
+        }
+
+        private DestinationCountersDto() {
+            /* need no-args constructor for deserializing with Jackson */
+        }
+
+        private DestinationCountersDto(DestinationCounters destinationCounters) {
+            cc = destinationCounters.getConsumerCount();
+            pc = destinationCounters.getProducerCount();
+            ec = destinationCounters.getEnqueueCount();
+            dc = destinationCounters.getDequeueCount();
+            dpc = destinationCounters.getDispatchCount();
+            exc = destinationCounters.getExpiredCount();
+            minet = destinationCounters.getMinEnqueueTimeMillis();
+            avget = destinationCounters.getAverageEnqueueTimeMillis();
+            maxet = destinationCounters.getMaxEnqueueTimeMillis();
+            ams = destinationCounters.getAverageMessageSize();
+            mu = destinationCounters.getMemoryUsage();
+            ml = destinationCounters.getMemoryLimit();
+            mpu = destinationCounters.getMemoryPercentUsage();
+        }
+
+        @Override
+        public long getConsumerCount() {
+            return cc;
+        }
+
+        @Override
+        public long getProducerCount() {
+            return pc;
+        }
+
+        @Override
+        public long getEnqueueCount() {
+            return ec;
+        }
+
+        @Override
+        public long getDequeueCount() {
+            return dc;
+        }
+
+        @Override
+        public long getDispatchCount() {
+            return dpc;
+        }
+
+        @Override
+        public long getExpiredCount() {
+            return exc;
+        }
+
+        @Override
+        public double getMinEnqueueTimeMillis() {
+            return minet;
+        }
+
+        @Override
+        public double getAverageEnqueueTimeMillis() {
+            return avget;
+        }
+
+        @Override
+        public double getMaxEnqueueTimeMillis() {
+            return maxet;
+        }
+
+        @Override
+        public long getAverageMessageSize() {
+            return ams;
+        }
+
+        @Override
+        public long getMemoryUsage() {
+            return mu;
+        }
+
+        @Override
+        public long getMemoryLimit() {
+            return ml;
+        }
+
+        @Override
+        public int getMemoryPercentUsage() {
+            return mpu;
+        }
+
+        @Override
+        public String toString() {
+            return "DestinationCountersDto{" +
+                    "consumers=" + cc +
+                    ", producers=" + pc +
+                    ", enqueued=" + ec +
+                    ", dequeued=" + dc +
+                    ", dispatched=" + dpc +
+                    ", expired=" + exc +
+                    ", enqueueTime(min/avg/max)=" + minet + "/" + avget + "/" + maxet +
+                    ", averageMessageSize=" + ams +
+                    ", memoryUsage=" + mu + "/" + ml + " (" + mpu + "%)" +
+                    '}';
+        }
+    }
+
     /**
      * A DTO-implementation of {@link MatsBrokerDestination}, which can be sent over Mats3 (field serialized). Used by
      * the Broadcaster and BroadcasterReceiver.
@@ -500,6 +1240,12 @@ public interface MatsBrokerMonitor extends Closeable {
         private long noqm;
         private OptionalLong noifm;
         private OptionalLong age;
+        private String cs; // nullable. Use String for serialization, as we might have an older client missing enums.
+        // :: Rates, nullable if from an older server
+        private OptionalDouble eqr;
+        private OptionalDouble dqr;
+        private OptionalDouble qds;
+        private DestinationCountersDto cnt; // nullable
 
         public static MatsBrokerDestinationDto of(MatsBrokerDestination matsBrokerDestination) {
             return new MatsBrokerDestinationDto(matsBrokerDestination);
@@ -522,6 +1268,11 @@ public interface MatsBrokerMonitor extends Closeable {
             noqm = matsBrokerDestination.getNumberOfQueuedMessages();
             noifm = matsBrokerDestination.getNumberOfInflightMessages();
             age = matsBrokerDestination.getHeadMessageAgeMillis();
+            cs = matsBrokerDestination.getConsumerStatus().name();
+            eqr = matsBrokerDestination.getEnqueueRatePerSecond();
+            dqr = matsBrokerDestination.getDequeueRatePerSecond();
+            qds = matsBrokerDestination.getQueueDepthSlopePerSecond();
+            cnt = matsBrokerDestination.getCounters().map(DestinationCountersDto::of).orElse(null);
         }
 
         @Override
@@ -596,6 +1347,40 @@ public interface MatsBrokerMonitor extends Closeable {
             return age;
         }
 
+        @Override
+        public OptionalDouble getEnqueueRatePerSecond() {
+            return eqr != null ? eqr : OptionalDouble.empty();
+        }
+
+        @Override
+        public OptionalDouble getDequeueRatePerSecond() {
+            return dqr != null ? dqr : OptionalDouble.empty();
+        }
+
+        @Override
+        public OptionalDouble getQueueDepthSlopePerSecond() {
+            return qds != null ? qds : OptionalDouble.empty();
+        }
+
+        @Override
+        public Optional<DestinationCounters> getCounters() {
+            return Optional.ofNullable(cnt);
+        }
+
+        @Override
+        public ConsumerStatus getConsumerStatus() {
+            // Handle missing or unknown status if this is deserialized from a DTO and the client is not updated.
+            if (cs == null) {
+                return ConsumerStatus.OK;
+            }
+            try {
+                return ConsumerStatus.valueOf(cs);
+            }
+            catch (IllegalArgumentException e) {
+                return ConsumerStatus.OK;
+            }
+        }
+
         @Override
         public String toString() {
             return "MatsBrokerDestinationImpl{" +
@@ -611,6 +1396,7 @@ public interface MatsBrokerMonitor extends Closeable {
                     ", numberOfQueuedMessages=" + noqm +
                     ", numberOfInFlightMessages=" + noifm +
                     ", headMessageAgeMillis=" + age +
+                    ", consumerStatus=" + cs +
                     '}';
         }
     }
@@ -0,0 +1,302 @@
+package io.mats3.matsbrokermonitor.api;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.DestinationType;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.StageDestinationType;
+
+/**
+ * Classifies fully qualified destination names (e.g. <code>"queue://mats.Service.method.stage1"</code>) into
+ * {@link DestinationType}, DLQ-ness, {@link StageDestinationType} and the Mats StageId, EndpointId, stage index and
+ * Endpoint Group. The {@link StageDestinationType} prefixes (e.g. <code>"DLQ.mats.matssys.NPIA."</code>) are compiled
+ * into a prefix trie when the classifier is created, and the classifications are cached, keyed by the fully qualified
+ * destination name - so that after a destination is first seen, classifying it is a single hash lookup. The parsing
+ * of a StageId into EndpointId and stage index is shared with the
+ * {@link MatsFabricAggregatedRepresentation#stack(java.util.Collection) aggregator} through
+ * {@link #parseStageId(String)}.
+ * <p>
+ * Thread safe.
+ */
+public final class MatsDestinationClassifier {
+    // If the number of cached entries grows past this, the cache is cleared - only a safeguard, as the set of
+    // destinations on a broker is limited, and those gone from the broker are forgotten.
+    private static final int MAX_CACHED = 100_000;
+
+    private final String _matsDestinationPrefix;
+    private final String _dlqPrefix;
+    private final String _globalDlqName;
+    private final TrieNode _trie;
+
+    private final ConcurrentHashMap<String, Classification> _classifications = new ConcurrentHashMap<>();
+
+    private MatsDestinationClassifier(String matsDestinationPrefix, String dlqPrefix, String globalDlqName) {
+        _matsDestinationPrefix = matsDestinationPrefix;
+        _dlqPrefix = dlqPrefix;
+        _globalDlqName = globalDlqName;
+        _trie = new TrieNode();
+        for (StageDestinationType sdt : StageDestinationType.values()) {
+            String prefix = (sdt.isDlq() ? dlqPrefix + "." : "") + matsDestinationPrefix + sdt.getMidfix();
+            TrieNode node = _trie;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node._children.computeIfAbsent(prefix.charAt(i), c -> new TrieNode());
+            }
+            // ?: Is this prefix already taken by an earlier StageDestinationType?
+            if (node._stageDestinationType == null) {
+                // -> No, so this one gets it (same precedence as evaluating in order of '.values()').
+                node._stageDestinationType = sdt;
+                node._prefixLength = prefix.length();
+            }
+        }
+    }
+
+    /**
+     * @param matsDestinationPrefix
+     *            the prefix of the Mats destinations, e.g. <code>"mats."</code>.
+     * @param dlqPrefix
+     *            the prefix of the broker's individual DLQs, without the dot, e.g. <code>"DLQ"</code>.
+     * @param globalDlqName
+     *            the name of the broker's default global DLQ, e.g. <code>"ActiveMQ.DLQ"</code>.
+     * @return a new classifier, with its own cache.
+     */
+    public static MatsDestinationClassifier create(String matsDestinationPrefix, String dlqPrefix,
+            String globalDlqName) {
+        if (matsDestinationPrefix == null) {
+            throw new NullPointerException("matsDestinationPrefix");
+        }
+        if (dlqPrefix == null) {
+            throw new NullPointerException("dlqPrefix");
+        }
+        if (globalDlqName == null) {
+            throw new NullPointerException("globalDlqName");
+        }
+        return new MatsDestinationClassifier(matsDestinationPrefix, dlqPrefix, globalDlqName);
+    }
+
+    public String getMatsDestinationPrefix() {
+        return _matsDestinationPrefix;
+    }
+
+    /**
+     * @param fqDestinationName
+     *            the fully qualified destination name, starting with <code>"queue://"</code> or
+     *            <code>"topic://"</code>.
+     * @return the classification, from the cache if already seen.
+     */
+    public Classification classify(String fqDestinationName) {
+        Classification classification = _classifications.get(fqDestinationName);
+        if (classification != null) {
+            return classification;
+        }
+        classification = classify_internal(fqDestinationName);
+        if (_classifications.size() >= MAX_CACHED) {
+            _classifications.clear();
+        }
+        _classifications.put(fqDestinationName, classification);
+        return classification;
+    }
+
+    /**
+     * Removes the cached classification of a destination, e.g. when it is gone from the broker.
+     */
+    public void forget(String fqDestinationName) {
+        _classifications.remove(fqDestinationName);
+    }
+
+    /**
+     * Parses a StageId into EndpointId, stage index and Endpoint Group - <code>"Service.method.stage2"</code> is
+     * stage 2 of Endpoint <code>"Service.method"</code>, while a StageId without the <code>".stageN"</code> suffix is
+     * the initial stage (index 0) of the Endpoint with the same id. The Endpoint Group is the EndpointId up to the
+     * first dot. Not cached, as it is only a few string operations - the parsed StageId of a destination is cached as
+     * part of its {@link #classify(String) classification}.
+     */
+    public static StageId parseStageId(String stageId) {
+        String endpointId = stageId;
+        int stageIndex = 0;
+        int lastDot = stageId.lastIndexOf('.');
+        // ?: Is the last part "stageN", i.e. "stage" followed by only digits?
+        if ((lastDot != -1) && stageId.startsWith("stage", lastDot + 1)
+                && (stageId.length() > lastDot + 6) && (stageId.length() - (lastDot + 6) <= 9)) {
+            boolean allDigits = true;
+            for (int i = lastDot + 6; i < stageId.length(); i++) {
+                char c = stageId.charAt(i);
+                if ((c < '0') || (c > '9')) {
+                    allDigits = false;
+                    break;
+                }
+            }
+            if (allDigits) {
+                // -> Yes, Stage.
+                endpointId = stageId.substring(0, lastDot);
+                stageIndex = Integer.parseInt(stageId.substring(lastDot + 6));
+            }
+        }
+        // :: Get "ServiceName", up to first dot - or entire name if no dots.
+        int firstDot = endpointId.indexOf('.');
+        String endpointGroupId = firstDot != -1 ? endpointId.substring(0, firstDot) : endpointId;
+        return new StageId(stageId, endpointId, stageIndex, endpointGroupId);
+    }
+
+    private Classification classify_internal(String fqDestinationName) {
+        // DestinationName: remove both "queue://" and "topic://", both are 8 length.
+        String destinationName = fqDestinationName.substring(8);
+        DestinationType destinationType = fqDestinationName.startsWith("queue://")
+                ? DestinationType.QUEUE
+                : DestinationType.TOPIC;
+        boolean isGlobalDlq = _globalDlqName.equals(destinationName);
+        // Whether this is a DLQ: Individual DLQ or global DLQ.
+        boolean isDlq = isGlobalDlq || destinationName.startsWith(_dlqPrefix);
+
+        // :: Walk the trie, the longest matching prefix decides the StageDestinationType.
+        TrieNode match = null;
+        TrieNode node = _trie;
+        for (int i = 0; i < destinationName.length(); i++) {
+            node = node._children.get(destinationName.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node._stageDestinationType != null) {
+                match = node;
+            }
+        }
+        // ?: Did we match any StageDestinationType prefix?
+        if (match == null) {
+            // -> No, so not a Mats destination.
+            return new Classification(fqDestinationName, destinationName, destinationType, isDlq, isGlobalDlq,
+                    null, null);
+        }
+        StageId stageId = parseStageId(destinationName.substring(match._prefixLength));
+        return new Classification(fqDestinationName, destinationName, destinationType, isDlq, isGlobalDlq,
+                match._stageDestinationType, stageId);
+    }
+
+    private static final class TrieNode {
+        private final Map<Character, TrieNode> _children = new HashMap<>(4);
+        private StageDestinationType _stageDestinationType; // null if no prefix ends here.
+        private int _prefixLength;
+    }
+
+    /**
+     * A Mats StageId, parsed into EndpointId, stage index and Endpoint Group.
+     */
+    public static final class StageId {
+        private final String _stageId;
+        private final String _endpointId;
+        private final int _stageIndex;
+        private final String _endpointGroupId;
+
+        private StageId(String stageId, String endpointId, int stageIndex, String endpointGroupId) {
+            _stageId = stageId;
+            _endpointId = endpointId;
+            _stageIndex = stageIndex;
+            _endpointGroupId = endpointGroupId;
+        }
+
+        public String getStageId() {
+            return _stageId;
+        }
+
+        public String getEndpointId() {
+            return _endpointId;
+        }
+
+        /**
+         * @return the index of the stage, 0 being the initial stage.
+         */
+        public int getStageIndex() {
+            return _stageIndex;
+        }
+
+        /**
+         * @return the EndpointId up to the first dot, i.e. the "ServiceName" - or the entire EndpointId if no dots.
+         */
+        public String getEndpointGroupId() {
+            return _endpointGroupId;
+        }
+
+        @Override
+        public String toString() {
+            return "StageId{" + _stageId + ", endpointId='" + _endpointId + "', stageIndex=" + _stageIndex + '}';
+        }
+    }
+
+    /**
+     * The classification of a destination.
+     */
+    public static final class Classification {
+        private final String _fqDestinationName;
+        private final String _destinationName;
+        private final DestinationType _destinationType;
+        private final boolean _isDlq;
+        private final boolean _isGlobalDlq;
+        private final StageDestinationType _stageDestinationType; // nullable
+        private final StageId _stageId; // nullable
+
+        private Classification(String fqDestinationName, String destinationName, DestinationType destinationType,
+                boolean isDlq, boolean isGlobalDlq, StageDestinationType stageDestinationType, StageId stageId) {
+            _fqDestinationName = fqDestinationName;
+            _destinationName = destinationName;
+            _destinationType = destinationType;
+            _isDlq = isDlq;
+            _isGlobalDlq = isGlobalDlq;
+            _stageDestinationType = stageDestinationType;
+            _stageId = stageId;
+        }
+
+        public String getFqDestinationName() {
+            return _fqDestinationName;
+        }
+
+        /**
+         * @return the destination name without the <code>"queue://"</code> or <code>"topic://"</code> prefix.
+         */
+        public String getDestinationName() {
+            return _destinationName;
+        }
+
+        public DestinationType getDestinationType() {
+            return _destinationType;
+        }
+
+        /**
+         * @return whether this is a DLQ, either an individual DLQ or the broker's default global DLQ.
+         */
+        public boolean isDlq() {
+            return _isDlq;
+        }
+
+        public boolean isBrokerDefaultGlobalDlq() {
+            return _isGlobalDlq;
+        }
+
+        /**
+         * @return the {@link StageDestinationType}, present if this is a Mats destination.
+         */
+        public Optional<StageDestinationType> getStageDestinationType() {
+            return Optional.ofNullable(_stageDestinationType);
+        }
+
+        /**
+         * @return the parsed StageId, present if this is a Mats destination.
+         */
+        public Optional<StageId> getStageId() {
+            return Optional.ofNullable(_stageId);
+        }
+
+        /**
+         * @return the StageId, or <code>null</code> if not a Mats destination.
+         */
+        public String getMatsStageIdOrNull() {
+            return _stageId != null ? _stageId.getStageId() : null;
+        }
+
+        @Override
+        public String toString() {
+            return "Classification{" + _fqDestinationName + ", destinationType=" + _destinationType
+                    + ", isDlq=" + _isDlq + ", isGlobalDlq=" + _isGlobalDlq
+                    + ", stageDestinationType=" + _stageDestinationType + ", stageId=" + _stageId + '}';
+        }
+    }
+}
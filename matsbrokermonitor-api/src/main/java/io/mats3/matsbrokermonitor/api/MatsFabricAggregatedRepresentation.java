@@ -14,8 +14,6 @@ import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -23,6 +21,7 @@ import org.slf4j.LoggerFactory;
 
 import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination;
 import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.StageDestinationType;
+import io.mats3.matsbrokermonitor.api.MatsDestinationClassifier.StageId;
 
 /**
  * Consumes the info from {@link MatsBrokerMonitor} (all its {@link MatsBrokerDestination MatsBrokerDestination}
@@ -209,6 +208,34 @@ public interface MatsFabricAggregatedRepresentation {
                     .orElse(OptionalLong.empty());
         }
 
+        /**
+         * @return the max of {@link MatsEndpointBrokerRepresentation#getDrainEtaMillis(StageDestinationType...)
+         *         endpoint.getDrainEtaMillis()} for all Endpoints of the Group, i.e. when all are drained - if no
+         *         Endpoints has a forecast, {@link OptionalLong#empty()} is returned.
+         */
+        default OptionalLong getDrainEtaMillis(StageDestinationType... stageDestinationType) {
+            return getEndpoints().values().stream()
+                    .map(e -> e.getDrainEtaMillis(stageDestinationType))
+                    .filter(OptionalLong::isPresent)
+                    .mapToLong(OptionalLong::getAsLong)
+                    .max();
+        }
+
+        /**
+         * @return the min of
+         *         {@link MatsEndpointBrokerRepresentation#getHeadAgeBreachEtaMillis(long, StageDestinationType...)
+         *         endpoint.getHeadAgeBreachEtaMillis(..)} for all Endpoints of the Group, i.e. when the first breaches
+         *         - if no Endpoints has a forecast, {@link OptionalLong#empty()} is returned.
+         */
+        default OptionalLong getHeadAgeBreachEtaMillis(long headAgeLimitMillis,
+                StageDestinationType... stageDestinationType) {
+            return getEndpoints().values().stream()
+                    .map(e -> e.getHeadAgeBreachEtaMillis(headAgeLimitMillis, stageDestinationType))
+                    .filter(OptionalLong::isPresent)
+                    .mapToLong(OptionalLong::getAsLong)
+                    .min();
+        }
+
         default List<MatsBrokerDestination> getAllDestinations() {
             return getEndpoints().values().stream().map(MatsEndpointBrokerRepresentation::getAllDestinations)
                     .flatMap(List::stream)
@@ -254,6 +281,34 @@ public interface MatsFabricAggregatedRepresentation {
                     .orElse(OptionalLong.empty());
         }
 
+        /**
+         * @return the max of {@link MatsStageBrokerRepresentation#getDrainEtaMillis(StageDestinationType...)
+         *         stage.getDrainEtaMillis()} for {@link #getStages() all Stages} of the Endpoint, i.e. when all are
+         *         drained - if no Stages has a forecast, {@link OptionalLong#empty()} is returned.
+         */
+        default OptionalLong getDrainEtaMillis(StageDestinationType... stageDestinationType) {
+            return getStages().values().stream()
+                    .map(s -> s.getDrainEtaMillis(stageDestinationType))
+                    .filter(OptionalLong::isPresent)
+                    .mapToLong(OptionalLong::getAsLong)
+                    .max();
+        }
+
+        /**
+         * @return the min of
+         *         {@link MatsStageBrokerRepresentation#getHeadAgeBreachEtaMillis(long, StageDestinationType...)
+         *         stage.getHeadAgeBreachEtaMillis(..)} for {@link #getStages() all Stages} of the Endpoint, i.e. when
+         *         the first breaches - if no Stages has a forecast, {@link OptionalLong#empty()} is returned.
+         */
+        default OptionalLong getHeadAgeBreachEtaMillis(long headAgeLimitMillis,
+                StageDestinationType... stageDestinationType) {
+            return getStages().values().stream()
+                    .map(s -> s.getHeadAgeBreachEtaMillis(headAgeLimitMillis, stageDestinationType))
+                    .filter(OptionalLong::isPresent)
+                    .mapToLong(OptionalLong::getAsLong)
+                    .min();
+        }
+
         default long getMaxNumberOfMessages(StageDestinationType stageDestinationType) {
             return getStages().values().stream()
                     .map(s -> s.getNumberOfMessages(stageDestinationType))
@@ -314,6 +369,37 @@ public interface MatsFabricAggregatedRepresentation {
                     .max();
         }
 
+        /**
+         * @return the max of {@link MatsBrokerDestination#getDrainEtaMillis()} for the specified
+         *         {@link #getDestination(StageDestinationType) destinations} that are present and have a forecast.
+         */
+        default OptionalLong getDrainEtaMillis(StageDestinationType... stageDestinationType) {
+            return Arrays.stream(stageDestinationType)
+                    .map(this::getDestination)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .map(MatsBrokerDestination::getDrainEtaMillis)
+                    .filter(OptionalLong::isPresent)
+                    .mapToLong(OptionalLong::getAsLong)
+                    .max();
+        }
+
+        /**
+         * @return the min of {@link MatsBrokerDestination#getHeadAgeBreachEtaMillis(long)} for the specified
+         *         {@link #getDestination(StageDestinationType) destinations} that are present and have a forecast.
+         */
+        default OptionalLong getHeadAgeBreachEtaMillis(long headAgeLimitMillis,
+                StageDestinationType... stageDestinationType) {
+            return Arrays.stream(stageDestinationType)
+                    .map(this::getDestination)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .map(d -> d.getHeadAgeBreachEtaMillis(headAgeLimitMillis))
+                    .filter(OptionalLong::isPresent)
+                    .mapToLong(OptionalLong::getAsLong)
+                    .min();
+        }
+
         default long getNumberOfMessages(StageDestinationType stageDestinationType) {
             return getDestination(stageDestinationType)
                     .map(MatsBrokerDestination::getNumberOfQueuedMessages)
@@ -333,8 +419,6 @@ public interface MatsFabricAggregatedRepresentation {
             /* hide constructor */
         }
 
-        private static final Pattern STAGE_PATTERN = Pattern.compile("(.*)\\.stage(\\d+)");
-
         /**
          * <b>YOU ARE NOT TO USE THIS CLASS! Use {@link MatsFabricAggregatedRepresentation#stack(Collection)}</b>
          *
@@ -362,20 +446,11 @@ public interface MatsFabricAggregatedRepresentation {
                 // ----- We have a StageId, so we can stack it up into the Endpoint/Stage structure.
 
                 // :: Find which Endpoint this queue/topic relates to,
+                // (Missing "stageXX" means this is the "stage0" for the Endpoint, where StageId == EndpointId)
                 String stageId = matsBrokerDestination.getMatsStageId().get();
-                String endpointId;
-                int stageIndex;
-                Matcher stageMatcher = STAGE_PATTERN.matcher(stageId);
-                if (stageMatcher.matches()) {
-                    // -> Stage
-                    endpointId = stageMatcher.group(1);
-                    stageIndex = Integer.parseInt(stageMatcher.group(2));
-                }
-                else {
-                    // -> Missing "stageXX", so this is the "stage0" for the Endpoint, where StageId == EndpointId
-                    endpointId = stageId;
-                    stageIndex = 0;
-                }
+                StageId parsedStageId = MatsDestinationClassifier.parseStageId(stageId);
+                String endpointId = parsedStageId.getEndpointId();
+                int stageIndex = parsedStageId.getStageIndex();
 
                 // Endpoint: Create the MatsEndpointBrokerRepresentation if not already present.
                 MatsEndpointBrokerRepresentationImpl matsEndpointBrokerRepresentation = endpointBrokerRepresentations
@@ -422,12 +497,10 @@ public interface MatsFabricAggregatedRepresentation {
             TreeMap<String, TreeMap<String, MatsEndpointBrokerRepresentation>> endpointsGrouped = endpointBrokerRepresentations
                     .values().stream()
                     .map(e -> (MatsEndpointBrokerRepresentation) e)
-                    .collect(Collectors.groupingBy(e -> {
-                        // :: Get "ServiceName", up to first dot - or entire name if no dots.
-                        String endpointId = e.getEndpointId();
-                        int dot = endpointId.indexOf('.');
-                        return dot != -1 ? endpointId.substring(0, dot) : endpointId;
-                    }, TreeMap::new, Collectors.toMap(MatsEndpointBrokerRepresentation::getEndpointId, e -> e,
+                    // :: Group by "ServiceName", up to first dot - or entire name if no dots.
+                    .collect(Collectors.groupingBy(e -> MatsDestinationClassifier.parseStageId(e.getEndpointId())
+                            .getEndpointGroupId(), TreeMap::new,
+                            Collectors.toMap(MatsEndpointBrokerRepresentation::getEndpointId, e -> e,
                             (ep1, ep2) -> {
                                 throw new IllegalStateException("Collision! [" + ep1 + "], [" + ep2 + "]");
                             }, TreeMap::new)));
@@ -0,0 +1,501 @@
+package io.mats3.matsbrokermonitor.api;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable sorted map from String keys, where {@link #with(String, Object)} and {@link #without(String)} return a new
+ * map sharing all but O(log n) nodes with the original (a persistent AVL tree using path copying). This lets the
+ * indexes of a new {@link ColumnarBrokerSnapshot} be made from the previous by applying only the changes, while readers
+ * of the previous keep their consistent view.
+ * <p>
+ * Lookups, navigation and iteration are done on the tree. The sub map and descending views are made from a
+ * {@link TreeMap} copy of the map, created upon first use - these are not expected to be used on the hot path.
+ *
+ * @param <V>
+ *            the type of the values.
+ */
+final class PersistentSortedMap<V> extends AbstractMap<String, V> implements NavigableMap<String, V> {
+    private static final PersistentSortedMap<?> EMPTY = new PersistentSortedMap<>(null);
+
+    private final Node<V> _root; // null if empty.
+    private volatile NavigableMap<String, V> _navigableCopy; // lazily created, for the views.
+
+    private PersistentSortedMap(Node<V> root) {
+        _root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> PersistentSortedMap<V> empty() {
+        return (PersistentSortedMap<V>) EMPTY;
+    }
+
+    /**
+     * @return a map with the key mapped to the value - <code>this</code> if it already was.
+     */
+    PersistentSortedMap<V> with(String key, V value) {
+        Objects.requireNonNull(key, "key");
+        Node<V> root = put(_root, key, value);
+        return root == _root ? this : new PersistentSortedMap<>(root);
+    }
+
+    /**
+     * @return a map without the key - <code>this</code> if it wasn't present.
+     */
+    PersistentSortedMap<V> without(String key) {
+        Node<V> root = remove(_root, key);
+        return root == _root ? this : new PersistentSortedMap<>(root);
+    }
+
+    /**
+     * @return the height of the tree, 0 if empty - which for an AVL tree is at most ~1.44 log2(n + 2).
+     */
+    int height() {
+        return height(_root);
+    }
+
+    // ===== Map
+
+    @Override
+    public int size() {
+        return _root == null ? 0 : _root.size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return _root == null;
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<V> node = find(key);
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, V>> iterator() {
+                return new InOrderIterator<>(_root);
+            }
+
+            @Override
+            public int size() {
+                return PersistentSortedMap.this.size();
+            }
+        };
+    }
+
+    // ===== SortedMap & NavigableMap
+
+    @Override
+    public Comparator<? super String> comparator() {
+        // Natural ordering
+        return null;
+    }
+
+    @Override
+    public String firstKey() {
+        return key(firstEntry());
+    }
+
+    @Override
+    public String lastKey() {
+        return key(lastEntry());
+    }
+
+    @Override
+    public Entry<String, V> firstEntry() {
+        Node<V> node = _root;
+        if (node == null) {
+            return null;
+        }
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    @Override
+    public Entry<String, V> lastEntry() {
+        Node<V> node = _root;
+        if (node == null) {
+            return null;
+        }
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    @Override
+    public Entry<String, V> lowerEntry(String key) {
+        Node<V> best = null;
+        Node<V> node = _root;
+        while (node != null) {
+            if (key.compareTo(node.key) > 0) {
+                best = node;
+                node = node.right;
+            }
+            else {
+                node = node.left;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public Entry<String, V> floorEntry(String key) {
+        Node<V> best = null;
+        Node<V> node = _root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                return node;
+            }
+            if (cmp > 0) {
+                best = node;
+                node = node.right;
+            }
+            else {
+                node = node.left;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public Entry<String, V> ceilingEntry(String key) {
+        Node<V> best = null;
+        Node<V> node = _root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                return node;
+            }
+            if (cmp < 0) {
+                best = node;
+                node = node.left;
+            }
+            else {
+                node = node.right;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public Entry<String, V> higherEntry(String key) {
+        Node<V> best = null;
+        Node<V> node = _root;
+        while (node != null) {
+            if (key.compareTo(node.key) < 0) {
+                best = node;
+                node = node.left;
+            }
+            else {
+                node = node.right;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public String lowerKey(String key) {
+        Entry<String, V> entry = lowerEntry(key);
+        return entry == null ? null : entry.getKey();
+    }
+
+    @Override
+    public String floorKey(String key) {
+        Entry<String, V> entry = floorEntry(key);
+        return entry == null ? null : entry.getKey();
+    }
+
+    @Override
+    public String ceilingKey(String key) {
+        Entry<String, V> entry = ceilingEntry(key);
+        return entry == null ? null : entry.getKey();
+    }
+
+    @Override
+    public String higherKey(String key) {
+        Entry<String, V> entry = higherEntry(key);
+        return entry == null ? null : entry.getKey();
+    }
+
+    @Override
+    public Entry<String, V> pollFirstEntry() {
+        throw new UnsupportedOperationException("Immutable map.");
+    }
+
+    @Override
+    public Entry<String, V> pollLastEntry() {
+        throw new UnsupportedOperationException("Immutable map.");
+    }
+
+    @Override
+    public NavigableMap<String, V> descendingMap() {
+        return navigableCopy().descendingMap();
+    }
+
+    @Override
+    public NavigableSet<String> navigableKeySet() {
+        return navigableCopy().navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<String> descendingKeySet() {
+        return navigableCopy().descendingKeySet();
+    }
+
+    @Override
+    public NavigableMap<String, V> subMap(String fromKey, boolean fromInclusive, String toKey,
+            boolean toInclusive) {
+        return navigableCopy().subMap(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    @Override
+    public NavigableMap<String, V> headMap(String toKey, boolean inclusive) {
+        return navigableCopy().headMap(toKey, inclusive);
+    }
+
+    @Override
+    public NavigableMap<String, V> tailMap(String fromKey, boolean inclusive) {
+        return navigableCopy().tailMap(fromKey, inclusive);
+    }
+
+    @Override
+    public SortedMap<String, V> subMap(String fromKey, String toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<String, V> headMap(String toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<String, V> tailMap(String fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    // ===== Implementation
+
+    private static String key(Entry<String, ?> entry) {
+        if (entry == null) {
+            throw new NoSuchElementException("Empty map.");
+        }
+        return entry.getKey();
+    }
+
+    private NavigableMap<String, V> navigableCopy() {
+        NavigableMap<String, V> copy = _navigableCopy;
+        if (copy == null) {
+            copy = Collections.unmodifiableNavigableMap(new TreeMap<>(this));
+            _navigableCopy = copy;
+        }
+        return copy;
+    }
+
+    private Node<V> find(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        String stringKey = (String) key;
+        Node<V> node = _root;
+        while (node != null) {
+            int cmp = stringKey.compareTo(node.key);
+            if (cmp == 0) {
+                return node;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    private static <V> Node<V> put(Node<V> node, String key, V value) {
+        if (node == null) {
+            return new Node<>(key, value, null, null);
+        }
+        int cmp = key.compareTo(node.key);
+        if (cmp < 0) {
+            Node<V> left = put(node.left, key, value);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        if (cmp > 0) {
+            Node<V> right = put(node.right, key, value);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+        return node.value == value ? node : new Node<>(node.key, value, node.left, node.right);
+    }
+
+    private static <V> Node<V> remove(Node<V> node, String key) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = key.compareTo(node.key);
+        if (cmp < 0) {
+            Node<V> left = remove(node.left, key);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        if (cmp > 0) {
+            Node<V> right = remove(node.right, key);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+        // E-> Found: Replace with the smallest of the right subtree, if both subtrees.
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<V> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, node.left, removeFirst(node.right));
+    }
+
+    private static <V> Node<V> removeFirst(Node<V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value, removeFirst(node.left), node.right);
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Creates a node of the key and value with the subtrees, whose heights differ by at most 2, rotating if needed.
+     */
+    private static <V> Node<V> balance(String key, V value, Node<V> left, Node<V> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        // ?: Left too high?
+        if (leftHeight > rightHeight + 1) {
+            // -> Yes, so rotate right - first left if the left's right is the higher.
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+            }
+            Node<V> pivot = left.right;
+            return new Node<>(pivot.key, pivot.value, new Node<>(left.key, left.value, left.left, pivot.left),
+                    new Node<>(key, value, pivot.right, right));
+        }
+        // ?: Right too high?
+        if (rightHeight > leftHeight + 1) {
+            // -> Yes, so rotate left - first right if the right's left is the higher.
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+            }
+            Node<V> pivot = right.left;
+            return new Node<>(pivot.key, pivot.value, new Node<>(key, value, left, pivot.left),
+                    new Node<>(right.key, right.value, pivot.right, right.right));
+        }
+        return new Node<>(key, value, left, right);
+    }
+
+    private static final class Node<V> implements Entry<String, V> {
+        final String key;
+        final V value;
+        final Node<V> left;
+        final Node<V> right;
+        final int height;
+        final int size;
+
+        Node(String key, V value, Node<V> left, Node<V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = (left == null ? 0 : left.size) + (right == null ? 0 : right.size) + 1;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            throw new UnsupportedOperationException("Immutable map.");
+        }
+
+        // As specified by Map.Entry
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return key.equals(other.getKey()) && Objects.equals(value, other.getValue());
+        }
+
+        // As specified by Map.Entry
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    private static final class InOrderIterator<V> implements Iterator<Entry<String, V>> {
+        private final ArrayDeque<Node<V>> _stack = new ArrayDeque<>();
+
+        InOrderIterator(Node<V> root) {
+            pushLeft(root);
+        }
+
+        private void pushLeft(Node<V> node) {
+            while (node != null) {
+                _stack.push(node);
+                node = node.left;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !_stack.isEmpty();
+        }
+
+        @Override
+        public Entry<String, V> next() {
+            if (_stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node<V> node = _stack.pop();
+            pushLeft(node.right);
+            return node;
+        }
+    }
+}
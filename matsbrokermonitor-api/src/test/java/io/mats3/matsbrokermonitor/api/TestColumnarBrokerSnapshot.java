@@ -0,0 +1,303 @@
+package io.mats3.matsbrokermonitor.api;
+
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerInfo;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerSnapshot;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.ConsumerStatus;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.DestinationType;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.StageDestinationType;
+
+/**
+ * Tests the {@link ColumnarBrokerSnapshot}: The flyweight views over the rows, the aggregations over the columns, the
+ * reuse of removed ids, and that a snapshot built from another shares the chunks that didn't change, without being
+ * affected by the changes.
+ */
+public class TestColumnarBrokerSnapshot {
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final MatsDestinationClassifier _classifier = MatsDestinationClassifier.create("mats.", "DLQ",
+            "ActiveMQ.DLQ");
+
+    @Test
+    public void rowsAreReadThroughFlyweightViews() {
+        // :: ARRANGE
+
+        ColumnarBrokerSnapshot.Builder builder = ColumnarBrokerSnapshot.newBuilder()
+                .lastUpdateLocalMillis(NOW)
+                .lastUpdateBrokerMillis(NOW - 5)
+                .updateInterval(30_000, "NORMAL: Testing");
+        int stage = builder.add(_classifier.classify("queue://mats.Service.method.stage1"));
+        builder.setMessages(stage, 7, 2, NOW - 1000, null)
+                .setUpdated(stage, NOW, NOW - 10)
+                .setRates(stage, 1.5, Double.NaN, -0.5, ConsumerStatus.SLOW);
+        int topic = builder.add(_classifier.classify("topic://mats.Service.broadcast"));
+        builder.setMessages(topic, 0, -1, 0, null)
+                .setUpdated(topic, NOW, 0);
+
+        // :: ACT
+
+        ColumnarBrokerSnapshot snapshot = builder.build();
+
+        // :: ASSERT
+
+        Assert.assertEquals(2, snapshot.size());
+        Assert.assertEquals(stage, snapshot.indexOf("queue://mats.Service.method.stage1"));
+        Assert.assertEquals(-1, snapshot.indexOf("queue://mats.Service.unknown"));
+        Assert.assertEquals(OptionalLong.of(NOW - 5), snapshot.getLastUpdateBrokerMillis());
+        Assert.assertEquals(OptionalDouble.empty(), snapshot.getStatisticsRequestReplyLatencyMillis());
+        Assert.assertEquals(Optional.empty(), snapshot.getBrokerInfo());
+        Assert.assertEquals(30_000, snapshot.getUpdateIntervalMillis());
+        Assert.assertFalse(snapshot.isStale());
+
+        MatsBrokerDestination stageDestination = snapshot.getDestination(stage);
+        Assert.assertEquals("queue://mats.Service.method.stage1", stageDestination.getFqDestinationName());
+        Assert.assertEquals("mats.Service.method.stage1", stageDestination.getDestinationName());
+        Assert.assertEquals(DestinationType.QUEUE, stageDestination.getDestinationType());
+        Assert.assertFalse(stageDestination.isDlq());
+        Assert.assertEquals(Optional.of("Service.method.stage1"), stageDestination.getMatsStageId());
+        Assert.assertEquals(Optional.of(StageDestinationType.STANDARD), stageDestination.getStageDestinationType());
+        Assert.assertEquals(7, stageDestination.getNumberOfQueuedMessages());
+        Assert.assertEquals(OptionalLong.of(2), stageDestination.getNumberOfInflightMessages());
+        // The head message age is as of the destination's broker time.
+        Assert.assertEquals(OptionalLong.of(990), stageDestination.getHeadMessageAgeMillis());
+        Assert.assertEquals(NOW, stageDestination.getLastUpdateLocalMillis());
+        Assert.assertEquals(OptionalLong.of(NOW - 10), stageDestination.getLastUpdateBrokerMillis());
+        Assert.assertEquals(OptionalDouble.of(1.5), stageDestination.getEnqueueRatePerSecond());
+        Assert.assertEquals(OptionalDouble.empty(), stageDestination.getDequeueRatePerSecond());
+        Assert.assertEquals(OptionalDouble.of(-0.5), stageDestination.getQueueDepthSlopePerSecond());
+        Assert.assertEquals(ConsumerStatus.SLOW, stageDestination.getConsumerStatus());
+        Assert.assertEquals(Optional.empty(), stageDestination.getCounters());
+
+        MatsBrokerDestination topicDestination = snapshot.getDestination(topic);
+        Assert.assertEquals(DestinationType.TOPIC, topicDestination.getDestinationType());
+        Assert.assertEquals(OptionalLong.empty(), topicDestination.getNumberOfInflightMessages());
+        Assert.assertEquals(OptionalLong.empty(), topicDestination.getHeadMessageAgeMillis());
+        Assert.assertEquals(OptionalLong.empty(), topicDestination.getLastUpdateBrokerMillis());
+        Assert.assertEquals(ConsumerStatus.OK, topicDestination.getConsumerStatus());
+
+        // Views of the same row are equal.
+        Assert.assertEquals(stageDestination, snapshot.getMatsDestinations().get("queue://mats.Service.method.stage1"));
+        Assert.assertNotSame(stageDestination, snapshot.getDestination(stage));
+    }
+
+    @Test
+    public void aggregationsLoopOverTheColumns() {
+        // :: ARRANGE
+
+        ColumnarBrokerSnapshot.Builder builder = ColumnarBrokerSnapshot.newBuilder();
+        int a = add(builder, "queue://mats.Service.a", 10, NOW - 5_000);
+        add(builder, "queue://mats.Service.b", 20, NOW - 60_000);
+        add(builder, "queue://mats.Service.c", 0, 0);
+        int dlqA = add(builder, "queue://DLQ.mats.Service.a", 3, NOW - 1_000);
+        int dlqB = add(builder, "queue://DLQ.mats.Service.b", 1, NOW - 2_000);
+        builder.setRates(a, Double.NaN, Double.NaN, Double.NaN, ConsumerStatus.STUCK);
+
+        // :: ACT
+
+        ColumnarBrokerSnapshot snapshot = builder.build();
+
+        // :: ASSERT
+
+        Assert.assertEquals(34, snapshot.getTotalNumberOfQueuedMessages());
+        Assert.assertEquals(4, snapshot.getNumberOfNonEmptyDestinations());
+        Assert.assertEquals("queue://mats.Service.b",
+                snapshot.getFqDestinationName(snapshot.getIdOfOldestHeadMessage(false)));
+        Assert.assertEquals(dlqB, snapshot.getIdOfOldestHeadMessage(true));
+        Assert.assertEquals(OptionalLong.of(1_000), snapshot.getHeadMessageAgeMillis(dlqA));
+        Assert.assertEquals(List.of("queue://mats.Service.a"), List.copyOf(snapshot.getConsumerProblems().keySet()));
+        Assert.assertEquals(ConsumerStatus.STUCK, snapshot.getConsumerProblems().get("queue://mats.Service.a"));
+        Assert.assertEquals(-1, ColumnarBrokerSnapshot.newBuilder().build().getIdOfOldestHeadMessage(false));
+    }
+
+    @Test
+    public void removedIdsAreReused_andTheirRowsCleared() {
+        // :: ARRANGE
+
+        ColumnarBrokerSnapshot.Builder builder = ColumnarBrokerSnapshot.newBuilder();
+        add(builder, "queue://mats.Service.a", 10, NOW - 5_000);
+        int b = add(builder, "queue://mats.Service.b", 20, NOW - 60_000);
+        ColumnarBrokerSnapshot before = builder.build();
+
+        // :: ACT
+
+        ColumnarBrokerSnapshot.Builder next = before.toBuilder();
+        Assert.assertTrue(next.remove("queue://mats.Service.b"));
+        Assert.assertFalse(next.remove("queue://mats.Service.b"));
+        int c = next.add(_classifier.classify("queue://mats.Service.c"));
+        ColumnarBrokerSnapshot after = next.build();
+
+        // :: ASSERT
+
+        Assert.assertEquals(b, c);
+        Assert.assertEquals(2, after.getIdLimit());
+        Assert.assertEquals("queue://mats.Service.c", after.getFqDestinationName(c));
+        // The reused row starts out empty.
+        Assert.assertEquals(0, after.getNumberOfQueuedMessages(c));
+        Assert.assertEquals(OptionalLong.empty(), after.getHeadMessageAgeMillis(c));
+        Assert.assertEquals(10, after.getTotalNumberOfQueuedMessages());
+        Assert.assertFalse(after.getNonEmptyMatsDestinations().containsKey("queue://mats.Service.b"));
+        // .. while the previous snapshot still has the removed destination.
+        Assert.assertEquals("queue://mats.Service.b", before.getFqDestinationName(b));
+        Assert.assertEquals(20, before.getNumberOfQueuedMessages(b));
+        Assert.assertEquals(30, before.getTotalNumberOfQueuedMessages());
+    }
+
+    @Test
+    public void snapshotFromAnother_sharesTheUnchangedChunks() {
+        // :: ARRANGE
+
+        // Three chunks of rows.
+        ColumnarBrokerSnapshot.Builder builder = ColumnarBrokerSnapshot.newBuilder();
+        for (int i = 0; i < 600; i++) {
+            add(builder, String.format("queue://mats.Service.s%03d", i), i, 0);
+        }
+        ColumnarBrokerSnapshot before = builder.build();
+        int chunksPerSnapshot = before.sharedChunks(before);
+        Assert.assertEquals(15 * 3, chunksPerSnapshot);
+
+        // :: ACT
+
+        // Change the queued messages of one destination in the last chunk, and set another to its current values.
+        ColumnarBrokerSnapshot.Builder next = before.toBuilder();
+        int changed = next.indexOf("queue://mats.Service.s550");
+        next.setMessages(changed, 1000, -1, 0, null);
+        int unchanged = next.indexOf("queue://mats.Service.s010");
+        next.setMessages(unchanged, 10, -1, 0, null)
+                .setUpdated(unchanged, NOW, NOW)
+                .setRates(unchanged, Double.NaN, Double.NaN, Double.NaN, ConsumerStatus.OK);
+        ColumnarBrokerSnapshot after = next.build();
+
+        // :: ASSERT
+
+        // Only the changed chunk of the queued messages column was copied.
+        Assert.assertEquals(chunksPerSnapshot - 1, after.sharedChunks(before));
+        Assert.assertEquals(1000, after.getNumberOfQueuedMessages(changed));
+        // .. and the previous snapshot is not affected.
+        Assert.assertEquals(550, before.getNumberOfQueuedMessages(changed));
+        Assert.assertEquals(600 * 599 / 2, before.getTotalNumberOfQueuedMessages());
+        Assert.assertEquals(600 * 599 / 2 + 450, after.getTotalNumberOfQueuedMessages());
+    }
+
+    @Test
+    public void destinationsAreANavigableMapView() {
+        // :: ARRANGE
+
+        ColumnarBrokerSnapshot.Builder builder = ColumnarBrokerSnapshot.newBuilder();
+        add(builder, "queue://mats.Service.c", 0, 0);
+        add(builder, "queue://mats.Service.a", 1, NOW - 10);
+        add(builder, "queue://mats.Service.b", 2, NOW - 20);
+
+        // :: ACT
+
+        ColumnarBrokerSnapshot snapshot = builder.build();
+        NavigableMap<String, MatsBrokerDestination> all = snapshot.getMatsDestinations();
+        NavigableMap<String, MatsBrokerDestination> nonEmpty = snapshot.getNonEmptyMatsDestinations();
+
+        // :: ASSERT
+
+        Assert.assertEquals(List.of("queue://mats.Service.a", "queue://mats.Service.b", "queue://mats.Service.c"),
+                List.copyOf(all.keySet()));
+        Assert.assertEquals(List.of("queue://mats.Service.a", "queue://mats.Service.b"),
+                List.copyOf(nonEmpty.keySet()));
+        Assert.assertEquals("queue://mats.Service.b", all.higherKey("queue://mats.Service.a"));
+        Assert.assertEquals(2, all.get("queue://mats.Service.b").getNumberOfQueuedMessages());
+        Assert.assertEquals("queue://mats.Service.c", all.lastEntry().getValue().getFqDestinationName());
+        Assert.assertEquals(List.of("queue://mats.Service.c", "queue://mats.Service.b", "queue://mats.Service.a"),
+                List.copyOf(all.descendingKeySet()));
+        Assert.assertEquals(1, all.headMap("queue://mats.Service.b").size());
+        Assert.assertSame(all, snapshot.getMatsDestinations());
+        Assert.assertThrows(UnsupportedOperationException.class, () -> all.remove("queue://mats.Service.a"));
+    }
+
+    @Test
+    public void ofOtherSnapshot_copiesTheValues() {
+        // :: ARRANGE
+
+        ColumnarBrokerSnapshot.Builder builder = ColumnarBrokerSnapshot.newBuilder()
+                .lastUpdateLocalMillis(NOW)
+                .statisticsRequestReplyLatencyMillis(12.5)
+                .stale(true);
+        int a = add(builder, "queue://mats.Service.a", 5, NOW - 100);
+        builder.setRates(a, 2, 1, 0.5, ConsumerStatus.SLOW);
+        ColumnarBrokerSnapshot columnar = builder.build();
+        // A snapshot which is not columnar, delegating to the columnar.
+        BrokerSnapshot other = new BrokerSnapshot() {
+            @Override
+            public long getLastUpdateLocalMillis() {
+                return columnar.getLastUpdateLocalMillis();
+            }
+
+            @Override
+            public OptionalLong getLastUpdateBrokerMillis() {
+                return columnar.getLastUpdateBrokerMillis();
+            }
+
+            @Override
+            public OptionalDouble getStatisticsRequestReplyLatencyMillis() {
+                return columnar.getStatisticsRequestReplyLatencyMillis();
+            }
+
+            @Override
+            public NavigableMap<String, MatsBrokerDestination> getMatsDestinations() {
+                return columnar.getMatsDestinations();
+            }
+
+            @Override
+            public Optional<BrokerInfo> getBrokerInfo() {
+                return columnar.getBrokerInfo();
+            }
+
+            @Override
+            public boolean isStale() {
+                return columnar.isStale();
+            }
+        };
+
+        // :: ACT
+
+        ColumnarBrokerSnapshot copy = ColumnarBrokerSnapshot.of(other);
+
+        // :: ASSERT
+
+        Assert.assertSame(columnar, ColumnarBrokerSnapshot.of(columnar));
+        Assert.assertNotSame(columnar, copy);
+        Assert.assertTrue(copy.isStale());
+        Assert.assertEquals(OptionalDouble.of(12.5), copy.getStatisticsRequestReplyLatencyMillis());
+        MatsBrokerDestination destination = copy.getMatsDestinations().get("queue://mats.Service.a");
+        Assert.assertEquals(5, destination.getNumberOfQueuedMessages());
+        Assert.assertEquals(OptionalLong.of(100), destination.getHeadMessageAgeMillis());
+        Assert.assertEquals(OptionalDouble.of(0.5), destination.getQueueDepthSlopePerSecond());
+        Assert.assertEquals(ConsumerStatus.SLOW, destination.getConsumerStatus());
+    }
+
+    @Test
+    public void builderIsSingleUse() {
+        // :: ARRANGE
+
+        ColumnarBrokerSnapshot.Builder builder = ColumnarBrokerSnapshot.newBuilder();
+        builder.build();
+
+        // :: ACT & ASSERT
+
+        Assert.assertThrows(IllegalStateException.class, () -> builder.add(_classifier.classify(
+                "queue://mats.Service.a")));
+        Assert.assertThrows(IllegalStateException.class, builder::build);
+    }
+
+    private int add(ColumnarBrokerSnapshot.Builder builder, String fqDestinationName, long queued,
+            long headMessageTimestampMillis) {
+        int id = builder.add(_classifier.classify(fqDestinationName));
+        builder.setMessages(id, queued, -1, headMessageTimestampMillis, null)
+                .setUpdated(id, NOW, NOW);
+        return id;
+    }
+}
@@ -0,0 +1,168 @@
+package io.mats3.matsbrokermonitor.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.DestinationType;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.StageDestinationType;
+import io.mats3.matsbrokermonitor.api.MatsDestinationClassifier.Classification;
+import io.mats3.matsbrokermonitor.api.MatsDestinationClassifier.StageId;
+
+/**
+ * Tests the {@link MatsDestinationClassifier}: Queues, topics, the DLQ variants and non-Mats destinations, and the
+ * parsing of the StageId.
+ */
+public class TestMatsDestinationClassifier {
+    private final MatsDestinationClassifier _classifier = MatsDestinationClassifier.create("mats.", "DLQ",
+            "ActiveMQ.DLQ");
+
+    @Test
+    public void standardQueue() {
+        // :: ACT
+
+        Classification classification = _classifier.classify("queue://mats.Service.method.stage2");
+
+        // :: ASSERT
+
+        Assert.assertEquals("queue://mats.Service.method.stage2", classification.getFqDestinationName());
+        Assert.assertEquals("mats.Service.method.stage2", classification.getDestinationName());
+        Assert.assertEquals(DestinationType.QUEUE, classification.getDestinationType());
+        Assert.assertFalse(classification.isDlq());
+        Assert.assertFalse(classification.isBrokerDefaultGlobalDlq());
+        Assert.assertEquals(StageDestinationType.STANDARD, classification.getStageDestinationType().get());
+        Assert.assertEquals("Service.method.stage2", classification.getMatsStageIdOrNull());
+        StageId stageId = classification.getStageId().get();
+        Assert.assertEquals("Service.method", stageId.getEndpointId());
+        Assert.assertEquals(2, stageId.getStageIndex());
+        Assert.assertEquals("Service", stageId.getEndpointGroupId());
+    }
+
+    @Test
+    public void topic() {
+        // :: ACT
+
+        Classification classification = _classifier.classify("topic://mats.Service.subscription");
+
+        // :: ASSERT
+
+        Assert.assertEquals(DestinationType.TOPIC, classification.getDestinationType());
+        Assert.assertEquals("mats.Service.subscription", classification.getDestinationName());
+        Assert.assertFalse(classification.isDlq());
+        Assert.assertEquals(StageDestinationType.STANDARD, classification.getStageDestinationType().get());
+        // No ".stageN" suffix: The initial stage of the Endpoint with the same id.
+        StageId stageId = classification.getStageId().get();
+        Assert.assertEquals("Service.subscription", stageId.getStageId());
+        Assert.assertEquals("Service.subscription", stageId.getEndpointId());
+        Assert.assertEquals(0, stageId.getStageIndex());
+    }
+
+    @Test
+    public void specialQueues_longestPrefixWins() {
+        assertStage("queue://mats.matssys.NPIA.Service.method", StageDestinationType.NON_PERSISTENT_INTERACTIVE,
+                "Service.method", false);
+        assertStage("queue://mats.matssys.WIRETAP.Service.method.stage1", StageDestinationType.WIRETAP,
+                "Service.method.stage1", false);
+    }
+
+    @Test
+    public void dlqs() {
+        assertStage("queue://DLQ.mats.Service.method.stage1", StageDestinationType.DEAD_LETTER_QUEUE,
+                "Service.method.stage1", true);
+        assertStage("queue://DLQ.mats.matssys.NPIA.Service.method",
+                StageDestinationType.DEAD_LETTER_QUEUE_NON_PERSISTENT_INTERACTIVE, "Service.method", true);
+        assertStage("queue://DLQ.mats.matssys.MUTED_DLQ.Service.method",
+                StageDestinationType.DEAD_LETTER_QUEUE_MUTED, "Service.method", true);
+    }
+
+    @Test
+    public void globalDlq_isDlq_butNotMats() {
+        // :: ACT
+
+        Classification classification = _classifier.classify("queue://ActiveMQ.DLQ");
+
+        // :: ASSERT
+
+        Assert.assertTrue(classification.isDlq());
+        Assert.assertTrue(classification.isBrokerDefaultGlobalDlq());
+        Assert.assertFalse(classification.getStageDestinationType().isPresent());
+        Assert.assertFalse(classification.getStageId().isPresent());
+        Assert.assertNull(classification.getMatsStageIdOrNull());
+    }
+
+    @Test
+    public void nonMatsDestinations() {
+        for (String fqDestinationName : new String[] { "queue://other.Service.method",
+                "topic://ActiveMQ.Advisory.Queue", "queue://matsX.Service", "queue://DLQ.other.Service" }) {
+            // :: ACT
+
+            Classification classification = _classifier.classify(fqDestinationName);
+
+            // :: ASSERT
+
+            Assert.assertFalse(fqDestinationName, classification.getStageDestinationType().isPresent());
+            Assert.assertFalse(fqDestinationName, classification.getStageId().isPresent());
+            Assert.assertFalse(fqDestinationName, classification.isBrokerDefaultGlobalDlq());
+            // A DLQ, even if not a Mats one.
+            Assert.assertEquals(fqDestinationName, fqDestinationName.startsWith("queue://DLQ."),
+                    classification.isDlq());
+        }
+    }
+
+    @Test
+    public void otherPrefixes() {
+        // :: ARRANGE
+
+        MatsDestinationClassifier classifier = MatsDestinationClassifier.create("endpoints.", "DeadLetter",
+                "Global.DLQ");
+
+        // :: ACT & ASSERT
+
+        Assert.assertEquals(StageDestinationType.DEAD_LETTER_QUEUE, classifier
+                .classify("queue://DeadLetter.endpoints.Service.method").getStageDestinationType().get());
+        Assert.assertFalse(classifier.classify("queue://mats.Service.method").getStageId().isPresent());
+        Assert.assertTrue(classifier.classify("queue://Global.DLQ").isBrokerDefaultGlobalDlq());
+    }
+
+    @Test
+    public void cachedUntilForgotten() {
+        // :: ACT & ASSERT
+
+        Classification first = _classifier.classify("queue://mats.Service.method");
+        Assert.assertSame(first, _classifier.classify("queue://mats.Service.method"));
+        _classifier.forget("queue://mats.Service.method");
+        Classification afterForget = _classifier.classify("queue://mats.Service.method");
+        Assert.assertNotSame(first, afterForget);
+        Assert.assertEquals(first.toString(), afterForget.toString());
+    }
+
+    @Test
+    public void parseStageId() {
+        assertStageId("Service.method.stage12", "Service.method", 12, "Service");
+        // Not "stage" followed by only digits: Part of the EndpointId.
+        assertStageId("Service.method.stageX", "Service.method.stageX", 0, "Service");
+        assertStageId("Service.method.stage", "Service.method.stage", 0, "Service");
+        assertStageId("Service.stage1x", "Service.stage1x", 0, "Service");
+        // Too many digits to be a stage index.
+        assertStageId("Service.stage1234567890", "Service.stage1234567890", 0, "Service");
+        // No dots at all.
+        assertStageId("Service", "Service", 0, "Service");
+    }
+
+    private void assertStage(String fqDestinationName, StageDestinationType expectedType, String expectedStageId,
+            boolean expectedDlq) {
+        Classification classification = _classifier.classify(fqDestinationName);
+        Assert.assertEquals(fqDestinationName, expectedType, classification.getStageDestinationType().orElse(null));
+        Assert.assertEquals(fqDestinationName, expectedStageId, classification.getMatsStageIdOrNull());
+        Assert.assertEquals(fqDestinationName, expectedDlq, classification.isDlq());
+        Assert.assertEquals(expectedDlq, expectedType.isDlq());
+    }
+
+    private static void assertStageId(String stageId, String expectedEndpointId, int expectedStageIndex,
+            String expectedEndpointGroupId) {
+        StageId parsed = MatsDestinationClassifier.parseStageId(stageId);
+        Assert.assertEquals(stageId, parsed.getStageId());
+        Assert.assertEquals(stageId, expectedEndpointId, parsed.getEndpointId());
+        Assert.assertEquals(stageId, expectedStageIndex, parsed.getStageIndex());
+        Assert.assertEquals(stageId, expectedEndpointGroupId, parsed.getEndpointGroupId());
+    }
+}
@@ -0,0 +1,187 @@
+package io.mats3.matsbrokermonitor.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the {@link PersistentSortedMap}: Insert, remove, that it stays balanced, iteration order, and that the
+ * original map is unaffected by, and shares structure with, the maps made from it.
+ */
+public class TestPersistentSortedMap {
+
+    @Test
+    public void insertGetAndReplace() {
+        // :: ARRANGE
+
+        PersistentSortedMap<String> empty = PersistentSortedMap.empty();
+
+        // :: ACT
+
+        PersistentSortedMap<String> map = empty.with("b", "B").with("a", "A").with("c", "C");
+        PersistentSortedMap<String> replaced = map.with("b", "B2");
+
+        // :: ASSERT
+
+        Assert.assertTrue(empty.isEmpty());
+        Assert.assertEquals(0, empty.height());
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals("A", map.get("a"));
+        Assert.assertEquals("B", map.get("b"));
+        Assert.assertNull(map.get("d"));
+        Assert.assertFalse(map.containsKey(42));
+        Assert.assertEquals(3, replaced.size());
+        Assert.assertEquals("B2", replaced.get("b"));
+        // Same value: Same map.
+        Assert.assertSame(map, map.with("a", map.get("a")));
+    }
+
+    @Test
+    public void remove() {
+        // :: ARRANGE
+
+        PersistentSortedMap<String> map = PersistentSortedMap.empty();
+        for (String key : List.of("d", "b", "f", "a", "c", "e", "g")) {
+            map = map.with(key, key.toUpperCase());
+        }
+
+        // :: ACT
+
+        // Leaf, node with two children, and the root.
+        PersistentSortedMap<String> removed = map.without("a").without("f").without("d");
+
+        // :: ASSERT
+
+        Assert.assertEquals(List.of("b", "c", "e", "g"), new ArrayList<>(removed.keySet()));
+        Assert.assertEquals("E", removed.get("e"));
+        Assert.assertNull(removed.get("d"));
+        // Not present: Same map.
+        Assert.assertSame(removed, removed.without("x"));
+        // Remove all.
+        PersistentSortedMap<String> emptied = removed.without("b").without("c").without("e").without("g");
+        Assert.assertTrue(emptied.isEmpty());
+        Assert.assertNull(emptied.firstEntry());
+    }
+
+    @Test
+    public void staysBalanced_sequentialInsertAndRemove() {
+        // :: ARRANGE
+
+        int count = 10_000;
+        PersistentSortedMap<Integer> map = PersistentSortedMap.empty();
+
+        // :: ACT & ASSERT
+
+        // Sequential insertion is the worst case for an unbalanced tree.
+        for (int i = 0; i < count; i++) {
+            map = map.with(String.format("queue://mats.Service%05d", i), i);
+        }
+        Assert.assertEquals(count, map.size());
+        assertBalanced(map);
+
+        // Remove every other, from the start.
+        for (int i = 0; i < count; i += 2) {
+            map = map.without(String.format("queue://mats.Service%05d", i));
+        }
+        Assert.assertEquals(count / 2, map.size());
+        assertBalanced(map);
+        Assert.assertEquals("queue://mats.Service00001", map.firstKey());
+        Assert.assertEquals("queue://mats.Service09999", map.lastKey());
+    }
+
+    @Test
+    public void iterationOrderAndNavigation_matchTreeMap() {
+        // :: ARRANGE
+
+        Random random = new Random(42);
+        PersistentSortedMap<Integer> map = PersistentSortedMap.empty();
+        TreeMap<String, Integer> expected = new TreeMap<>();
+
+        // :: ACT
+
+        for (int i = 0; i < 5_000; i++) {
+            String key = "queue://mats." + random.nextInt(2_000);
+            // ?: Remove or insert?
+            if (random.nextInt(3) == 0) {
+                map = map.without(key);
+                expected.remove(key);
+            }
+            else {
+                map = map.with(key, i);
+                expected.put(key, i);
+            }
+        }
+
+        // :: ASSERT
+
+        Assert.assertEquals(expected.size(), map.size());
+        Assert.assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+        Assert.assertEquals(expected, map);
+        assertBalanced(map);
+        for (String probe : List.of("queue://mats.1000", "queue://mats.5", "queue://mats.9999", "a", "z")) {
+            Assert.assertEquals(probe, expected.lowerEntry(probe), map.lowerEntry(probe));
+            Assert.assertEquals(probe, expected.floorEntry(probe), map.floorEntry(probe));
+            Assert.assertEquals(probe, expected.ceilingEntry(probe), map.ceilingEntry(probe));
+            Assert.assertEquals(probe, expected.higherEntry(probe), map.higherEntry(probe));
+        }
+        Assert.assertEquals(expected.headMap("queue://mats.5"), map.headMap("queue://mats.5"));
+        Assert.assertEquals(new ArrayList<>(expected.descendingKeySet()), new ArrayList<>(map.descendingKeySet()));
+    }
+
+    @Test
+    public void originalUnchanged_andStructureShared() {
+        // :: ARRANGE
+
+        PersistentSortedMap<Integer> original = PersistentSortedMap.empty();
+        for (int i = 0; i < 1_000; i++) {
+            original = original.with(String.format("key%04d", i), i);
+        }
+        List<Entry<String, Integer>> originalEntries = new ArrayList<>(original.entrySet());
+
+        // :: ACT
+
+        PersistentSortedMap<Integer> added = original.with("key9999", -1);
+        PersistentSortedMap<Integer> changed = original.with("key0999", -1);
+        PersistentSortedMap<Integer> removed = original.without("key0999");
+
+        // :: ASSERT
+
+        // The original is as it was.
+        Assert.assertEquals(originalEntries, new ArrayList<>(original.entrySet()));
+        Assert.assertEquals(1_000, original.size());
+        Assert.assertEquals(999, (int) original.get("key0999"));
+        Assert.assertFalse(original.containsKey("key9999"));
+        // .. while the new ones have the changes.
+        Assert.assertEquals(1_001, added.size());
+        Assert.assertEquals(-1, (int) changed.get("key0999"));
+        Assert.assertFalse(removed.containsKey("key0999"));
+
+        // The nodes off the changed path (at the far right) are shared: The entries are the tree's nodes.
+        for (PersistentSortedMap<Integer> derived : List.of(added, changed, removed)) {
+            Assert.assertSame(original.firstEntry(), derived.firstEntry());
+            Assert.assertSame(original.ceilingEntry("key0500"), derived.ceilingEntry("key0500"));
+            Assert.assertNotSame(original.lastEntry(), derived.lastEntry());
+        }
+    }
+
+    @Test
+    public void immutable() {
+        PersistentSortedMap<String> map = PersistentSortedMap.<String> empty().with("a", "A");
+        Assert.assertThrows(UnsupportedOperationException.class, () -> map.put("b", "B"));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> map.firstEntry().setValue("X"));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> map.headMap("b").clear());
+        Assert.assertEquals(Collections.singletonMap("a", "A"), map);
+    }
+
+    private static void assertBalanced(PersistentSortedMap<?> map) {
+        // AVL bound: height < 1.44 log2(n + 2)
+        double bound = 1.45 * Math.log(map.size() + 2) / Math.log(2);
+        Assert.assertTrue("Height " + map.height() + " for size " + map.size(), map.height() <= bound);
+    }
+}
@@ -1,10 +1,13 @@
 package io.mats3.matsbrokermonitor.broadcaster;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Consumer;
 
@@ -44,6 +47,16 @@ public class MatsBrokerMonitorBroadcastAndControl implements MatsPlugin {
      */
     public static final String BROADCAST_UPDATE_EVENT_TOPIC_ENDPOINT_ID = "mats.MatsBrokerMonitor.broadcastUpdate";
 
+    /**
+     * The EndpointId to which the {@link UpdateEvent#isPartialUpdate() partial} update events are published: Receivers
+     * from before partial updates would take the destinations not mentioned as having zero messages, so these are not
+     * published to {@link #BROADCAST_UPDATE_EVENT_TOPIC_ENDPOINT_ID} - such receivers just get the next regular update.
+     * <p>
+     * Value is <code>"mats.MatsBrokerMonitor.broadcastPartialUpdate"</code>.
+     */
+    public static final String BROADCAST_PARTIAL_UPDATE_EVENT_TOPIC_ENDPOINT_ID =
+            "mats.MatsBrokerMonitor.broadcastPartialUpdate";
+
     /**
      * The EndpointId to which one may request operations, currently forceUpdate.
      * <p>
@@ -108,8 +121,12 @@ public class MatsBrokerMonitorBroadcastAndControl implements MatsPlugin {
         MatsInitiator matsInitiator = matsFactory.getDefaultInitiator();
         _eventUpdateListener = updateEvent -> {
             if (updateEvent.isUpdateEventOriginatedOnThisNode()) {
+                String topic = updateEvent.isPartialUpdate()
+                        ? BROADCAST_PARTIAL_UPDATE_EVENT_TOPIC_ENDPOINT_ID
+                        : BROADCAST_UPDATE_EVENT_TOPIC_ENDPOINT_ID;
                 log.info("Got UpdateEvent from MBM originating from this MBM/host (fullUpdate:[" + updateEvent
-                        .isFullUpdate() + "]) - broadcasting to [" + BROADCAST_UPDATE_EVENT_TOPIC_ENDPOINT_ID + "].");
+                        .isFullUpdate() + "], partialUpdate:[" + updateEvent.isPartialUpdate()
+                        + "]) - broadcasting to [" + topic + "].");
 
                 BroadcastUpdateEventDto dto = BroadcastUpdateEventDto.of(updateEvent);
 
@@ -121,7 +138,7 @@ public class MatsBrokerMonitorBroadcastAndControl implements MatsPlugin {
                         // Suppress logging and metrics for this "system message"
                         .setTraceProperty(SUPPRESS_LOGGING_TRACE_PROPERTY_KEY, Boolean.TRUE)
                         .setTraceProperty(SUPPRESS_METRICS_TRACE_PROPERTY_KEY, Boolean.TRUE)
-                        .to(BROADCAST_UPDATE_EVENT_TOPIC_ENDPOINT_ID)
+                        .to(topic)
                         .publish(dto));
             }
             else {
@@ -179,9 +196,12 @@ public class MatsBrokerMonitorBroadcastAndControl implements MatsPlugin {
     private static class BroadcastUpdateEventDto implements UpdateEvent {
         private long suts;
         private String cid; // nullable
+        private List<String> cids; // nullable, if from older version
         private boolean fu;
+        private boolean pu;
         private BrokerInfoDto bi; // nullable
         private List<MatsBrokerDestinationDto> ds;
+        private List<String> rds; // nullable, if from older version
 
         public BroadcastUpdateEventDto() {
             /* need no-args constructor for deserializing with Jackson */
@@ -201,26 +221,37 @@ public class MatsBrokerMonitorBroadcastAndControl implements MatsPlugin {
             }
 
             return new BroadcastUpdateEventDto(updateEvent.isFullUpdate(),
+                    updateEvent.isPartialUpdate(),
                     updateEvent.getStatisticsUpdateMillis(),
                     updateEvent.getCorrelationId().orElse(null),
+                    updateEvent.getCorrelationIds(),
                     brokerInfoDto,
-                    destinationDtos);
+                    destinationDtos,
+                    new ArrayList<>(updateEvent.getRemovedDestinations()));
         }
 
-        public BroadcastUpdateEventDto(boolean fullUpdate, long statisticsUpdateMillis,
-                String correlationId, BrokerInfoDto brokerInfo,
-                List<MatsBrokerDestinationDto> destinations) {
+        public BroadcastUpdateEventDto(boolean fullUpdate, boolean partialUpdate, long statisticsUpdateMillis,
+                String correlationId, List<String> correlationIds, BrokerInfoDto brokerInfo,
+                List<MatsBrokerDestinationDto> destinations, List<String> removedDestinations) {
             this.suts = statisticsUpdateMillis;
             this.fu = fullUpdate;
+            this.pu = partialUpdate;
             this.cid = correlationId;
+            this.cids = correlationIds;
             this.bi = brokerInfo;
             this.ds = destinations;
+            this.rds = removedDestinations;
         }
 
         public boolean isFullUpdate() {
             return fu;
         }
 
+        @Override
+        public boolean isPartialUpdate() {
+            return pu;
+        }
+
         @Override
         public boolean isUpdateEventOriginatedOnThisNode() {
             return false;
@@ -240,6 +271,14 @@ public class MatsBrokerMonitorBroadcastAndControl implements MatsPlugin {
             return Optional.ofNullable(cid);
         }
 
+        @Override
+        public List<String> getCorrelationIds() {
+            if (cids != null) {
+                return cids;
+            }
+            return cid != null ? Collections.singletonList(cid) : Collections.emptyList();
+        }
+
         @Override
         public NavigableMap<String, MatsBrokerDestination> getEventDestinations() {
             TreeMap<String, MatsBrokerDestination> ret = new TreeMap<>();
@@ -248,6 +287,11 @@ public class MatsBrokerMonitorBroadcastAndControl implements MatsPlugin {
             }
             return ret;
         }
+
+        @Override
+        public Set<String> getRemovedDestinations() {
+            return rds != null ? new TreeSet<>(rds) : Collections.emptySet();
+        }
     }
 
     /**
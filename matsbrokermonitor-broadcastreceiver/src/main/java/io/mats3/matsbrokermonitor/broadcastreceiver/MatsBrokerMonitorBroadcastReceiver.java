@@ -1,12 +1,15 @@
 package io.mats3.matsbrokermonitor.broadcastreceiver;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Consumer;
@@ -41,6 +44,16 @@ public class MatsBrokerMonitorBroadcastReceiver implements MatsPlugin {
      */
     private static final String BROADCAST_UPDATE_EVENT_TOPIC_ENDPOINT_ID = "mats.MatsBrokerMonitor.broadcastUpdate";
 
+    /**
+     * Copied from <code>MatsBrokerMonitorBroadcastAndControl</code>.
+     * <p>
+     * The EndpointId to which the {@link UpdateEvent#isPartialUpdate() partial} update events are published.
+     * <p>
+     * Value is <code>"mats.MatsBrokerMonitor.broadcastPartialUpdate"</code>.
+     */
+    private static final String BROADCAST_PARTIAL_UPDATE_EVENT_TOPIC_ENDPOINT_ID =
+            "mats.MatsBrokerMonitor.broadcastPartialUpdate";
+
     /**
      * Copied from <code>MatsBrokerMonitorBroadcastAndControl</code>.
      * <p>
@@ -65,6 +78,7 @@ public class MatsBrokerMonitorBroadcastReceiver implements MatsPlugin {
     private static final String SUPPRESS_METRICS_ENDPOINT_ALLOWS_ATTRIBUTE_KEY = "mats.SuppressMetricsAllowed";
 
     private MatsEndpoint<Void, Void> _broadcastReceiver;
+    private MatsEndpoint<Void, Void> _partialBroadcastReceiver;
 
     private final MatsFactory _matsFactory;
 
@@ -101,76 +115,99 @@ public class MatsBrokerMonitorBroadcastReceiver implements MatsPlugin {
 
     @Override
     public void start(MatsFactory matsFactory) {
-        // :: Create the SubscriptionTerminator receiving the broadcast from MatsBrokerMonitorBroadcastAndControl
+        // :: Create the SubscriptionTerminators receiving the broadcasts from MatsBrokerMonitorBroadcastAndControl
         _broadcastReceiver = matsFactory.subscriptionTerminator(BROADCAST_UPDATE_EVENT_TOPIC_ENDPOINT_ID, void.class,
-                BroadcastUpdateEventDto.class, (ctx, state, updateEvent) -> {
-                    NavigableMap<String, MatsBrokerDestination> eventDestinations = updateEvent.getEventDestinations();
-                    if (log.isDebugEnabled()) log.debug("Received Update: FullUpdate:[" + updateEvent.isFullUpdate()
-                            + "], CorrelationId:[" + updateEvent.getCorrelationId()
-                            + "], # of destinations:[" + eventDestinations.size() + "].");
-
-                    // :: Move all MatsBrokerDestination to a Map with StageId as key, and then a Map with
-                    // StageDestinationType as key.
-                    Map<String, Map<StageDestinationType, MatsBrokerDestination>> destMap = new HashMap<>();
-                    for (MatsBrokerDestination dest : eventDestinations.values()) {
-                        if (dest.getMatsStageId().isPresent() && dest.getStageDestinationType().isPresent()) {
-                            Map<StageDestinationType, MatsBrokerDestination> stageMap = destMap
-                                    .computeIfAbsent(dest.getMatsStageId().get(), __ -> new HashMap<>());
-                            stageMap.put(dest.getStageDestinationType().get(), dest);
-                            if (log.isDebugEnabled()) log.debug(" \\- Received [" + dest.getStageDestinationType()
-                                    .get() + "] info [" + dest.getNumberOfQueuedMessages()
-                                    + " msgs] for stage [" + dest.getMatsStageId().get() + "]");
-                        }
-                    }
+                BroadcastUpdateEventDto.class, (ctx, state, updateEvent) -> updateEventReceived(matsFactory,
+                        updateEvent));
+        // .. and the partial updates, which are on their own topic so that older receivers don't get them.
+        _partialBroadcastReceiver = matsFactory.subscriptionTerminator(
+                BROADCAST_PARTIAL_UPDATE_EVENT_TOPIC_ENDPOINT_ID, void.class, BroadcastUpdateEventDto.class,
+                (ctx, state, updateEvent) -> updateEventReceived(matsFactory, updateEvent));
+        // :: We don't want this to be logged and measured (metrics), as it will be annoying noise without much merit.
+        // Allow for log and metrics suppression for these SubscriptionTerminators
+        for (MatsEndpoint<Void, Void> receiver : List.of(_broadcastReceiver, _partialBroadcastReceiver)) {
+            receiver.getEndpointConfig()
+                    .setAttribute(SUPPRESS_LOGGING_ENDPOINT_ALLOWS_ATTRIBUTE_KEY, Boolean.TRUE)
+                    .setAttribute(SUPPRESS_METRICS_ENDPOINT_ALLOWS_ATTRIBUTE_KEY, Boolean.TRUE);
+        }
+    }
 
-                    // :: For all Stages for all Endpoints in the MatsFactory, add the destination info as a set of
-                    // attributes on the StageConfig, using above maps. If we don't have info for a stage, we null it.
-                    List<MatsEndpoint<?, ?>> endpoints = matsFactory.getEndpoints();
-                    for (MatsEndpoint<?, ?> endpoint : endpoints) {
-                        List<? extends MatsStage<?, ?, ?>> stages = endpoint.getStages();
-                        for (MatsStage<?, ?, ?> stage : stages) {
-                            StageConfig<?, ?, ?> stageConfig = stage.getStageConfig();
-                            String stageId = stageConfig.getStageId();
-                            Map<StageDestinationType, MatsBrokerDestination> typeMap = destMap.get(stageId);
-                            for (StageDestinationType enumV : StageDestinationType.values()) {
-                                // We want to set null if the destination is not present in the update.
-                                MatsBrokerDestination dest = typeMap != null
-                                        ? typeMap.get(enumV) // might return null, which is correct.
-                                        : null;
-                                stageConfig.setAttribute(enumV.getStageAttribute(), dest);
-                                stageConfig.setAttribute(enumV.getStageAttributeAge(), dest != null
-                                        ? dest.getHeadMessageAgeMillis()
-                                        : null);
-                                stageConfig.setAttribute(enumV.getStageAttributeSize(), dest != null
-                                        ? dest.getNumberOfQueuedMessages()
-                                        : null);
-                            }
-                        }
-                    }
+    private void updateEventReceived(MatsFactory matsFactory, BroadcastUpdateEventDto updateEvent) {
+        NavigableMap<String, MatsBrokerDestination> eventDestinations = updateEvent.getEventDestinations();
+        if (log.isDebugEnabled()) log.debug("Received Update: FullUpdate:[" + updateEvent.isFullUpdate()
+                + "], PartialUpdate:[" + updateEvent.isPartialUpdate()
+                + "], CorrelationId:[" + updateEvent.getCorrelationId()
+                + "], # of destinations:[" + eventDestinations.size() + "].");
+
+        // :: Move all MatsBrokerDestination to a Map with StageId as key, and then a Map with
+        // StageDestinationType as key.
+        Map<String, Map<StageDestinationType, MatsBrokerDestination>> destMap = new HashMap<>();
+        for (MatsBrokerDestination dest : eventDestinations.values()) {
+            if (dest.getMatsStageId().isPresent() && dest.getStageDestinationType().isPresent()) {
+                Map<StageDestinationType, MatsBrokerDestination> stageMap = destMap
+                        .computeIfAbsent(dest.getMatsStageId().get(), __ -> new HashMap<>());
+                stageMap.put(dest.getStageDestinationType().get(), dest);
+                if (log.isDebugEnabled()) log.debug(" \\- Received [" + dest.getStageDestinationType()
+                        .get() + "] info [" + dest.getNumberOfQueuedMessages()
+                        + " msgs] for stage [" + dest.getMatsStageId().get() + "]");
+            }
+        }
 
-                    // :: Notify any listeners.
-                    for (Consumer<UpdateEvent> listener : _listeners) {
-                        try {
-                            listener.accept(updateEvent);
-                        }
-                        catch (Throwable t) {
-                            log.error("The listener of class [" + listener.getClass().getName()
-                                    + "] threw when being invoked. Ignoring.", t);
+        // :: For all Stages for all Endpoints in the MatsFactory, add the destination info as a set of
+        // attributes on the StageConfig, using above maps. If we don't have info for a stage, we null it -
+        // unless this is a partial update, where we only touch the destinations that were updated or removed.
+        boolean partialUpdate = updateEvent.isPartialUpdate();
+        Set<String> removedDestinations = updateEvent.getRemovedDestinations();
+        List<MatsEndpoint<?, ?>> endpoints = matsFactory.getEndpoints();
+        for (MatsEndpoint<?, ?> endpoint : endpoints) {
+            List<? extends MatsStage<?, ?, ?>> stages = endpoint.getStages();
+            for (MatsStage<?, ?, ?> stage : stages) {
+                StageConfig<?, ?, ?> stageConfig = stage.getStageConfig();
+                String stageId = stageConfig.getStageId();
+                Map<StageDestinationType, MatsBrokerDestination> typeMap = destMap.get(stageId);
+                for (StageDestinationType enumV : StageDestinationType.values()) {
+                    // ?: Partial update, and this destination was not updated?
+                    if (partialUpdate && ((typeMap == null) || !typeMap.containsKey(enumV))) {
+                        // -> Yes, so leave it as it was - unless it is removed, in which case it shall be nulled.
+                        MatsBrokerDestination current = stageConfig.getAttribute(enumV.getStageAttribute());
+                        if ((current == null) || !removedDestinations.contains(current.getFqDestinationName())) {
+                            continue;
                         }
                     }
-                });
-        // :: We don't want this to be logged and measured (metrics), as it will be annoying noise without much merit.
-        // Allow for log and metrics suppression for this SubscriptionTerminator
-        _broadcastReceiver.getEndpointConfig()
-                .setAttribute(SUPPRESS_LOGGING_ENDPOINT_ALLOWS_ATTRIBUTE_KEY, Boolean.TRUE)
-                .setAttribute(SUPPRESS_METRICS_ENDPOINT_ALLOWS_ATTRIBUTE_KEY, Boolean.TRUE);
+                    // We want to set null if the destination is not present in the update.
+                    MatsBrokerDestination dest = typeMap != null
+                            ? typeMap.get(enumV) // might return null, which is correct.
+                            : null;
+                    stageConfig.setAttribute(enumV.getStageAttribute(), dest);
+                    stageConfig.setAttribute(enumV.getStageAttributeAge(), dest != null
+                            ? dest.getHeadMessageAgeMillis()
+                            : null);
+                    stageConfig.setAttribute(enumV.getStageAttributeSize(), dest != null
+                            ? dest.getNumberOfQueuedMessages()
+                            : null);
+                }
+            }
+        }
+
+        // :: Notify any listeners.
+        for (Consumer<UpdateEvent> listener : _listeners) {
+            try {
+                listener.accept(updateEvent);
+            }
+            catch (Throwable t) {
+                log.error("The listener of class [" + listener.getClass().getName()
+                        + "] threw when being invoked. Ignoring.", t);
+            }
+        }
     }
 
     @Override
     public void preStop() {
-        // Remove and null the SubscriptionTerminator Endpoint from MatsFactory, just to be clean.
+        // Remove and null the SubscriptionTerminator Endpoints from MatsFactory, just to be clean.
         _broadcastReceiver.remove(15_000);
         _broadcastReceiver = null;
+        _partialBroadcastReceiver.remove(15_000);
+        _partialBroadcastReceiver = null;
         // No more listeners
         _listeners.clear();
     }
@@ -184,9 +221,12 @@ public class MatsBrokerMonitorBroadcastReceiver implements MatsPlugin {
     private static class BroadcastUpdateEventDto implements UpdateEvent {
         private long suts;
         private String cid; // nullable
+        private List<String> cids; // nullable, if from older version
         private boolean fu;
+        private boolean pu;
         private BrokerInfoDto bi; // nullable
         private List<MatsBrokerDestinationDto> ds;
+        private List<String> rds; // nullable, if from older version
 
         public BroadcastUpdateEventDto() {
             /* need no-args constructor for deserializing with Jackson */
@@ -206,26 +246,37 @@ public class MatsBrokerMonitorBroadcastReceiver implements MatsPlugin {
             }
 
             return new BroadcastUpdateEventDto(updateEvent.isFullUpdate(),
+                    updateEvent.isPartialUpdate(),
                     updateEvent.getStatisticsUpdateMillis(),
                     updateEvent.getCorrelationId().orElse(null),
+                    updateEvent.getCorrelationIds(),
                     brokerInfoDto,
-                    destinationDtos);
+                    destinationDtos,
+                    new ArrayList<>(updateEvent.getRemovedDestinations()));
         }
 
-        public BroadcastUpdateEventDto(boolean fullUpdate, long statisticsUpdateMillis,
-                String correlationId, BrokerInfoDto brokerInfo,
-                List<MatsBrokerDestinationDto> destinations) {
+        public BroadcastUpdateEventDto(boolean fullUpdate, boolean partialUpdate, long statisticsUpdateMillis,
+                String correlationId, List<String> correlationIds, BrokerInfoDto brokerInfo,
+                List<MatsBrokerDestinationDto> destinations, List<String> removedDestinations) {
             this.suts = statisticsUpdateMillis;
             this.fu = fullUpdate;
+            this.pu = partialUpdate;
             this.cid = correlationId;
+            this.cids = correlationIds;
             this.bi = brokerInfo;
             this.ds = destinations;
+            this.rds = removedDestinations;
         }
 
         public boolean isFullUpdate() {
             return fu;
         }
 
+        @Override
+        public boolean isPartialUpdate() {
+            return pu;
+        }
+
         @Override
         public boolean isUpdateEventOriginatedOnThisNode() {
             return false;
@@ -245,6 +296,14 @@ public class MatsBrokerMonitorBroadcastReceiver implements MatsPlugin {
             return Optional.ofNullable(cid);
         }
 
+        @Override
+        public List<String> getCorrelationIds() {
+            if (cids != null) {
+                return cids;
+            }
+            return cid != null ? Collections.singletonList(cid) : Collections.emptyList();
+        }
+
         @Override
         public NavigableMap<String, MatsBrokerDestination> getEventDestinations() {
             TreeMap<String, MatsBrokerDestination> ret = new TreeMap<>();
@@ -254,12 +313,18 @@ public class MatsBrokerMonitorBroadcastReceiver implements MatsPlugin {
             return ret;
         }
 
+        @Override
+        public Set<String> getRemovedDestinations() {
+            return rds != null ? new TreeSet<>(rds) : Collections.emptySet();
+        }
+
         @Override
         public String toString() {
             return "UpdateEventDto{" +
                     "statisticsUpdateMillis=" + suts +
                     ", correlationId='" + cid + '\'' +
                     ", isFullUpdate=" + fu +
+                    ", isPartialUpdate=" + pu +
                     ", brokerInfo=" + bi +
                     ", eventDestinations=" + ds.size() +
                     '}';
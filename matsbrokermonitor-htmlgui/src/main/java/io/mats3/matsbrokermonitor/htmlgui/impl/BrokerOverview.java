@@ -20,6 +20,7 @@ import java.util.stream.Stream;
 
 import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor;
 import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerInfo;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerResourceUsage;
 import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerSnapshot;
 import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination;
 import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.DestinationType;
@@ -39,6 +40,10 @@ import io.mats3.matsbrokermonitor.htmlgui.MatsBrokerMonitorHtmlGui.MonitorAdditi
 class BrokerOverview {
 
     private static final long TOO_OLD = 10 * 60 * 1000;
+    // If the head age is forecast to pass TOO_OLD within this, the forecast is marked.
+    private static final long FORECAST_TOO_OLD_WITHIN = 5 * 60 * 1000;
+    // If the broker's store or temp is projected to hit the limit within this, the projection is marked.
+    private static final long RESOURCE_LIMIT_WITHIN = 6 * 60 * 60 * 1000;
 
     static void gui_BrokerOverview(MatsBrokerMonitor matsBrokerMonitor, List<? super MonitorAddition> monitorAdditions,
             Outputter out, Map<String, String[]> requestParameters, AccessControl ac)
@@ -68,6 +73,15 @@ class BrokerOverview {
         }
         out.html("</div>\n"); // /matsbm_heading
 
+        // ?: Is this a stale snapshot, e.g. loaded from file after a restart?
+        if (snapshot.isStale()) {
+            // -> Yes, so make that very clear.
+            out.html("<div class='matsbm_snapshot_stale'>STALE DATA: Until the first complete live update from the"
+                    + " broker has arrived, the destinations not yet updated show their last known state from before a"
+                    + " restart - snapshot last updated ")
+                    .DATA(Statics.formatTimestampSpan(snapshot.getLastUpdateLocalMillis())).html(".</div>\n");
+        }
+
         Collection<MatsBrokerDestination> destinations = snapshot.getMatsDestinations().values();
 
         // "Stack up" into a Mats Fabric representation
@@ -112,8 +126,30 @@ class BrokerOverview {
                     .DATA(Math.round(snapshot.getStatisticsRequestReplyLatencyMillis().getAsDouble() * 100d) / 100d)
                     .html(" ms</b>");
         }
+        // ?: Does the implementation tell the update interval?
+        if (snapshot.getUpdateIntervalMillis() > 0) {
+            // -> Yes, so show it.
+            out.html(" - Update interval: <b>").DATA(Math.round(snapshot.getUpdateIntervalMillis() / 100d) / 10d)
+                    .html(" s</b> [").DATA(snapshot.getUpdateIntervalReason()).html("]");
+        }
         out.html(")</i><br>");
 
+        // :: Broker resources, with projections of when store and temp are full.
+        Optional<BrokerResourceUsage> resourceUsageO = snapshot.getBrokerResourceUsage();
+        if (resourceUsageO.isPresent()) {
+            BrokerResourceUsage usage = resourceUsageO.get();
+            out.html("<div class='matsbm_broker_resources'>Broker store: ");
+            out_resource(out, usage.getStoreUsage(), usage.getStoreLimit(), usage.getStorePercentUsage(),
+                    usage.getStoreTimeToLimitMillis());
+            out.html(" &mdash; temp: ");
+            out_resource(out, usage.getTempUsage(), usage.getTempLimit(), usage.getTempPercentUsage(),
+                    usage.getTempTimeToLimitMillis());
+            out.html(" &mdash; memory: ");
+            out_resource(out, usage.getMemoryUsage(), usage.getMemoryLimit(), usage.getMemoryPercentUsage(),
+                    OptionalLong.empty());
+            out.html("</div>\n");
+        }
+
         // ==== HEADER INCOMING & DLQ SUMMARY
 
         // :: Header info: TOTAL INCOMING MESSAGES
@@ -712,6 +748,19 @@ class BrokerOverview {
                 || (showWhat == ShowWhat.BAD && (epgrHasOldMsgsOnIncoming || epgrHasDlqsMsgs));
     }
 
+    private static void out_resource(Outputter out, long usage, long limit, int percentUsage,
+            OptionalLong timeToLimitMillis) throws IOException {
+        out.html("<b>").DATA(percentUsage).html("%</b> (").DATA(usage / (1024 * 1024))
+                .html(" of ").DATA(limit / (1024 * 1024)).html(" MB)");
+        // ?: Do we have a projection, where it will hit the limit?
+        if (timeToLimitMillis.isPresent() && (timeToLimitMillis.getAsLong() != MatsBrokerDestination.FORECAST_NEVER)) {
+            // -> Yes, so output it - marked if soon.
+            boolean soon = timeToLimitMillis.getAsLong() <= RESOURCE_LIMIT_WITHIN;
+            out.html(" <span class='matsbm_age").html(soon ? " matsbm_messages_old" : "").html("'>full in ~")
+                    .DATA(Statics.millisSpanToHuman(timeToLimitMillis.getAsLong())).html("</span>");
+        }
+    }
+
     private enum ShowWhat {
         ALL,
 
@@ -806,5 +855,22 @@ class BrokerOverview {
                     .DATA(Statics.millisSpanToHuman(age))
                     .html(")</div>");
         }
+
+        // :: Forecast for non-DLQ queues with messages: When drained, and is it getting too old?
+        OptionalLong drainEta = destination.getDrainEtaMillis();
+        if ((numberOfQueuedMessages > 0) && (!isDlq) && drainEta.isPresent()
+                && (destination.getDestinationType() == DestinationType.QUEUE)) {
+            long breachEta = destination.getHeadAgeBreachEtaMillis(TOO_OLD)
+                    .orElse(MatsBrokerDestination.FORECAST_NEVER);
+            boolean markForecastOld = (age <= TOO_OLD) && (breachEta <= FORECAST_TOO_OLD_WITHIN);
+            out.html("<div class='matsbm_age")
+                    .html(markForecastOld ? " matsbm_messages_old" : "")
+                    .html("'>[")
+                    .DATA(drainEta.getAsLong() == MatsBrokerDestination.FORECAST_NEVER
+                            ? "not draining"
+                            : "drained in ~" + Statics.millisSpanToHuman(drainEta.getAsLong()))
+                    .DATA(markForecastOld ? ", too old in ~" + Statics.millisSpanToHuman(breachEta) : "")
+                    .html("]</div>");
+        }
     }
 }
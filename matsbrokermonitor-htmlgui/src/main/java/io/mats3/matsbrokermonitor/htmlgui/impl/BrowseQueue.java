@@ -32,6 +32,7 @@ import io.mats3.matsbrokermonitor.api.MatsBrokerBrowseAndActions.MatsBrokerMessa
 import io.mats3.matsbrokermonitor.api.MatsBrokerBrowseAndActions.MatsBrokerMessageRepresentation;
 import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor;
 import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerSnapshot;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.DestinationCounters;
 import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination;
 import io.mats3.matsbrokermonitor.api.MatsFabricAggregatedRepresentation;
 import io.mats3.matsbrokermonitor.api.MatsFabricAggregatedRepresentation.MatsStageBrokerRepresentation;
@@ -152,6 +153,29 @@ class BrowseQueue {
         }
         out.html("<br>\n");
 
+        // :: COUNTERS, if the monitor provides them.
+        Optional<DestinationCounters> counters_ = matsBrokerDestination.getCounters();
+        if (counters_.isPresent()) {
+            DestinationCounters counters = counters_.get();
+            out.html("<div class='matsbm_counters'>");
+            out.html("Consumers: <b>").DATA(counters.getConsumerCount())
+                    .html("</b>, producers: <b>").DATA(counters.getProducerCount()).html("</b>");
+            out.html(" &mdash; Enqueued: ").DATA(counters.getEnqueueCount())
+                    .html(", dequeued: ").DATA(counters.getDequeueCount())
+                    .html(", dispatched: ").DATA(counters.getDispatchCount())
+                    .html(", expired: ").DATA(counters.getExpiredCount())
+                    .html(" <i>(since broker start)</i><br>\n");
+            out.html("Enqueue time min/avg/max: ")
+                    .DATA(Statics.millisSpanToHuman((long) counters.getMinEnqueueTimeMillis())).html(" / ")
+                    .DATA(Statics.millisSpanToHuman((long) counters.getAverageEnqueueTimeMillis())).html(" / ")
+                    .DATA(Statics.millisSpanToHuman((long) counters.getMaxEnqueueTimeMillis()));
+            out.html(" &mdash; Average message size: ").DATA(counters.getAverageMessageSize()).html(" bytes");
+            out.html(" &mdash; Broker memory: ").DATA(counters.getMemoryUsage())
+                    .html(" of ").DATA(counters.getMemoryLimit())
+                    .html(" bytes (").DATA(counters.getMemoryPercentUsage()).html("%)");
+            out.html("</div>\n");
+        }
+
         // Placeholder for JavaScript to output messages
         out.html("<span id='matsbm_action_message' class='matsbm_action_message matsbm_action_message_browse_queue'>"
                 + "</span>\n");
@@ -11,6 +11,9 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ThreadLocalRandom;
@@ -23,6 +26,9 @@ import org.slf4j.LoggerFactory;
 import io.mats3.matsbrokermonitor.api.MatsBrokerBrowseAndActions;
 import io.mats3.matsbrokermonitor.api.MatsBrokerBrowseAndActions.MatsBrokerMessageMetadata;
 import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerSnapshot;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.StageDestinationType;
 import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.UpdateEvent;
 import io.mats3.matsbrokermonitor.htmlgui.MatsBrokerMonitorHtmlGui;
 import io.mats3.serial.MatsSerializer;
@@ -65,10 +71,11 @@ public class MatsBrokerMonitorHtmlGuiImpl implements MatsBrokerMonitorHtmlGui, S
     private class UpdateEventListener implements Consumer<UpdateEvent> {
         @Override
         public void accept(UpdateEvent updateEvent) {
-            if (updateEvent.getCorrelationId().isPresent()) {
-                CountDownLatch waitingLatch = _updateEventWaiters.get(updateEvent.getCorrelationId().get());
+            // Forced updates may be merged, so the event may complete several correlationIds.
+            for (String correlationId : updateEvent.getCorrelationIds()) {
+                CountDownLatch waitingLatch = _updateEventWaiters.get(correlationId);
                 if (waitingLatch != null) {
-                    log.info("Got update event, found waiter for: " + updateEvent);
+                    log.info("Got update event, found waiter for [" + correlationId + "]: " + updateEvent);
                     waitingLatch.countDown();
                 }
             }
@@ -290,9 +297,10 @@ public class MatsBrokerMonitorHtmlGuiImpl implements MatsBrokerMonitorHtmlGui, S
                 result.timeTakenMillis = Math.round((System.nanoTime() - nanosAtStart_wait) / 1000d) / 1000d;
                 out.append(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(result));
 
-                // Run a forceUpdate to get newer info - this is async, returning "immediately".
+                // Run a targeted forceUpdate to get newer info - this is async, returning "immediately".
                 _matsBrokerMonitor.forceUpdate("After_" + command.action + "_"
-                        + Long.toString(ThreadLocalRandom.current().nextLong(), 36), false);
+                        + Long.toString(ThreadLocalRandom.current().nextLong(), 36),
+                        fqDestinationNamesAffectedByAction(command.queueId));
                 break;
             }
             // ?: REISSUE ALL, MUTE ALL or DELETE ALL
@@ -354,8 +362,9 @@ public class MatsBrokerMonitorHtmlGuiImpl implements MatsBrokerMonitorHtmlGui, S
                 result.timeTakenMillis = Math.round((System.nanoTime() - nanosAtStart_wait) / 1000d) / 1000d;
                 out.append(MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(result));
 
-                // Run a forceUpdate to get newer info - this is async, returning "immediately".
-                _matsBrokerMonitor.forceUpdate("After_" + command.action + "_" + random(), false);
+                // Run a targeted forceUpdate to get newer info - this is async, returning "immediately".
+                _matsBrokerMonitor.forceUpdate("After_" + command.action + "_" + random(),
+                        fqDestinationNamesAffectedByAction(command.queueId));
                 break;
             }
             // ?: FORCE UPDATE?
@@ -400,6 +409,50 @@ public class MatsBrokerMonitorHtmlGuiImpl implements MatsBrokerMonitorHtmlGui, S
         }
     }
 
+    /**
+     * The actions reissue, mute and delete work on a queue, but reissue and mute also put messages on other
+     * destinations of the same Mats Stage (the standard queue, or the muted DLQ), so we refresh all the destinations
+     * of the stage - which is still only a handful of destinations, instead of all on the broker. Their names are
+     * derived from the name of the queue, which is <code>"[DLQ prefix.][Mats prefix][midfix][StageId]"</code>. (Any
+     * not existing on the broker just gives no stats.)
+     */
+    private Set<String> fqDestinationNamesAffectedByAction(String queueId) {
+        Set<String> fqDestinationNames = new TreeSet<>();
+        String fqDestinationName = "queue://" + queueId;
+        fqDestinationNames.add(fqDestinationName);
+        Optional<BrokerSnapshot> snapshot = _matsBrokerMonitor.getSnapshot();
+        if (snapshot.isEmpty()) {
+            return fqDestinationNames;
+        }
+        MatsBrokerDestination actionDestination = snapshot.get().getMatsDestinations().get(fqDestinationName);
+        // ?: Is this queue a known Mats Stage destination?
+        if ((actionDestination == null) || actionDestination.getMatsStageId().isEmpty()
+                || actionDestination.getStageDestinationType().isEmpty()) {
+            // -> No, so only refresh the queue itself.
+            return fqDestinationNames;
+        }
+        String stageId = actionDestination.getMatsStageId().get();
+        StageDestinationType actionType = actionDestination.getStageDestinationType().get();
+        String suffix = actionType.getMidfix() + stageId;
+        // ?: Is the name as expected? (Should always be.)
+        if (!queueId.endsWith(suffix)) {
+            // -> No, so only refresh the queue itself.
+            return fqDestinationNames;
+        }
+        String head = queueId.substring(0, queueId.length() - suffix.length());
+        // The DLQ prefix has no dot, so the non-DLQs' prefix is what follows the first dot of a DLQ's head. (If the
+        // queue is not a DLQ, we don't know the DLQ prefix - but then no messages are moved to any DLQ either.)
+        String matsPrefix = actionType.isDlq() ? head.substring(head.indexOf('.') + 1) : head;
+        String dlqHead = actionType.isDlq() ? head : null;
+        for (StageDestinationType type : StageDestinationType.values()) {
+            String typeHead = type.isDlq() ? dlqHead : matsPrefix;
+            if ((type != StageDestinationType.UNKNOWN) && (typeHead != null)) {
+                fqDestinationNames.add("queue://" + typeHead + type.getMidfix() + stageId);
+            }
+        }
+        return fqDestinationNames;
+    }
+
     private static class CommandDto {
         String action;
         String queueId;
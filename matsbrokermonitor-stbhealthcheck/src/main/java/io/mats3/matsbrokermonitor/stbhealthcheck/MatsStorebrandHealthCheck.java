@@ -22,6 +22,8 @@ import io.mats3.MatsEndpoint;
 import io.mats3.MatsFactory;
 import io.mats3.MatsStage;
 import io.mats3.MatsStage.StageConfig;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerInfo;
+import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.BrokerResourceUsage;
 import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination;
 import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.MatsBrokerDestination.StageDestinationType;
 import io.mats3.matsbrokermonitor.api.MatsBrokerMonitor.UpdateEvent;
@@ -50,8 +52,15 @@ public class MatsStorebrandHealthCheck {
     private static final double SLOW_OLD_MESSAGES_MINUTES = 20;
     private static final double SLOW_VERY_OLD_MESSAGES_MINUTES = 60;
 
+    // Stages forecast to get old messages within this time, at the current rates, are flagged before they are old.
+    private static final double FORECAST_OLD_MESSAGES_MINUTES = 5;
+
     private static final double UPDATE_INTERVAL_TOO_LONG_MINUTES = 15;
 
+    // The broker's store or temp projected to be full within these, at the recent growth, is degraded or critical.
+    private static final double RESOURCE_FULL_DEGRADED_MINUTES = 6 * 60;
+    private static final double RESOURCE_FULL_CRITICAL_MINUTES = 60;
+
     /**
      * Installs a HealthCheck on the provided {@link HealthCheckRegistry} for the provided {@link MatsFactory}, checking
      * the health of the MatsFactory's Queues (old messages) and DLQs (messages present).
@@ -88,9 +97,11 @@ public class MatsStorebrandHealthCheck {
             var atomicBroadcast = new AtomicReference<MatsBrokerMonitorBroadcastReceiver>();
             var lastUpdated = new AtomicLong(System.currentTimeMillis());
             var updateEverGotten = new AtomicBoolean();
+            var latestResourceUsage = new AtomicReference<BrokerResourceUsage>();
             Consumer<UpdateEvent> updateListener = updateEvent -> {
                 updateEverGotten.set(true);
                 lastUpdated.set(updateEvent.getStatisticsUpdateMillis());
+                updateEvent.getBrokerInfo().flatMap(BrokerInfo::getResourceUsage).ifPresent(latestResourceUsage::set);
             };
 
             // :: Asserting that we have the broadcast receiver plugin installed (and hooked), and receiving updates.
@@ -247,7 +258,14 @@ public class MatsStorebrandHealthCheck {
                                 double veryOldLimit = slowEndpoint ? SLOW_VERY_OLD_MESSAGES_MINUTES
                                         : VERY_OLD_MESSAGES_MINUTES;
 
-                                if (ageMinutes > MIDDLE_AGED_MESSAGES_MINUTES) {
+                                // :: Forecast: When will the head age pass the old limit, at the current rates?
+                                long oldLimitMillis = (long) (oldLimit * 60 * 1000);
+                                long breachEta = Math.min(headAgeBreachEtaMillis(dlqDest, oldLimitMillis),
+                                        headAgeBreachEtaMillis(npiaDlqDest, oldLimitMillis));
+                                boolean forecastOld = (ageMinutes <= oldLimit)
+                                        && (breachEta / (60 * 1000d) <= FORECAST_OLD_MESSAGES_MINUTES);
+
+                                if ((ageMinutes > MIDDLE_AGED_MESSAGES_MINUTES) || forecastOld) {
                                     if (!headerPrinted) {
                                         checkContext.text("");
                                         checkContext.text("== Stages with old head message:");
@@ -277,6 +295,13 @@ public class MatsStorebrandHealthCheck {
                                         checkContext.text(" - OLD! " + (slowEndpoint ? "(slow) " : "")
                                                 + stageId + ": " + maxAgeFormat);
                                     }
+                                    else if (forecastOld) {
+                                        // -> Not old yet, but forecast to be soon.
+                                        numBadStages++;
+                                        checkContext.text(" - SOON OLD! " + (slowEndpoint ? "(slow) " : "")
+                                                + stageId + ": " + maxAgeFormat + ", forecast old in "
+                                                + durationFormat(Duration.ofMillis(breachEta)));
+                                    }
                                     else {
                                         // -> Ok - but potentially going bad
                                         // This is just for info, not yet counted as bad.
@@ -299,7 +324,7 @@ public class MatsStorebrandHealthCheck {
                         // E-> No we're not clean; We have old messages present.
 
                         CheckResult fault = checkContext.fault("There are " + numBadStages + " stage"
-                                + (numBadStages > 1 ? "s" : "") + " with messages above age limit,"
+                                + (numBadStages > 1 ? "s" : "") + " with messages above, or soon above, age limit,"
                                 + " max age: " + durationFormat(Duration.ofMillis(oldest)));
                         if (veryOldPresent) {
                             checkContext.text("There are VERY OLD messages: CRITICAL!");
@@ -313,9 +338,68 @@ public class MatsStorebrandHealthCheck {
                         return fault;
                     });
 
+            // :: Broker resources:
+            checkSpec.staticText(" "); // Space to get an empty line.
+            checkSpec.check(responsibleF,
+                    Axis.of(Axis.DEGRADED_PARTIAL, Axis.CRITICAL_WAKE_PEOPLE_UP),
+                    checkContext -> {
+                        BrokerResourceUsage usage = latestResourceUsage.get();
+                        if (usage == null) {
+                            return checkContext.ok("== Broker resources: No resource usage from the broker (yet).");
+                        }
+                        long storeFullMillis = usage.getStoreTimeToLimitMillis()
+                                .orElse(MatsBrokerDestination.FORECAST_NEVER);
+                        long tempFullMillis = usage.getTempTimeToLimitMillis()
+                                .orElse(MatsBrokerDestination.FORECAST_NEVER);
+                        checkContext.text("Store: " + usage.getStorePercentUsage() + "%"
+                                + fullInText(storeFullMillis) + ", temp: " + usage.getTempPercentUsage() + "%"
+                                + fullInText(tempFullMillis) + ", memory: " + usage.getMemoryPercentUsage() + "%");
+
+                        long fullMillis = Math.min(storeFullMillis, tempFullMillis);
+                        double fullMinutes = fullMillis / (60 * 1000d);
+                        // ?: Is neither projected to be full soon?
+                        if (fullMinutes > RESOURCE_FULL_DEGRADED_MINUTES) {
+                            // -> Yes, all good.
+                            return checkContext.ok("== Broker resources: Store and temp are not projected to be full"
+                                    + " soon.");
+                        }
+                        // E-> Store or temp is projected to be full soon.
+                        CheckResult fault = checkContext.fault("The broker's store or temp is projected to be full in "
+                                + durationFormat(Duration.ofMillis(fullMillis)));
+                        if (fullMinutes <= RESOURCE_FULL_CRITICAL_MINUTES) {
+                            checkContext.text("Full within " + RESOURCE_FULL_CRITICAL_MINUTES + " minutes: CRITICAL!");
+                        }
+                        else {
+                            checkContext.text("Full within " + RESOURCE_FULL_DEGRADED_MINUTES + " minutes:"
+                                    + " DEGRADED_PARTIAL!");
+                            fault.turnOffAxes(Axis.CRITICAL_WAKE_PEOPLE_UP);
+                        }
+                        checkContext.text("When the store is full, the broker blocks the producers - check for"
+                                + " piled up DLQs!");
+                        return fault;
+                    });
+
         });
     }
 
+    /**
+     * @return the {@link MatsBrokerDestination#getHeadAgeBreachEtaMillis(long) forecast} of when the head age of the
+     *         destination passes the limit, or {@link MatsBrokerDestination#FORECAST_NEVER} if no destination or no
+     *         forecast.
+     */
+    private static long headAgeBreachEtaMillis(MatsBrokerDestination destination, long headAgeLimitMillis) {
+        return destination != null
+                ? destination.getHeadAgeBreachEtaMillis(headAgeLimitMillis)
+                        .orElse(MatsBrokerDestination.FORECAST_NEVER)
+                : MatsBrokerDestination.FORECAST_NEVER;
+    }
+
+    private static String fullInText(long fullMillis) {
+        return fullMillis == MatsBrokerDestination.FORECAST_NEVER
+                ? ""
+                : " (full in " + durationFormat(Duration.ofMillis(fullMillis)) + ")";
+    }
+
     /**
      * Formats the given duration to a human readable string.
      */